@@ -0,0 +1,47 @@
+-- Compares the watched_games row storage with the watched_game_sets bitmap storage.
+-- Run after database/migrations/001_watched_game_sets.sql against a database with realistic data:
+--
+--   psql -U postgres -d later_ladder -f database/benchmarks/watched_games_storage.sql
+--
+-- Reports row counts, table and index sizes, and the latency of the lookups the DAOs perform for user 1.
+
+-- Row counts
+SELECT 'watched_games' AS storage, COUNT(*) AS row_count FROM watched_games
+UNION ALL
+SELECT 'watched_game_sets', COUNT(*) FROM watched_game_sets;
+
+-- Table, index and total sizes
+SELECT relname AS storage,
+    pg_size_pretty(pg_table_size(oid)) AS table_size,
+    pg_size_pretty(pg_indexes_size(oid)) AS index_size,
+    pg_size_pretty(pg_total_relation_size(oid)) AS total_size
+FROM pg_class
+WHERE relname IN ('watched_games', 'watched_game_sets');
+
+-- Membership: is a game watched (JdbcWatchedGamesDao.isGameWatched)
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT COUNT(*) FROM watched_games WHERE user_id = 1 AND game_id = (SELECT MIN(id) FROM games);
+
+-- Membership: the bitmap DAO reads the user's season rows and tests the bit in memory
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT user_id, year, base_game_id, bits FROM watched_game_sets WHERE user_id = 1 ORDER BY year;
+
+-- All watched game IDs, as folded into the ladder (findWatchedGameIds)
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT game_id FROM watched_games WHERE user_id = 1;
+
+-- Round filter: unwatched games in a round (findUnwatchedGamesByRound)
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT g.* FROM games g
+LEFT JOIN watched_games wg ON g.id = wg.game_id AND wg.user_id = 1
+WHERE wg.game_id IS NULL AND g.round = 1;
+
+-- Round filter with bitmaps: the round's games are read once and tested against the season bitmap in memory
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT * FROM games WHERE round = 1 ORDER BY date ASC;
+
+-- Full ladder recalculation source rows for one user (JdbcUserLadderEntryDao.recalculateUserLadderEntries)
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT s.user_id, s.base_game_id + n AS game_id FROM watched_game_sets s
+CROSS JOIN LATERAL generate_series(0, length(s.bits) * 8 - 1) AS n
+WHERE s.user_id = 1 AND get_bit(s.bits, n) = 1;
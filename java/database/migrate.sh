@@ -0,0 +1,19 @@
+#!/bin/bash
+# Applies the migrations in database/migrations that have not been applied yet, in order of their version number, and
+# records each one in the schema_migrations table. A migration that fails stops the run.
+export PGPASSWORD='postgres1'
+BASEDIR=$(dirname $0)
+DATABASE=later_ladder
+
+psql -U postgres -d $DATABASE -v ON_ERROR_STOP=1 -q \
+    -c "CREATE TABLE IF NOT EXISTS schema_migrations (version VARCHAR(50) PRIMARY KEY, applied_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT now())" || exit 1
+
+for MIGRATION in "$BASEDIR"/migrations/[0-9]*.sql; do
+    VERSION=$(basename "$MIGRATION" .sql)
+    APPLIED=$(psql -U postgres -d $DATABASE -tA -c "SELECT 1 FROM schema_migrations WHERE version = '$VERSION'")
+    if [ "$APPLIED" != "1" ]; then
+        echo "Applying $VERSION"
+        psql -U postgres -d $DATABASE -v ON_ERROR_STOP=1 -f "$MIGRATION" &&
+        psql -U postgres -d $DATABASE -q -c "INSERT INTO schema_migrations (version) VALUES ('$VERSION')" || exit 1
+    fi
+done
@@ -0,0 +1,61 @@
+-- Migrates watched games from one watched_games row per (user, game) to one watched_game_sets bitmap per
+-- (user, season). Bit n of a bitmap is set when game base_game_id + n has been watched; bits are numbered from the
+-- least significant bit of the first byte, matching get_bit and java.util.BitSet.
+--
+-- Safe to re-run: existing bitmaps are overwritten from watched_games. The watched_games table is left in place so
+-- that watched.storage can be switched back to 'rows'.
+--
+-- Usage: database/migrate.sh, or on its own: psql -U postgres -d later_ladder -f database/migrations/001_watched_game_sets.sql
+
+BEGIN TRANSACTION;
+
+CREATE TABLE IF NOT EXISTS watched_game_sets (
+    user_id INT NOT NULL,
+    year INT NOT NULL,
+    base_game_id INT NOT NULL,
+    bits BYTEA NOT NULL,
+    PRIMARY KEY (user_id, year),
+    FOREIGN KEY (user_id) REFERENCES users(user_id)
+);
+
+INSERT INTO watched_game_sets (user_id, year, base_game_id, bits)
+WITH watched AS (
+    SELECT DISTINCT wg.user_id, g.year, wg.game_id
+    FROM watched_games wg
+    JOIN games g ON g.id = wg.game_id
+), bounds AS (
+    SELECT user_id, year, MIN(game_id) AS base_game_id, MAX(game_id) AS max_game_id
+    FROM watched
+    GROUP BY user_id, year
+), bytes AS (
+    SELECT b.user_id, b.year, b.base_game_id, k.byte_index,
+        COALESCE(SUM(1 << ((w.game_id - b.base_game_id) % 8)), 0) AS byte_value
+    FROM bounds b
+    CROSS JOIN LATERAL generate_series(0, (b.max_game_id - b.base_game_id) / 8) AS k (byte_index)
+    LEFT JOIN watched w ON w.user_id = b.user_id AND w.year = b.year
+        AND (w.game_id - b.base_game_id) / 8 = k.byte_index
+    GROUP BY b.user_id, b.year, b.base_game_id, k.byte_index
+)
+SELECT user_id, year, base_game_id, decode(string_agg(lpad(to_hex(byte_value), 2, '0'), '' ORDER BY byte_index), 'hex')
+FROM bytes
+GROUP BY user_id, year, base_game_id
+ON CONFLICT (user_id, year) DO UPDATE SET base_game_id = EXCLUDED.base_game_id, bits = EXCLUDED.bits;
+
+-- Every watched game must be present in exactly one bitmap
+DO $$
+DECLARE
+    missing INT;
+BEGIN
+    SELECT COUNT(*) INTO missing FROM (
+        SELECT user_id, game_id FROM watched_games
+        EXCEPT
+        SELECT s.user_id, s.base_game_id + n FROM watched_game_sets s
+        CROSS JOIN LATERAL generate_series(0, length(s.bits) * 8 - 1) AS n
+        WHERE get_bit(s.bits, n) = 1
+    ) diff;
+    IF missing > 0 THEN
+        RAISE EXCEPTION '% watched games were not migrated', missing;
+    END IF;
+END $$;
+
+COMMIT TRANSACTION;
@@ -0,0 +1,29 @@
+-- Adds the tables that record historical backfill jobs. A job loads every season in a range of years; each season is
+-- recorded in backfill_job_years once its games are saved, so a job interrupted by a restart carries on from the
+-- seasons it has not loaded yet.
+--
+-- Safe to re-run: the tables are only created if they don't exist.
+--
+-- Usage: database/migrate.sh, or on its own: psql -U postgres -d later_ladder -f database/migrations/002_backfill_jobs.sql
+
+BEGIN TRANSACTION;
+
+CREATE TABLE IF NOT EXISTS backfill_jobs (
+    job_id SERIAL PRIMARY KEY,
+    first_year INT NOT NULL,
+    last_year INT NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    created_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT now(),
+    updated_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT now()
+);
+
+CREATE TABLE IF NOT EXISTS backfill_job_years (
+    job_id INT NOT NULL,
+    year INT NOT NULL,
+    games INT NOT NULL,
+    completed_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT now(),
+    PRIMARY KEY (job_id, year),
+    FOREIGN KEY (job_id) REFERENCES backfill_jobs(job_id)
+);
+
+COMMIT TRANSACTION;
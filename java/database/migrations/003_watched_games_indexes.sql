@@ -0,0 +1,35 @@
+-- Adds the constraint and indexes behind the watched games queries. Each user's watched games are looked up by
+-- user_id, so watched_games gets a unique (user_id, game_id) constraint, whose index also answers the anti-joins that
+-- list unwatched games. Users watching a game are looked up by game_id, and games are filtered by round or year and
+-- ordered by date.
+--
+-- Duplicate watched_games rows, which the constraint no longer allows, are removed first, keeping the oldest row.
+--
+-- Safe to re-run: the constraint and indexes are only created if they don't exist.
+--
+-- Usage: database/migrate.sh, or on its own: psql -U postgres -d later_ladder -f database/migrations/003_watched_games_indexes.sql
+
+BEGIN TRANSACTION;
+
+DELETE FROM watched_games wg
+USING watched_games earlier
+WHERE earlier.user_id = wg.user_id
+    AND earlier.game_id = wg.game_id
+    AND earlier.watched_game_id < wg.watched_game_id;
+
+DO $$
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM pg_constraint WHERE conname = 'uq_watched_games_user_game') THEN
+        ALTER TABLE watched_games ADD CONSTRAINT UQ_watched_games_user_game UNIQUE (user_id, game_id);
+    END IF;
+END $$;
+
+CREATE INDEX IF NOT EXISTS IX_watched_games_game_user ON watched_games (game_id, user_id);
+CREATE INDEX IF NOT EXISTS IX_games_round_date ON games (round, date);
+CREATE INDEX IF NOT EXISTS IX_games_year_round ON games (year, round);
+CREATE INDEX IF NOT EXISTS IX_games_date ON games (date);
+
+COMMIT TRANSACTION;
+
+ANALYZE watched_games;
+ANALYZE games;
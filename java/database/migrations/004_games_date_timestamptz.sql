@@ -0,0 +1,31 @@
+-- Stores the start time of each game as a TIMESTAMP WITH TIME ZONE rather than text, so games sort by start time and
+-- range queries on the start time can use an index. Existing dates are either Squiggle's "2024-03-15 19:40:00", which
+-- is in Melbourne time, or ISO 8601 with an offset, such as "2024-03-15T08:40:00Z".
+--
+-- IX_games_date is replaced by IX_games_date_id on (date, id), which returns games in start time order, with ties
+-- broken by ID, without sorting them.
+--
+-- Safe to re-run: the column is only converted while it is still text, and the indexes only change if they need to.
+--
+-- Usage: database/migrate.sh, or on its own: psql -U postgres -d later_ladder -f database/migrations/004_games_date_timestamptz.sql
+
+BEGIN TRANSACTION;
+
+DO $$
+BEGIN
+    IF EXISTS (SELECT 1 FROM information_schema.columns
+               WHERE table_name = 'games' AND column_name = 'date' AND data_type = 'character varying') THEN
+        ALTER TABLE games ALTER COLUMN date TYPE TIMESTAMP WITH TIME ZONE USING
+            CASE
+                WHEN date ~ '\d\d:\d\d(:\d\d(\.\d+)?)?(Z|[+-]\d\d(:?\d\d)?)$' THEN date::TIMESTAMP WITH TIME ZONE
+                ELSE date::TIMESTAMP AT TIME ZONE 'Australia/Melbourne'
+            END;
+    END IF;
+END $$;
+
+DROP INDEX IF EXISTS IX_games_date;
+CREATE INDEX IF NOT EXISTS IX_games_date_id ON games (date, id);
+
+COMMIT TRANSACTION;
+
+ANALYZE games;
@@ -0,0 +1,47 @@
+-- Stores the teams of each game as SMALLINT team IDs referencing teams, in place of the hteam, ateam and winner team
+-- names, and drops user_ladder.team_name, which repeated the name of the row's team_id. Team names are now only kept
+-- in teams.
+--
+-- The IDs are looked up from teams by name. The migration stops, changing nothing, if a game names a team that is not
+-- in teams; add the team and run it again.
+--
+-- Safe to re-run: the columns are only converted while the name columns still exist.
+--
+-- Usage: database/migrate.sh, or on its own: psql -U postgres -d later_ladder -f database/migrations/005_games_team_ids.sql
+
+BEGIN TRANSACTION;
+
+DO $$
+DECLARE
+    unknown_teams TEXT;
+BEGIN
+    IF EXISTS (SELECT 1 FROM information_schema.columns WHERE table_name = 'games' AND column_name = 'hteam') THEN
+        SELECT string_agg(DISTINCT name, ', ') INTO unknown_teams
+        FROM (SELECT hteam AS name FROM games UNION SELECT ateam FROM games UNION SELECT winner FROM games) names
+        WHERE name IS NOT NULL AND NOT EXISTS (SELECT 1 FROM teams t WHERE t.name = names.name);
+        IF unknown_teams IS NOT NULL THEN
+            RAISE EXCEPTION 'Games name teams that are not in teams: %', unknown_teams;
+        END IF;
+
+        ALTER TABLE games
+            ADD COLUMN hteam_id SMALLINT REFERENCES teams(team_id),
+            ADD COLUMN ateam_id SMALLINT REFERENCES teams(team_id),
+            ADD COLUMN winner_id SMALLINT REFERENCES teams(team_id);
+
+        UPDATE games g SET
+            hteam_id = (SELECT team_id FROM teams WHERE name = g.hteam),
+            ateam_id = (SELECT team_id FROM teams WHERE name = g.ateam),
+            winner_id = (SELECT team_id FROM teams WHERE name = g.winner);
+
+        ALTER TABLE games
+            ALTER COLUMN hteam_id SET NOT NULL,
+            ALTER COLUMN ateam_id SET NOT NULL,
+            DROP COLUMN hteam,
+            DROP COLUMN ateam,
+            DROP COLUMN winner;
+    END IF;
+END $$;
+
+ALTER TABLE user_ladder DROP COLUMN IF EXISTS team_name;
+
+COMMIT TRANSACTION;
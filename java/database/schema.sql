@@ -1,5 +1,9 @@
 BEGIN TRANSACTION;
 
+DROP TABLE IF EXISTS schema_migrations;
+DROP TABLE IF EXISTS backfill_job_years;
+DROP TABLE IF EXISTS backfill_jobs;
+DROP TABLE IF EXISTS watched_game_sets;
 DROP TABLE IF EXISTS watched_games;
 DROP TABLE IF EXISTS user_ladder;
 DROP TABLE IF EXISTS users;
@@ -16,30 +20,46 @@ CREATE TABLE users (
 	CONSTRAINT PK_user PRIMARY KEY (user_id)
 );
 
+CREATE TABLE teams (
+    team_id INT PRIMARY KEY UNIQUE,
+    name VARCHAR(255) UNIQUE
+);
+
 CREATE TABLE games (
     id INT PRIMARY KEY,
     round INT NOT NULL,
     year INT NOT NULL,
-    date VARCHAR(25) NOT NULL,
-    hteam VARCHAR(255),
-    ateam VARCHAR(255),
+    date TIMESTAMP WITH TIME ZONE NOT NULL,
+    hteam_id SMALLINT NOT NULL REFERENCES teams(team_id),
+    ateam_id SMALLINT NOT NULL REFERENCES teams(team_id),
     hscore INT,
     ascore INT,
-    winner VARCHAR(255),
+    winner_id SMALLINT REFERENCES teams(team_id),
     complete INT NOT NULL
 );
 
+CREATE INDEX IX_games_round_date ON games (round, date);
+CREATE INDEX IX_games_year_round ON games (year, round);
+CREATE INDEX IX_games_date_id ON games (date, id);
+
 CREATE TABLE watched_games (
     watched_game_id SERIAL PRIMARY KEY,
     user_id INT,
     game_id INT,
     FOREIGN KEY (user_id) REFERENCES users(user_id),
-    FOREIGN KEY (game_id) REFERENCES games(id)
+    FOREIGN KEY (game_id) REFERENCES games(id),
+    CONSTRAINT UQ_watched_games_user_game UNIQUE (user_id, game_id)
 );
 
-CREATE TABLE teams (
-    team_id INT PRIMARY KEY UNIQUE,
-    name VARCHAR(255) UNIQUE
+CREATE INDEX IX_watched_games_game_user ON watched_games (game_id, user_id);
+
+CREATE TABLE watched_game_sets (
+    user_id INT NOT NULL,
+    year INT NOT NULL,
+    base_game_id INT NOT NULL,
+    bits BYTEA NOT NULL,
+    PRIMARY KEY (user_id, year),
+    FOREIGN KEY (user_id) REFERENCES users(user_id)
 );
 
 CREATE TABLE user_ladder (
@@ -48,7 +68,6 @@ CREATE TABLE user_ladder (
     points INT,
     percentage DOUBLE PRECISION,
     position INT,
-    team_name VARCHAR(255),
     wins INT,
     losses INT,
     draws INT,
@@ -56,9 +75,39 @@ CREATE TABLE user_ladder (
     points_against INT,
     PRIMARY KEY (user_id, team_id),
     FOREIGN KEY (user_id) REFERENCES users(user_id),
-    FOREIGN KEY (team_id) REFERENCES teams(team_id),
-    FOREIGN KEY (team_name) REFERENCES teams(name)
+    FOREIGN KEY (team_id) REFERENCES teams(team_id)
+);
+
+CREATE TABLE backfill_jobs (
+    job_id SERIAL PRIMARY KEY,
+    first_year INT NOT NULL,
+    last_year INT NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    created_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT now(),
+    updated_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT now()
 );
 
+CREATE TABLE backfill_job_years (
+    job_id INT NOT NULL,
+    year INT NOT NULL,
+    games INT NOT NULL,
+    completed_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT now(),
+    PRIMARY KEY (job_id, year),
+    FOREIGN KEY (job_id) REFERENCES backfill_jobs(job_id)
+);
+
+-- The migrations in database/migrations that this schema already includes, so database/migrate.sh skips them
+CREATE TABLE schema_migrations (
+    version VARCHAR(50) PRIMARY KEY,
+    applied_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT now()
+);
+
+INSERT INTO schema_migrations (version) VALUES
+    ('001_watched_game_sets'),
+    ('002_backfill_jobs'),
+    ('003_watched_games_indexes'),
+    ('004_games_date_timestamptz'),
+    ('005_games_team_ids');
+
 
 COMMIT TRANSACTION;
@@ -1,14 +1,25 @@
 package com.heatherpiper.controller;
 
 import com.heatherpiper.dao.GameDao;
+import com.heatherpiper.model.BackfillJob;
 import com.heatherpiper.model.Game;
+import com.heatherpiper.model.LiveGame;
+import com.heatherpiper.model.SeasonSyncResult;
+import com.heatherpiper.service.BackfillService;
+import com.heatherpiper.service.GameJsonStreamer;
+import com.heatherpiper.service.LiveScoreboard;
 import com.heatherpiper.service.SquiggleService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
 import java.util.List;
 import java.util.Map;
 
@@ -17,19 +28,33 @@ import java.util.Map;
 @RequestMapping("/games")
 public class GameController {
 
+    private static final int MAX_GAMES_LIMIT = 100;
+
     private final GameDao gameDao;
     private final SquiggleService squiggleService;
+    private final LiveScoreboard liveScoreboard;
+    private final BackfillService backfillService;
+    private final GameJsonStreamer gameJsonStreamer;
 
     @Autowired
-    public GameController(GameDao gameDao, SquiggleService squiggleService) {
+    public GameController(GameDao gameDao, SquiggleService squiggleService, LiveScoreboard liveScoreboard,
+                          BackfillService backfillService, GameJsonStreamer gameJsonStreamer) {
         this.gameDao = gameDao;
         this.squiggleService = squiggleService;
+        this.liveScoreboard = liveScoreboard;
+        this.backfillService = backfillService;
+        this.gameJsonStreamer = gameJsonStreamer;
     }
 
     @GetMapping("")
-    public ResponseEntity<List<Game>> getAllGames() {
-        List<Game> games = gameDao.findAllGames();
-        return ResponseEntity.ok(games);
+    public ResponseEntity<StreamingResponseBody> getAllGames() {
+        StreamingResponseBody body = out -> gameJsonStreamer.writeGames(out, gameDao::streamAllGames);
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    @GetMapping("/live")
+    public ResponseEntity<List<LiveGame>> getLiveGames() {
+        return ResponseEntity.ok(liveScoreboard.getGames());
     }
 
     @GetMapping("/{id}")
@@ -60,12 +85,38 @@ public class GameController {
         return ResponseEntity.ok(games);
     }
 
+    @GetMapping("/between")
+    public ResponseEntity<?> getGamesBetween(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime to) {
+        if (!from.isBefore(to)) {
+            return ResponseEntity.badRequest().body(Map.of("error", "from must be before to"));
+        }
+        return ResponseEntity.ok(gameDao.findGamesBetween(from, to));
+    }
+
+    @GetMapping("/upcoming")
+    public ResponseEntity<?> getUpcomingGames(@RequestParam(defaultValue = "10") int limit) {
+        if (limit < 1 || limit > MAX_GAMES_LIMIT) {
+            return ResponseEntity.badRequest().body(Map.of("error", "limit must be between 1 and " + MAX_GAMES_LIMIT));
+        }
+        return ResponseEntity.ok(gameDao.findUpcomingGames(OffsetDateTime.now(ZoneOffset.UTC), limit));
+    }
+
+    @GetMapping("/recent")
+    public ResponseEntity<?> getRecentCompleteGames(@RequestParam(defaultValue = "10") int limit) {
+        if (limit < 1 || limit > MAX_GAMES_LIMIT) {
+            return ResponseEntity.badRequest().body(Map.of("error", "limit must be between 1 and " + MAX_GAMES_LIMIT));
+        }
+        return ResponseEntity.ok(gameDao.findRecentCompleteGames(OffsetDateTime.now(ZoneOffset.UTC), limit));
+    }
+
     @PostMapping("/refreshGames")
     @PreAuthorize("hasAuthority('ROLE_ADMIN')")
     public ResponseEntity<?> refreshGames(@RequestParam int year) {
         try {
-            squiggleService.adminInitiatedRefresh(year);
-            return ResponseEntity.ok(Map.of("message", "Game data successfully refreshed."));
+            SeasonSyncResult result = squiggleService.adminInitiatedRefresh(year);
+            return ResponseEntity.ok(Map.of("message", "Game data successfully refreshed.", "result", result));
         } catch (IllegalStateException e) {
             if (e.getMessage().contains("rate-limited")) {
                 return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).body(Map.of("error", e.getMessage()));
@@ -78,4 +129,40 @@ public class GameController {
             return ResponseEntity.badRequest().body(Map.of("error", "Failed to refresh game data: " + e.getMessage()));
         }
     }
-}
\ No newline at end of file
+
+    @PostMapping("/backfill")
+    @PreAuthorize("hasAuthority('ROLE_ADMIN')")
+    public ResponseEntity<?> startBackfill(@RequestParam int firstYear, @RequestParam int lastYear) {
+        try {
+            BackfillJob job = backfillService.startBackfill(firstYear, lastYear);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(job);
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @PostMapping("/backfill/{jobId}/resume")
+    @PreAuthorize("hasAuthority('ROLE_ADMIN')")
+    public ResponseEntity<?> resumeBackfill(@PathVariable("jobId") int jobId) {
+        try {
+            BackfillJob job = backfillService.resumeBackfill(jobId);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(job);
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/backfill/{jobId}")
+    @PreAuthorize("hasAuthority('ROLE_ADMIN')")
+    public ResponseEntity<BackfillJob> getBackfillJob(@PathVariable("jobId") int jobId) {
+        BackfillJob job = backfillService.getJob(jobId);
+        if (job == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(job);
+    }
+}
@@ -1,11 +1,17 @@
 package com.heatherpiper.controller;
 
-import com.heatherpiper.dao.UserLadderEntryDao;
+import com.heatherpiper.model.LadderCacheStats;
+import com.heatherpiper.model.LadderCorrectionProgress;
+import com.heatherpiper.model.LadderProjection;
 import com.heatherpiper.model.UserLadderEntry;
+import com.heatherpiper.service.LadderCorrectionService;
+import com.heatherpiper.service.LadderProjectionService;
+import com.heatherpiper.service.LadderService;
 import com.heatherpiper.service.WatchedGamesService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -15,21 +21,64 @@ import java.util.List;
 @RequestMapping("/ladder")
 public class LadderController {
 
-    private final UserLadderEntryDao userLadderEntryDao;
+    private final LadderService ladderService;
     private final WatchedGamesService watchedGamesService;
+    private final LadderCorrectionService ladderCorrectionService;
+    private final LadderProjectionService ladderProjectionService;
 
     @Autowired
-    public LadderController(UserLadderEntryDao userLadderEntryDao, WatchedGamesService watchedGamesService) {
-        this.userLadderEntryDao = userLadderEntryDao;
+    public LadderController(LadderService ladderService, WatchedGamesService watchedGamesService,
+                            LadderCorrectionService ladderCorrectionService,
+                            LadderProjectionService ladderProjectionService) {
+        this.ladderService = ladderService;
         this.watchedGamesService = watchedGamesService;
+        this.ladderCorrectionService = ladderCorrectionService;
+        this.ladderProjectionService = ladderProjectionService;
     }
 
     @GetMapping("/{userId}")
     public ResponseEntity<List<UserLadderEntry>> getAllUserLadderEntries(@PathVariable int userId) {
-        List<UserLadderEntry> userLadderEntries = userLadderEntryDao.getAllUserLadderEntries(userId);
+        List<UserLadderEntry> userLadderEntries = ladderService.getLadder(userId);
         return ResponseEntity.ok(userLadderEntries);
     }
 
+    @GetMapping("/{userId}/round/{round}")
+    public ResponseEntity<?> getLadderAfterRound(@PathVariable int userId, @PathVariable int round,
+                                                 @RequestParam(required = false) Integer year) {
+        try {
+            List<UserLadderEntry> userLadderEntries = ladderService.getLadderAfterRound(userId, year, round);
+            return ResponseEntity.ok(userLadderEntries);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    @GetMapping("/{userId}/projection")
+    public ResponseEntity<?> getLadderProjection(@PathVariable int userId, @RequestParam(required = false) Integer year) {
+        try {
+            LadderProjection projection = ladderProjectionService.projectLadder(userId, year);
+            return ResponseEntity.ok(projection);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    @GetMapping("/cache/stats")
+    @PreAuthorize("hasAuthority('ROLE_ADMIN')")
+    public ResponseEntity<LadderCacheStats> getCacheStats() {
+        return ResponseEntity.ok(ladderService.getCacheStats());
+    }
+
+    @GetMapping("/corrections/latest")
+    @PreAuthorize("hasAuthority('ROLE_ADMIN')")
+    public ResponseEntity<LadderCorrectionProgress> getLatestCorrectionProgress() {
+        LadderCorrectionProgress progress = ladderCorrectionService.getLatestProgress();
+        if (progress == null) {
+            return ResponseEntity.noContent().build();
+        }
+        return ResponseEntity.ok(progress);
+    }
+
     @PostMapping("/{userId/reset")
     public ResponseEntity<?> resetLadderAndMarkAllGamesUnwatched(@PathVariable int userId) {
         try {
@@ -2,21 +2,22 @@ package com.heatherpiper.controller;
 
 import com.heatherpiper.dao.WatchedGamesDao;
 import com.heatherpiper.exception.DaoException;
-import com.heatherpiper.model.Game;
 import com.heatherpiper.model.GameWatchRequest;
+import com.heatherpiper.service.GameJsonStreamer;
 import com.heatherpiper.service.WatchedGamesService;
 import org.jetbrains.annotations.NotNull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.dao.DataAccessException;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.sql.SQLException;
-import java.util.ArrayList;
-import java.util.List;
 import java.util.Map;
 
 @CrossOrigin
@@ -27,50 +28,62 @@ public class WatchedGamesController {
 
     private final WatchedGamesDao watchedGamesDao;
     private final WatchedGamesService watchedGamesService;
+    private final GameJsonStreamer gameJsonStreamer;
 
-    public WatchedGamesController(WatchedGamesDao watchedGamesDao, WatchedGamesService watchedGamesService) {
+    public WatchedGamesController(WatchedGamesDao watchedGamesDao, WatchedGamesService watchedGamesService,
+                                  GameJsonStreamer gameJsonStreamer) {
         this.watchedGamesDao = watchedGamesDao;
         this.watchedGamesService = watchedGamesService;
+        this.gameJsonStreamer = gameJsonStreamer;
     }
 
     @ResponseStatus(HttpStatus.OK)
     @PostMapping("/watch")
     public void addGamesToWatchedList(@PathVariable("userId") int userId, @RequestBody @NotNull GameWatchRequest request) {
-        watchedGamesService.markGamesAsWatchedSequentially(userId, request.getGameIds());
+        watchedGamesService.markGamesAsWatched(userId, request.getGameIds());
     }
 
     @ResponseStatus(HttpStatus.OK)
     @PostMapping("/unwatch")
     public void removeGamesFromWatchedList(@PathVariable("userId") int userId, @RequestBody @NotNull GameWatchRequest request) {
-        watchedGamesService.markGamesAsUnwatchedSequentially(userId, request.getGameIds());
+        watchedGamesService.markGamesAsUnwatched(userId, request.getGameIds());
     }
 
+    @ResponseStatus(HttpStatus.OK)
     @PostMapping("/mark-round-watched")
     public void markAllGamesInRoundAsWatched(@PathVariable("userId") int userId, @RequestBody Map<String, Integer> requestBody) {
-        watchedGamesService.markAllGamesInRoundAsWatchedAndUpdateLadder(userId, requestBody.get("round"));
+        watchedGamesService.markAllGamesInRoundAsWatchedAndUpdateLadder(userId, requestBody.get("year"),
+                getRound(requestBody));
     }
 
+    @ResponseStatus(HttpStatus.OK)
     @PostMapping("/mark-round-unwatched")
     public void markAllGamesInRoundAsUnwatched(@PathVariable("userId") int userId, @RequestBody Map<String, Integer> requestBody) {
-        watchedGamesService.markAllGamesInRoundAsUnwatchedAndUpdateLadder(userId, requestBody.get("round"));
+        watchedGamesService.markAllGamesInRoundAsUnwatchedAndUpdateLadder(userId, requestBody.get("year"),
+                getRound(requestBody));
     }
 
     @GetMapping
-    public ResponseEntity<List<Game>> getWatchedGames(@PathVariable("userId") int userId) {
-        List<Game> games = watchedGamesDao.findWatchedGames(userId);
-        if (games.isEmpty()) {
-            return ResponseEntity.ok().body(new ArrayList<>()); // return empty array if there are no watched games
-        }
-        return ResponseEntity.ok(games);
+    public ResponseEntity<StreamingResponseBody> getWatchedGames(@PathVariable("userId") int userId) {
+        // An empty array is written if there are no watched games
+        StreamingResponseBody body = out -> gameJsonStreamer.writeGames(out,
+                action -> watchedGamesDao.streamWatchedGames(userId, action));
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
     }
 
     @GetMapping("/unwatched")
-    public ResponseEntity<List<Game>> getUnwatchedGames(@PathVariable("userId") int userId) {
-        List<Game> games = watchedGamesDao.findUnwatchedGames(userId);
-        if (games.isEmpty()) {
-            return ResponseEntity.ok().body(new ArrayList<>()); // return empty array if there are no unwatched games
+    public ResponseEntity<StreamingResponseBody> getUnwatchedGames(@PathVariable("userId") int userId) {
+        StreamingResponseBody body = out -> gameJsonStreamer.writeGames(out,
+                action -> watchedGamesDao.streamUnwatchedGames(userId, action));
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    private int getRound(Map<String, Integer> requestBody) {
+        Integer round = requestBody.get("round");
+        if (round == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Round is required.");
         }
-        return ResponseEntity.ok(games);
+        return round;
     }
 
     @ExceptionHandler({SQLException.class, DataAccessException.class})
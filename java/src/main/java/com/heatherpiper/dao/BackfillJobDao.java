@@ -0,0 +1,18 @@
+package com.heatherpiper.dao;
+
+import com.heatherpiper.model.BackfillJob;
+
+import java.util.List;
+
+public interface BackfillJobDao {
+
+    BackfillJob createJob(int firstYear, int lastYear);
+
+    BackfillJob findJobById(int jobId);
+
+    List<BackfillJob> findJobsByStatus(String status);
+
+    void completeYear(int jobId, int year, int games);
+
+    void updateStatus(int jobId, String status);
+}
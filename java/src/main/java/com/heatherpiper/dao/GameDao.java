@@ -2,21 +2,37 @@ package com.heatherpiper.dao;
 
 import com.heatherpiper.model.Game;
 
+import java.time.OffsetDateTime;
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface GameDao{
 
     Game findGameById(int id);
 
+    List<Game> findGamesByIds(List<Integer> ids);
+
+    List<Game> findGamesByIdsForUpdate(List<Integer> ids);
+
     List<Game> findAllGames();
 
+    void streamAllGames(Consumer<Game> action);
+
+    int findLatestYear();
+
     List<Game> findGamesByRound(int round);
 
     List<Game> findCompleteGames();
 
     List<Game> findIncompleteGames();
 
-    String findWinnerByGameId(int id);
+    List<Game> findGamesBetween(OffsetDateTime from, OffsetDateTime to);
+
+    List<Game> findUpcomingGames(OffsetDateTime after, int limit);
+
+    List<Game> findRecentCompleteGames(OffsetDateTime before, int limit);
+
+    Integer findWinnerIdByGameId(int id);
 
     void saveAll(List<Game> games);
 
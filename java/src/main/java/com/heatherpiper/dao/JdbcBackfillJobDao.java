@@ -0,0 +1,96 @@
+package com.heatherpiper.dao;
+
+import com.heatherpiper.model.BackfillJob;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.PreparedStatement;
+import java.util.List;
+
+/**
+ * Stores backfill jobs in the backfill_jobs table, with one backfill_job_years row for each season a job has loaded.
+ */
+@Component
+public class JdbcBackfillJobDao implements BackfillJobDao {
+
+    private static final String SELECT_JOBS = "SELECT j.job_id, j.first_year, j.last_year, j.status, j.created_at, " +
+            "j.updated_at, COALESCE(array_agg(y.year ORDER BY y.year) FILTER (WHERE y.year IS NOT NULL), '{}') AS years, " +
+            "COALESCE(SUM(y.games), 0) AS games " +
+            "FROM backfill_jobs j LEFT JOIN backfill_job_years y ON y.job_id = j.job_id ";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public JdbcBackfillJobDao(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    private final RowMapper<BackfillJob> backfillJobRowMapper = (rs, rowNum) -> new BackfillJob(
+            rs.getInt("job_id"),
+            rs.getInt("first_year"),
+            rs.getInt("last_year"),
+            rs.getString("status"),
+            rs.getTimestamp("created_at").toInstant(),
+            rs.getTimestamp("updated_at").toInstant(),
+            List.of((Integer[]) rs.getArray("years").getArray()),
+            rs.getInt("games"));
+
+    @Override
+    public BackfillJob createJob(int firstYear, int lastYear) {
+        String sql = "INSERT INTO backfill_jobs (first_year, last_year, status) VALUES (?, ?, ?)";
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+
+        jdbcTemplate.update(connection -> {
+            PreparedStatement ps = connection.prepareStatement(sql, new String[] {"job_id"});
+            ps.setInt(1, firstYear);
+            ps.setInt(2, lastYear);
+            ps.setString(3, BackfillJob.RUNNING);
+            return ps;
+        }, keyHolder);
+
+        Number key = keyHolder.getKey();
+        if (key == null) {
+            throw new DataAccessResourceFailureException("Failed to obtain job_id after creating backfill job");
+        }
+        return findJobById(key.intValue());
+    }
+
+    @Override
+    public BackfillJob findJobById(int jobId) {
+        String sql = SELECT_JOBS + "WHERE j.job_id = ? GROUP BY j.job_id";
+        try {
+            return jdbcTemplate.queryForObject(sql, backfillJobRowMapper, jobId);
+        } catch (EmptyResultDataAccessException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public List<BackfillJob> findJobsByStatus(String status) {
+        String sql = SELECT_JOBS + "WHERE j.status = ? GROUP BY j.job_id ORDER BY j.job_id";
+        return jdbcTemplate.query(sql, backfillJobRowMapper, status);
+    }
+
+    /**
+     * Records a season as loaded. Recording a season again replaces its game count, since a resumed job may load a
+     * season whose games were saved before a crash prevented it from being recorded.
+     */
+    @Override
+    public void completeYear(int jobId, int year, int games) {
+        String sql = "INSERT INTO backfill_job_years (job_id, year, games) VALUES (?, ?, ?) " +
+                "ON CONFLICT (job_id, year) DO UPDATE SET games = EXCLUDED.games, completed_at = now()";
+        jdbcTemplate.update(sql, jobId, year, games);
+        jdbcTemplate.update("UPDATE backfill_jobs SET updated_at = now() WHERE job_id = ?", jobId);
+    }
+
+    @Override
+    public void updateStatus(int jobId, String status) {
+        String sql = "UPDATE backfill_jobs SET status = ?, updated_at = now() WHERE job_id = ?";
+        jdbcTemplate.update(sql, status, jobId);
+    }
+}
@@ -5,6 +5,7 @@ import com.heatherpiper.model.Game;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.dao.DataAccessException;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.jdbc.core.BatchPreparedStatementSetter;
@@ -13,11 +14,16 @@ import org.springframework.jdbc.core.RowMapper;
 import org.springframework.retry.annotation.Backoff;
 import org.springframework.retry.annotation.Retryable;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
 
 import javax.sql.DataSource;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.function.Consumer;
 
 @Component
 public class JdbcGameDao implements GameDao {
@@ -26,6 +32,12 @@ public class JdbcGameDao implements GameDao {
 
     private final JdbcTemplate jdbcTemplate;
 
+    /**
+     * The number of rows read from the database at a time when games are streamed.
+     */
+    @Value("${games.stream.fetch-size:500}")
+    private int streamFetchSize = 500;
+
     @Autowired
     public JdbcGameDao(DataSource dataSource) {
         this.jdbcTemplate = new JdbcTemplate(dataSource);
@@ -40,12 +52,12 @@ public class JdbcGameDao implements GameDao {
         game.setId(rs.getInt("id"));
         game.setRound(rs.getInt("round"));
         game.setYear(rs.getInt("year"));
-        game.setDate(rs.getString("date"));
-        game.setHteam(rs.getString("hteam"));
-        game.setAteam(rs.getString("ateam"));
+        game.setDate(rs.getObject("date", OffsetDateTime.class));
+        game.setHteamId(rs.getInt("hteam_id"));
+        game.setAteamId(rs.getInt("ateam_id"));
         game.setHscore(rs.getObject("hscore", Integer.class));
         game.setAscore(rs.getObject("ascore", Integer.class));
-        game.setWinner(rs.getString("winner"));
+        game.setWinnerId(rs.getObject("winner_id", Integer.class));
         game.setComplete(rs.getInt("complete"));
         return game;
     };
@@ -60,12 +72,64 @@ public class JdbcGameDao implements GameDao {
         }
     }
 
+    @Override
+    public List<Game> findGamesByIds(List<Integer> ids) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        String sql = "SELECT * FROM games WHERE id IN (" + String.join(", ", Collections.nCopies(ids.size(), "?")) + ")";
+        return jdbcTemplate.query(sql, gameRowMapper, ids.toArray());
+    }
+
+    /**
+     * Finds games by ID and locks their rows until the current transaction ends, so that concurrent saves of the same
+     * games read and replace their stored versions one after the other. Rows are locked in order of ID, so two
+     * transactions locking overlapping games cannot deadlock.
+     *
+     * @param ids The game IDs.
+     * @return the stored games among the IDs.
+     */
+    @Override
+    public List<Game> findGamesByIdsForUpdate(List<Integer> ids) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        String sql = "SELECT * FROM games WHERE id IN (" + String.join(", ", Collections.nCopies(ids.size(), "?")) + ") " +
+                "ORDER BY id FOR UPDATE";
+        return jdbcTemplate.query(sql, gameRowMapper, ids.toArray());
+    }
+
     @Override
     public List<Game> findAllGames() {
         String sql = "SELECT * FROM games";
         return jdbcTemplate.query(sql, gameRowMapper);
     }
 
+    /**
+     * Reads every game through a database cursor and hands each one to the action as it is read, so the games are never
+     * all held in memory at once.
+     *
+     * @param action The action run for each game, in the order the games are read.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public void streamAllGames(Consumer<Game> action) {
+        String sql = "SELECT * FROM games";
+        StreamingQuery.forEachRow(jdbcTemplate, sql, streamFetchSize, gameRowMapper, action);
+    }
+
+    /**
+     * Finds the current season, which is the latest season with games.
+     *
+     * @return the latest year of any game, or 0 if there are no games.
+     */
+    @Override
+    public int findLatestYear() {
+        String sql = "SELECT COALESCE(MAX(year), 0) FROM games";
+        Integer year = jdbcTemplate.queryForObject(sql, Integer.class);
+        return year != null ? year : 0;
+    }
+
     @Override
     public List<Game> findGamesByRound(int round) {
         String sql = "SELECT * FROM games WHERE round = ?";
@@ -84,12 +148,42 @@ public class JdbcGameDao implements GameDao {
         return jdbcTemplate.query(sql, gameRowMapper);
     }
 
+    /**
+     * Finds the games that start in a range of times, in order of start time.
+     *
+     * @param from The start of the range, inclusive.
+     * @param to The end of the range, exclusive.
+     */
+    @Override
+    public List<Game> findGamesBetween(OffsetDateTime from, OffsetDateTime to) {
+        String sql = "SELECT * FROM games WHERE date >= ? AND date < ? ORDER BY date ASC, id ASC";
+        return jdbcTemplate.query(sql, gameRowMapper, from, to);
+    }
+
+    /**
+     * Finds the next games to start after a time, in order of start time.
+     */
+    @Override
+    public List<Game> findUpcomingGames(OffsetDateTime after, int limit) {
+        String sql = "SELECT * FROM games WHERE date > ? ORDER BY date ASC, id ASC LIMIT ?";
+        return jdbcTemplate.query(sql, gameRowMapper, after, limit);
+    }
+
+    /**
+     * Finds the last complete games to start before a time, most recent first.
+     */
+    @Override
+    public List<Game> findRecentCompleteGames(OffsetDateTime before, int limit) {
+        String sql = "SELECT * FROM games WHERE date < ? AND complete = 100 ORDER BY date DESC, id DESC LIMIT ?";
+        return jdbcTemplate.query(sql, gameRowMapper, before, limit);
+    }
+
     @Override
-    public String findWinnerByGameId(int id) {
-        String sql = "SELECT winner FROM games WHERE id = ?";
+    public Integer findWinnerIdByGameId(int id) {
+        String sql = "SELECT winner_id FROM games WHERE id = ?";
         Object[] params = new Object[]{id};
         try {
-            return jdbcTemplate.queryForObject(sql, params, String.class);
+            return jdbcTemplate.queryForObject(sql, params, Integer.class);
         } catch (EmptyResultDataAccessException e) {
             throw new DaoException("Error accessing data");
         }
@@ -97,7 +191,7 @@ public class JdbcGameDao implements GameDao {
 
     @Retryable(value = EmptyResultDataAccessException.class, maxAttempts = 3, backoff = @Backoff(delay = 1000))
     public Game fetchGameDetails(int id) {
-        String sql = "SELECT id, round, year, date, hteam, ateam, hscore, ascore, winner, complete FROM games " +
+        String sql = "SELECT id, round, year, date, hteam_id, ateam_id, hscore, ascore, winner_id, complete FROM games " +
                 "WHERE id = ?";
         try {
             return jdbcTemplate.queryForObject(sql, new Object[]{id}, gameRowMapper);
@@ -110,17 +204,17 @@ public class JdbcGameDao implements GameDao {
     @Retryable(value = DataAccessException.class, maxAttempts = 5, backoff = @Backoff(delay = 2000, multiplier = 2))
     @Override
     public void saveAll(List<Game> games) {
-        String sql = "INSERT INTO games (id, round, year, date, hteam, ateam, hscore, ascore, winner, complete) " +
+        String sql = "INSERT INTO games (id, round, year, date, hteam_id, ateam_id, hscore, ascore, winner_id, complete) " +
                 "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)" +
                 "ON CONFLICT (id) DO UPDATE SET " +
                 "round = EXCLUDED.round, " +
                 "year = EXCLUDED.year, " +
                 "date = EXCLUDED.date, " +
-                "hteam = EXCLUDED.hteam, " +
-                "ateam = EXCLUDED.ateam, " +
+                "hteam_id = EXCLUDED.hteam_id, " +
+                "ateam_id = EXCLUDED.ateam_id, " +
                 "hscore = EXCLUDED.hscore, " +
                 "ascore = EXCLUDED.ascore, " +
-                "winner = EXCLUDED.winner, " +
+                "winner_id = EXCLUDED.winner_id, " +
                 "complete = EXCLUDED.complete;";
 
         try {
@@ -131,12 +225,12 @@ public class JdbcGameDao implements GameDao {
                     ps.setInt(1, game.getId());
                     ps.setInt(2, game.getRound());
                     ps.setInt(3, game.getYear());
-                    ps.setString(4, game.getDate());
-                    ps.setString(5, game.getHteam());
-                    ps.setString(6, game.getAteam());
+                    ps.setObject(4, game.getDate());
+                    ps.setInt(5, game.getHteamId());
+                    ps.setInt(6, game.getAteamId());
                     ps.setObject(7, game.getHscore());
                     ps.setObject(8, game.getAscore());
-                    ps.setString(9, game.getWinner());
+                    ps.setObject(9, game.getWinnerId());
                     ps.setInt(10, game.getComplete());
                 }
 
@@ -14,6 +14,7 @@ import org.slf4j.LoggerFactory;
 
 import javax.sql.DataSource;
 import java.sql.PreparedStatement;
+import java.util.ArrayList;
 import java.util.List;
 
 @Component
@@ -77,6 +78,18 @@ public class JdbcTeamDao implements TeamDao {
         });
     }
 
+    /**
+     * Finds the IDs of the teams that play in the latest season with games.
+     *
+     * @return the team IDs in ascending order, or an empty list if there are no games.
+     */
+    @Override
+    public List<Integer> findTeamIdsInLatestSeason() {
+        String sql = "SELECT team_id FROM (SELECT hteam_id AS team_id FROM games WHERE year = (SELECT MAX(year) FROM games) " +
+                "UNION SELECT ateam_id FROM games WHERE year = (SELECT MAX(year) FROM games)) t ORDER BY team_id";
+        return jdbcTemplate.queryForList(sql, Integer.class);
+    }
+
     // Created for testing purposes
     @Override
     public int saveTeam(String teamName) {
@@ -96,4 +109,22 @@ public class JdbcTeamDao implements TeamDao {
             throw new DataAccessResourceFailureException("Failed to obtain team_id after saving team");
         }
     }
+
+    /**
+     * Inserts teams with their IDs, skipping any team whose ID or name is already stored.
+     */
+    @Override
+    public void saveTeams(List<Team> teams) {
+        String sql = "INSERT INTO teams (team_id, name) VALUES (?, ?) ON CONFLICT DO NOTHING";
+        List<Object[]> batchArgs = new ArrayList<>();
+        for (Team team : teams) {
+            batchArgs.add(new Object[]{team.getTeamId(), team.getName()});
+        }
+        try {
+            jdbcTemplate.batchUpdate(sql, batchArgs);
+        } catch (DataAccessException e) {
+            logger.error("Data access error when trying to save {} teams", teams.size(), e);
+            throw new DaoException("Data access error when trying to save teams", e);
+        }
+    }
 }
@@ -19,6 +19,7 @@ import java.sql.Timestamp;
 import java.time.OffsetDateTime;
 import java.time.ZoneOffset;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
 
@@ -112,6 +113,34 @@ public class JdbcUserDao implements UserDao {
         return user != null;
     }
 
+    /**
+     * Locks a user's row until the current transaction ends, so that concurrent transactions that change the same
+     * user's watched games and ladder run one after another, including across application instances.
+     *
+     * @param userId The user ID.
+     */
+    @Override
+    public void lockUser(int userId) {
+        String sql = "SELECT user_id FROM users WHERE user_id = ? FOR UPDATE";
+        jdbcTemplate.queryForList(sql, Integer.class, userId);
+    }
+
+    /**
+     * Locks several users' rows until the current transaction ends. Rows are locked in user ID order so that two
+     * transactions locking overlapping sets of users cannot deadlock.
+     *
+     * @param userIds The user IDs.
+     */
+    @Override
+    public void lockUsers(List<Integer> userIds) {
+        if (userIds.isEmpty()) {
+            return;
+        }
+        String sql = "SELECT user_id FROM users WHERE user_id IN (" +
+                String.join(", ", Collections.nCopies(userIds.size(), "?")) + ") ORDER BY user_id FOR UPDATE";
+        jdbcTemplate.queryForList(sql, Integer.class, userIds.toArray());
+    }
+
     @Override
     public void updateLastLogin(String username) {
         OffsetDateTime nowUtc = OffsetDateTime.now(ZoneOffset.UTC);
@@ -3,13 +3,17 @@ package com.heatherpiper.dao;
 import com.heatherpiper.model.UserLadderEntry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.JdbcUpdateAffectedIncorrectNumberOfRowsException;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.support.rowset.SqlRowSet;
 import org.springframework.stereotype.Component;
 
 import javax.sql.DataSource;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 @Component
@@ -17,20 +21,38 @@ public class JdbcUserLadderEntryDao implements UserLadderEntryDao {
 
     private static final Logger logger = LoggerFactory.getLogger(JdbcUserLadderEntryDao.class);
 
+    private static final String WATCHED_GAME_ROWS =
+            "SELECT user_id, game_id FROM watched_games";
+
+    // Expands each season bitmap into one row per set bit
+    private static final String WATCHED_GAME_BITMAPS =
+            "SELECT s.user_id, s.base_game_id + n AS game_id FROM watched_game_sets s " +
+            "CROSS JOIN LATERAL generate_series(0, length(s.bits) * 8 - 1) AS n WHERE get_bit(s.bits, n) = 1";
+
+    private static final String UPDATE_LADDER_ENTRY =
+            "UPDATE user_ladder SET points = ?, percentage = ?, position = ?, wins = ?, losses = ?, draws = ?, " +
+            "points_for = ?, points_against = ? WHERE user_id = ? AND team_id = ?";
+
     private JdbcTemplate jdbcTemplate;
 
+    /**
+     * How watched games are stored: 'rows' for the watched_games table, 'bitmap' for the watched_game_sets table.
+     */
+    @Value("${watched.storage:rows}")
+    private String watchedStorage = "rows";
+
     public JdbcUserLadderEntryDao(DataSource dataSource) {
         this.jdbcTemplate = new JdbcTemplate(dataSource);
     }
 
     @Override
     public void addUserLadderEntry(UserLadderEntry userLadderEntry) {
-        String sql = "INSERT INTO user_ladder (user_id, team_id, points, percentage, position, team_name, wins, " +
-                "losses, draws, points_for, points_against) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+        String sql = "INSERT INTO user_ladder (user_id, team_id, points, percentage, position, wins, losses, " +
+                "draws, points_for, points_against) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
 
         try {
-            logger.debug("Attempting to add user ladder entry for userId: {}, teamId: {}, TeamName: {}",
-                    userLadderEntry.getUserId(), userLadderEntry.getTeamId(), userLadderEntry.getTeamName());
+            logger.debug("Attempting to add user ladder entry for userId: {}, teamId: {}",
+                    userLadderEntry.getUserId(), userLadderEntry.getTeamId());
 
             int rowsAffected = jdbcTemplate.update(sql,
                     userLadderEntry.getUserId(),
@@ -38,7 +60,6 @@ public class JdbcUserLadderEntryDao implements UserLadderEntryDao {
                     userLadderEntry.getPoints(),
                     userLadderEntry.getPercentage(),
                     userLadderEntry.getPosition(),
-                    userLadderEntry.getTeamName(),
                     userLadderEntry.getWins(),
                     userLadderEntry.getLosses(),
                     userLadderEntry.getDraws(),
@@ -59,10 +80,40 @@ public class JdbcUserLadderEntryDao implements UserLadderEntryDao {
         }
     }
 
+    /**
+     * Adds an empty ladder entry for each of the given teams that the user has no ladder entry for, such as a team that
+     * was stored after the user's ladder was created, with one statement. Teams that are not stored are ignored.
+     *
+     * @param userId The user ID.
+     * @param teamIds The IDs of the teams that need a ladder entry.
+     */
+    @Override
+    public void addMissingUserLadderEntries(int userId, List<Integer> teamIds) {
+        if (teamIds.isEmpty()) {
+            return;
+        }
+        String sql = "INSERT INTO user_ladder (user_id, team_id, points, percentage, position, wins, losses, draws, " +
+                "points_for, points_against) " +
+                "SELECT ?, t.team_id, 0, 100, 0, 0, 0, 0, 0, 0 FROM teams t " +
+                "WHERE t.team_id IN (" + placeholders(teamIds.size()) + ") " +
+                "AND NOT EXISTS (SELECT 1 FROM user_ladder u WHERE u.user_id = ? AND u.team_id = t.team_id)";
+        List<Object> args = new ArrayList<>();
+        args.add(userId);
+        args.addAll(teamIds);
+        args.add(userId);
+        try {
+            int rowsAffected = jdbcTemplate.update(sql, args.toArray());
+            if (rowsAffected > 0) {
+                logger.info("Added {} missing ladder entries for userId: {}", rowsAffected, userId);
+            }
+        } catch (DataAccessException e) {
+            logger.error("Exception while adding missing ladder entries for userId: {}, teamIds: {}", userId, teamIds, e);
+            throw e;
+        }
+    }
+
     @Override
     public void updateUserLadderEntry(UserLadderEntry userLadderEntry) {
-        String sql = "UPDATE user_ladder SET points = ?, percentage = ?, position = ?, wins = ?, losses = ?, draws = " +
-                "?, points_for = ?, points_against = ? WHERE user_id = ? AND team_id = ?";
         try {
             logger.debug("Attempting to update user ladder entry for userId: {}, teamId: {} with values: Points = {}, " +
                             "Percentage = {}, Position = {}, Wins = {}, Losses = {}, Draws = {}, PointsFor = {}, PointsAgainst = {}",
@@ -71,7 +122,7 @@ public class JdbcUserLadderEntryDao implements UserLadderEntryDao {
                     userLadderEntry.getLosses(), userLadderEntry.getDraws(), userLadderEntry.getPointsFor(),
                     userLadderEntry.getPointsAgainst());
 
-            int updatedRows = jdbcTemplate.update(sql,
+            int updatedRows = jdbcTemplate.update(UPDATE_LADDER_ENTRY,
                     userLadderEntry.getPoints(),
                     userLadderEntry.getPercentage(),
                     userLadderEntry.getPosition(),
@@ -88,25 +139,200 @@ public class JdbcUserLadderEntryDao implements UserLadderEntryDao {
         }
     }
 
+    /**
+     * Writes a whole ladder, or any set of ladder entries, with one batched statement, so the entries are sent to the
+     * database in a single round trip rather than one UPDATE per team.
+     *
+     * <p>As when the entries were written one at a time, each entry that is not written is logged with its user and team,
+     * followed by the number of entries written and failed. An entry is not written if there is no ladder row for its
+     * user and team. If the database rejects the batch, none of it is written and every entry is logged as failed.
+     * After logging, any failure is thrown, so that the caller's transaction is rolled back rather than committing a
+     * partly written ladder.
+     *
+     * @param userLadderEntries The ladder entries to write.
+     * @throws DataAccessException If the database rejects the batch, or
+     * {@link JdbcUpdateAffectedIncorrectNumberOfRowsException} if any entry has no ladder row.
+     */
     @Override
     public void updateUserLadderEntries(List<UserLadderEntry> userLadderEntries) {
-        List<UserLadderEntry> successfullyUpdatedEntries = new ArrayList<>();
-        List<UserLadderEntry> failedEntries = new ArrayList<>();
-
+        if (userLadderEntries.isEmpty()) {
+            return;
+        }
+        List<Object[]> batchArgs = new ArrayList<>();
         for (UserLadderEntry entry : userLadderEntries) {
-            try {
-                updateUserLadderEntry(entry);
-                successfullyUpdatedEntries.add(entry);
-            } catch (DataAccessException e) {
-                logger.error("Exception while updating user ladder entry for userId: {}, teamId: {}",
-                        entry.getUserId(), entry.getTeamId(), e);
+            batchArgs.add(new Object[]{entry.getPoints(), entry.getPercentage(), entry.getPosition(), entry.getWins(),
+                    entry.getLosses(), entry.getDraws(), entry.getPointsFor(), entry.getPointsAgainst(),
+                    entry.getUserId(), entry.getTeamId()});
+        }
+
+        int[] updatedRows;
+        DataAccessException batchFailure = null;
+        try {
+            logger.debug("Attempting to update {} user ladder entries in one batch", userLadderEntries.size());
+            updatedRows = jdbcTemplate.batchUpdate(UPDATE_LADDER_ENTRY, batchArgs);
+        } catch (DataAccessException e) {
+            logger.error("Exception while updating {} user ladder entries", userLadderEntries.size(), e);
+            updatedRows = new int[0];
+            batchFailure = e;
+        }
+
+        List<UserLadderEntry> failedEntries = new ArrayList<>();
+        for (int i = 0; i < userLadderEntries.size(); i++) {
+            if (i >= updatedRows.length || updatedRows[i] == 0) {
+                UserLadderEntry entry = userLadderEntries.get(i);
+                logger.error("Failed to update user ladder entry for userId: {}, teamId: {}",
+                        entry.getUserId(), entry.getTeamId());
                 failedEntries.add(entry);
             }
         }
-        logger.info("{} user ladder entries successfully updated.", successfullyUpdatedEntries.size());
+        logger.info("{} user ladder entries successfully updated.", userLadderEntries.size() - failedEntries.size());
         if (!failedEntries.isEmpty()) {
             logger.warn("{} user ladder entries failed to update.", failedEntries.size());
         }
+
+        if (batchFailure != null) {
+            throw batchFailure;
+        }
+        if (!failedEntries.isEmpty()) {
+            throw new JdbcUpdateAffectedIncorrectNumberOfRowsException(UPDATE_LADDER_ENTRY, userLadderEntries.size(),
+                    userLadderEntries.size() - failedEntries.size());
+        }
+    }
+
+    /**
+     * Recalculates all of a user's ladder entries from the games of a season the user has watched, using a single
+     * statement.
+     *
+     * <p>Each watched game of the season is split into a home and an away result, the results are aggregated per team,
+     * and every one of the user's ladder rows is overwritten with the aggregated wins, losses, draws, points, points for
+     * and against, percentage and position. All rows are rewritten because a change to any team's points can shift every
+     * position. Watched games of other seasons are not counted.
+     *
+     * <p>Before that, a ladder row is added for any team in the season's watched games that the user has none for, such
+     * as a team stored after the user's ladder was created, so that no watched result is left out.
+     *
+     * @param userId The user ID.
+     * @param year The season whose watched games are counted, normally the current season.
+     */
+    @Override
+    public void recalculateUserLadderEntries(int userId, int year) {
+        String watchedGames = "bitmap".equals(watchedStorage) ? WATCHED_GAME_BITMAPS : WATCHED_GAME_ROWS;
+        String addMissingSql = "INSERT INTO user_ladder (user_id, team_id, points, percentage, position, wins, " +
+                "losses, draws, points_for, points_against) " +
+                "SELECT DISTINCT wg.user_id, side.team_id, 0, 100, 0, 0, 0, 0, 0, 0 " +
+                "FROM (" + watchedGames + ") wg " +
+                "JOIN games g ON g.id = wg.game_id " +
+                "CROSS JOIN LATERAL (VALUES (g.hteam_id), (g.ateam_id)) AS side (team_id) " +
+                "WHERE wg.user_id = ? AND g.year = ? " +
+                "AND NOT EXISTS (SELECT 1 FROM user_ladder u WHERE u.user_id = wg.user_id AND u.team_id = side.team_id)";
+        String sql = "WITH results AS ( " +
+                "    SELECT side.team_id, side.points_for, side.points_against, g.winner_id " +
+                "    FROM (" + watchedGames + ") wg " +
+                "    JOIN games g ON g.id = wg.game_id " +
+                "    CROSS JOIN LATERAL (VALUES (g.hteam_id, g.hscore, g.ascore), (g.ateam_id, g.ascore, g.hscore)) " +
+                "        AS side (team_id, points_for, points_against) " +
+                "    WHERE wg.user_id = ? AND g.year = ? " +
+                "), totals AS ( " +
+                "    SELECT u.team_id, " +
+                "        COALESCE(SUM(CASE WHEN r.team_id IS NULL THEN 0 WHEN r.winner_id IS NULL THEN 2 " +
+                "            WHEN r.winner_id = u.team_id THEN 4 ELSE 0 END), 0) AS points, " +
+                "        COUNT(r.team_id) FILTER (WHERE r.winner_id = u.team_id) AS wins, " +
+                "        COUNT(r.team_id) FILTER (WHERE r.winner_id <> u.team_id) AS losses, " +
+                "        COUNT(r.team_id) FILTER (WHERE r.winner_id IS NULL) AS draws, " +
+                "        COALESCE(SUM(r.points_for), 0) AS points_for, " +
+                "        COALESCE(SUM(r.points_against), 0) AS points_against " +
+                "    FROM user_ladder u " +
+                "    LEFT JOIN results r ON r.team_id = u.team_id " +
+                "    WHERE u.user_id = ? " +
+                "    GROUP BY u.team_id " +
+                "), ranked AS ( " +
+                "    SELECT totals.*, " +
+                "        CASE WHEN points_against = 0 THEN 100.0 " +
+                "            ELSE ROUND(points_for * 100.0 / points_against, 2) END AS percentage " +
+                "    FROM totals " +
+                ") " +
+                "UPDATE user_ladder u SET points = r.points, percentage = r.percentage, wins = r.wins, " +
+                "losses = r.losses, draws = r.draws, points_for = r.points_for, points_against = r.points_against, " +
+                "position = r.position " +
+                "FROM (SELECT ranked.*, ROW_NUMBER() OVER (ORDER BY points DESC, percentage DESC, team_id) AS position " +
+                "    FROM ranked) r " +
+                "WHERE u.user_id = ? AND u.team_id = r.team_id";
+        try {
+            logger.debug("Recalculating all user ladder entries for userId: {} from season {}", userId, year);
+
+            int addedRows = jdbcTemplate.update(addMissingSql, userId, year);
+            if (addedRows > 0) {
+                logger.info("Added {} missing ladder entries for userId: {}", addedRows, userId);
+            }
+            int updatedRows = jdbcTemplate.update(sql, userId, year, userId, userId);
+            logger.info("Recalculated {} ladder entries for userId: {}", updatedRows, userId);
+        } catch (DataAccessException e) {
+            logger.error("Exception while recalculating user ladder entries for userId: {}", userId, e);
+            throw e;
+        }
+    }
+
+    /**
+     * Adds the same per-team changes to the ladders of many users, with one batched statement per team.
+     *
+     * <p>Each delta holds the change in points, wins, losses, draws, points for and points against for the team with its
+     * team ID. Percentages and positions are not updated; call {@link #recalculatePercentagesAndPositions(List)}
+     * afterwards.
+     *
+     * @param userIds The IDs of the users whose ladders are changed.
+     * @param deltas The per-team changes to add.
+     */
+    @Override
+    public void applyLadderDeltas(List<Integer> userIds, List<UserLadderEntry> deltas) {
+        if (userIds.isEmpty() || deltas.isEmpty()) {
+            return;
+        }
+        String sql = "UPDATE user_ladder SET points = points + ?, wins = wins + ?, losses = losses + ?, " +
+                "draws = draws + ?, points_for = points_for + ?, points_against = points_against + ? " +
+                "WHERE team_id = ? AND user_id IN (" + placeholders(userIds.size()) + ")";
+        List<Object[]> batchArgs = new ArrayList<>();
+        for (UserLadderEntry delta : deltas) {
+            List<Object> args = new ArrayList<>(Arrays.asList(delta.getPoints(), delta.getWins(), delta.getLosses(),
+                    delta.getDraws(), delta.getPointsFor(), delta.getPointsAgainst(), delta.getTeamId()));
+            args.addAll(userIds);
+            batchArgs.add(args.toArray());
+        }
+        try {
+            logger.debug("Applying {} team ladder deltas to {} users", deltas.size(), userIds.size());
+            jdbcTemplate.batchUpdate(sql, batchArgs);
+        } catch (DataAccessException e) {
+            logger.error("Exception while applying ladder deltas to {} users", userIds.size(), e);
+            throw e;
+        }
+    }
+
+    /**
+     * Recalculates the percentage and position of every ladder entry of the given users from their stored points, points
+     * for and points against, using a single statement.
+     *
+     * @param userIds The IDs of the users whose ladders are recalculated.
+     */
+    @Override
+    public void recalculatePercentagesAndPositions(List<Integer> userIds) {
+        if (userIds.isEmpty()) {
+            return;
+        }
+        String sql = "UPDATE user_ladder u SET percentage = r.percentage, position = r.position " +
+                "FROM (SELECT user_id, team_id, percentage, " +
+                "    ROW_NUMBER() OVER (PARTITION BY user_id ORDER BY points DESC, percentage DESC, team_id) AS position " +
+                "    FROM (SELECT user_id, team_id, points, " +
+                "        CASE WHEN points_against = 0 THEN 100.0 " +
+                "            ELSE ROUND(points_for * 100.0 / points_against, 2) END AS percentage " +
+                "        FROM user_ladder WHERE user_id IN (" + placeholders(userIds.size()) + ")) t " +
+                ") r " +
+                "WHERE u.user_id = r.user_id AND u.team_id = r.team_id";
+        try {
+            int updatedRows = jdbcTemplate.update(sql, userIds.toArray());
+            logger.debug("Recalculated percentages and positions of {} ladder entries", updatedRows);
+        } catch (DataAccessException e) {
+            logger.error("Exception while recalculating percentages and positions for {} users", userIds.size(), e);
+            throw e;
+        }
     }
 
     @Override
@@ -129,7 +355,9 @@ public class JdbcUserLadderEntryDao implements UserLadderEntryDao {
 
     @Override
     public UserLadderEntry getUserLadderEntry(int userId, int teamId) {
-        String sql = "SELECT * FROM user_ladder WHERE user_id = ? AND team_id = ?";
+        String sql = "SELECT u.*, t.name AS team_name FROM user_ladder u " +
+                "JOIN teams t ON u.team_id = t.team_id " +
+                "WHERE u.user_id = ? AND u.team_id = ?";
         try {
             logger.debug("Fetching user ladder entry for userId: {}, teamId: {}", userId, teamId);
 
@@ -171,6 +399,10 @@ public class JdbcUserLadderEntryDao implements UserLadderEntryDao {
         }
     }
 
+    private String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+
     private UserLadderEntry mapRowToUserLadder(SqlRowSet row) {
         UserLadderEntry userLadder = new UserLadderEntry(row.getInt("user_id"),
                 row.getInt("team_id"), row.getInt("points"), row.getDouble("percentage"), row.getInt("position"),
@@ -0,0 +1,387 @@
+package com.heatherpiper.dao;
+
+import com.heatherpiper.model.Game;
+import com.heatherpiper.model.WatchedGameSet;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Stores each user's watched games as one bitmap per season in the watched_game_sets table, instead of one
+ * watched_games row per game.
+ *
+ * <p>Enabled by setting <code>watched.storage=bitmap</code>. Membership checks, round filters and set operations are
+ * done on the bitmaps in memory, so a user's watched games are read with a single indexed lookup of at most one row per
+ * season. Listing watched games only reads the games within the ID range of each of the user's season bitmaps, and the
+ * bitmaps then decide which of those games are watched; only listing unwatched games reads every game. Writes lock the
+ * user's season rows so that concurrent updates are not lost.
+ */
+@Component
+@ConditionalOnProperty(name = "watched.storage", havingValue = "bitmap")
+public class JdbcWatchedGameSetDao implements WatchedGamesDao {
+
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * The number of rows read from the database at a time when games are streamed.
+     */
+    @Value("${games.stream.fetch-size:500}")
+    private int streamFetchSize = 500;
+
+    public JdbcWatchedGameSetDao(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    private final RowMapper<Game> gameRowMapper = (rs, rowNum) -> {
+        Game game = new Game();
+        game.setId(rs.getInt("id"));
+        game.setRound(rs.getInt("round"));
+        game.setYear(rs.getInt("year"));
+        game.setDate(rs.getObject("date", OffsetDateTime.class));
+        game.setHteamId(rs.getInt("hteam_id"));
+        game.setAteamId(rs.getInt("ateam_id"));
+        game.setHscore(rs.getObject("hscore", Integer.class));
+        game.setAscore(rs.getObject("ascore", Integer.class));
+        game.setWinnerId(rs.getObject("winner_id", Integer.class));
+        game.setComplete(rs.getInt("complete"));
+        return game;
+    };
+
+    private final RowMapper<WatchedGameSet> watchedGameSetRowMapper = (rs, rowNum) ->
+            WatchedGameSet.fromByteArray(rs.getInt("user_id"), rs.getInt("year"), rs.getInt("base_game_id"),
+                    rs.getBytes("bits"));
+
+    @Override
+    public List<Game> findWatchedGames(int userId) {
+        List<WatchedGameSet> sets = findSets(userId);
+        if (sets.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<Object> args = new ArrayList<>();
+        String sql = "SELECT * FROM games WHERE " + withinSets(sets, args) + " ORDER BY date ASC";
+        return filterGames(jdbcTemplate.query(sql, gameRowMapper, args.toArray()), sets, true);
+    }
+
+    /**
+     * Reads the games within the user's bitmaps through a database cursor, in order of date, and hands each watched game
+     * to the action as it is read.
+     *
+     * @param userId The user ID.
+     * @param action The action run for each watched game.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public void streamWatchedGames(int userId, Consumer<Game> action) {
+        List<WatchedGameSet> sets = findSets(userId);
+        if (sets.isEmpty()) {
+            return;
+        }
+        List<Object> args = new ArrayList<>();
+        String sql = "SELECT * FROM games WHERE " + withinSets(sets, args) + " ORDER BY date ASC";
+        StreamingQuery.forEachRow(jdbcTemplate, sql, streamFetchSize, gameRowMapper, game -> {
+            if (isWatched(game, sets)) {
+                action.accept(game);
+            }
+        }, args.toArray());
+    }
+
+    @Override
+    public List<Game> findWatchedGamesByRound(int userId, int year, int round) {
+        // Only the bitmap of the season can hold games of the round
+        List<WatchedGameSet> sets = findSets(userId).stream()
+                .filter(set -> set.getYear() == year)
+                .collect(Collectors.toList());
+        if (sets.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<Object> args = new ArrayList<>();
+        args.add(year);
+        args.add(round);
+        String sql = "SELECT * FROM games WHERE year = ? AND round = ? AND (" + withinSets(sets, args) + ") " +
+                "ORDER BY date ASC";
+        return filterGames(jdbcTemplate.query(sql, gameRowMapper, args.toArray()), sets, true);
+    }
+
+    @Override
+    public List<Game> findUnwatchedGames(int userId, int year) {
+        String sql = "SELECT * FROM games WHERE year = ? ORDER BY date ASC";
+        return filterGames(jdbcTemplate.query(sql, gameRowMapper, year), findSets(userId), false);
+    }
+
+    /**
+     * Reads every game through a database cursor, in order of date, and hands each game not in the user's bitmaps to the
+     * action as it is read.
+     *
+     * @param userId The user ID.
+     * @param action The action run for each unwatched game.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public void streamUnwatchedGames(int userId, Consumer<Game> action) {
+        List<WatchedGameSet> sets = findSets(userId);
+        String sql = "SELECT * FROM games ORDER BY date ASC";
+        StreamingQuery.forEachRow(jdbcTemplate, sql, streamFetchSize, gameRowMapper, game -> {
+            if (!isWatched(game, sets)) {
+                action.accept(game);
+            }
+        });
+    }
+
+    @Override
+    public List<Game> findUnwatchedGamesByRound(int userId, int year, int round) {
+        String sql = "SELECT * FROM games WHERE year = ? AND round = ? ORDER BY date ASC";
+        return filterGames(jdbcTemplate.query(sql, gameRowMapper, year, round), findSets(userId), false);
+    }
+
+    @Override
+    public void addWatchedGame(int userId, int gameId) {
+        addWatchedGames(userId, Collections.singletonList(gameId));
+    }
+
+    @Override
+    @Transactional
+    public void addWatchedGames(int userId, List<Integer> gameIds) {
+        if (gameIds.isEmpty()) {
+            return;
+        }
+        String sql = "SELECT id, year FROM games WHERE id IN (" + placeholders(gameIds.size()) + ")";
+        updateSets(userId, findGameIdsByYear(sql, gameIds.toArray()), true);
+    }
+
+    @Override
+    public void removeWatchedGame(int userId, int gameId) {
+        removeWatchedGames(userId, Collections.singletonList(gameId));
+    }
+
+    @Override
+    @Transactional
+    public void removeWatchedGames(int userId, List<Integer> gameIds) {
+        if (gameIds.isEmpty()) {
+            return;
+        }
+        String sql = "SELECT id, year FROM games WHERE id IN (" + placeholders(gameIds.size()) + ")";
+        updateSets(userId, findGameIdsByYear(sql, gameIds.toArray()), false);
+    }
+
+    @Override
+    @Transactional
+    public void markAllGamesWatched(int userId) {
+        String sql = "SELECT id, year FROM games";
+        updateSets(userId, findGameIdsByYear(sql), true);
+    }
+
+    @Override
+    public void markAllGamesUnwatched(int userId) {
+        String sql = "DELETE FROM watched_game_sets WHERE user_id = ?";
+        jdbcTemplate.update(sql, userId);
+    }
+
+    @Override
+    @Transactional
+    public void markAllGamesInRoundWatched(int userId, int year, int round) {
+        String sql = "SELECT id, year FROM games WHERE year = ? AND round = ?";
+        updateSets(userId, findGameIdsByYear(sql, year, round), true);
+    }
+
+    @Override
+    @Transactional
+    public void markAllGamesInRoundUnwatched(int userId, int year, int round) {
+        String sql = "SELECT id, year FROM games WHERE year = ? AND round = ?";
+        updateSets(userId, findGameIdsByYear(sql, year, round), false);
+    }
+
+    @Override
+    public boolean isGameWatched(int userId, int gameId) {
+        for (WatchedGameSet set : findSets(userId)) {
+            if (set.contains(gameId)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public List<Integer> findWatchedGameIds(int userId) {
+        List<Integer> gameIds = new ArrayList<>();
+        for (WatchedGameSet set : findSets(userId)) {
+            gameIds.addAll(set.getGameIds());
+        }
+        return gameIds;
+    }
+
+    @Override
+    public Set<Integer> findWatchedGameIds(int userId, List<Integer> gameIds) {
+        Set<Integer> watchedGameIds = new HashSet<>();
+        if (gameIds.isEmpty()) {
+            return watchedGameIds;
+        }
+        List<WatchedGameSet> sets = findSets(userId);
+        for (Integer gameId : gameIds) {
+            for (WatchedGameSet set : sets) {
+                if (set.contains(gameId)) {
+                    watchedGameIds.add(gameId);
+                    break;
+                }
+            }
+        }
+        return watchedGameIds;
+    }
+
+    @Override
+    public List<Integer> findUserIdsWatchingGames(List<Integer> gameIds) {
+        if (gameIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        // Test each game's bit in the bitmap of its season. The CASE guards get_bit against offsets outside the bitmap,
+        // since the planner does not guarantee the order in which AND conditions are evaluated.
+        String sql = "SELECT DISTINCT s.user_id FROM watched_game_sets s " +
+                "JOIN games g ON g.year = s.year " +
+                "WHERE g.id IN (" + placeholders(gameIds.size()) + ") " +
+                "AND CASE WHEN g.id >= s.base_game_id AND g.id - s.base_game_id < length(s.bits) * 8 " +
+                "    THEN get_bit(s.bits, g.id - s.base_game_id) = 1 ELSE false END";
+        return jdbcTemplate.queryForList(sql, Integer.class, gameIds.toArray());
+    }
+
+    /**
+     * Finds the users watching each of the given games with a single query, testing each game's bit in the bitmap of
+     * its season.
+     *
+     * @param gameIds The game IDs.
+     * @return the IDs of the users watching each game, keyed by game ID. Games that no user watches are left out.
+     */
+    @Override
+    public Map<Integer, List<Integer>> findUserIdsWatchingEachGame(List<Integer> gameIds) {
+        Map<Integer, List<Integer>> userIdsByGame = new HashMap<>();
+        if (gameIds.isEmpty()) {
+            return userIdsByGame;
+        }
+        String sql = "SELECT g.id AS game_id, s.user_id FROM watched_game_sets s " +
+                "JOIN games g ON g.year = s.year " +
+                "WHERE g.id IN (" + placeholders(gameIds.size()) + ") " +
+                "AND CASE WHEN g.id >= s.base_game_id AND g.id - s.base_game_id < length(s.bits) * 8 " +
+                "    THEN get_bit(s.bits, g.id - s.base_game_id) = 1 ELSE false END " +
+                "ORDER BY g.id, s.user_id";
+        jdbcTemplate.query(sql, rs -> {
+            userIdsByGame.computeIfAbsent(rs.getInt("game_id"), gameId -> new ArrayList<>()).add(rs.getInt("user_id"));
+        }, gameIds.toArray());
+        return userIdsByGame;
+    }
+
+    private List<WatchedGameSet> findSets(int userId) {
+        String sql = "SELECT user_id, year, base_game_id, bits FROM watched_game_sets WHERE user_id = ? ORDER BY year";
+        return jdbcTemplate.query(sql, watchedGameSetRowMapper, userId);
+    }
+
+    /**
+     * Builds a condition matching the games of each set's season whose IDs fall between the set's first and last
+     * watched game, and adds its parameters to the arguments.
+     */
+    private String withinSets(List<WatchedGameSet> sets, List<Object> args) {
+        List<String> conditions = new ArrayList<>();
+        for (WatchedGameSet set : sets) {
+            conditions.add("(year = ? AND id BETWEEN ? AND ?)");
+            args.add(set.getYear());
+            args.add(set.getBaseGameId());
+            args.add(set.getBaseGameId() + set.getBits().length() - 1);
+        }
+        return String.join(" OR ", conditions);
+    }
+
+    private Map<Integer, List<Integer>> findGameIdsByYear(String sql, Object... args) {
+        Map<Integer, List<Integer>> gameIdsByYear = new TreeMap<>();
+        jdbcTemplate.query(sql, rs -> {
+            gameIdsByYear.computeIfAbsent(rs.getInt("year"), year -> new ArrayList<>()).add(rs.getInt("id"));
+        }, args);
+        return gameIdsByYear;
+    }
+
+    /**
+     * Adds games to or removes games from the user's season bitmaps. The season rows are created if missing and locked
+     * before being read, so concurrent writers for the same user are serialized. Seasons left empty are deleted.
+     */
+    private void updateSets(int userId, Map<Integer, List<Integer>> gameIdsByYear, boolean watched) {
+        if (gameIdsByYear.isEmpty()) {
+            return;
+        }
+        List<Integer> years = new ArrayList<>(gameIdsByYear.keySet());
+
+        if (watched) {
+            String insertSql = "INSERT INTO watched_game_sets (user_id, year, base_game_id, bits) VALUES " +
+                    String.join(", ", Collections.nCopies(years.size(), "(?, ?, 0, ''::bytea)")) +
+                    " ON CONFLICT (user_id, year) DO NOTHING";
+            List<Object> params = new ArrayList<>();
+            for (Integer year : years) {
+                params.add(userId);
+                params.add(year);
+            }
+            jdbcTemplate.update(insertSql, params.toArray());
+        }
+
+        String lockSql = "SELECT user_id, year, base_game_id, bits FROM watched_game_sets " +
+                "WHERE user_id = ? AND year IN (" + placeholders(years.size()) + ") FOR UPDATE";
+        List<Object> lockParams = new ArrayList<>();
+        lockParams.add(userId);
+        lockParams.addAll(years);
+        Map<Integer, WatchedGameSet> setsByYear = jdbcTemplate.query(lockSql, watchedGameSetRowMapper,
+                lockParams.toArray()).stream().collect(Collectors.toMap(WatchedGameSet::getYear, set -> set));
+
+        for (WatchedGameSet set : setsByYear.values()) {
+            List<Integer> gameIds = gameIdsByYear.get(set.getYear());
+            if (watched) {
+                set.addAll(gameIds);
+            } else {
+                set.removeAll(gameIds);
+            }
+            saveSet(set);
+        }
+    }
+
+    private void saveSet(WatchedGameSet set) {
+        if (set.isEmpty()) {
+            jdbcTemplate.update("DELETE FROM watched_game_sets WHERE user_id = ? AND year = ?",
+                    set.getUserId(), set.getYear());
+        } else {
+            jdbcTemplate.update("UPDATE watched_game_sets SET base_game_id = ?, bits = ? WHERE user_id = ? AND year = ?",
+                    set.getBaseGameId(), set.toByteArray(), set.getUserId(), set.getYear());
+        }
+    }
+
+    private List<Game> filterGames(List<Game> games, List<WatchedGameSet> sets, boolean watched) {
+        List<Game> filtered = new ArrayList<>();
+        for (Game game : games) {
+            if (isWatched(game, sets) == watched) {
+                filtered.add(game);
+            }
+        }
+        return filtered;
+    }
+
+    private boolean isWatched(Game game, List<WatchedGameSet> sets) {
+        for (WatchedGameSet set : sets) {
+            if (set.getYear() == game.getYear() && set.contains(game.getId())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+}
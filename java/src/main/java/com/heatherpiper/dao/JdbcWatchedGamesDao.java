@@ -1,18 +1,52 @@
 package com.heatherpiper.dao;
 
 import com.heatherpiper.model.Game;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
 
 import javax.sql.DataSource;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
 
 @Component
+@ConditionalOnProperty(name = "watched.storage", havingValue = "rows", matchIfMissing = true)
 public class JdbcWatchedGamesDao implements WatchedGamesDao {
 
+    private static final String WATCHED_GAMES =
+            "SELECT g.* FROM games g INNER JOIN watched_games wg ON g.id = wg.game_id WHERE wg.user_id = ? " +
+            "ORDER BY g.date ASC";
+
+    private static final String UNWATCHED_GAMES =
+            "SELECT g.* FROM games g " +
+            "LEFT JOIN watched_games wg ON g.id = wg.game_id AND wg.user_id = ? " +
+            "WHERE wg.game_id IS NULL " +
+            "ORDER BY g.date ASC";
+
+    private static final String UNWATCHED_GAMES_IN_SEASON =
+            "SELECT g.* FROM games g " +
+            "LEFT JOIN watched_games wg ON g.id = wg.game_id AND wg.user_id = ? " +
+            "WHERE wg.game_id IS NULL AND g.year = ? " +
+            "ORDER BY g.date ASC";
+
     private JdbcTemplate jdbcTemplate;
 
+    /**
+     * The number of rows read from the database at a time when games are streamed.
+     */
+    @Value("${games.stream.fetch-size:500}")
+    private int streamFetchSize = 500;
+
     public JdbcWatchedGamesDao(DataSource dataSource) {
         this.jdbcTemplate = new JdbcTemplate(dataSource);
     }
@@ -22,59 +56,109 @@ public class JdbcWatchedGamesDao implements WatchedGamesDao {
         game.setId(rs.getInt("id"));
         game.setRound(rs.getInt("round"));
         game.setYear(rs.getInt("year"));
-        game.setDate(rs.getString("date"));
-        game.setHteam(rs.getString("hteam"));
-        game.setAteam(rs.getString("ateam"));
+        game.setDate(rs.getObject("date", OffsetDateTime.class));
+        game.setHteamId(rs.getInt("hteam_id"));
+        game.setAteamId(rs.getInt("ateam_id"));
         game.setHscore(rs.getObject("hscore", Integer.class));
         game.setAscore(rs.getObject("ascore", Integer.class));
-        game.setWinner(rs.getString("winner"));
+        game.setWinnerId(rs.getObject("winner_id", Integer.class));
         game.setComplete(rs.getInt("complete"));
         return game;
     };
 
     @Override
     public List<Game> findWatchedGames(int userId) {
+        return jdbcTemplate.query(WATCHED_GAMES, gameRowMapper, userId);
+    }
+
+    /**
+     * Reads the user's watched games through a database cursor, in order of date, and hands each one to the action as it
+     * is read.
+     *
+     * @param userId The user ID.
+     * @param action The action run for each watched game.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public void streamWatchedGames(int userId, Consumer<Game> action) {
+        StreamingQuery.forEachRow(jdbcTemplate, WATCHED_GAMES, streamFetchSize, gameRowMapper, action, userId);
+    }
+
+    @Override
+    public List<Game> findWatchedGamesByRound(int userId, int year, int round) {
         String sql = "SELECT g.* FROM games g INNER JOIN watched_games wg ON g.id = wg.game_id WHERE wg.user_id = ? " +
-                "ORDER BY g.date ASC";
-        return jdbcTemplate.query(sql, gameRowMapper, userId);
+                "AND g.year = ? AND g.round = ? ORDER BY g.date ASC";
+        return jdbcTemplate.query(sql, gameRowMapper, userId, year, round);
     }
 
     @Override
-    public List<Game> findWatchedGamesByRound(int userId, int round) {
-        String sql = "SELECT g.* FROM games g INNER JOIN watched_games wg ON g.id = wg.game_id WHERE wg.user_id = ? AND g.round = ? " +
-                "ORDER BY g.date ASC";
-        return jdbcTemplate.query(sql, gameRowMapper, userId, round);
+    public List<Game> findUnwatchedGames(int userId, int year) {
+        return jdbcTemplate.query(UNWATCHED_GAMES_IN_SEASON, new Object[]{userId, year}, gameRowMapper);
     }
 
+    /**
+     * Reads the games the user has not watched through a database cursor, in order of date, and hands each one to the
+     * action as it is read.
+     *
+     * @param userId The user ID.
+     * @param action The action run for each unwatched game.
+     */
     @Override
-    public List<Game> findUnwatchedGames(int userId) {
-        String sql = "SELECT g.* FROM games g " +
-                "LEFT JOIN watched_games wg ON g.id = wg.game_id AND wg.user_id = ? " +
-                "WHERE wg.game_id IS NULL " +
-                "ORDER BY g.date ASC";
-        return jdbcTemplate.query(sql, new Object[]{userId}, gameRowMapper);
+    @Transactional(readOnly = true)
+    public void streamUnwatchedGames(int userId, Consumer<Game> action) {
+        StreamingQuery.forEachRow(jdbcTemplate, UNWATCHED_GAMES, streamFetchSize, gameRowMapper, action, userId);
     }
 
     @Override
-    public List<Game> findUnwatchedGamesByRound(int userId, int round) {
+    public List<Game> findUnwatchedGamesByRound(int userId, int year, int round) {
         String sql = "SELECT g.* FROM games g " +
                 "LEFT JOIN watched_games wg ON g.id = wg.game_id AND wg.user_id = ? " +
-                "WHERE wg.game_id IS NULL AND g.round = ?";
-        return jdbcTemplate.query(sql, new Object[]{userId, round}, gameRowMapper);
+                "WHERE wg.game_id IS NULL AND g.year = ? AND g.round = ?";
+        return jdbcTemplate.query(sql, new Object[]{userId, year, round}, gameRowMapper);
     }
 
     @Override
     public void addWatchedGame(int userId, int gameId) {
-        String sql = "INSERT INTO watched_games (user_id, game_id) VALUES (?, ?)";
+        // Watching a game twice is a no-op, as it is for the bitmap storage
+        String sql = "INSERT INTO watched_games (user_id, game_id) VALUES (?, ?) ON CONFLICT (user_id, game_id) DO NOTHING";
         jdbcTemplate.update(sql, userId, gameId);
     }
 
+    @Override
+    public void addWatchedGames(int userId, List<Integer> gameIds) {
+        if (gameIds.isEmpty()) {
+            return;
+        }
+        // Insert all games with a single multi-row statement
+        String sql = "INSERT INTO watched_games (user_id, game_id) VALUES " +
+                String.join(", ", Collections.nCopies(gameIds.size(), "(?, ?)")) +
+                " ON CONFLICT (user_id, game_id) DO NOTHING";
+        List<Object> params = new ArrayList<>();
+        for (Integer gameId : gameIds) {
+            params.add(userId);
+            params.add(gameId);
+        }
+        jdbcTemplate.update(sql, params.toArray());
+    }
+
     @Override
     public void removeWatchedGame(int userId, int gameId) {
         String sql = "DELETE FROM watched_games WHERE user_id = ? AND game_id = ?";
         jdbcTemplate.update(sql, userId, gameId);
     }
 
+    @Override
+    public void removeWatchedGames(int userId, List<Integer> gameIds) {
+        if (gameIds.isEmpty()) {
+            return;
+        }
+        String sql = "DELETE FROM watched_games WHERE user_id = ? AND game_id IN (" + placeholders(gameIds.size()) + ")";
+        List<Object> params = new ArrayList<>();
+        params.add(userId);
+        params.addAll(gameIds);
+        jdbcTemplate.update(sql, params.toArray());
+    }
+
     @Override
     public void markAllGamesWatched(int userId) {
         // check if game already exists in watched_list for user; if not, insert into watched_games
@@ -93,19 +177,19 @@ public class JdbcWatchedGamesDao implements WatchedGamesDao {
     }
 
     @Override
-    public void markAllGamesInRoundWatched(int userId, int round) {
+    public void markAllGamesInRoundWatched(int userId, int year, int round) {
         String sql = "INSERT INTO watched_games (user_id, game_id) " +
                 "SELECT ?, g.id FROM games g " +
-                "WHERE g.round = ? AND NOT EXISTS (" +
+                "WHERE g.year = ? AND g.round = ? AND NOT EXISTS (" +
                 "SELECT 1 FROM watched_games wg WHERE wg.game_id = g.id AND wg.user_id = ?)";
-        jdbcTemplate.update(sql, userId, round, userId);
+        jdbcTemplate.update(sql, userId, year, round, userId);
     }
 
     @Override
-    public void markAllGamesInRoundUnwatched(int userId, int round) {
+    public void markAllGamesInRoundUnwatched(int userId, int year, int round) {
         String sql = "DELETE FROM watched_games WHERE user_id = ? AND game_id IN (" +
-                "SELECT id FROM games WHERE round = ?)";
-        jdbcTemplate.update(sql, userId, round);
+                "SELECT id FROM games WHERE year = ? AND round = ?)";
+        jdbcTemplate.update(sql, userId, year, round);
     }
 
     @Override
@@ -114,4 +198,55 @@ public class JdbcWatchedGamesDao implements WatchedGamesDao {
         Integer count = jdbcTemplate.queryForObject(sql, new Object[]{userId, gameId}, Integer.class);
         return count != null && count > 0;
     }
+
+    @Override
+    public List<Integer> findWatchedGameIds(int userId) {
+        String sql = "SELECT game_id FROM watched_games WHERE user_id = ?";
+        return jdbcTemplate.queryForList(sql, Integer.class, userId);
+    }
+
+    @Override
+    public Set<Integer> findWatchedGameIds(int userId, List<Integer> gameIds) {
+        if (gameIds.isEmpty()) {
+            return new HashSet<>();
+        }
+        String sql = "SELECT game_id FROM watched_games WHERE user_id = ? AND game_id IN (" + placeholders(gameIds.size()) + ")";
+        List<Object> params = new ArrayList<>();
+        params.add(userId);
+        params.addAll(gameIds);
+        return new HashSet<>(jdbcTemplate.queryForList(sql, Integer.class, params.toArray()));
+    }
+
+    @Override
+    public List<Integer> findUserIdsWatchingGames(List<Integer> gameIds) {
+        if (gameIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        String sql = "SELECT DISTINCT user_id FROM watched_games WHERE game_id IN (" + placeholders(gameIds.size()) + ")";
+        return jdbcTemplate.queryForList(sql, Integer.class, gameIds.toArray());
+    }
+
+    /**
+     * Finds the users watching each of the given games with a single query.
+     *
+     * @param gameIds The game IDs.
+     * @return the IDs of the users watching each game, keyed by game ID. Games that no user watches are left out.
+     */
+    @Override
+    public Map<Integer, List<Integer>> findUserIdsWatchingEachGame(List<Integer> gameIds) {
+        Map<Integer, List<Integer>> userIdsByGame = new HashMap<>();
+        if (gameIds.isEmpty()) {
+            return userIdsByGame;
+        }
+        String sql = "SELECT game_id, user_id FROM watched_games WHERE game_id IN (" + placeholders(gameIds.size()) + ") " +
+                "ORDER BY game_id, user_id";
+        jdbcTemplate.query(sql, rs -> {
+            userIdsByGame.computeIfAbsent(rs.getInt("game_id"), gameId -> new ArrayList<>()).add(rs.getInt("user_id"));
+        }, gameIds.toArray());
+        return userIdsByGame;
+    }
+
+    private String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
 }
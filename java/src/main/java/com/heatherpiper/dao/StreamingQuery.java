@@ -0,0 +1,40 @@
+package com.heatherpiper.dao;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.function.Consumer;
+
+/**
+ * Runs a query through a forward-only, read-only cursor and hands each row to an action as it is read, so only one
+ * fetch of rows is held in memory however many rows the query returns.
+ *
+ * <p>The PostgreSQL driver only reads rows in fetches of the fetch size inside a transaction; with auto-commit on, it
+ * reads the whole result before returning the first row. Callers must therefore run in a transaction.
+ */
+final class StreamingQuery {
+
+    private StreamingQuery() {
+    }
+
+    static <T> void forEachRow(JdbcTemplate jdbcTemplate, String sql, int fetchSize, RowMapper<T> rowMapper,
+                               Consumer<? super T> action, Object... args) {
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY,
+                    ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(fetchSize);
+            for (int i = 0; i < args.length; i++) {
+                statement.setObject(i + 1, args[i]);
+            }
+            return statement;
+        }, (ResultSet rs) -> {
+            int rowNum = 0;
+            while (rs.next()) {
+                action.accept(rowMapper.mapRow(rs, rowNum++));
+            }
+            return null;
+        });
+    }
+}
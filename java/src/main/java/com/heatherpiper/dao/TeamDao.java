@@ -14,5 +14,9 @@ public interface TeamDao {
 
     List<Team> findAllTeams();
 
+    List<Integer> findTeamIdsInLatestSeason();
+
     int saveTeam(String teamName);
+
+    void saveTeams(List<Team> teams);
 }
@@ -17,6 +17,10 @@ public interface UserDao {
 
     boolean userExists(int userId);
 
+    void lockUser(int userId);
+
+    void lockUsers(List<Integer> userIds);
+
     void updateLastLogin(String username);
 
     void updateLastActive(String username);
@@ -7,10 +7,18 @@ import com.heatherpiper.model.UserLadderEntry;
 public interface UserLadderEntryDao {
     void addUserLadderEntry(UserLadderEntry userLadderEntry);
 
+    void addMissingUserLadderEntries(int userId, List<Integer> teamIds);
+
     void updateUserLadderEntry(UserLadderEntry userLadderEntry);
 
     void updateUserLadderEntries(List<UserLadderEntry> userLadderEntries);
 
+    void recalculateUserLadderEntries(int userId, int year);
+
+    void applyLadderDeltas(List<Integer> userIds, List<UserLadderEntry> deltas);
+
+    void recalculatePercentagesAndPositions(List<Integer> userIds);
+
     void deleteUserLadderEntry(int userId, int teamId);
 
     UserLadderEntry getUserLadderEntry(int userId, int teamId);
@@ -3,29 +3,48 @@ package com.heatherpiper.dao;
 import com.heatherpiper.model.Game;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
 
 public interface WatchedGamesDao {
 
     List<Game> findWatchedGames(int userId);
 
-    List<Game> findWatchedGamesByRound(int userId, int round);
+    void streamWatchedGames(int userId, Consumer<Game> action);
 
-    List<Game> findUnwatchedGames(int userId);
+    List<Game> findWatchedGamesByRound(int userId, int year, int round);
 
-    List<Game> findUnwatchedGamesByRound(int userId, int round);
+    List<Game> findUnwatchedGames(int userId, int year);
+
+    void streamUnwatchedGames(int userId, Consumer<Game> action);
+
+    List<Game> findUnwatchedGamesByRound(int userId, int year, int round);
 
     void addWatchedGame(int userId, int gameId);
 
+    void addWatchedGames(int userId, List<Integer> gameIds);
+
     void removeWatchedGame(int userId, int gameId);
 
+    void removeWatchedGames(int userId, List<Integer> gameIds);
+
     void markAllGamesWatched(int userId);
 
     void markAllGamesUnwatched(int userId);
 
-    void markAllGamesInRoundWatched(int userId, int round);
+    void markAllGamesInRoundWatched(int userId, int year, int round);
 
-    void markAllGamesInRoundUnwatched(int userId, int round);
+    void markAllGamesInRoundUnwatched(int userId, int year, int round);
 
     boolean isGameWatched(int userId, int gameId);
 
+    List<Integer> findWatchedGameIds(int userId);
+
+    Set<Integer> findWatchedGameIds(int userId, List<Integer> gameIds);
+
+    List<Integer> findUserIdsWatchingGames(List<Integer> gameIds);
+
+    Map<Integer, List<Integer>> findUserIdsWatchingEachGame(List<Integer> gameIds);
+
 }
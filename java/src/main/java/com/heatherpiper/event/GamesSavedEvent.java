@@ -0,0 +1,38 @@
+package com.heatherpiper.event;
+
+import com.heatherpiper.model.Game;
+import com.heatherpiper.model.GameCorrection;
+import org.springframework.context.ApplicationEvent;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Event published after games fetched from the Squiggle API have been saved to the database.
+ *
+ * <p>Besides the saved games, the event carries a correction for every game that was already stored and whose teams,
+ * scores or winner changed, so that ladders built on the previous result can be corrected.
+ */
+public class GamesSavedEvent extends ApplicationEvent {
+
+    private final List<Game> games;
+    private final List<GameCorrection> corrections;
+
+    public GamesSavedEvent(Object source, List<Game> games) {
+        this(source, games, Collections.emptyList());
+    }
+
+    public GamesSavedEvent(Object source, List<Game> games, List<GameCorrection> corrections) {
+        super(source);
+        this.games = games;
+        this.corrections = corrections;
+    }
+
+    public List<Game> getGames() {
+        return games;
+    }
+
+    public List<GameCorrection> getCorrections() {
+        return corrections;
+    }
+}
@@ -0,0 +1,41 @@
+package com.heatherpiper.json;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.heatherpiper.service.TeamDictionary;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.io.IOException;
+
+/**
+ * Writes a team ID as the team's name, looked up in the {@link TeamDictionary}, so games and live games can be stored
+ * and compared by team ID while the API still reports team names.
+ *
+ * <p>Spring's object mapper creates this serializer with the dictionary. An object mapper created outside Spring uses
+ * the no-argument constructor, and then, like an ID with no team in the dictionary, the name is written as null. The
+ * ID itself is always written in its own property.
+ */
+public class TeamNameSerializer extends JsonSerializer<Integer> {
+
+    private final TeamDictionary teamDictionary;
+
+    public TeamNameSerializer() {
+        this(null);
+    }
+
+    @Autowired
+    public TeamNameSerializer(TeamDictionary teamDictionary) {
+        this.teamDictionary = teamDictionary;
+    }
+
+    @Override
+    public void serialize(Integer teamId, JsonGenerator generator, SerializerProvider provider) throws IOException {
+        String name = teamDictionary != null ? teamDictionary.findTeamName(teamId) : null;
+        if (name != null) {
+            generator.writeString(name);
+        } else {
+            generator.writeNull();
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.heatherpiper.model;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * A job loading every season in a range of years into the games table, and the seasons it has loaded so far.
+ *
+ * <p>A job is {@link #RUNNING} until each season has been attempted, then {@link #COMPLETED} if every season was loaded
+ * or {@link #FAILED} if any was not. Running and failed jobs can be resumed, which only loads the seasons that are not
+ * yet completed.
+ */
+public class BackfillJob {
+    public static final String RUNNING = "RUNNING";
+    public static final String COMPLETED = "COMPLETED";
+    public static final String FAILED = "FAILED";
+
+    private final int jobId;
+    private final int firstYear;
+    private final int lastYear;
+    private final String status;
+    private final Instant createdAt;
+    private final Instant updatedAt;
+    private final List<Integer> completedYears;
+    private final int gamesLoaded;
+
+    public BackfillJob(int jobId, int firstYear, int lastYear, String status, Instant createdAt, Instant updatedAt,
+                       List<Integer> completedYears, int gamesLoaded) {
+        this.jobId = jobId;
+        this.firstYear = firstYear;
+        this.lastYear = lastYear;
+        this.status = status;
+        this.createdAt = createdAt;
+        this.updatedAt = updatedAt;
+        this.completedYears = completedYears;
+        this.gamesLoaded = gamesLoaded;
+    }
+
+    public int getJobId() {
+        return jobId;
+    }
+
+    public int getFirstYear() {
+        return firstYear;
+    }
+
+    public int getLastYear() {
+        return lastYear;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    /**
+     * When the job's status last changed or it last completed a season.
+     */
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    /**
+     * The seasons that have been loaded, in ascending order.
+     */
+    public List<Integer> getCompletedYears() {
+        return completedYears;
+    }
+
+    /**
+     * The number of games in the completed seasons.
+     */
+    public int getGamesLoaded() {
+        return gamesLoaded;
+    }
+
+    public int getTotalYears() {
+        return lastYear - firstYear + 1;
+    }
+}
@@ -1,8 +1,24 @@
 package com.heatherpiper.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
-
+import com.fasterxml.jackson.annotation.JsonSetter;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.heatherpiper.json.TeamNameSerializer;
+
+import java.time.OffsetDateTime;
+
+/**
+ * A game, with its teams and winner held as team IDs.
+ *
+ * <p>Squiggle sends the team IDs as "hteamid", "ateamid" and "winnerteamid", and the team names as "hteam", "ateam"
+ * and "winner"; the live feed sends IDs in "hteam", "ateam" and "winner" instead. Either is read. When written, the
+ * IDs keep their Squiggle property names and "hteam", "ateam" and "winner" carry the team names, resolved by
+ * {@link TeamNameSerializer}.
+ */
 @JsonIgnoreProperties(ignoreUnknown = true)
 public class Game {
     @JsonProperty("id")
@@ -15,13 +31,15 @@ public class Game {
     private int year;
 
     @JsonProperty("date")
-    private String date; // ISO 8601 date format
+    @JsonSerialize(using = GameDates.Serializer.class)
+    @JsonDeserialize(using = GameDates.Deserializer.class)
+    private OffsetDateTime date; // start time in UTC
 
-    @JsonProperty("hteam")
-    private String hteam;
+    @JsonProperty("hteamid")
+    private int hteamId;
 
-    @JsonProperty("ateam")
-    private String ateam;
+    @JsonProperty("ateamid")
+    private int ateamId;
 
     @JsonProperty("hscore")
     private Integer hscore; // Use Integer to allow for null values
@@ -29,41 +47,47 @@ public class Game {
     @JsonProperty("ascore")
     private Integer ascore; // Use Integer to allow for null values
 
-    @JsonProperty("winner")
-    private String winner;
+    @JsonProperty("winnerteamid")
+    private Integer winnerId; // null for a draw or a game without a result
 
     @JsonProperty("complete")
     private int complete; // percentage of gameplay completed
 
+    @JsonIgnore
+    private String hteamName; // as sent by Squiggle, for teams not yet stored
+
+    @JsonIgnore
+    private String ateamName;
+
     public Game() {
     }
 
-    public Game(int round, int year, String hteam, String ateam) {
+    public Game(int round, int year, int hteamId, int ateamId) {
         this.round = round;
         this.year = year;
-        this.hteam = hteam;
-        this.ateam = ateam;
+        this.hteamId = hteamId;
+        this.ateamId = ateamId;
     }
 
-    public Game(int round, int year, String hteam, String ateam, int complete) {
+    public Game(int round, int year, int hteamId, int ateamId, int complete) {
         this.round = round;
         this.year = year;
-        this.hteam = hteam;
-        this.ateam = ateam;
+        this.hteamId = hteamId;
+        this.ateamId = ateamId;
         this.complete = 0;
     }
 
-    public Game(int id, int round, int year, String date, String hteam, String ateam, Integer hscore, Integer ascore, String winner,
-                int complete) {
+    public Game(int id, int round, int year, OffsetDateTime date, int hteamId, int ateamId, Integer hscore, Integer ascore,
+                Integer winnerId, int complete) {
         this.id = id;
         this.round = round;
         this.year = year;
         this.date = date;
-        this.hteam = hteam;
-        this.ateam = ateam;
+        this.hteamId = hteamId;
+        this.ateamId = ateamId;
         this.hscore = hscore;
         this.ascore = ascore;
-        this.winner = winner;
+        this.winnerId = winnerId;
         this.complete = complete;
     }
 
@@ -79,16 +103,16 @@ public class Game {
         return year;
     }
 
-    public String getDate() {
+    public OffsetDateTime getDate() {
         return date;
     }
 
-    public String getHteam() {
-        return hteam;
+    public int getHteamId() {
+        return hteamId;
     }
 
-    public String getAteam() {
-        return ateam;
+    public int getAteamId() {
+        return ateamId;
     }
 
     public Integer getHscore() {
@@ -99,8 +123,8 @@ public class Game {
         return ascore;
     }
 
-    public String getWinner() {
-        return winner;
+    public Integer getWinnerId() {
+        return winnerId;
     }
 
     public int getComplete() {
@@ -119,16 +143,16 @@ public class Game {
         this.year = year;
     }
 
-    public void setDate(String date) {
+    public void setDate(OffsetDateTime date) {
         this.date = date;
     }
 
-    public void setHteam(String hteam) {
-        this.hteam = hteam;
+    public void setHteamId(int hteamId) {
+        this.hteamId = hteamId;
     }
 
-    public void setAteam(String ateam) {
-        this.ateam = ateam;
+    public void setAteamId(int ateamId) {
+        this.ateamId = ateamId;
     }
 
     public void setHscore(Integer hscore) {
@@ -145,8 +169,8 @@ public class Game {
         this.ascore = ascore;
     }
 
-    public void setWinner(String winner) {
-        this.winner = winner;
+    public void setWinnerId(Integer winnerId) {
+        this.winnerId = winnerId;
     }
 
     public void setComplete(int complete) {
@@ -156,4 +180,65 @@ public class Game {
     public boolean isComplete() {
         return complete == 100;
     }
+
+    /**
+     * @return the home team's name as sent by Squiggle, or <code>null</code> if it only sent the team's ID.
+     */
+    public String getHteamName() {
+        return hteamName;
+    }
+
+    /**
+     * @return the away team's name as sent by Squiggle, or <code>null</code> if it only sent the team's ID.
+     */
+    public String getAteamName() {
+        return ateamName;
+    }
+
+    @JsonProperty("hteam")
+    @JsonSerialize(using = TeamNameSerializer.class)
+    private int hteamForJson() {
+        return hteamId;
+    }
+
+    @JsonProperty("ateam")
+    @JsonSerialize(using = TeamNameSerializer.class)
+    private int ateamForJson() {
+        return ateamId;
+    }
+
+    @JsonProperty("winner")
+    @JsonSerialize(using = TeamNameSerializer.class)
+    private Integer winnerForJson() {
+        return winnerId;
+    }
+
+    @JsonSetter("hteam")
+    private void setHteamFromJson(JsonNode team) {
+        if (isTeamId(team)) {
+            hteamId = team.asInt();
+        } else if (team.isTextual()) {
+            hteamName = team.asText();
+        }
+    }
+
+    @JsonSetter("ateam")
+    private void setAteamFromJson(JsonNode team) {
+        if (isTeamId(team)) {
+            ateamId = team.asInt();
+        } else if (team.isTextual()) {
+            ateamName = team.asText();
+        }
+    }
+
+    @JsonSetter("winner")
+    private void setWinnerFromJson(JsonNode team) {
+        if (isTeamId(team)) {
+            winnerId = team.asInt();
+        }
+    }
+
+    private static boolean isTeamId(JsonNode team) {
+        return team.isIntegralNumber() || (team.isTextual() && team.asText().matches("\\d+"));
+    }
 }
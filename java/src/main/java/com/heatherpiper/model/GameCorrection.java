@@ -0,0 +1,58 @@
+package com.heatherpiper.model;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A change to a saved game that affects the ladder: its teams, scores or winner differ from the stored version.
+ *
+ * <p>The correction also holds the IDs of the users who had watched the game when it was saved, read in the same
+ * transaction as the save. Their stored ladders hold the previous result; users who watch the game later do not.
+ */
+public class GameCorrection {
+    private final Game previous;
+    private final Game current;
+    private final List<Integer> watcherIds;
+
+    public GameCorrection(Game previous, Game current) {
+        this(previous, current, Collections.emptyList());
+    }
+
+    public GameCorrection(Game previous, Game current, List<Integer> watcherIds) {
+        this.previous = previous;
+        this.current = current;
+        this.watcherIds = watcherIds;
+    }
+
+    /**
+     * Determines whether saving a game over its stored version changes the game's contribution to a ladder.
+     *
+     * @param previous The stored version of the game.
+     * @param current The version being saved.
+     * @return true if the teams, scores or winner have changed.
+     */
+    public static boolean isLadderChange(Game previous, Game current) {
+        return previous.getHteamId() != current.getHteamId()
+                || previous.getAteamId() != current.getAteamId()
+                || !Objects.equals(previous.getHscore(), current.getHscore())
+                || !Objects.equals(previous.getAscore(), current.getAscore())
+                || !Objects.equals(previous.getWinnerId(), current.getWinnerId());
+    }
+
+    public int getGameId() {
+        return current.getId();
+    }
+
+    public Game getPrevious() {
+        return previous;
+    }
+
+    public Game getCurrent() {
+        return current;
+    }
+
+    public List<Integer> getWatcherIds() {
+        return watcherIds;
+    }
+}
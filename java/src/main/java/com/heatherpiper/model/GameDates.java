@@ -0,0 +1,84 @@
+package com.heatherpiper.model;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Reads and writes the start times of games.
+ *
+ * <p>Squiggle reports start times as <code>2024-03-15 19:40:00</code>, in Melbourne time wherever the game is played.
+ * The API reports them in ISO 8601 with an offset, such as <code>2024-03-15T08:40:00Z</code>. Both forms are read, and
+ * every start time is kept in UTC, so two times for the same instant are always equal.
+ */
+public final class GameDates {
+
+    /**
+     * The time zone of the start times reported by Squiggle.
+     */
+    public static final ZoneId SQUIGGLE_ZONE = ZoneId.of("Australia/Melbourne");
+
+    private static final DateTimeFormatter SQUIGGLE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private GameDates() {
+    }
+
+    /**
+     * Parses a start time in either the Squiggle or the ISO 8601 form.
+     *
+     * @return the start time in UTC, or <code>null</code> if the text is <code>null</code> or blank.
+     * @throws IllegalArgumentException If the text is in neither form.
+     */
+    public static OffsetDateTime parse(String text) {
+        if (text == null || text.isBlank()) {
+            return null;
+        }
+        try {
+            if (text.indexOf('T') >= 0) {
+                return OffsetDateTime.parse(text).withOffsetSameInstant(ZoneOffset.UTC);
+            }
+            return LocalDateTime.parse(text, SQUIGGLE_FORMAT).atZone(SQUIGGLE_ZONE)
+                    .withZoneSameInstant(ZoneOffset.UTC).toOffsetDateTime();
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid game date: " + text, e);
+        }
+    }
+
+    /**
+     * @return the start time in ISO 8601, such as <code>2024-03-15T08:40:00Z</code>.
+     */
+    public static String format(OffsetDateTime date) {
+        return DateTimeFormatter.ISO_OFFSET_DATE_TIME.format(date.withOffsetSameInstant(ZoneOffset.UTC));
+    }
+
+    public static class Serializer extends JsonSerializer<OffsetDateTime> {
+        @Override
+        public void serialize(OffsetDateTime date, JsonGenerator generator, SerializerProvider provider)
+                throws IOException {
+            generator.writeString(format(date));
+        }
+    }
+
+    public static class Deserializer extends JsonDeserializer<OffsetDateTime> {
+        @Override
+        public OffsetDateTime deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+            String text = parser.getValueAsString();
+            try {
+                return parse(text);
+            } catch (IllegalArgumentException e) {
+                return (OffsetDateTime) context.handleWeirdStringValue(OffsetDateTime.class, text, e.getMessage());
+            }
+        }
+    }
+}
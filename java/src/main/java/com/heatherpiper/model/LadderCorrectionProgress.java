@@ -0,0 +1,84 @@
+package com.heatherpiper.model;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Progress of correcting stored ladders after one or more saved games changed a result.
+ *
+ * <p>Users are corrected in chunks, each in its own transaction. If a chunk fails, its users' ladders are rebuilt
+ * one at a time from their watched games; users whose rebuild also fails are counted as failed.
+ */
+public class LadderCorrectionProgress {
+    private final List<Integer> gameIds;
+    private final int totalUsers;
+    private final int totalChunks;
+    private final Instant startedAt;
+    private volatile int correctedUsers;
+    private volatile int rebuiltUsers;
+    private volatile int failedUsers;
+    private volatile int completedChunks;
+    private volatile Instant finishedAt;
+
+    public LadderCorrectionProgress(List<Integer> gameIds, int totalUsers, int totalChunks, Instant startedAt) {
+        this.gameIds = gameIds;
+        this.totalUsers = totalUsers;
+        this.totalChunks = totalChunks;
+        this.startedAt = startedAt;
+    }
+
+    public synchronized void chunkCorrected(int users) {
+        correctedUsers += users;
+        completedChunks++;
+    }
+
+    public synchronized void chunkRebuilt(int rebuilt, int failed) {
+        rebuiltUsers += rebuilt;
+        failedUsers += failed;
+        completedChunks++;
+    }
+
+    public void finish(Instant finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+
+    public List<Integer> getGameIds() {
+        return gameIds;
+    }
+
+    public int getTotalUsers() {
+        return totalUsers;
+    }
+
+    public int getTotalChunks() {
+        return totalChunks;
+    }
+
+    public Instant getStartedAt() {
+        return startedAt;
+    }
+
+    public int getCorrectedUsers() {
+        return correctedUsers;
+    }
+
+    public int getRebuiltUsers() {
+        return rebuiltUsers;
+    }
+
+    public int getFailedUsers() {
+        return failedUsers;
+    }
+
+    public int getCompletedChunks() {
+        return completedChunks;
+    }
+
+    public Instant getFinishedAt() {
+        return finishedAt;
+    }
+
+    public boolean isFinished() {
+        return finishedAt != null;
+    }
+}
@@ -0,0 +1,61 @@
+package com.heatherpiper.model;
+
+import java.util.List;
+
+public class LadderProjection {
+    private int userId;
+    private int year;
+    private int remainingGames;
+    private int simulations;
+    private boolean complete;
+    private long elapsedMillis;
+    private List<TeamProjection> teams;
+
+    public LadderProjection() {
+    }
+
+    public LadderProjection(int userId, int year, int remainingGames, int simulations, boolean complete,
+                            long elapsedMillis, List<TeamProjection> teams) {
+        this.userId = userId;
+        this.year = year;
+        this.remainingGames = remainingGames;
+        this.simulations = simulations;
+        this.complete = complete;
+        this.elapsedMillis = elapsedMillis;
+        this.teams = teams;
+    }
+
+    public int getUserId() {
+        return userId;
+    }
+
+    public int getYear() {
+        return year;
+    }
+
+    public int getRemainingGames() {
+        return remainingGames;
+    }
+
+    public int getSimulations() {
+        return simulations;
+    }
+
+    /**
+     * Whether all requested simulations ran. False if the time budget ran out first.
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    /**
+     * The projected teams, ordered by expected finishing position.
+     */
+    public List<TeamProjection> getTeams() {
+        return teams;
+    }
+}
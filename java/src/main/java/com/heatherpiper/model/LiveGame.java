@@ -0,0 +1,148 @@
+package com.heatherpiper.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.heatherpiper.json.TeamNameSerializer;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+
+/**
+ * The latest state of a game in progress, as reported by the Squiggle live feed. Instances are immutable; each update
+ * creates a new instance.
+ *
+ * <p>Teams are held as team IDs, and written with their names as well, in the same properties as {@link Game}.
+ */
+public class LiveGame {
+    private final int id;
+    private final int round;
+    private final int year;
+    private final OffsetDateTime date;
+    private final int hteamId;
+    private final int ateamId;
+    private final Integer hscore;
+    private final Integer ascore;
+    private final Integer winnerId;
+    private final int complete;
+    private final String timestr;
+    private final Instant updated;
+
+    public LiveGame(int id, int round, int year, OffsetDateTime date, int hteamId, int ateamId, Integer hscore,
+                    Integer ascore, Integer winnerId, int complete, String timestr, Instant updated) {
+        this.id = id;
+        this.round = round;
+        this.year = year;
+        this.date = date;
+        this.hteamId = hteamId;
+        this.ateamId = ateamId;
+        this.hscore = hscore;
+        this.ascore = ascore;
+        this.winnerId = winnerId;
+        this.complete = complete;
+        this.timestr = timestr;
+        this.updated = updated;
+    }
+
+    public static LiveGame of(Game game, String timestr, Instant updated) {
+        return new LiveGame(game.getId(), game.getRound(), game.getYear(), game.getDate(), game.getHteamId(),
+                game.getAteamId(), game.getHscore(), game.getAscore(), game.getWinnerId(), game.getComplete(), timestr,
+                updated);
+    }
+
+    /**
+     * Returns a copy of this game with the given fields replaced. Fields that are <code>null</code> keep their current
+     * value.
+     */
+    public LiveGame withUpdate(Integer hscore, Integer ascore, Integer complete, String timestr, Integer winnerId,
+                               Instant updated) {
+        return new LiveGame(id, round, year, date, hteamId, ateamId,
+                hscore != null ? hscore : this.hscore,
+                ascore != null ? ascore : this.ascore,
+                winnerId != null ? winnerId : this.winnerId,
+                complete != null ? complete : this.complete,
+                timestr != null ? timestr : this.timestr,
+                updated);
+    }
+
+    public Game toGame() {
+        return new Game(id, round, year, date, hteamId, ateamId, hscore, ascore, winnerId, complete);
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public int getRound() {
+        return round;
+    }
+
+    public int getYear() {
+        return year;
+    }
+
+    public OffsetDateTime getDate() {
+        return date;
+    }
+
+    @JsonProperty("hteamid")
+    public int getHteamId() {
+        return hteamId;
+    }
+
+    @JsonProperty("ateamid")
+    public int getAteamId() {
+        return ateamId;
+    }
+
+    public Integer getHscore() {
+        return hscore;
+    }
+
+    public Integer getAscore() {
+        return ascore;
+    }
+
+    @JsonProperty("winnerteamid")
+    public Integer getWinnerId() {
+        return winnerId;
+    }
+
+    /**
+     * The percentage of the game that has been played.
+     */
+    public int getComplete() {
+        return complete;
+    }
+
+    /**
+     * Squiggle's description of the game clock, such as "Q2 12:34", or <code>null</code> if none has been received.
+     */
+    public String getTimestr() {
+        return timestr;
+    }
+
+    /**
+     * When the live feed last updated this game.
+     */
+    public Instant getUpdated() {
+        return updated;
+    }
+
+    @JsonProperty("hteam")
+    @JsonSerialize(using = TeamNameSerializer.class)
+    private int hteamForJson() {
+        return hteamId;
+    }
+
+    @JsonProperty("ateam")
+    @JsonSerialize(using = TeamNameSerializer.class)
+    private int ateamForJson() {
+        return ateamId;
+    }
+
+    @JsonProperty("winner")
+    @JsonSerialize(using = TeamNameSerializer.class)
+    private Integer winnerForJson() {
+        return winnerId;
+    }
+}
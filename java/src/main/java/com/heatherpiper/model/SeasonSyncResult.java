@@ -0,0 +1,69 @@
+package com.heatherpiper.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.util.List;
+
+public class SeasonSyncResult {
+    private int year;
+    private int highestCompletedRound;
+    private int inserted;
+    private int updated;
+    private int unchanged;
+    private long elapsedMillis;
+
+    @JsonIgnore
+    private List<Game> games;
+
+    public SeasonSyncResult() {
+    }
+
+    public SeasonSyncResult(int year, int highestCompletedRound, int inserted, int updated, int unchanged,
+                            long elapsedMillis, List<Game> games) {
+        this.year = year;
+        this.highestCompletedRound = highestCompletedRound;
+        this.inserted = inserted;
+        this.updated = updated;
+        this.unchanged = unchanged;
+        this.elapsedMillis = elapsedMillis;
+        this.games = games;
+    }
+
+    /**
+     * The season that was synced, which is earlier than the requested season if the requested season had no completed
+     * games.
+     */
+    public int getYear() {
+        return year;
+    }
+
+    /**
+     * The highest round with a completed game, or -1 if no game of the season is complete.
+     */
+    public int getHighestCompletedRound() {
+        return highestCompletedRound;
+    }
+
+    public int getInserted() {
+        return inserted;
+    }
+
+    public int getUpdated() {
+        return updated;
+    }
+
+    public int getUnchanged() {
+        return unchanged;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    /**
+     * The synced games of the season, up to and including the highest completed round.
+     */
+    public List<Game> getGames() {
+        return games;
+    }
+}
@@ -0,0 +1,50 @@
+package com.heatherpiper.model;
+
+public class TeamProjection {
+    private int teamId;
+    private String teamName;
+    private int currentPosition;
+    private double expectedPosition;
+    private double finalsProbability;
+    private double[] positionProbabilities;
+
+    public TeamProjection() {
+    }
+
+    public TeamProjection(int teamId, String teamName, int currentPosition, double expectedPosition,
+                          double finalsProbability, double[] positionProbabilities) {
+        this.teamId = teamId;
+        this.teamName = teamName;
+        this.currentPosition = currentPosition;
+        this.expectedPosition = expectedPosition;
+        this.finalsProbability = finalsProbability;
+        this.positionProbabilities = positionProbabilities;
+    }
+
+    public int getTeamId() {
+        return teamId;
+    }
+
+    public String getTeamName() {
+        return teamName;
+    }
+
+    public int getCurrentPosition() {
+        return currentPosition;
+    }
+
+    public double getExpectedPosition() {
+        return expectedPosition;
+    }
+
+    public double getFinalsProbability() {
+        return finalsProbability;
+    }
+
+    /**
+     * The probability of finishing in each position, where index 0 is first.
+     */
+    public double[] getPositionProbabilities() {
+        return positionProbabilities;
+    }
+}
@@ -0,0 +1,136 @@
+package com.heatherpiper.model;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * The set of games a user has watched in one season, stored as a bitmap.
+ *
+ * <p>Bit <code>n</code> is set when the game with ID <code>baseGameId + n</code> has been watched. Game IDs within a
+ * season are close to contiguous, so a season of around 216 games fits in about 27 bytes. The byte layout matches
+ * {@link BitSet#toByteArray()} and PostgreSQL's <code>get_bit</code> on <code>bytea</code>, so the stored bitmap can
+ * also be read in SQL.
+ */
+public class WatchedGameSet {
+
+    private int userId;
+    private int year;
+    private int baseGameId;
+    private BitSet bits;
+
+    public WatchedGameSet(int userId, int year) {
+        this(userId, year, 0, new BitSet());
+    }
+
+    public WatchedGameSet(int userId, int year, int baseGameId, BitSet bits) {
+        this.userId = userId;
+        this.year = year;
+        this.baseGameId = baseGameId;
+        this.bits = bits;
+    }
+
+    /**
+     * Creates a watched game set from its stored form.
+     *
+     * @param userId The user ID.
+     * @param year The season.
+     * @param baseGameId The game ID represented by bit 0.
+     * @param bytes The bitmap, as written by {@link #toByteArray()}.
+     * @return the watched game set.
+     */
+    public static WatchedGameSet fromByteArray(int userId, int year, int baseGameId, byte[] bytes) {
+        return new WatchedGameSet(userId, year, baseGameId, BitSet.valueOf(bytes));
+    }
+
+    public byte[] toByteArray() {
+        return bits.toByteArray();
+    }
+
+    public boolean contains(int gameId) {
+        int offset = gameId - baseGameId;
+        return offset >= 0 && bits.get(offset);
+    }
+
+    /**
+     * Adds a game to the set. If the game ID is below the current base, the bitmap is shifted so that the new game ID
+     * becomes the base.
+     *
+     * @param gameId The game ID.
+     */
+    public void add(int gameId) {
+        if (bits.isEmpty()) {
+            baseGameId = gameId;
+        } else if (gameId < baseGameId) {
+            rebase(gameId);
+        }
+        bits.set(gameId - baseGameId);
+    }
+
+    public void addAll(Collection<Integer> gameIds) {
+        for (Integer gameId : gameIds) {
+            add(gameId);
+        }
+    }
+
+    public void remove(int gameId) {
+        int offset = gameId - baseGameId;
+        if (offset >= 0) {
+            bits.clear(offset);
+        }
+    }
+
+    public void removeAll(Collection<Integer> gameIds) {
+        for (Integer gameId : gameIds) {
+            remove(gameId);
+        }
+    }
+
+    public boolean isEmpty() {
+        return bits.isEmpty();
+    }
+
+    public int size() {
+        return bits.cardinality();
+    }
+
+    /**
+     * Gets the watched game IDs in ascending order.
+     *
+     * @return the watched game IDs.
+     */
+    public List<Integer> getGameIds() {
+        List<Integer> gameIds = new ArrayList<>(bits.cardinality());
+        for (int offset = bits.nextSetBit(0); offset >= 0; offset = bits.nextSetBit(offset + 1)) {
+            gameIds.add(baseGameId + offset);
+        }
+        return gameIds;
+    }
+
+    private void rebase(int newBaseGameId) {
+        int shift = baseGameId - newBaseGameId;
+        BitSet shifted = new BitSet(bits.length() + shift);
+        for (int offset = bits.nextSetBit(0); offset >= 0; offset = bits.nextSetBit(offset + 1)) {
+            shifted.set(offset + shift);
+        }
+        bits = shifted;
+        baseGameId = newBaseGameId;
+    }
+
+    public int getUserId() {
+        return userId;
+    }
+
+    public int getYear() {
+        return year;
+    }
+
+    public int getBaseGameId() {
+        return baseGameId;
+    }
+
+    public BitSet getBits() {
+        return bits;
+    }
+}
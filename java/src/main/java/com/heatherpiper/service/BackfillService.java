@@ -0,0 +1,256 @@
+package com.heatherpiper.service;
+
+import com.heatherpiper.dao.BackfillJobDao;
+import com.heatherpiper.model.BackfillJob;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.time.Year;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * Service class for backfilling historical seasons from the Squiggle API.
+ *
+ * <p>A backfill job loads every season in a range of years with {@link SquiggleService#loadSeason(int)}. Seasons are
+ * loaded concurrently by <code>squiggle.backfill.parallelism</code> threads, and requests to Squiggle are started at
+ * least <code>squiggle.backfill.min-request-interval-ms</code> apart, however many threads are waiting, so a backfill
+ * never floods the API.
+ *
+ * <p>Each loaded season is recorded in the job's checkpoint as soon as its games are saved. Jobs still running when the
+ * application stops are resumed once it is ready again, and failed jobs can be resumed on request; either way only the
+ * seasons missing from the checkpoint are loaded. Only one job runs at a time.
+ */
+@Service
+public class BackfillService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BackfillService.class);
+
+    /**
+     * The first season covered by the Squiggle API.
+     */
+    static final int FIRST_SQUIGGLE_YEAR = 1897;
+
+    private final SquiggleService squiggleService;
+    private final BackfillJobDao backfillJobDao;
+    private final ExecutorService executor;
+    private final long minRequestIntervalNanos;
+    private final LongSupplier clock;
+    private final Sleeper sleeper;
+
+    private final Set<Integer> activeJobIds = ConcurrentHashMap.newKeySet();
+    private final Object requestSlotLock = new Object();
+    private long nextRequestNanos;
+
+    @Autowired
+    public BackfillService(SquiggleService squiggleService, BackfillJobDao backfillJobDao,
+                           @Value("${squiggle.backfill.parallelism:3}") int parallelism,
+                           @Value("${squiggle.backfill.min-request-interval-ms:1000}") long minRequestIntervalMillis) {
+        this(squiggleService, backfillJobDao, parallelism, minRequestIntervalMillis, System::nanoTime,
+                TimeUnit.NANOSECONDS::sleep);
+    }
+
+    BackfillService(SquiggleService squiggleService, BackfillJobDao backfillJobDao, int parallelism,
+                    long minRequestIntervalMillis, LongSupplier clock, Sleeper sleeper) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("squiggle.backfill.parallelism must be positive");
+        }
+        if (minRequestIntervalMillis < 0) {
+            throw new IllegalArgumentException("squiggle.backfill.min-request-interval-ms must not be negative");
+        }
+        this.squiggleService = squiggleService;
+        this.backfillJobDao = backfillJobDao;
+        this.minRequestIntervalNanos = TimeUnit.MILLISECONDS.toNanos(minRequestIntervalMillis);
+        this.clock = clock;
+        this.sleeper = sleeper;
+        this.nextRequestNanos = clock.getAsLong();
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "season-backfill-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Resumes the jobs that were still running when the application last stopped.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void resumeRunningJobs() {
+        for (BackfillJob job : backfillJobDao.findJobsByStatus(BackfillJob.RUNNING)) {
+            logger.info("Resuming backfill job {} with {} of {} seasons loaded", job.getJobId(),
+                    job.getCompletedYears().size(), job.getTotalYears());
+            run(job);
+        }
+    }
+
+    /**
+     * Starts a job loading every season from <code>firstYear</code> to <code>lastYear</code>. The seasons are loaded in
+     * the background; the returned job's progress can be followed with {@link #getJob(int)}.
+     *
+     * @param firstYear The first season to load.
+     * @param lastYear The last season to load.
+     * @return the new job.
+     * @throws IllegalArgumentException If the range is empty, or not between the first Squiggle season and the
+     * current year.
+     * @throws IllegalStateException If another job is running.
+     */
+    public synchronized BackfillJob startBackfill(int firstYear, int lastYear) {
+        int currentYear = Year.now().getValue();
+        if (firstYear > lastYear) {
+            throw new IllegalArgumentException("The first year of a backfill must not be after the last year.");
+        }
+        if (firstYear < FIRST_SQUIGGLE_YEAR || lastYear > currentYear) {
+            throw new IllegalArgumentException("Backfill years must be between " + FIRST_SQUIGGLE_YEAR + " and "
+                    + currentYear + ".");
+        }
+        requireNoActiveJob();
+
+        BackfillJob job = backfillJobDao.createJob(firstYear, lastYear);
+        logger.info("Starting backfill job {} for seasons {} to {}", job.getJobId(), firstYear, lastYear);
+        run(job);
+        return job;
+    }
+
+    /**
+     * Resumes a failed job, loading only the seasons it has not loaded yet.
+     *
+     * @param jobId The job to resume.
+     * @return the job, as it was before it was resumed.
+     * @throws IllegalArgumentException If there is no job with the ID.
+     * @throws IllegalStateException If the job has already completed, or any job is running.
+     */
+    public synchronized BackfillJob resumeBackfill(int jobId) {
+        BackfillJob job = backfillJobDao.findJobById(jobId);
+        if (job == null) {
+            throw new IllegalArgumentException("No backfill job found with ID " + jobId + ".");
+        }
+        if (BackfillJob.COMPLETED.equals(job.getStatus())) {
+            throw new IllegalStateException("Backfill job " + jobId + " has already completed.");
+        }
+        requireNoActiveJob();
+
+        backfillJobDao.updateStatus(jobId, BackfillJob.RUNNING);
+        logger.info("Resuming backfill job {} with {} of {} seasons loaded", jobId, job.getCompletedYears().size(),
+                job.getTotalYears());
+        run(job);
+        return job;
+    }
+
+    /**
+     * @return the job with its progress, or <code>null</code> if there is no job with the ID.
+     */
+    public BackfillJob getJob(int jobId) {
+        return backfillJobDao.findJobById(jobId);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // Interrupted jobs stay running in the job table, and are resumed on the next start
+        executor.shutdownNow();
+    }
+
+    private void requireNoActiveJob() {
+        if (!activeJobIds.isEmpty()) {
+            throw new IllegalStateException("A backfill job is already running.");
+        }
+    }
+
+    /**
+     * Loads the seasons of a job that are missing from its checkpoint, then records whether every season was loaded.
+     */
+    private void run(BackfillJob job) {
+        int jobId = job.getJobId();
+        activeJobIds.add(jobId);
+
+        Set<Integer> completedYears = new HashSet<>(job.getCompletedYears());
+        List<CompletableFuture<Boolean>> seasons = new ArrayList<>();
+        for (int year = job.getFirstYear(); year <= job.getLastYear(); year++) {
+            if (!completedYears.contains(year)) {
+                int season = year;
+                seasons.add(CompletableFuture.supplyAsync(() -> loadSeason(jobId, season), executor));
+            }
+        }
+
+        CompletableFuture.allOf(seasons.toArray(new CompletableFuture<?>[0])).whenComplete((ignored, error) -> {
+            try {
+                if (executor.isShutdown()) {
+                    return;
+                }
+                long failed = seasons.stream().filter(season -> !season.join()).count();
+                if (failed == 0) {
+                    backfillJobDao.updateStatus(jobId, BackfillJob.COMPLETED);
+                    logger.info("Backfill job {} completed", jobId);
+                } else {
+                    backfillJobDao.updateStatus(jobId, BackfillJob.FAILED);
+                    logger.error("Backfill job {} failed to load {} seasons", jobId, failed);
+                }
+            } catch (RuntimeException e) {
+                logger.error("Failed to record the result of backfill job {}", jobId, e);
+            } finally {
+                activeJobIds.remove(jobId);
+            }
+        });
+    }
+
+    /**
+     * Loads a season and records it in the job's checkpoint.
+     *
+     * @return whether the season was loaded.
+     */
+    private boolean loadSeason(int jobId, int year) {
+        try {
+            awaitRequestSlot();
+            int games = squiggleService.loadSeason(year).getGames().size();
+            backfillJobDao.completeYear(jobId, year, games);
+            logger.info("Backfill job {} loaded {} games of {}", jobId, games, year);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (RuntimeException e) {
+            logger.error("Backfill job {} failed to load season {}", jobId, year, e);
+            return false;
+        }
+    }
+
+    /**
+     * Waits until at least the minimum request interval has passed since the previous request was allowed to start.
+     * Each caller reserves the next free slot before sleeping, so waiting threads are spaced out rather than woken
+     * together.
+     */
+    private void awaitRequestSlot() throws InterruptedException {
+        long slot;
+        synchronized (requestSlotLock) {
+            slot = Math.max(clock.getAsLong(), nextRequestNanos);
+            nextRequestNanos = slot + minRequestIntervalNanos;
+        }
+        long waitNanos = slot - clock.getAsLong();
+        if (waitNanos > 0) {
+            sleeper.sleep(waitNanos);
+        }
+    }
+
+    /**
+     * Pauses the calling thread while it waits for a request slot.
+     */
+    @FunctionalInterface
+    interface Sleeper {
+        void sleep(long nanos) throws InterruptedException;
+    }
+}
@@ -0,0 +1,72 @@
+package com.heatherpiper.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.heatherpiper.model.Game;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+
+/**
+ * Writes games as a JSON array straight to an output stream as they are read from the database, so a response listing
+ * every game holds neither the list of games nor the serialized array in memory.
+ *
+ * <p>The games are written with the application's object mapper, so they look the same as games returned in a list.
+ * The response is committed as soon as the first games are written, so a failure part way through cannot be reported
+ * with an error status. The array is then left unclosed, and the client sees a truncated body rather than a shorter
+ * list that looks complete.
+ */
+@Component
+public class GameJsonStreamer {
+
+    /**
+     * A query that hands each game it reads to an action, such as {@link com.heatherpiper.dao.GameDao#streamAllGames}.
+     */
+    @FunctionalInterface
+    public interface GameSource {
+        void forEachGame(Consumer<Game> action);
+    }
+
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter gameWriter;
+
+    @Autowired
+    public GameJsonStreamer(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        // Flushing after every game would send each game to the client in a write of its own
+        this.gameWriter = objectMapper.writerFor(Game.class).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    /**
+     * Writes the games read by the source to the output stream as a JSON array. The output stream is flushed but not
+     * closed.
+     *
+     * @param out The output stream.
+     * @param source The query reading the games.
+     * @throws IOException If the games cannot be written.
+     */
+    public void writeGames(OutputStream out, GameSource source) throws IOException {
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        generator.writeStartArray();
+        try {
+            source.forEachGame(game -> {
+                try {
+                    gameWriter.writeValue(generator, game);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        generator.writeEndArray();
+        generator.close();
+    }
+}
@@ -0,0 +1,229 @@
+package com.heatherpiper.service;
+
+import com.heatherpiper.dao.WatchedGamesDao;
+import com.heatherpiper.event.GamesSavedEvent;
+import com.heatherpiper.model.GameCorrection;
+import com.heatherpiper.model.LadderCacheStats;
+import com.heatherpiper.model.UserLadderEntry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * A bounded cache of user ladders, keyed by user ID.
+ *
+ * <p>The cache holds at most <code>ladder.cache.max-size</code> ladders and evicts the least recently used ladder when
+ * full. Ladders older than <code>ladder.cache.ttl-seconds</code> are treated as missing. A user's ladder is invalidated
+ * when they watch or unwatch games, and when a game they have watched is saved again by the Squiggle sync. A user's
+ * entry also holds their {@link LadderEngine.RoundHistory} for each season that has been requested, which is
+ * invalidated and expires together with their ladder.
+ *
+ * <p>Invalidations made inside a transaction are applied after the transaction commits, so a concurrent read cannot
+ * cache a ladder built from uncommitted data. A ladder is only stored if no invalidation has happened since it started
+ * loading, so a load that races with a write never overwrites the invalidation.
+ */
+@Component
+public class LadderCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(LadderCache.class);
+
+    private final WatchedGamesDao watchedGamesDao;
+    private final int maxSize;
+    private final long ttlMillis;
+    private final LongSupplier clock;
+
+    private final LinkedHashMap<Integer, CachedLadder> ladders = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long invalidationCount;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long expirations;
+
+    @Autowired
+    public LadderCache(WatchedGamesDao watchedGamesDao,
+                       @Value("${ladder.cache.max-size:10000}") int maxSize,
+                       @Value("${ladder.cache.ttl-seconds:600}") long ttlSeconds) {
+        this(watchedGamesDao, maxSize, ttlSeconds, System::currentTimeMillis);
+    }
+
+    LadderCache(WatchedGamesDao watchedGamesDao, int maxSize, long ttlSeconds, LongSupplier clock) {
+        if (maxSize < 0) {
+            throw new IllegalArgumentException("ladder.cache.max-size must not be negative");
+        }
+        if (ttlSeconds <= 0) {
+            throw new IllegalArgumentException("ladder.cache.ttl-seconds must be positive");
+        }
+        this.watchedGamesDao = watchedGamesDao;
+        this.maxSize = maxSize;
+        this.ttlMillis = ttlSeconds * 1000;
+        this.clock = clock;
+    }
+
+    /**
+     * Gets a user's ladder from the cache, loading and caching it if it is missing or expired.
+     *
+     * @param userId The user ID.
+     * @param loader Loads the user's ladder on a cache miss.
+     * @return the user's ladder, which must not be modified.
+     */
+    public List<UserLadderEntry> get(int userId, IntFunction<List<UserLadderEntry>> loader) {
+        return getOrLoad(userId, cached -> cached.entries,
+                (cached, entries) -> cached.entries = entries,
+                () -> Collections.unmodifiableList(loader.apply(userId)));
+    }
+
+    /**
+     * Gets a user's round history for a season from the cache, loading and caching it if it is missing or expired.
+     *
+     * @param userId The user ID.
+     * @param year The season.
+     * @param loader Loads the user's round history on a cache miss.
+     * @return the user's round history for the season.
+     */
+    LadderEngine.RoundHistory getRoundHistory(int userId, int year, IntFunction<LadderEngine.RoundHistory> loader) {
+        return getOrLoad(userId, cached -> cached.roundHistories.get(year),
+                (cached, history) -> cached.roundHistories.put(year, history),
+                () -> loader.apply(userId));
+    }
+
+    private <T> T getOrLoad(int userId, Function<CachedLadder, T> read, BiConsumer<CachedLadder, T> write,
+                            Supplier<T> loader) {
+        long invalidationsAtLoad;
+        synchronized (this) {
+            CachedLadder cached = ladders.get(userId);
+            if (cached != null && clock.getAsLong() - cached.loadedAt >= ttlMillis) {
+                ladders.remove(userId);
+                expirations++;
+                cached = null;
+            }
+            T value = cached == null ? null : read.apply(cached);
+            if (value != null) {
+                hits++;
+                return value;
+            }
+            misses++;
+            invalidationsAtLoad = invalidationCount;
+        }
+
+        T value = loader.get();
+
+        synchronized (this) {
+            if (invalidationsAtLoad == invalidationCount && maxSize > 0) {
+                CachedLadder cached = ladders.get(userId);
+                if (cached == null) {
+                    cached = new CachedLadder(clock.getAsLong());
+                    ladders.put(userId, cached);
+                    evictOverflow();
+                }
+                write.accept(cached, value);
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Invalidates a user's cached ladder. If called inside a transaction, the ladder is invalidated now and again
+     * after the transaction commits.
+     *
+     * @param userId The user ID.
+     */
+    public void invalidate(int userId) {
+        invalidateNow(userId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidateNow(userId);
+                }
+            });
+        }
+    }
+
+    public synchronized void invalidateAll() {
+        invalidationCount++;
+        ladders.clear();
+    }
+
+    /**
+     * Invalidates the ladders of users who have watched any game whose result was corrected by the save. Ladders only
+     * depend on the results of watched games, so other users keep their cached ladder. Runs after the
+     * {@link LadderEngine} has updated its game index, so reloaded derived ladders use the saved games. Stored ladders
+     * are corrected later by the {@link LadderCorrectionService}, which invalidates its users again once each chunk
+     * commits.
+     */
+    @EventListener
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public void onGamesSaved(GamesSavedEvent event) {
+        synchronized (this) {
+            if (ladders.isEmpty()) {
+                // Still count the invalidation so that in-flight loads are not cached
+                invalidationCount++;
+                return;
+            }
+        }
+        List<Integer> gameIds = event.getCorrections().stream().map(GameCorrection::getGameId).collect(Collectors.toList());
+        if (gameIds.isEmpty()) {
+            return;
+        }
+        List<Integer> userIds = watchedGamesDao.findUserIdsWatchingGames(gameIds);
+        synchronized (this) {
+            invalidationCount++;
+            for (Integer userId : userIds) {
+                ladders.remove(userId);
+            }
+        }
+        logger.debug("Invalidated cached ladders for {} users after {} games were corrected", userIds.size(), gameIds.size());
+    }
+
+    public synchronized LadderCacheStats getStats() {
+        return new LadderCacheStats(ladders.size(), maxSize, hits, misses, evictions, expirations);
+    }
+
+    private synchronized void invalidateNow(int userId) {
+        invalidationCount++;
+        ladders.remove(userId);
+    }
+
+    private void evictOverflow() {
+        Iterator<Map.Entry<Integer, CachedLadder>> iterator = ladders.entrySet().iterator();
+        while (ladders.size() > maxSize && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+            evictions++;
+        }
+    }
+
+    /**
+     * A user's cached ladder and round histories. Fields are only accessed while holding the cache's lock.
+     */
+    private static class CachedLadder {
+        private final long loadedAt;
+        private final Map<Integer, LadderEngine.RoundHistory> roundHistories = new HashMap<>();
+        private List<UserLadderEntry> entries;
+
+        private CachedLadder(long loadedAt) {
+            this.loadedAt = loadedAt;
+        }
+    }
+}
@@ -0,0 +1,271 @@
+package com.heatherpiper.service;
+
+import com.heatherpiper.dao.GameDao;
+import com.heatherpiper.dao.UserDao;
+import com.heatherpiper.dao.UserLadderEntryDao;
+import com.heatherpiper.event.GamesSavedEvent;
+import com.heatherpiper.model.Game;
+import com.heatherpiper.model.GameCorrection;
+import com.heatherpiper.model.LadderCorrectionProgress;
+import com.heatherpiper.model.UserLadderEntry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+/**
+ * Service class for correcting stored ladders when the result of a game that users have already watched changes.
+ *
+ * <p>When a saved game's teams, scores or winner differ from the stored version, every user who had watched the game
+ * when it was saved holds a ladder built on the old result. Those users are found in the same transaction as the save,
+ * see {@link GameCorrection#getWatcherIds()}, so users who watch the game after the save, and already receive its new
+ * result, are not corrected again. For each such user, the old result is removed and the new result added using the
+ * {@link LadderDeltaEngine}. Users who watched the same corrected games receive the same per-team changes, so
+ * they are grouped and corrected in chunks of <code>ladder.correction.chunk-size</code> users, each chunk with one
+ * batched update per team and one percentage and position recalculation in its own transaction. Each chunk locks its
+ * users' rows first, so corrections and watch or unwatch changes to the same user do not interleave, and invalidates
+ * its users' cached ladders once it commits.
+ *
+ * <p>Corrections of saved games run one at a time on a dedicated thread, so a large correction never holds up the
+ * thread that saved the games, such as the one saving live updates.
+ *
+ * <p>If a chunk fails, its users' ladders are rebuilt one at a time from their watched games instead, so that a
+ * failure never leaves a partially corrected ladder. Progress is logged after each chunk and the progress of the latest
+ * correction is available from {@link #getLatestProgress()}.
+ *
+ * <p>Stored ladders count only the games of the current season, so only the results of corrected games in that season
+ * are removed or added, and corrections of games in earlier seasons leave stored ladders unchanged.
+ *
+ * <p>Derived ladders are computed from the current game results and do not need correcting, so nothing is done when
+ * <code>ladder.snapshot.enabled</code> is false.
+ */
+@Service
+public class LadderCorrectionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(LadderCorrectionService.class);
+
+    private final UserLadderEntryDao userLadderEntryDao;
+    private final UserDao userDao;
+    private final GameDao gameDao;
+    private final LadderCache ladderCache;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+    private final boolean ladderSnapshotEnabled;
+    private final Executor executor;
+
+    private volatile LadderCorrectionProgress latestProgress;
+
+    @Autowired
+    public LadderCorrectionService(UserLadderEntryDao userLadderEntryDao, UserDao userDao, GameDao gameDao,
+                                   LadderCache ladderCache, PlatformTransactionManager transactionManager,
+                                   @Value("${ladder.correction.chunk-size:500}") int chunkSize,
+                                   @Value("${ladder.snapshot.enabled:true}") boolean ladderSnapshotEnabled) {
+        this(userLadderEntryDao, userDao, gameDao, ladderCache, transactionManager, chunkSize, ladderSnapshotEnabled,
+                Executors.newSingleThreadExecutor(runnable -> {
+                    Thread thread = new Thread(runnable, "ladder-correction");
+                    thread.setDaemon(true);
+                    return thread;
+                }));
+    }
+
+    LadderCorrectionService(UserLadderEntryDao userLadderEntryDao, UserDao userDao, GameDao gameDao,
+                            LadderCache ladderCache, PlatformTransactionManager transactionManager, int chunkSize,
+                            boolean ladderSnapshotEnabled, Executor executor) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("ladder.correction.chunk-size must be positive");
+        }
+        this.userLadderEntryDao = userLadderEntryDao;
+        this.userDao = userDao;
+        this.gameDao = gameDao;
+        this.ladderCache = ladderCache;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+        this.ladderSnapshotEnabled = ladderSnapshotEnabled;
+        this.executor = executor;
+    }
+
+    /**
+     * Queues the correction of stored ladders for the corrected games in a save, to run on the correction thread.
+     *
+     * @param event The event published after games are saved.
+     */
+    @EventListener
+    @Order(0)
+    public void onGamesSaved(GamesSavedEvent event) {
+        if (!ladderSnapshotEnabled || event.getCorrections().isEmpty()) {
+            return;
+        }
+        List<GameCorrection> corrections = event.getCorrections();
+        executor.execute(() -> {
+            try {
+                applyCorrections(corrections);
+            } catch (RuntimeException e) {
+                logger.error("Failed to correct ladders for {} corrected games", corrections.size(), e);
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (executor instanceof ExecutorService) {
+            ((ExecutorService) executor).shutdown();
+        }
+    }
+
+    /**
+     * Corrects the stored ladders of every user who had watched any of the corrected games when it was saved.
+     *
+     * @param corrections The corrected games, with their previous and current versions and their watchers.
+     * @return the progress of the correction, or null if stored ladders are not maintained.
+     */
+    public LadderCorrectionProgress applyCorrections(List<GameCorrection> corrections) {
+        if (!ladderSnapshotEnabled) {
+            logger.debug("Ladder snapshot is disabled; skipping correction of {} games", corrections.size());
+            return null;
+        }
+
+        // Corrections of games outside the current season do not change stored ladders
+        int season = gameDao.findLatestYear();
+        corrections = corrections.stream()
+                .filter(correction -> correction.getPrevious().getYear() == season
+                        || correction.getCurrent().getYear() == season)
+                .collect(Collectors.toList());
+
+        // Group users by which of the corrected games they have watched, since each group shares the same deltas
+        Map<Integer, List<Integer>> correctionsByUser = new TreeMap<>();
+        for (int i = 0; i < corrections.size(); i++) {
+            for (Integer userId : corrections.get(i).getWatcherIds()) {
+                correctionsByUser.computeIfAbsent(userId, id -> new ArrayList<>()).add(i);
+            }
+        }
+        Map<List<Integer>, List<Integer>> usersByCorrections = new LinkedHashMap<>();
+        for (Map.Entry<Integer, List<Integer>> entry : correctionsByUser.entrySet()) {
+            usersByCorrections.computeIfAbsent(entry.getValue(), key -> new ArrayList<>()).add(entry.getKey());
+        }
+
+        int totalChunks = 0;
+        for (List<Integer> userIds : usersByCorrections.values()) {
+            totalChunks += (userIds.size() + chunkSize - 1) / chunkSize;
+        }
+        List<Integer> gameIds = corrections.stream().map(GameCorrection::getGameId).collect(Collectors.toList());
+        LadderCorrectionProgress progress = new LadderCorrectionProgress(gameIds, correctionsByUser.size(), totalChunks,
+                Instant.now());
+        latestProgress = progress;
+        logger.info("Correcting ladders of {} users in {} chunks for corrected games {}", progress.getTotalUsers(),
+                totalChunks, gameIds);
+
+        for (Map.Entry<List<Integer>, List<Integer>> group : usersByCorrections.entrySet()) {
+            List<GameCorrection> groupCorrections = group.getKey().stream().map(corrections::get)
+                    .collect(Collectors.toList());
+            List<UserLadderEntry> deltas = computeTeamDeltas(groupCorrections, season);
+            List<Integer> userIds = group.getValue();
+
+            for (int start = 0; start < userIds.size(); start += chunkSize) {
+                List<Integer> chunk = userIds.subList(start, Math.min(start + chunkSize, userIds.size()));
+                correctChunk(chunk, deltas, season, progress);
+                logger.info("Ladder correction progress: {}/{} chunks, {} corrected, {} rebuilt, {} failed of {} users",
+                        progress.getCompletedChunks(), progress.getTotalChunks(), progress.getCorrectedUsers(),
+                        progress.getRebuiltUsers(), progress.getFailedUsers(), progress.getTotalUsers());
+            }
+        }
+
+        progress.finish(Instant.now());
+        if (progress.getFailedUsers() > 0) {
+            logger.error("Ladder correction finished with {} users whose ladders could not be corrected",
+                    progress.getFailedUsers());
+        }
+        return progress;
+    }
+
+    public LadderCorrectionProgress getLatestProgress() {
+        return latestProgress;
+    }
+
+    /**
+     * Computes the per-team changes that remove the previous results of the corrected games and add their current
+     * results. Only results of games in the given season are removed or added, and teams whose ladder entries are
+     * unchanged are left out.
+     *
+     * @param corrections The corrected games.
+     * @param season The season counted in stored ladders.
+     * @return one delta entry per affected team, identified by team ID.
+     */
+    static List<UserLadderEntry> computeTeamDeltas(List<GameCorrection> corrections, int season) {
+        Map<Integer, UserLadderEntry> deltas = new LinkedHashMap<>();
+        for (GameCorrection correction : corrections) {
+            if (correction.getPrevious().getYear() == season) {
+                applyToDeltas(deltas, correction.getPrevious(), LadderDeltaEngine.UNWATCH);
+            }
+            if (correction.getCurrent().getYear() == season) {
+                applyToDeltas(deltas, correction.getCurrent(), LadderDeltaEngine.WATCH);
+            }
+        }
+        return deltas.values().stream()
+                .filter(delta -> delta.getTeamId() > 0)
+                .filter(delta -> delta.getPoints() != 0 || delta.getWins() != 0 || delta.getLosses() != 0
+                        || delta.getDraws() != 0 || delta.getPointsFor() != 0 || delta.getPointsAgainst() != 0)
+                .collect(Collectors.toList());
+    }
+
+    private static void applyToDeltas(Map<Integer, UserLadderEntry> deltas, Game game, int direction) {
+        UserLadderEntry home = deltas.computeIfAbsent(game.getHteamId(), LadderCorrectionService::emptyDelta);
+        UserLadderEntry away = deltas.computeIfAbsent(game.getAteamId(), LadderCorrectionService::emptyDelta);
+        LadderDeltaEngine.applyGame(game, home, away, direction);
+    }
+
+    private static UserLadderEntry emptyDelta(int teamId) {
+        return new UserLadderEntry(0, teamId, 0, 0, 0, null, 0, 0, 0, 0, 0);
+    }
+
+    private void correctChunk(List<Integer> userIds, List<UserLadderEntry> deltas, int season,
+                              LadderCorrectionProgress progress) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                // Wait for in-flight watch and unwatch changes to these users to commit
+                userDao.lockUsers(userIds);
+                userLadderEntryDao.applyLadderDeltas(userIds, deltas);
+                userLadderEntryDao.recalculatePercentagesAndPositions(userIds);
+                userIds.forEach(ladderCache::invalidate);
+            });
+            progress.chunkCorrected(userIds.size());
+        } catch (DataAccessException e) {
+            logger.error("Failed to correct ladders for a chunk of {} users; rebuilding them individually",
+                    userIds.size(), e);
+            int rebuilt = 0;
+            int failed = 0;
+            for (Integer userId : userIds) {
+                try {
+                    // Rebuild each ladder in its own transaction, under the same user lock as watch changes
+                    transactionTemplate.executeWithoutResult(status -> {
+                        userDao.lockUser(userId);
+                        userLadderEntryDao.recalculateUserLadderEntries(userId, season);
+                        ladderCache.invalidate(userId);
+                    });
+                    rebuilt++;
+                } catch (DataAccessException rebuildException) {
+                    logger.error("Failed to rebuild ladder for userId: {}", userId, rebuildException);
+                    failed++;
+                }
+            }
+            progress.chunkRebuilt(rebuilt, failed);
+        }
+    }
+}
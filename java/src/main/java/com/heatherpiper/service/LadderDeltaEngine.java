@@ -0,0 +1,107 @@
+package com.heatherpiper.service;
+
+import com.heatherpiper.model.Game;
+import com.heatherpiper.model.UserLadderEntry;
+
+/**
+ * Applies the ladder contribution of a single game to the home and away teams' ladder entries.
+ *
+ * <p>A game contributes one win, loss or draw, premiership points (4 for a win, 2 for a draw), and points for and
+ * against to each of the two teams that played in it. Applying a game with {@link #UNWATCH} is the exact inverse of
+ * applying it with {@link #WATCH}, so marking a game as watched and then unwatched leaves the ladder unchanged.
+ *
+ * <p>Only the two entries involved are touched, so the cost of applying a game does not depend on how many games the
+ * user has already watched.
+ */
+public final class LadderDeltaEngine {
+
+    public static final int WATCH = 1;
+    public static final int UNWATCH = -1;
+
+    private static final int POINTS_FOR_WIN = 4;
+    private static final int POINTS_FOR_DRAW = 2;
+
+    private LadderDeltaEngine() {
+    }
+
+    /**
+     * Applies the contribution of a game to the ladder entries of the home and away teams.
+     *
+     * @param game The game whose result is applied.
+     * @param homeEntry The ladder entry of the home team.
+     * @param awayEntry The ladder entry of the away team.
+     * @param direction {@link #WATCH} to add the game's contribution, {@link #UNWATCH} to remove it.
+     * @throws IllegalArgumentException If the direction is not {@link #WATCH} or {@link #UNWATCH}.
+     */
+    public static void applyGame(Game game, UserLadderEntry homeEntry, UserLadderEntry awayEntry, int direction) {
+        if (direction != WATCH && direction != UNWATCH) {
+            throw new IllegalArgumentException("Direction must be WATCH or UNWATCH");
+        }
+
+        int hscore = scoreOrZero(game.getHscore());
+        int ascore = scoreOrZero(game.getAscore());
+
+        // A game without a winner is treated as a draw
+        boolean isDraw = game.getWinnerId() == null;
+        boolean homeWon = !isDraw && game.getWinnerId() == game.getHteamId();
+        boolean awayWon = !isDraw && game.getWinnerId() == game.getAteamId();
+
+        applyResult(homeEntry, isDraw, homeWon, hscore, ascore, direction);
+        applyResult(awayEntry, isDraw, awayWon, ascore, hscore, direction);
+    }
+
+    /**
+     * Applies one team's result in a game to its ladder entry and recalculates the entry's percentage.
+     *
+     * @param entry The ladder entry to update.
+     * @param isDraw Whether the game was a draw.
+     * @param isWin Whether the team won the game. Ignored if the game was a draw.
+     * @param pointsFor The points scored by the team in the game.
+     * @param pointsAgainst The points conceded by the team in the game.
+     * @param direction {@link #WATCH} to add the result, {@link #UNWATCH} to remove it.
+     */
+    public static void applyResult(UserLadderEntry entry, boolean isDraw, boolean isWin, int pointsFor,
+                                   int pointsAgainst, int direction) {
+        if (isDraw) {
+            entry.setDraws(entry.getDraws() + direction);
+            entry.setPoints(entry.getPoints() + direction * POINTS_FOR_DRAW);
+        } else if (isWin) {
+            entry.setWins(entry.getWins() + direction);
+            entry.setPoints(entry.getPoints() + direction * POINTS_FOR_WIN);
+        } else {
+            entry.setLosses(entry.getLosses() + direction);
+        }
+
+        entry.setPointsFor(entry.getPointsFor() + direction * pointsFor);
+        entry.setPointsAgainst(entry.getPointsAgainst() + direction * pointsAgainst);
+        entry.setPercentage(calculatePercentage(entry.getPointsFor(), entry.getPointsAgainst()));
+    }
+
+    /**
+     * Calculate the percentage of pointsFor relative to pointsAgainst, rounded half up to 2 decimal places as the database
+     * rounds it. If pointsAgainst is zero, return 100.0 to avoid division by zero.
+     *
+     * @param pointsFor The points scored by a team.
+     * @param pointsAgainst The points conceded by a team.
+     * @return the percentage of pointsFor relative to pointsAgainst
+     */
+    public static double calculatePercentage(int pointsFor, int pointsAgainst) {
+        // Avoid division by zero
+        if (pointsAgainst == 0) {
+            return 100.0;
+        } else {
+            /* Round the exact quotient in hundredths of a percent with integer arithmetic, so that the result matches
+            ROUND(points_for * 100.0 / points_against, 2) in SQL without allocating */
+            long hundredths = (long) pointsFor * 10000 / pointsAgainst;
+            long remainder = (long) pointsFor * 10000 % pointsAgainst;
+            if (remainder * 2 >= pointsAgainst) {
+                hundredths++;
+            }
+            return hundredths / 100.0;
+        }
+    }
+
+    private static int scoreOrZero(Integer score) {
+        return score == null ? 0 : score;
+    }
+}
@@ -0,0 +1,671 @@
+package com.heatherpiper.service;
+
+import com.heatherpiper.dao.GameDao;
+import com.heatherpiper.dao.TeamDao;
+import com.heatherpiper.event.GamesSavedEvent;
+import com.heatherpiper.model.Game;
+import com.heatherpiper.model.Team;
+import com.heatherpiper.model.UserLadderEntry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Computes user ladders directly from the games a user has watched, without reading the stored user_ladder table.
+ *
+ * <p>All games are kept in memory as primitive arrays indexed by a dense game ordinal, and a user's watched games are
+ * represented as a bitset over those ordinals. Computing a ladder walks the set bits once and accumulates each team's
+ * wins, losses, draws, points and points for and against into reusable per-thread arrays, so the computation itself
+ * does not allocate. Because the ladder is derived from the watched games every time, it cannot drift from them.
+ *
+ * <p>Because games are ordered by season and round, the ladder after any round can be answered from a
+ * {@link RoundHistory}: the watched games of a season are bucketed by round in one pass and the buckets are summed
+ * into cumulative standings, so each historical ladder is then read in time proportional to the number of teams.
+ *
+ * <p>A ladder only lists the teams that play in the season it shows, so clubs that only appear in backfilled historical
+ * seasons are left out of the ladders of seasons they did not play in. The ladder of all watched games lists the teams
+ * of the latest season, together with any other team with a watched result.
+ *
+ * <p>When saved games are already in the index in the same season and round, their teams, scores and results are patched
+ * into a copy of the index, so live score updates do not reload every game. The index is rebuilt lazily, the next time
+ * it is used, only after a new game is saved or a saved game moves to another season or round.
+ */
+@Service
+public class LadderEngine {
+
+    private static final Logger logger = LoggerFactory.getLogger(LadderEngine.class);
+
+    static final byte DRAW = 0;
+    static final byte HOME_WIN = 1;
+    static final byte AWAY_WIN = 2;
+    static final byte NO_WINNER_MATCH = 3;
+
+    private final GameDao gameDao;
+    private final TeamDao teamDao;
+
+    private final ThreadLocal<Standings> standings = new ThreadLocal<>();
+
+    private volatile GameIndex index;
+    private volatile boolean stale = true;
+
+    @Autowired
+    public LadderEngine(GameDao gameDao, TeamDao teamDao) {
+        this.gameDao = gameDao;
+        this.teamDao = teamDao;
+    }
+
+    /**
+     * Patches saved games into the in-memory game index. If any saved game is not in the index in the same season and
+     * round, or has a team that is not in the index, the index is instead marked as stale, so that it is rebuilt on
+     * next use.
+     *
+     * @param event The event published after games are saved.
+     */
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onGamesSaved(GamesSavedEvent event) {
+        if (event.getGames().isEmpty()) {
+            return;
+        }
+        synchronized (this) {
+            if (index == null || stale) {
+                return;
+            }
+            GameIndex patched = index.withGames(event.getGames());
+            if (patched == null) {
+                logger.debug("Saved games are not all in the ladder index, rebuilding it on next use");
+                stale = true;
+            } else {
+                index = patched;
+            }
+        }
+    }
+
+    /**
+     * Marks the in-memory game index as stale, so that it is rebuilt from the database on next use.
+     */
+    public void markStale() {
+        stale = true;
+    }
+
+    /**
+     * Builds a bitset over game ordinals from a collection of game IDs. Game IDs that are not in the index are ignored.
+     *
+     * @param gameIds The IDs of the watched games.
+     * @return a bitset with one bit set for each watched game, indexed by game ordinal.
+     */
+    public long[] toWatchedBits(Collection<Integer> gameIds) {
+        GameIndex gameIndex = getIndex();
+        long[] bits = new long[wordsFor(gameIndex.size())];
+        for (Integer gameId : gameIds) {
+            int ordinal = gameIndex.ordinalOf(gameId);
+            if (ordinal >= 0) {
+                bits[ordinal >>> 6] |= 1L << ordinal;
+            }
+        }
+        return bits;
+    }
+
+    /**
+     * Computes a user's ladder of the current season, the latest season with games, from the set of games they have
+     * watched. Watched games of earlier seasons are not counted, as in the stored ladder.
+     *
+     * @param userId The user ID.
+     * @param watchedBits A bitset over game ordinals, as returned by {@link #toWatchedBits(Collection)}.
+     * @return the ladder entries for the teams of the latest season, ordered by position.
+     */
+    public List<UserLadderEntry> computeLadder(int userId, long[] watchedBits) {
+        GameIndex gameIndex = getIndex();
+        int year = gameIndex.latestYear();
+        Standings result = computeStandings(gameIndex, watchedBits, year);
+        return toLadderEntries(userId, gameIndex, result, teamMask(gameIndex.teamCount(), gameIndex.teamsOf(year)));
+    }
+
+    /**
+     * Computes a user's cumulative standings after every round of a season from the set of games they have watched.
+     *
+     * @param watchedBits A bitset over game ordinals, as returned by {@link #toWatchedBits(Collection)}.
+     * @param year The season.
+     * @return the standings after each round of the season that has games.
+     */
+    RoundHistory computeRoundHistory(long[] watchedBits, int year) {
+        GameIndex gameIndex = getIndex();
+        int[] seasonRounds = gameIndex.roundsOf(year);
+        Standings[] cumulative = new Standings[seasonRounds.length];
+        for (int bucket = 0; bucket < cumulative.length; bucket++) {
+            cumulative[bucket] = new Standings(gameIndex.teamCount());
+        }
+
+        // Bucket the season's watched games by round, then sum the buckets so each holds the standings after its round
+        int words = Math.min(watchedBits.length, wordsFor(gameIndex.size()));
+        for (int word = 0; word < words; word++) {
+            long bits = watchedBits[word];
+            while (bits != 0) {
+                int ordinal = (word << 6) + Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+                if (ordinal < gameIndex.size() && gameIndex.years[ordinal] == year) {
+                    int bucket = Arrays.binarySearch(seasonRounds, gameIndex.rounds[ordinal]);
+                    cumulative[bucket].applyGame(gameIndex, ordinal);
+                }
+            }
+        }
+        for (int bucket = 0; bucket < cumulative.length; bucket++) {
+            if (bucket > 0) {
+                cumulative[bucket].add(cumulative[bucket - 1]);
+            }
+            cumulative[bucket].sort();
+        }
+
+        Standings beforeFirstRound = new Standings(gameIndex.teamCount());
+        beforeFirstRound.sort();
+        return new RoundHistory(gameIndex, year, seasonRounds, gameIndex.teamsOf(year), cumulative, beforeFirstRound);
+    }
+
+    /**
+     * Returns whether any game of the given season is in the index.
+     *
+     * @param year The season.
+     */
+    public boolean hasSeason(int year) {
+        return getIndex().roundsOf(year).length > 0;
+    }
+
+    /**
+     * Returns the latest season with games in the index, or 0 if there are no games.
+     */
+    public int latestSeason() {
+        return getIndex().latestYear();
+    }
+
+    /**
+     * Accumulates the standings of every team over the watched games of a season and sorts the teams into ladder order.
+     *
+     * <p>The returned standings are owned by the calling thread and are overwritten by its next computation.
+     */
+    Standings computeStandings(GameIndex gameIndex, long[] watchedBits, int year) {
+        Standings result = standingsFor(gameIndex.teamCount());
+        result.reset();
+
+        int words = Math.min(watchedBits.length, wordsFor(gameIndex.size()));
+        for (int word = 0; word < words; word++) {
+            long bits = watchedBits[word];
+            while (bits != 0) {
+                int ordinal = (word << 6) + Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+                if (ordinal < gameIndex.size() && gameIndex.years[ordinal] == year) {
+                    result.applyGame(gameIndex, ordinal);
+                }
+            }
+        }
+
+        result.sort();
+        return result;
+    }
+
+    GameIndex getIndex() {
+        GameIndex current = index;
+        if (current == null || stale) {
+            synchronized (this) {
+                if (index == null || stale) {
+                    stale = false;
+                    index = buildIndex();
+                }
+                current = index;
+            }
+        }
+        return current;
+    }
+
+    private GameIndex buildIndex() {
+        List<Team> teams = new ArrayList<>(teamDao.findAllTeams());
+        teams.sort(Comparator.comparingInt(Team::getTeamId));
+        List<Game> games = new ArrayList<>(gameDao.findAllGames());
+        games.sort(Comparator.comparingInt(Game::getYear).thenComparingInt(Game::getRound).thenComparingInt(Game::getId));
+
+        GameIndex gameIndex = new GameIndex(teams, games);
+        logger.info("Built ladder index of {} games across {} teams", gameIndex.size(), gameIndex.teamCount());
+        return gameIndex;
+    }
+
+    private Standings standingsFor(int teamCount) {
+        Standings result = standings.get();
+        if (result == null || result.teamCount() != teamCount) {
+            result = new Standings(teamCount);
+            standings.set(result);
+        }
+        return result;
+    }
+
+    /**
+     * Lists the shown teams in ladder order, numbering their positions from 1 without gaps for the teams left out.
+     */
+    private static List<UserLadderEntry> toLadderEntries(int userId, GameIndex gameIndex, Standings result,
+                                                         boolean[] shown) {
+        List<UserLadderEntry> entries = new ArrayList<>(gameIndex.teamCount());
+        for (int i = 0; i < gameIndex.teamCount(); i++) {
+            int team = result.order[i];
+            if (!shown[team]) {
+                continue;
+            }
+            entries.add(new UserLadderEntry(userId, gameIndex.teamIds[team], result.points[team],
+                    LadderDeltaEngine.calculatePercentage(result.pointsFor[team], result.pointsAgainst[team]),
+                    entries.size() + 1, gameIndex.teamNames[team], result.wins[team], result.losses[team],
+                    result.draws[team], result.pointsFor[team], result.pointsAgainst[team]));
+        }
+        return entries;
+    }
+
+    private static boolean[] teamMask(int teamCount, int[] teams) {
+        boolean[] mask = new boolean[teamCount];
+        for (int team : teams) {
+            mask[team] = true;
+        }
+        return mask;
+    }
+
+    static int wordsFor(int bitCount) {
+        return (bitCount + 63) >>> 6;
+    }
+
+    /**
+     * Immutable, column-oriented view of all games, indexed by a dense ordinal.
+     */
+    static final class GameIndex {
+        private static final AtomicLong versions = new AtomicLong();
+
+        /**
+         * Identifies this index. A new index, with a higher version, is built or patched whenever games are saved.
+         */
+        final long version = versions.incrementAndGet();
+
+        final int[] teamIds;
+        final String[] teamNames;
+
+        final int[] gameIds;
+        final int[] years;
+        final int[] rounds;
+        final int[] homeTeams;
+        final int[] awayTeams;
+        final int[] homeScores;
+        final int[] awayScores;
+        final byte[] results;
+
+        private final int[] sortedGameIds;
+        private final int[] ordinalsBySortedId;
+        private final Map<Integer, int[]> roundsByYear;
+        private final Map<Integer, int[]> teamsByYear;
+        private final Map<Integer, Integer> teamIndexById;
+
+        GameIndex(List<Team> teams, List<Game> games) {
+            roundsByYear = new HashMap<>();
+            teamIndexById = new HashMap<>();
+            teamIds = new int[teams.size()];
+            teamNames = new String[teams.size()];
+            for (int i = 0; i < teams.size(); i++) {
+                teamIds[i] = teams.get(i).getTeamId();
+                teamNames[i] = teams.get(i).getName();
+                teamIndexById.put(teamIds[i], i);
+            }
+
+            List<Game> indexedGames = new ArrayList<>(games.size());
+            for (Game game : games) {
+                if (teamIndexById.containsKey(game.getHteamId()) && teamIndexById.containsKey(game.getAteamId())) {
+                    indexedGames.add(game);
+                } else {
+                    logger.warn("Skipping game ID {} with unknown teams: {} vs {}", game.getId(), game.getHteamId(),
+                            game.getAteamId());
+                }
+            }
+
+            int size = indexedGames.size();
+            gameIds = new int[size];
+            years = new int[size];
+            rounds = new int[size];
+            homeTeams = new int[size];
+            awayTeams = new int[size];
+            homeScores = new int[size];
+            awayScores = new int[size];
+            results = new byte[size];
+
+            for (int ordinal = 0; ordinal < size; ordinal++) {
+                Game game = indexedGames.get(ordinal);
+                gameIds[ordinal] = game.getId();
+                years[ordinal] = game.getYear();
+                rounds[ordinal] = game.getRound();
+                setResult(ordinal, game);
+            }
+
+            Map<Integer, TreeSet<Integer>> distinctRounds = new HashMap<>();
+            for (int ordinal = 0; ordinal < size; ordinal++) {
+                distinctRounds.computeIfAbsent(years[ordinal], year -> new TreeSet<>()).add(rounds[ordinal]);
+            }
+            distinctRounds.forEach((year, yearRounds) ->
+                    roundsByYear.put(year, yearRounds.stream().mapToInt(Integer::intValue).toArray()));
+
+            // Sorted copy of the game IDs for allocation-free ID to ordinal lookups
+            Integer[] bySortedId = new Integer[size];
+            for (int i = 0; i < size; i++) {
+                bySortedId[i] = i;
+            }
+            Arrays.sort(bySortedId, Comparator.comparingInt(ordinal -> gameIds[ordinal]));
+            sortedGameIds = new int[size];
+            ordinalsBySortedId = new int[size];
+            for (int i = 0; i < size; i++) {
+                sortedGameIds[i] = gameIds[bySortedId[i]];
+                ordinalsBySortedId[i] = bySortedId[i];
+            }
+            teamsByYear = findTeamsByYear();
+        }
+
+        /**
+         * Copies an index with the teams, scores and results of the given games replaced, sharing the arrays that do
+         * not change when a game's result does.
+         */
+        private GameIndex(GameIndex source, List<Game> games) {
+            teamIds = source.teamIds;
+            teamNames = source.teamNames;
+            teamIndexById = source.teamIndexById;
+            gameIds = source.gameIds;
+            years = source.years;
+            rounds = source.rounds;
+            sortedGameIds = source.sortedGameIds;
+            ordinalsBySortedId = source.ordinalsBySortedId;
+            roundsByYear = source.roundsByYear;
+            homeTeams = source.homeTeams.clone();
+            awayTeams = source.awayTeams.clone();
+            homeScores = source.homeScores.clone();
+            awayScores = source.awayScores.clone();
+            results = source.results.clone();
+            for (Game game : games) {
+                setResult(ordinalOf(game.getId()), game);
+            }
+            teamsByYear = findTeamsByYear();
+        }
+
+        /**
+         * Returns a copy of this index, with a new version, in which the teams, scores and results of the given games
+         * are replaced.
+         *
+         * @param games The saved games.
+         * @return the patched index, or null if any game is not in this index in the same season and round, or has a
+         * team that is not in this index, in which case the index has to be rebuilt.
+         */
+        GameIndex withGames(List<Game> games) {
+            for (Game game : games) {
+                int ordinal = ordinalOf(game.getId());
+                if (ordinal < 0 || years[ordinal] != game.getYear() || rounds[ordinal] != game.getRound()
+                        || teamIndexOf(game.getHteamId()) < 0 || teamIndexOf(game.getAteamId()) < 0) {
+                    return null;
+                }
+            }
+            return new GameIndex(this, games);
+        }
+
+        private Map<Integer, int[]> findTeamsByYear() {
+            Map<Integer, TreeSet<Integer>> distinctTeams = new HashMap<>();
+            for (int ordinal = 0; ordinal < size(); ordinal++) {
+                TreeSet<Integer> yearTeams = distinctTeams.computeIfAbsent(years[ordinal], year -> new TreeSet<>());
+                yearTeams.add(homeTeams[ordinal]);
+                yearTeams.add(awayTeams[ordinal]);
+            }
+            Map<Integer, int[]> byYear = new HashMap<>();
+            distinctTeams.forEach((year, yearTeams) ->
+                    byYear.put(year, yearTeams.stream().mapToInt(Integer::intValue).toArray()));
+            return byYear;
+        }
+
+        private void setResult(int ordinal, Game game) {
+            homeTeams[ordinal] = teamIndexById.get(game.getHteamId());
+            awayTeams[ordinal] = teamIndexById.get(game.getAteamId());
+            homeScores[ordinal] = game.getHscore() == null ? 0 : game.getHscore();
+            awayScores[ordinal] = game.getAscore() == null ? 0 : game.getAscore();
+            results[ordinal] = resultOf(game);
+        }
+
+        int size() {
+            return gameIds.length;
+        }
+
+        int teamCount() {
+            return teamIds.length;
+        }
+
+        int latestYear() {
+            return roundsByYear.keySet().stream().mapToInt(Integer::intValue).max().orElse(0);
+        }
+
+        /**
+         * Returns the distinct rounds of a season in ascending order, or an empty array if the season has no games.
+         */
+        int[] roundsOf(int year) {
+            return roundsByYear.getOrDefault(year, new int[0]);
+        }
+
+        /**
+         * Returns the indexes of the teams with games in a season in ascending order, or an empty array if the season
+         * has no games.
+         */
+        int[] teamsOf(int year) {
+            return teamsByYear.getOrDefault(year, new int[0]);
+        }
+
+        /**
+         * Returns the index of a team by ID, or -1 if the team is not in the index.
+         */
+        int teamIndexOf(int teamId) {
+            Integer team = teamIndexById.get(teamId);
+            return team == null ? -1 : team;
+        }
+
+        /**
+         * Returns the ordinal of a game, or -1 if the game is not in the index.
+         */
+        int ordinalOf(int gameId) {
+            int i = Arrays.binarySearch(sortedGameIds, gameId);
+            return i >= 0 ? ordinalsBySortedId[i] : -1;
+        }
+
+        private static byte resultOf(Game game) {
+            // A game without a winner is treated as a draw, matching LadderDeltaEngine
+            if (game.getWinnerId() == null) {
+                return DRAW;
+            } else if (game.getWinnerId() == game.getHteamId()) {
+                return HOME_WIN;
+            } else if (game.getWinnerId() == game.getAteamId()) {
+                return AWAY_WIN;
+            }
+            return NO_WINNER_MATCH;
+        }
+    }
+
+    /**
+     * Reusable per-team accumulators for a single ladder computation.
+     */
+    static final class Standings {
+        final int[] points;
+        final int[] wins;
+        final int[] losses;
+        final int[] draws;
+        final int[] pointsFor;
+        final int[] pointsAgainst;
+        final double[] percentage;
+        final int[] order;
+
+        Standings(int teamCount) {
+            points = new int[teamCount];
+            wins = new int[teamCount];
+            losses = new int[teamCount];
+            draws = new int[teamCount];
+            pointsFor = new int[teamCount];
+            pointsAgainst = new int[teamCount];
+            percentage = new double[teamCount];
+            order = new int[teamCount];
+        }
+
+        int teamCount() {
+            return order.length;
+        }
+
+        void reset() {
+            Arrays.fill(points, 0);
+            Arrays.fill(wins, 0);
+            Arrays.fill(losses, 0);
+            Arrays.fill(draws, 0);
+            Arrays.fill(pointsFor, 0);
+            Arrays.fill(pointsAgainst, 0);
+        }
+
+        void add(Standings other) {
+            for (int team = 0; team < order.length; team++) {
+                points[team] += other.points[team];
+                wins[team] += other.wins[team];
+                losses[team] += other.losses[team];
+                draws[team] += other.draws[team];
+                pointsFor[team] += other.pointsFor[team];
+                pointsAgainst[team] += other.pointsAgainst[team];
+            }
+        }
+
+        void applyGame(GameIndex gameIndex, int ordinal) {
+            int home = gameIndex.homeTeams[ordinal];
+            int away = gameIndex.awayTeams[ordinal];
+            int homeScore = gameIndex.homeScores[ordinal];
+            int awayScore = gameIndex.awayScores[ordinal];
+
+            pointsFor[home] += homeScore;
+            pointsAgainst[home] += awayScore;
+            pointsFor[away] += awayScore;
+            pointsAgainst[away] += homeScore;
+
+            switch (gameIndex.results[ordinal]) {
+                case DRAW:
+                    draws[home]++;
+                    draws[away]++;
+                    points[home] += 2;
+                    points[away] += 2;
+                    break;
+                case HOME_WIN:
+                    wins[home]++;
+                    losses[away]++;
+                    points[home] += 4;
+                    break;
+                case AWAY_WIN:
+                    wins[away]++;
+                    losses[home]++;
+                    points[away] += 4;
+                    break;
+                default:
+                    losses[home]++;
+                    losses[away]++;
+                    break;
+            }
+        }
+
+        /**
+         * Orders teams by points, then percentage rounded to 2 decimal places, in descending order, as the stored ladder
+         * is ordered. Remaining ties go to the lower team ID, which is team order.
+         */
+        void sort() {
+            for (int team = 0; team < order.length; team++) {
+                percentage[team] = LadderDeltaEngine.calculatePercentage(pointsFor[team], pointsAgainst[team]);
+                order[team] = team;
+            }
+
+            // Insertion sort over the small, fixed number of teams avoids boxing and comparator allocation
+            for (int i = 1; i < order.length; i++) {
+                int team = order[i];
+                int j = i - 1;
+                while (j >= 0 && ranksAbove(team, order[j])) {
+                    order[j + 1] = order[j];
+                    j--;
+                }
+                order[j + 1] = team;
+            }
+        }
+
+        private boolean ranksAbove(int team, int other) {
+            if (points[team] != points[other]) {
+                return points[team] > points[other];
+            }
+            return percentage[team] > percentage[other];
+        }
+    }
+
+    /**
+     * Immutable cumulative standings of one user after each round of a season, already sorted into ladder order.
+     */
+    static final class RoundHistory {
+        private final GameIndex gameIndex;
+        private final int year;
+        private final int[] rounds;
+        private final int[] seasonTeams;
+        private final boolean[] shown;
+        private final Standings[] cumulative;
+        private final Standings beforeFirstRound;
+
+        private RoundHistory(GameIndex gameIndex, int year, int[] rounds, int[] seasonTeams, Standings[] cumulative,
+                             Standings beforeFirstRound) {
+            this.gameIndex = gameIndex;
+            this.year = year;
+            this.rounds = rounds;
+            this.seasonTeams = seasonTeams;
+            this.shown = teamMask(gameIndex.teamCount(), seasonTeams);
+            this.cumulative = cumulative;
+            this.beforeFirstRound = beforeFirstRound;
+        }
+
+        int getYear() {
+            return year;
+        }
+
+        GameIndex getGameIndex() {
+            return gameIndex;
+        }
+
+        /**
+         * Returns the indexes of the teams that play in the season, in ascending order.
+         */
+        int[] getSeasonTeams() {
+            return seasonTeams;
+        }
+
+        /**
+         * Returns the standings after the season's last round, counting every watched game of the season.
+         */
+        Standings seasonStandings() {
+            return cumulative.length == 0 ? beforeFirstRound : cumulative[cumulative.length - 1];
+        }
+
+        /**
+         * Returns the ladder as it stood after the given round, counting the user's watched games from that round and
+         * every earlier round of the season. Rounds after the season's last round return the ladder after its last
+         * round, and rounds before its first round return an empty ladder.
+         *
+         * @param userId The user ID.
+         * @param round The round number.
+         * @return the ladder entries for every team that plays in the season, ordered by position.
+         */
+        List<UserLadderEntry> ladderAfterRound(int userId, int round) {
+            int bucket = Arrays.binarySearch(rounds, round);
+            if (bucket < 0) {
+                // Not a round of the season, so use the latest round before it
+                bucket = -bucket - 2;
+            }
+            return toLadderEntries(userId, gameIndex, bucket < 0 ? beforeFirstRound : cumulative[bucket], shown);
+        }
+    }
+}
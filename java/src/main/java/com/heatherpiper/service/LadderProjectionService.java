@@ -0,0 +1,328 @@
+package com.heatherpiper.service;
+
+import com.heatherpiper.dao.WatchedGamesDao;
+import com.heatherpiper.model.Game;
+import com.heatherpiper.model.LadderProjection;
+import com.heatherpiper.model.TeamProjection;
+import com.heatherpiper.model.UserLadderEntry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Service class for projecting where each team will finish, given only the games a user has watched.
+ *
+ * <p>Starting from the user's watched-only ladder for a season, every game of the season they have not watched is
+ * simulated <code>ladder.projection.simulations</code> times with a {@link LadderSimulation}, and the projection reports
+ * each team's probability of finishing in each position and of making the finals. Only the teams that play in the
+ * season are projected. Expected scores come from each team's
+ * scoring in the user's watched games, so a projection never reveals the results of unwatched games.
+ *
+ * <p>Simulations are split across a dedicated fork-join pool, each worker with its own split of a
+ * {@link SplittableRandom} seeded from the season and the watched games, so a projection is reproducible. A
+ * projection stops early when <code>ladder.projection.time-budget-ms</code> runs out. Projections are cached by user,
+ * season and watched game set, so repeated requests are free until the user watches another game or games are saved.
+ */
+@Service
+public class LadderProjectionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(LadderProjectionService.class);
+
+    static final int FINALS_SPOTS = 8;
+
+    // Scoring model, in points. A team's average is weighted towards the league average by PRIOR_GAMES average games,
+    // so that teams with few watched games do not get extreme expected scores.
+    private static final double HOME_ADVANTAGE = 6.0;
+    private static final double SCORE_STANDARD_DEVIATION = 20.0;
+    private static final double DEFAULT_AVERAGE_SCORE = 80.0;
+    private static final int PRIOR_GAMES = 3;
+
+    private static final int TASKS_PER_THREAD = 4;
+
+    private final WatchedGamesDao watchedGamesDao;
+    private final LadderEngine ladderEngine;
+    private final int simulations;
+    private final long timeBudgetMillis;
+    private final ForkJoinPool pool;
+    private final Map<ProjectionKey, LadderProjection> projections;
+
+    @Autowired
+    public LadderProjectionService(WatchedGamesDao watchedGamesDao, LadderEngine ladderEngine,
+                                   @Value("${ladder.projection.simulations:20000}") int simulations,
+                                   @Value("${ladder.projection.time-budget-ms:2000}") long timeBudgetMillis,
+                                   @Value("${ladder.projection.parallelism:0}") int parallelism,
+                                   @Value("${ladder.projection.cache-size:1000}") int cacheSize) {
+        if (simulations <= 0) {
+            throw new IllegalArgumentException("ladder.projection.simulations must be positive");
+        }
+        if (timeBudgetMillis <= 0) {
+            throw new IllegalArgumentException("ladder.projection.time-budget-ms must be positive");
+        }
+        if (parallelism < 0) {
+            throw new IllegalArgumentException("ladder.projection.parallelism must not be negative");
+        }
+        if (cacheSize < 0) {
+            throw new IllegalArgumentException("ladder.projection.cache-size must not be negative");
+        }
+        this.watchedGamesDao = watchedGamesDao;
+        this.ladderEngine = ladderEngine;
+        this.simulations = simulations;
+        this.timeBudgetMillis = timeBudgetMillis;
+        this.pool = new ForkJoinPool(parallelism == 0 ? Runtime.getRuntime().availableProcessors() : parallelism);
+        this.projections = new LinkedHashMap<ProjectionKey, LadderProjection>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<ProjectionKey, LadderProjection> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    /**
+     * Projects the final ladder of a season from a user's watched games.
+     *
+     * @param userId The user ID.
+     * @param year The season, or null for the latest season.
+     * @return each team's projected finishing positions, ordered by expected position.
+     * @throws IllegalArgumentException If the season has no games.
+     */
+    public LadderProjection projectLadder(int userId, Integer year) {
+        int season = year != null ? year : ladderEngine.latestSeason();
+        if (!ladderEngine.hasSeason(season)) {
+            throw new IllegalArgumentException("No games found for season " + season);
+        }
+
+        long[] watchedBits = ladderEngine.toWatchedBits(watchedGamesDao.findWatchedGameIds(userId));
+        LadderEngine.RoundHistory history = ladderEngine.computeRoundHistory(watchedBits, season);
+        ProjectionKey key = new ProjectionKey(userId, season, history.getGameIndex().version, watchedBits);
+
+        synchronized (projections) {
+            LadderProjection cached = projections.get(key);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        LadderProjection projection = simulate(userId, season, history, 31L * season + Arrays.hashCode(watchedBits));
+        synchronized (projections) {
+            projections.put(key, projection);
+        }
+        return projection;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    private LadderProjection simulate(int userId, int season, LadderEngine.RoundHistory history, long seed) {
+        long start = System.nanoTime();
+        LadderEngine.GameIndex gameIndex = history.getGameIndex();
+        int[] seasonTeams = history.getSeasonTeams();
+        int[] simulatedTeams = simulatedTeams(gameIndex, seasonTeams);
+        LadderSimulation simulation = buildSimulation(userId, season, history, simulatedTeams);
+        int teamCount = simulation.teamCount();
+
+        // With nothing left to play, every simulation gives the current ladder
+        int requested = simulation.remainingGames() == 0 ? 1 : simulations;
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(timeBudgetMillis);
+        int tasks = Math.min(requested, pool.getParallelism() * TASKS_PER_THREAD);
+
+        SplittableRandom random = new SplittableRandom(seed);
+        List<ForkJoinTask<SimulationResult>> results = new ArrayList<>(tasks);
+        for (int task = 0; task < tasks; task++) {
+            int taskSimulations = requested / tasks + (task < requested % tasks ? 1 : 0);
+            SplittableRandom taskRandom = random.split();
+            results.add(pool.submit(() -> {
+                long[] counts = new long[teamCount * teamCount];
+                int completed = simulation.run(taskSimulations, deadline, taskRandom, counts);
+                return new SimulationResult(counts, completed);
+            }));
+        }
+
+        long[] positionCounts = new long[teamCount * teamCount];
+        int completed = 0;
+        for (ForkJoinTask<SimulationResult> result : results) {
+            SimulationResult taskResult = result.join();
+            completed += taskResult.completed;
+            for (int i = 0; i < positionCounts.length; i++) {
+                positionCounts[i] += taskResult.positionCounts[i];
+            }
+        }
+
+        List<UserLadderEntry> currentLadder = history.ladderAfterRound(userId, Integer.MAX_VALUE);
+        int[] currentPositions = new int[teamCount];
+        for (UserLadderEntry entry : currentLadder) {
+            currentPositions[simulatedTeams[gameIndex.teamIndexOf(entry.getTeamId())]] = entry.getPosition();
+        }
+
+        List<TeamProjection> teams = new ArrayList<>(teamCount);
+        for (int team = 0; team < teamCount; team++) {
+            double[] probabilities = new double[teamCount];
+            double expectedPosition = 0;
+            double finalsProbability = 0;
+            for (int position = 0; position < teamCount; position++) {
+                probabilities[position] = (double) positionCounts[team * teamCount + position] / completed;
+                expectedPosition += (position + 1) * probabilities[position];
+                if (position < FINALS_SPOTS) {
+                    finalsProbability += probabilities[position];
+                }
+            }
+            teams.add(new TeamProjection(gameIndex.teamIds[seasonTeams[team]], gameIndex.teamNames[seasonTeams[team]],
+                    currentPositions[team], expectedPosition, finalsProbability, probabilities));
+        }
+        teams.sort(Comparator.comparingDouble(TeamProjection::getExpectedPosition)
+                .thenComparingInt(TeamProjection::getCurrentPosition));
+
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        boolean complete = completed == requested;
+        if (!complete) {
+            logger.warn("Ladder projection for userId: {} ran out of time after {} of {} simulations", userId, completed,
+                    requested);
+        }
+        logger.info("Projected {} ladder for userId: {} over {} remaining games with {} simulations in {} ms", season,
+                userId, simulation.remainingGames(), completed, elapsedMillis);
+        return new LadderProjection(userId, season, simulation.remainingGames(), completed, complete, elapsedMillis,
+                teams);
+    }
+
+    /**
+     * Numbers the teams of the season for the simulation.
+     *
+     * @return for each team of the index, its number in the simulation, or -1 if it does not play in the season.
+     */
+    private static int[] simulatedTeams(LadderEngine.GameIndex gameIndex, int[] seasonTeams) {
+        int[] simulatedTeams = new int[gameIndex.teamCount()];
+        Arrays.fill(simulatedTeams, -1);
+        for (int team = 0; team < seasonTeams.length; team++) {
+            simulatedTeams[seasonTeams[team]] = team;
+        }
+        return simulatedTeams;
+    }
+
+    /**
+     * Builds the simulation of the games of the season that the user has not watched, starting from their watched-only
+     * ladder. Each team's expected score in a game averages its own scoring with its opponent's conceding, from the
+     * user's watched games of the season.
+     */
+    private LadderSimulation buildSimulation(int userId, int season, LadderEngine.RoundHistory history,
+                                             int[] simulatedTeams) {
+        LadderEngine.GameIndex gameIndex = history.getGameIndex();
+        LadderEngine.Standings standings = history.seasonStandings();
+        int[] seasonTeams = history.getSeasonTeams();
+        int teamCount = seasonTeams.length;
+
+        int[] points = new int[teamCount];
+        int[] pointsFor = new int[teamCount];
+        int[] pointsAgainst = new int[teamCount];
+        int[] gamesPlayed = new int[teamCount];
+        int totalPointsFor = 0;
+        int totalGames = 0;
+        for (int team = 0; team < teamCount; team++) {
+            int indexed = seasonTeams[team];
+            points[team] = standings.points[indexed];
+            pointsFor[team] = standings.pointsFor[indexed];
+            pointsAgainst[team] = standings.pointsAgainst[indexed];
+            gamesPlayed[team] = standings.wins[indexed] + standings.losses[indexed] + standings.draws[indexed];
+            totalPointsFor += pointsFor[team];
+            totalGames += gamesPlayed[team];
+        }
+        double leagueAverage = totalGames == 0 ? DEFAULT_AVERAGE_SCORE : (double) totalPointsFor / totalGames;
+
+        double[] attack = new double[teamCount];
+        double[] defence = new double[teamCount];
+        for (int team = 0; team < teamCount; team++) {
+            attack[team] = (pointsFor[team] + PRIOR_GAMES * leagueAverage) / (gamesPlayed[team] + PRIOR_GAMES);
+            defence[team] = (pointsAgainst[team] + PRIOR_GAMES * leagueAverage) / (gamesPlayed[team] + PRIOR_GAMES);
+        }
+
+        List<Game> remaining = new ArrayList<>();
+        for (Game game : watchedGamesDao.findUnwatchedGames(userId, season)) {
+            if (simulatedTeam(gameIndex, simulatedTeams, game.getHteamId()) >= 0
+                    && simulatedTeam(gameIndex, simulatedTeams, game.getAteamId()) >= 0) {
+                remaining.add(game);
+            }
+        }
+
+        int[] homeTeams = new int[remaining.size()];
+        int[] awayTeams = new int[remaining.size()];
+        double[] homeMeans = new double[remaining.size()];
+        double[] awayMeans = new double[remaining.size()];
+        for (int game = 0; game < remaining.size(); game++) {
+            int home = simulatedTeam(gameIndex, simulatedTeams, remaining.get(game).getHteamId());
+            int away = simulatedTeam(gameIndex, simulatedTeams, remaining.get(game).getAteamId());
+            homeTeams[game] = home;
+            awayTeams[game] = away;
+            homeMeans[game] = (attack[home] + defence[away]) / 2 + HOME_ADVANTAGE / 2;
+            awayMeans[game] = (attack[away] + defence[home]) / 2 - HOME_ADVANTAGE / 2;
+        }
+
+        return new LadderSimulation(points, pointsFor, pointsAgainst, homeTeams, awayTeams, homeMeans, awayMeans,
+                SCORE_STANDARD_DEVIATION);
+    }
+
+    private static int simulatedTeam(LadderEngine.GameIndex gameIndex, int[] simulatedTeams, int teamId) {
+        int team = gameIndex.teamIndexOf(teamId);
+        return team < 0 ? -1 : simulatedTeams[team];
+    }
+
+    private static final class SimulationResult {
+        private final long[] positionCounts;
+        private final int completed;
+
+        private SimulationResult(long[] positionCounts, int completed) {
+            this.positionCounts = positionCounts;
+            this.completed = completed;
+        }
+    }
+
+    /**
+     * Identifies a projection by user, season, game index version and the exact set of watched games.
+     */
+    private static final class ProjectionKey {
+        private final int userId;
+        private final int year;
+        private final long indexVersion;
+        private final long[] watchedBits;
+        private final int hash;
+
+        private ProjectionKey(int userId, int year, long indexVersion, long[] watchedBits) {
+            this.userId = userId;
+            this.year = year;
+            this.indexVersion = indexVersion;
+            this.watchedBits = watchedBits;
+            this.hash = 31 * (31 * (31 * userId + year) + Long.hashCode(indexVersion)) + Arrays.hashCode(watchedBits);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof ProjectionKey)) {
+                return false;
+            }
+            ProjectionKey other = (ProjectionKey) o;
+            return userId == other.userId && year == other.year && indexVersion == other.indexVersion
+                    && Arrays.equals(watchedBits, other.watchedBits);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.heatherpiper.service;
+
+import com.heatherpiper.dao.UserLadderEntryDao;
+import com.heatherpiper.dao.WatchedGamesDao;
+import com.heatherpiper.model.LadderCacheStats;
+import com.heatherpiper.model.UserLadderEntry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * Service class for reading a user's ladder.
+ *
+ * <p>By default the ladder is derived from the user's watched games by the {@link LadderEngine}. Setting the
+ * <code>ladder.source</code> property to <code>stored</code> serves the persisted user_ladder snapshot instead, which
+ * requires <code>ladder.snapshot.enabled</code> to be true so that the snapshot is kept up to date.
+ *
+ * <p>Ladders from either source are served from the {@link LadderCache}, so repeated reads of an unchanged ladder do
+ * not query the database.
+ *
+ * <p>Ladders as they stood after an earlier round are always derived, from a {@link LadderEngine.RoundHistory} of the
+ * user's cumulative standings after each round, which is cached alongside their ladder.
+ */
+@Service
+public class LadderService {
+
+    private static final Logger logger = LoggerFactory.getLogger(LadderService.class);
+
+    static final String SOURCE_DERIVED = "derived";
+    static final String SOURCE_STORED = "stored";
+
+    private final WatchedGamesDao watchedGamesDao;
+    private final UserLadderEntryDao userLadderEntryDao;
+    private final LadderEngine ladderEngine;
+    private final LadderCache ladderCache;
+    private final String ladderSource;
+
+    @Autowired
+    public LadderService(WatchedGamesDao watchedGamesDao, UserLadderEntryDao userLadderEntryDao, LadderEngine ladderEngine,
+                         LadderCache ladderCache,
+                         @Value("${ladder.source:derived}") String ladderSource,
+                         @Value("${ladder.snapshot.enabled:true}") boolean ladderSnapshotEnabled) {
+        this.watchedGamesDao = watchedGamesDao;
+        this.userLadderEntryDao = userLadderEntryDao;
+        this.ladderEngine = ladderEngine;
+        this.ladderCache = ladderCache;
+        this.ladderSource = ladderSource;
+
+        if (!SOURCE_DERIVED.equals(ladderSource) && !SOURCE_STORED.equals(ladderSource)) {
+            throw new IllegalArgumentException("Invalid ladder.source: " + ladderSource + ". Expected 'derived' or 'stored'.");
+        }
+        if (SOURCE_STORED.equals(ladderSource) && !ladderSnapshotEnabled) {
+            throw new IllegalArgumentException("ladder.source 'stored' requires ladder.snapshot.enabled to be true.");
+        }
+        logger.info("Serving user ladders from the {} source", ladderSource);
+    }
+
+    /**
+     * Gets a user's ladder, ordered by position.
+     *
+     * <p>The ladder is served from the cache when present. On a miss, when serving derived ladders, the user's watched
+     * game IDs are read with a single query and the ladder is computed in memory. Otherwise the stored user_ladder rows
+     * are returned.
+     *
+     * @param userId The user ID.
+     * @return the user's ladder entries, ordered by position. The returned list must not be modified.
+     */
+    public List<UserLadderEntry> getLadder(int userId) {
+        return ladderCache.get(userId, this::loadLadder);
+    }
+
+    /**
+     * Gets a user's ladder as it stood after a round, counting only their watched games from that round and earlier
+     * rounds of the same season.
+     *
+     * <p>On a cache miss, the user's watched game IDs are read with a single query and bucketed by round into cumulative
+     * standings for the whole season, so later requests for any round of the season are answered without recomputing.
+     *
+     * @param userId The user ID.
+     * @param year The season, or null for the latest season.
+     * @param round The round number.
+     * @return the user's ladder entries after the round, ordered by position.
+     * @throws IllegalArgumentException If the round is negative or the season has no games.
+     */
+    public List<UserLadderEntry> getLadderAfterRound(int userId, Integer year, int round) {
+        if (round < 0) {
+            throw new IllegalArgumentException("Round must not be negative");
+        }
+        int season = year != null ? year : ladderEngine.latestSeason();
+        if (!ladderEngine.hasSeason(season)) {
+            throw new IllegalArgumentException("No games found for season " + season);
+        }
+
+        LadderEngine.RoundHistory history = ladderCache.getRoundHistory(userId, season, id -> {
+            List<Integer> watchedGameIds = watchedGamesDao.findWatchedGameIds(id);
+            return ladderEngine.computeRoundHistory(ladderEngine.toWatchedBits(watchedGameIds), season);
+        });
+        return history.ladderAfterRound(userId, round);
+    }
+
+    public LadderCacheStats getCacheStats() {
+        return ladderCache.getStats();
+    }
+
+    private List<UserLadderEntry> loadLadder(int userId) {
+        if (SOURCE_STORED.equals(ladderSource)) {
+            return userLadderEntryDao.getAllUserLadderEntries(userId);
+        }
+        return computeLadder(userId);
+    }
+
+    /**
+     * Computes a user's ladder from their watched games, regardless of the configured ladder source.
+     *
+     * @param userId The user ID.
+     * @return the user's ladder entries, ordered by position.
+     */
+    public List<UserLadderEntry> computeLadder(int userId) {
+        List<Integer> watchedGameIds = watchedGamesDao.findWatchedGameIds(userId);
+        long[] watchedBits = ladderEngine.toWatchedBits(watchedGameIds);
+        return ladderEngine.computeLadder(userId, watchedBits);
+    }
+}
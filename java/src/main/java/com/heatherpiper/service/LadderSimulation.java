@@ -0,0 +1,147 @@
+package com.heatherpiper.service;
+
+import java.util.SplittableRandom;
+
+/**
+ * Simulates the remaining games of a season many times from a starting ladder, and counts how often each team finishes
+ * in each position.
+ *
+ * <p>Each remaining game's scores are drawn from normal distributions around the expected home and away scores, and
+ * the game is won by the higher score. Teams are then ranked by points, then percentage, as on the real ladder. All
+ * per-simulation state lives in primitive arrays allocated once per {@link #run} call, so a run allocates nothing per
+ * simulated season. Instances are immutable and can be run from several threads at once.
+ */
+final class LadderSimulation {
+
+    private static final int DEADLINE_CHECK_INTERVAL = 256;
+
+    private final int teamCount;
+    private final int[] basePoints;
+    private final int[] basePointsFor;
+    private final int[] basePointsAgainst;
+
+    private final int[] homeTeams;
+    private final int[] awayTeams;
+    private final double[] homeMeans;
+    private final double[] awayMeans;
+    private final double scoreStandardDeviation;
+
+    /**
+     * @param basePoints Each team's points on the starting ladder.
+     * @param basePointsFor Each team's points for on the starting ladder.
+     * @param basePointsAgainst Each team's points against on the starting ladder.
+     * @param homeTeams The home team index of each remaining game.
+     * @param awayTeams The away team index of each remaining game.
+     * @param homeMeans The expected home score of each remaining game.
+     * @param awayMeans The expected away score of each remaining game.
+     * @param scoreStandardDeviation The standard deviation of each team's score around its expected score.
+     */
+    LadderSimulation(int[] basePoints, int[] basePointsFor, int[] basePointsAgainst, int[] homeTeams, int[] awayTeams,
+                     double[] homeMeans, double[] awayMeans, double scoreStandardDeviation) {
+        this.teamCount = basePoints.length;
+        this.basePoints = basePoints;
+        this.basePointsFor = basePointsFor;
+        this.basePointsAgainst = basePointsAgainst;
+        this.homeTeams = homeTeams;
+        this.awayTeams = awayTeams;
+        this.homeMeans = homeMeans;
+        this.awayMeans = awayMeans;
+        this.scoreStandardDeviation = scoreStandardDeviation;
+    }
+
+    int teamCount() {
+        return teamCount;
+    }
+
+    int remainingGames() {
+        return homeTeams.length;
+    }
+
+    /**
+     * Simulates up to the given number of seasons, stopping early once the deadline has passed.
+     *
+     * @param simulations The number of seasons to simulate.
+     * @param deadlineNanos The {@link System#nanoTime()} after which no further seasons are started. The deadline is
+     * checked every few hundred seasons, and at least that many are always run.
+     * @param random The random number generator, which must not be shared with other threads.
+     * @param positionCounts Incremented at <code>team * teamCount + position</code> each time a team finishes in a
+     * position.
+     * @return the number of seasons simulated.
+     */
+    int run(int simulations, long deadlineNanos, SplittableRandom random, long[] positionCounts) {
+        int[] points = new int[teamCount];
+        int[] pointsFor = new int[teamCount];
+        int[] pointsAgainst = new int[teamCount];
+        double[] percentage = new double[teamCount];
+        int[] order = new int[teamCount];
+
+        int completed = 0;
+        while (completed < simulations) {
+            int batchEnd = Math.min(simulations, completed + DEADLINE_CHECK_INTERVAL);
+            for (; completed < batchEnd; completed++) {
+                simulateSeason(random, points, pointsFor, pointsAgainst);
+                rank(points, pointsFor, pointsAgainst, percentage, order);
+                for (int position = 0; position < teamCount; position++) {
+                    positionCounts[order[position] * teamCount + position]++;
+                }
+            }
+            if (System.nanoTime() - deadlineNanos > 0) {
+                break;
+            }
+        }
+        return completed;
+    }
+
+    private void simulateSeason(SplittableRandom random, int[] points, int[] pointsFor, int[] pointsAgainst) {
+        System.arraycopy(basePoints, 0, points, 0, teamCount);
+        System.arraycopy(basePointsFor, 0, pointsFor, 0, teamCount);
+        System.arraycopy(basePointsAgainst, 0, pointsAgainst, 0, teamCount);
+
+        for (int game = 0; game < homeTeams.length; game++) {
+            // Box-Muller transform: two uniform samples give two independent standard normal samples
+            double radius = Math.sqrt(-2.0 * Math.log(1.0 - random.nextDouble()));
+            double angle = 2.0 * Math.PI * random.nextDouble();
+            int homeScore = sampleScore(homeMeans[game], radius * Math.cos(angle));
+            int awayScore = sampleScore(awayMeans[game], radius * Math.sin(angle));
+
+            int home = homeTeams[game];
+            int away = awayTeams[game];
+            pointsFor[home] += homeScore;
+            pointsAgainst[home] += awayScore;
+            pointsFor[away] += awayScore;
+            pointsAgainst[away] += homeScore;
+            if (homeScore > awayScore) {
+                points[home] += 4;
+            } else if (awayScore > homeScore) {
+                points[away] += 4;
+            } else {
+                points[home] += 2;
+                points[away] += 2;
+            }
+        }
+    }
+
+    private int sampleScore(double mean, double standardNormal) {
+        return (int) Math.max(0, Math.round(mean + scoreStandardDeviation * standardNormal));
+    }
+
+    /**
+     * Orders teams by points, then percentage, in descending order, matching {@link LadderEngine}.
+     */
+    private void rank(int[] points, int[] pointsFor, int[] pointsAgainst, double[] percentage, int[] order) {
+        for (int team = 0; team < teamCount; team++) {
+            percentage[team] = LadderDeltaEngine.calculatePercentage(pointsFor[team], pointsAgainst[team]);
+            order[team] = team;
+        }
+        for (int i = 1; i < teamCount; i++) {
+            int team = order[i];
+            int j = i - 1;
+            while (j >= 0 && (points[team] > points[order[j]]
+                    || (points[team] == points[order[j]] && percentage[team] > percentage[order[j]]))) {
+                order[j + 1] = order[j];
+                j--;
+            }
+            order[j + 1] = team;
+        }
+    }
+}
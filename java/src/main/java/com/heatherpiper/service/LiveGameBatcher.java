@@ -0,0 +1,160 @@
+package com.heatherpiper.service;
+
+import com.heatherpiper.model.Game;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Coalesces game updates from the live feed and saves them in batches.
+ *
+ * <p>Updates are keyed by game ID, so a later update to a game replaces an earlier one that has not been saved yet.
+ * The pending updates are saved together once the window has passed since the first of them arrived, or as soon as
+ * the number of pending games reaches the limit. Batches are saved one at a time on a dedicated thread, in the order
+ * they were collected.
+ *
+ * <p>Buffering is bounded: {@link #submit} returns a {@link Mono} that completes straight away while there is room,
+ * but once the limit is reached it only completes after the full batch has been saved. Submitting through
+ * <code>concatMap</code> therefore stops the feed from being read while the database catches up. {@link #close} saves
+ * whatever is still pending.
+ */
+final class LiveGameBatcher implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(LiveGameBatcher.class);
+
+    private static final long CLOSE_TIMEOUT_SECONDS = 30;
+
+    private final Consumer<List<Game>> saver;
+    private final long windowMillis;
+    private final int maxPendingGames;
+    private final ScheduledExecutorService executor;
+
+    private final Object lock = new Object();
+    private LinkedHashMap<Integer, Game> pending = new LinkedHashMap<>();
+    private CompletableFuture<Void> pendingSaved = new CompletableFuture<>();
+    private ScheduledFuture<?> scheduledFlush;
+    private boolean closed;
+
+    /**
+     * @param saver Saves a batch of games.
+     * @param windowMillis How long updates are collected before they are saved.
+     * @param maxPendingGames The number of distinct pending games at which the batch is saved without waiting for the
+     * window to pass.
+     */
+    LiveGameBatcher(Consumer<List<Game>> saver, long windowMillis, int maxPendingGames) {
+        if (windowMillis < 0) {
+            throw new IllegalArgumentException("squiggle.live.batch-window-ms must not be negative");
+        }
+        if (maxPendingGames < 1) {
+            throw new IllegalArgumentException("squiggle.live.max-pending-games must be at least 1");
+        }
+        this.saver = saver;
+        this.windowMillis = windowMillis;
+        this.maxPendingGames = maxPendingGames;
+
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = Executors.defaultThreadFactory().newThread(runnable);
+            thread.setName("live-game-batcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.setRemoveOnCancelPolicy(true);
+        this.executor = executor;
+    }
+
+    /**
+     * Adds a game update to the pending batch.
+     *
+     * @param game The updated game.
+     * @return a Mono that completes once the update has been accepted. If the pending batch is full, it completes once
+     * that batch has been saved.
+     */
+    Mono<Void> submit(Game game) {
+        CompletableFuture<Void> saved = null;
+        synchronized (lock) {
+            if (closed) {
+                return Mono.error(new IllegalStateException("The live game batcher has been closed"));
+            }
+            pending.put(game.getId(), game);
+            if (pending.size() >= maxPendingGames) {
+                saved = pendingSaved;
+                cancelScheduledFlush();
+                executor.execute(this::flush);
+            } else if (scheduledFlush == null) {
+                scheduledFlush = executor.schedule(this::flush, windowMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+        return saved == null ? Mono.empty() : Mono.fromFuture(saved);
+    }
+
+    /**
+     * Saves the pending batch, if there is one. Failures are logged and the batch is dropped, since the next season
+     * sync restores any game whose update was lost.
+     */
+    private void flush() {
+        List<Game> batch;
+        CompletableFuture<Void> saved;
+        synchronized (lock) {
+            cancelScheduledFlush();
+            if (pending.isEmpty()) {
+                return;
+            }
+            batch = new ArrayList<>(pending.values());
+            saved = pendingSaved;
+            pending = new LinkedHashMap<>();
+            pendingSaved = new CompletableFuture<>();
+        }
+
+        try {
+            saver.accept(batch);
+            logger.debug("Saved a batch of {} live game updates", batch.size());
+        } catch (RuntimeException e) {
+            logger.error("Failed to save a batch of {} live game updates", batch.size(), e);
+        } finally {
+            saved.complete(null);
+        }
+    }
+
+    private void cancelScheduledFlush() {
+        if (scheduledFlush != null) {
+            scheduledFlush.cancel(false);
+            scheduledFlush = null;
+        }
+    }
+
+    /**
+     * Stops accepting updates and saves the pending batch, waiting for batches that are already being saved.
+     */
+    @Override
+    public void close() {
+        synchronized (lock) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            cancelScheduledFlush();
+        }
+        // Flushing on the batcher's own thread keeps this batch after any batch that is still being saved
+        executor.execute(this::flush);
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(CLOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                logger.warn("Timed out saving pending live game updates on shutdown");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.warn("Interrupted while saving pending live game updates on shutdown");
+        }
+    }
+}
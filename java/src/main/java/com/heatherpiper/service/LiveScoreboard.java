@@ -0,0 +1,145 @@
+package com.heatherpiper.service;
+
+import com.heatherpiper.model.LiveGame;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.UnaryOperator;
+
+/**
+ * Holds the latest state of every game in progress, as reported by the Squiggle live feed.
+ *
+ * <p>The board is an immutable map behind an {@link AtomicReference}. Each change copies the map and swaps it in with a
+ * compare-and-set, so readers never block or wait for the live feed, and always see every game as of the same moment.
+ * The board only ever holds the handful of games being played at once, which keeps the copies cheap.
+ */
+@Component
+public class LiveScoreboard {
+
+    /**
+     * Completion percentages from this value upward start a new quarter. A game moves through not started, four
+     * quarters and full time.
+     */
+    private static final int QUARTER_PERCENT = 25;
+
+    private final AtomicReference<Map<Integer, LiveGame>> games = new AtomicReference<>(Map.of());
+
+    /**
+     * @return the games in progress, ordered by game ID.
+     */
+    public List<LiveGame> getGames() {
+        List<LiveGame> snapshot = new ArrayList<>(games.get().values());
+        snapshot.sort(Comparator.comparingInt(LiveGame::getId));
+        return snapshot;
+    }
+
+    /**
+     * @return the game's latest state, or <code>null</code> if it is not in progress.
+     */
+    public LiveGame getGame(int gameId) {
+        return games.get().get(gameId);
+    }
+
+    /**
+     * Changes a game on the board.
+     *
+     * @param gameId The game to change.
+     * @param change Given the game's current state, or <code>null</code> if it is not on the board, returns its new
+     * state, or <code>null</code> to remove it. It may be called more than once if another change wins the race, so it
+     * must not have side effects.
+     * @return the game's state before and after the change.
+     */
+    public Transition apply(int gameId, UnaryOperator<LiveGame> change) {
+        while (true) {
+            Map<Integer, LiveGame> current = games.get();
+            LiveGame previous = current.get(gameId);
+            LiveGame updated = change.apply(previous);
+            if (updated == previous) {
+                return new Transition(previous, updated);
+            }
+            Map<Integer, LiveGame> next = new HashMap<>(current);
+            if (updated == null) {
+                next.remove(gameId);
+            } else {
+                next.put(gameId, updated);
+            }
+            if (games.compareAndSet(current, Collections.unmodifiableMap(next))) {
+                return new Transition(previous, updated);
+            }
+        }
+    }
+
+    /**
+     * Removes every game that is not one of the given games, such as games that ended while the live feed was
+     * disconnected.
+     */
+    public void retainOnly(Collection<Integer> gameIds) {
+        while (true) {
+            Map<Integer, LiveGame> current = games.get();
+            Map<Integer, LiveGame> next = new HashMap<>(current);
+            next.keySet().retainAll(gameIds);
+            if (next.size() == current.size() || games.compareAndSet(current, Collections.unmodifiableMap(next))) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * A game's state before and after a change to the board.
+     */
+    public static final class Transition {
+        private final LiveGame previous;
+        private final LiveGame current;
+
+        private Transition(LiveGame previous, LiveGame current) {
+            this.previous = previous;
+            this.current = current;
+        }
+
+        public LiveGame getPrevious() {
+            return previous;
+        }
+
+        public LiveGame getCurrent() {
+            return current;
+        }
+
+        /**
+         * Returns whether the change is worth saving: the game appeared on the board, or moved into another quarter,
+         * or its result at full time changed. Score changes within a quarter are only kept on the board.
+         */
+        public boolean isMeaningful() {
+            if (current == null) {
+                return false;
+            }
+            if (previous == null) {
+                return true;
+            }
+            if (stage(previous.getComplete()) != stage(current.getComplete())) {
+                return true;
+            }
+            return current.getComplete() >= 100
+                    && (!Objects.equals(previous.getHscore(), current.getHscore())
+                    || !Objects.equals(previous.getAscore(), current.getAscore())
+                    || !Objects.equals(previous.getWinnerId(), current.getWinnerId()));
+        }
+
+        private static int stage(int complete) {
+            if (complete <= 0) {
+                return 0;
+            }
+            if (complete >= 100) {
+                return 5;
+            }
+            return 1 + complete / QUARTER_PERCENT;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.heatherpiper.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.heatherpiper.model.Game;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads the games of a Squiggle <code>?q=games</code> response token by token.
+ *
+ * <p>The parser walks the top-level object until it reaches the <code>games</code> array, binds each element straight
+ * from the token stream into a {@link Game}, and skips every other field without reading it into memory. No
+ * intermediate tree is built, so parsing a season allocates little more than the games themselves. Instances are
+ * immutable and can be shared between threads.
+ */
+final class SquiggleGamesParser {
+
+    private static final String GAMES_FIELD = "games";
+
+    private final JsonFactory jsonFactory;
+    private final ObjectReader gameReader;
+
+    SquiggleGamesParser(ObjectMapper objectMapper) {
+        this.jsonFactory = objectMapper.getFactory();
+        this.gameReader = objectMapper.readerFor(Game.class);
+    }
+
+    /**
+     * Parses the games of a response body.
+     *
+     * @param body The UTF-8 encoded response body.
+     * @return the games, in the order they appear in the response.
+     * @throws IOException If the body is not a JSON object.
+     */
+    List<Game> parse(byte[] body) throws IOException {
+        List<Game> games = new ArrayList<>();
+        try (JsonParser parser = jsonFactory.createParser(body)) {
+            readGames(parser, games);
+        }
+        return games;
+    }
+
+    private void readGames(JsonParser parser, List<Game> games) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new IOException("Expected a JSON object but found " + parser.currentToken());
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            if (GAMES_FIELD.equals(field) && value == JsonToken.START_ARRAY) {
+                while (parser.nextToken() == JsonToken.START_OBJECT) {
+                    games.add(gameReader.readValue(parser));
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+}
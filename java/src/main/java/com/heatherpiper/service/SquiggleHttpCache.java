@@ -0,0 +1,343 @@
+package com.heatherpiper.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.function.Function;
+
+/**
+ * Fetches Squiggle API responses with conditional requests, keeping response bodies and their validators on disk.
+ *
+ * <p>When a URL has been fetched before, the request carries the stored <code>If-None-Match</code> and
+ * <code>If-Modified-Since</code> validators. A <code>304 Not Modified</code> response is answered from the cache: the
+ * parsed result is reused from memory if this instance has parsed it already, and otherwise the stored body is read
+ * from disk and parsed once. Because bodies are kept in <code>squiggle.cache.directory</code>, restarts and repeated
+ * refreshes only download responses that have changed.
+ *
+ * <p>Stored bodies are limited to <code>squiggle.cache.max-bytes</code> in total, evicting the least recently used
+ * responses first. Leaving the directory blank disables caching, and every request is then sent unconditionally.
+ */
+@Component
+public class SquiggleHttpCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(SquiggleHttpCache.class);
+
+    private static final String BODY_SUFFIX = ".json";
+    private static final String META_SUFFIX = ".properties";
+
+    private final HttpClient httpClient;
+    private final Path directory;
+    private final long maxBytes;
+
+    private final LinkedHashMap<String, CacheEntry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+
+    @Autowired
+    public SquiggleHttpCache(HttpClient httpClient,
+                             @Value("${squiggle.cache.directory:}") String directory,
+                             @Value("${squiggle.cache.max-bytes:52428800}") long maxBytes) {
+        if (maxBytes < 0) {
+            throw new IllegalArgumentException("squiggle.cache.max-bytes must not be negative");
+        }
+        this.httpClient = httpClient;
+        this.directory = directory == null || directory.trim().isEmpty() ? null : Paths.get(directory);
+        this.maxBytes = maxBytes;
+        if (this.directory != null) {
+            loadEntries();
+        }
+    }
+
+    /**
+     * Fetches a URL and parses the response body, answering from the cache when the response has not been modified.
+     *
+     * <p>A URL must always be fetched with the same parser. The parsed result may be returned to several callers and
+     * must not be modified.
+     *
+     * @param url The URL to fetch.
+     * @param parser Parses a response body from its raw bytes.
+     * @return the parsed response.
+     * @throws IOException If the request fails.
+     * @throws InterruptedException If the request is interrupted.
+     */
+    public <T> CachedResponse<T> fetch(String url, Function<byte[], T> parser) throws IOException, InterruptedException {
+        String key = keyOf(url);
+        CacheEntry entry;
+        synchronized (this) {
+            entry = entries.get(key);
+        }
+
+        HttpRequest.Builder builder = HttpRequest.newBuilder()
+                .uri(URI.create(url))
+                .header("Accept", "application/json")
+                .header("User-Agent", "Later Ladder (github.com/heatherpiper/Later-Ladder)");
+        if (entry != null && entry.etag != null) {
+            builder.header("If-None-Match", entry.etag);
+        }
+        if (entry != null && entry.lastModified != null) {
+            builder.header("If-Modified-Since", entry.lastModified);
+        }
+
+        // Bodies are kept as bytes, so they are parsed and stored without decoding them into a String first
+        HttpResponse<byte[]> response = httpClient.send(builder.build(), HttpResponse.BodyHandlers.ofByteArray());
+
+        if (response.statusCode() == 304 && entry != null) {
+            T cached = readCached(key, entry, parser);
+            if (cached != null) {
+                logger.debug("Squiggle response not modified, using cached response for {}", url);
+                return new CachedResponse<>(cached, true);
+            }
+            // The stored body is gone, so fetch it again without validators
+            remove(key);
+            return fetch(url, parser);
+        }
+
+        byte[] body = response.body();
+        T parsed = parser.apply(body);
+        if (response.statusCode() == 200 && directory != null) {
+            String etag = response.headers().firstValue("ETag").orElse(null);
+            String lastModified = response.headers().firstValue("Last-Modified").orElse(null);
+            if (etag != null || lastModified != null) {
+                store(key, url, etag, lastModified, body, parsed);
+            }
+        }
+        return new CachedResponse<>(parsed, false);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T readCached(String key, CacheEntry entry, Function<byte[], T> parser) {
+        synchronized (this) {
+            if (entry.parsed != null) {
+                touch(key, entry);
+                return (T) entry.parsed;
+            }
+        }
+        try {
+            T parsed = parser.apply(Files.readAllBytes(bodyPath(key)));
+            synchronized (this) {
+                entry.parsed = parsed;
+                touch(key, entry);
+            }
+            return parsed;
+        } catch (IOException e) {
+            logger.warn("Failed to read cached Squiggle response for {}", entry.url, e);
+            return null;
+        }
+    }
+
+    private synchronized void touch(String key, CacheEntry entry) {
+        entry.lastAccess = System.currentTimeMillis();
+        try {
+            writeMeta(key, entry);
+        } catch (IOException e) {
+            logger.debug("Failed to update access time of cached Squiggle response for {}", entry.url, e);
+        }
+    }
+
+    private synchronized void store(String key, String url, String etag, String lastModified, byte[] bytes,
+                                    Object parsed) {
+        if (bytes.length > maxBytes) {
+            return;
+        }
+        remove(key);
+
+        CacheEntry entry = new CacheEntry(url, etag, lastModified, bytes.length, System.currentTimeMillis());
+        try {
+            Files.createDirectories(directory);
+            writeAtomically(bodyPath(key), bytes);
+            writeMeta(key, entry);
+        } catch (IOException e) {
+            logger.warn("Failed to cache Squiggle response for {}", url, e);
+            deleteFiles(key);
+            return;
+        }
+        entry.parsed = parsed;
+        entries.put(key, entry);
+        totalBytes += entry.size;
+        evictOverflow();
+    }
+
+    private synchronized void remove(String key) {
+        CacheEntry removed = entries.remove(key);
+        if (removed != null) {
+            totalBytes -= removed.size;
+            deleteFiles(key);
+        }
+    }
+
+    private void evictOverflow() {
+        Iterator<Map.Entry<String, CacheEntry>> iterator = entries.entrySet().iterator();
+        while (totalBytes > maxBytes && iterator.hasNext()) {
+            Map.Entry<String, CacheEntry> eldest = iterator.next();
+            iterator.remove();
+            totalBytes -= eldest.getValue().size;
+            deleteFiles(eldest.getKey());
+            logger.debug("Evicted cached Squiggle response for {}", eldest.getValue().url);
+        }
+    }
+
+    /**
+     * Loads the validators of every stored response, in least recently used order.
+     */
+    private void loadEntries() {
+        List<Map.Entry<String, CacheEntry>> loaded = new ArrayList<>();
+        try {
+            Files.createDirectories(directory);
+            try (DirectoryStream<Path> metaFiles = Files.newDirectoryStream(directory, "*" + META_SUFFIX)) {
+                for (Path metaFile : metaFiles) {
+                    String fileName = metaFile.getFileName().toString();
+                    String key = fileName.substring(0, fileName.length() - META_SUFFIX.length());
+                    CacheEntry entry = readMeta(metaFile);
+                    if (entry != null && Files.isRegularFile(bodyPath(key))) {
+                        loaded.add(Map.entry(key, entry));
+                    } else {
+                        deleteFiles(key);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            logger.warn("Failed to load cached Squiggle responses from {}", directory, e);
+        }
+
+        loaded.sort(Comparator.comparingLong(loadedEntry -> loadedEntry.getValue().lastAccess));
+        for (Map.Entry<String, CacheEntry> loadedEntry : loaded) {
+            entries.put(loadedEntry.getKey(), loadedEntry.getValue());
+            totalBytes += loadedEntry.getValue().size;
+        }
+        evictOverflow();
+        logger.info("Loaded {} cached Squiggle responses ({} bytes) from {}", entries.size(), totalBytes, directory);
+    }
+
+    private CacheEntry readMeta(Path metaFile) {
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(metaFile, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+            return new CacheEntry(properties.getProperty("url"), properties.getProperty("etag"),
+                    properties.getProperty("lastModified"), Long.parseLong(properties.getProperty("size")),
+                    Long.parseLong(properties.getProperty("lastAccess")));
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Ignoring unreadable cached Squiggle response metadata {}", metaFile, e);
+            return null;
+        }
+    }
+
+    private void writeMeta(String key, CacheEntry entry) throws IOException {
+        Properties properties = new Properties();
+        properties.setProperty("url", entry.url);
+        if (entry.etag != null) {
+            properties.setProperty("etag", entry.etag);
+        }
+        if (entry.lastModified != null) {
+            properties.setProperty("lastModified", entry.lastModified);
+        }
+        properties.setProperty("size", Long.toString(entry.size));
+        properties.setProperty("lastAccess", Long.toString(entry.lastAccess));
+
+        Path temp = Files.createTempFile(directory, key, ".tmp");
+        try (Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            properties.store(writer, null);
+        }
+        Files.move(temp, metaPath(key), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void writeAtomically(Path path, byte[] bytes) throws IOException {
+        Path temp = Files.createTempFile(directory, path.getFileName().toString(), ".tmp");
+        Files.write(temp, bytes);
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void deleteFiles(String key) {
+        try {
+            Files.deleteIfExists(metaPath(key));
+            Files.deleteIfExists(bodyPath(key));
+        } catch (IOException e) {
+            logger.warn("Failed to delete cached Squiggle response {}", key, e);
+        }
+    }
+
+    private Path bodyPath(String key) {
+        return directory.resolve(key + BODY_SUFFIX);
+    }
+
+    private Path metaPath(String key) {
+        return directory.resolve(key + META_SUFFIX);
+    }
+
+    private static String keyOf(String url) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(url.getBytes(StandardCharsets.UTF_8));
+            StringBuilder key = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                key.append(String.format("%02x", b));
+            }
+            return key.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * A parsed response, and whether it was answered from the cache because the upstream response was not modified.
+     */
+    public static class CachedResponse<T> {
+        private final T value;
+        private final boolean notModified;
+
+        private CachedResponse(T value, boolean notModified) {
+            this.value = value;
+            this.notModified = notModified;
+        }
+
+        public T getValue() {
+            return value;
+        }
+
+        public boolean isNotModified() {
+            return notModified;
+        }
+    }
+
+    /**
+     * The validators and size of a stored response. Fields are only changed while holding the cache's lock.
+     */
+    private static class CacheEntry {
+        private final String url;
+        private final String etag;
+        private final String lastModified;
+        private final long size;
+        private long lastAccess;
+        private Object parsed;
+
+        private CacheEntry(String url, String etag, String lastModified, long size, long lastAccess) {
+            this.url = url;
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.size = size;
+            this.lastAccess = lastAccess;
+        }
+    }
+}
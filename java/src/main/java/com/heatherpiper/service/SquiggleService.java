@@ -4,36 +4,55 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.heatherpiper.dao.GameDao;
-import com.heatherpiper.dao.TeamDao;
+import com.heatherpiper.dao.WatchedGamesDao;
+import com.heatherpiper.event.GamesSavedEvent;
 import com.heatherpiper.model.Game;
+import com.heatherpiper.model.GameCorrection;
+import com.heatherpiper.model.LiveGame;
+import com.heatherpiper.model.SeasonSyncResult;
+import com.heatherpiper.model.Team;
 import io.netty.handler.timeout.TimeoutException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import reactor.core.Disposable;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 import reactor.util.retry.Retry;
 
 import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
 import java.io.IOException;
-import java.net.URI;
-import java.net.http.HttpClient;
-import java.net.http.HttpRequest;
-import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDate;
+import java.time.OffsetDateTime;
 import java.time.Year;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
-import java.util.function.Predicate;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
 
 /**
  * Service class for handling operations related to the Squiggle API.
+ *
+ * <p>Requests to the games endpoint go through the {@link SquiggleHttpCache}, so unchanged responses are neither
+ * downloaded nor parsed again.
  */
 @Service
 public class SquiggleService {
@@ -43,27 +62,74 @@ public class SquiggleService {
     private static final long MIN_REFRESH_INTERVAL = 5 * 60 * 1000; // 5 minutes
     private long lastRefreshTime = 0;
 
+    private static final Duration DEFAULT_RECONNECT_DELAY = Duration.ofSeconds(3);
+
     private Disposable gameUpdateSubscription;
+    private volatile String lastEventId;
+    private volatile Duration reconnectDelay = DEFAULT_RECONNECT_DELAY;
 
-    private final HttpClient httpClient;
+    private final SquiggleHttpCache squiggleHttpCache;
     private final GameDao gameDao;
-    private final TeamDao teamDao;
+    private final WatchedGamesDao watchedGamesDao;
+    private final TransactionTemplate transactionTemplate;
+    private final TeamDictionary teamDictionary;
     private final ObjectMapper objectMapper;
+    private final SquiggleGamesParser gamesParser;
+    private final ApplicationEventPublisher eventPublisher;
+    private final LiveGameBatcher liveGameBatcher;
+    private final LiveScoreboard liveScoreboard;
+    private final String baseUrl;
+    private final SseFeedRecorder feedRecorder;
+    private final Path replayFile;
+    private final double replaySpeed;
 
     /**
      * Constructor for the SquiggleService class.
      *
-     * @param httpClient   The HTTP client to be used for making requests.
+     * @param squiggleHttpCache The cache through which requests to the Squiggle API are made.
      * @param gameDao      The DAO for accessing game data.
-     * @param teamDao      The DAO for accessing team data.
+     * @param watchedGamesDao The DAO used to find the users who had watched a game whose result is changed by a save.
+     * @param transactionManager The transaction manager in which games are saved.
+     * @param teamDictionary The dictionary of stored teams, to which teams first seen in fetched games are added.
      * @param objectMapper The object mapper for JSON serialization/deserialization.
+     * @param eventPublisher The publisher used to announce that games have been saved.
+     * @param liveScoreboard The board holding the latest state of games in progress.
+     * @param baseUrl The address of the Squiggle API, under which the games endpoint and the live feed are found.
+     * @param liveBatchWindowMillis How long game updates from the live feed are collected before they are saved together.
+     * @param liveMaxPendingGames The number of distinct games with pending live updates at which they are saved
+     *                            without waiting for the window, and reading the live feed pauses until they are.
+     * @param recordFile The file the live feed is recorded to, or blank to not record it.
+     * @param replayFile A recording to replay instead of connecting to the live feed, or blank to connect.
+     * @param replaySpeed How many times faster than real time the recording is replayed, or 0 to replay it as fast as
+     *                    it can be processed.
+     * @throws IOException If the recording file cannot be opened.
      */
     @Autowired
-    public SquiggleService(HttpClient httpClient, GameDao gameDao, TeamDao teamDao, ObjectMapper objectMapper) {
-        this.httpClient = httpClient;
+    public SquiggleService(SquiggleHttpCache squiggleHttpCache, GameDao gameDao, WatchedGamesDao watchedGamesDao,
+                           PlatformTransactionManager transactionManager, TeamDictionary teamDictionary,
+                           ObjectMapper objectMapper, ApplicationEventPublisher eventPublisher, LiveScoreboard liveScoreboard,
+                           @Value("${squiggle.base-url:https://api.squiggle.com.au}") String baseUrl,
+                           @Value("${squiggle.live.batch-window-ms:2000}") long liveBatchWindowMillis,
+                           @Value("${squiggle.live.max-pending-games:64}") int liveMaxPendingGames,
+                           @Value("${squiggle.live.record-file:}") String recordFile,
+                           @Value("${squiggle.live.replay-file:}") String replayFile,
+                           @Value("${squiggle.live.replay-speed:1}") double replaySpeed) throws IOException {
+        this.squiggleHttpCache = squiggleHttpCache;
         this.gameDao = gameDao;
-        this.teamDao = teamDao;
+        this.watchedGamesDao = watchedGamesDao;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.teamDictionary = teamDictionary;
         this.objectMapper = objectMapper;
+        this.gamesParser = new SquiggleGamesParser(objectMapper);
+        this.eventPublisher = eventPublisher;
+        this.liveScoreboard = liveScoreboard;
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        this.liveGameBatcher = new LiveGameBatcher(this::saveGames, liveBatchWindowMillis, liveMaxPendingGames);
+        this.replayFile = replayFile == null || replayFile.trim().isEmpty() ? null : Paths.get(replayFile);
+        this.replaySpeed = replaySpeed;
+        // A replayed feed is not recorded again
+        this.feedRecorder = recordFile == null || recordFile.trim().isEmpty() || this.replayFile != null ? null
+                : new SseFeedRecorder(Paths.get(recordFile));
     }
 
     /**
@@ -93,19 +159,13 @@ public class SquiggleService {
      * @return A list of games for the specified year and round. If an error occurs, an empty list is returned.
      */
     public List<Game> fetchGamesForYearAndRound(int year, int round) {
-        String url = "https://api.squiggle.com.au/?q=games;year=" + year + ";round=" + round;
-        HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create(url))
-                .header("Accept", "application/json")
-                .header("User-Agent", "Later Ladder (github.com/heatherpiper/Later-Ladder)")
-                .build();
+        String url = baseUrl + "/?q=games;year=" + year + ";round=" + round;
 
         try {
-            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
-            List<Game> games = parseGames(response.body());
+            List<Game> games = squiggleHttpCache.fetch(url, this::parseGames).getValue();
 
             if (!games.isEmpty()) {
-                gameDao.saveAll(games);
+                saveGames(games);
             }
             return games;
 
@@ -129,19 +189,13 @@ public class SquiggleService {
      * @return A list of games for the specified year. If an error occurs, an empty list is returned.
      */
     public List<Game> fetchGamesForYear(int year) {
-        String url = "https://api.squiggle.com.au/?q=games;year=" + year;
-        HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create(url))
-                .header("Accept", "application/json")
-                .header("User-Agent", "Later Ladder (github.com/heatherpiper/Later-Ladder)")
-                .build();
+        String url = baseUrl + "/?q=games;year=" + year;
 
         try {
-            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
-            List<Game> games = parseGames(response.body());
+            List<Game> games = squiggleHttpCache.fetch(url, this::parseGames).getValue();
 
             if (!games.isEmpty()) {
-                gameDao.saveAll(games);
+                saveGames(games);
             }
             return games;
 
@@ -168,16 +222,8 @@ public class SquiggleService {
         List<Game> gamesFromMostRecentRound = new ArrayList<>();
 
         try {
-            String url = String.format("https://api.squiggle.com.au/?q=games;year=%d", year);
-            HttpRequest request = HttpRequest.newBuilder()
-                    .uri(URI.create(url))
-                    .header("Accept", "application/json")
-                    .header("User-Agent", "Later Ladder (github.com/heatherpiper/Later-Ladder)")
-                    .build();
-            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
-            String responseBody = response.body();
-
-            List<Game> games = parseGames(responseBody);
+            String url = baseUrl + "/?q=games;year=" + year;
+            List<Game> games = squiggleHttpCache.fetch(url, this::parseGames).getValue();
 
             // Determine the highest completed round
             int highestCompletedRound = games.stream()
@@ -198,56 +244,129 @@ public class SquiggleService {
     /**
      * Fetches games up to the most recent round for a specific year from the Squiggle API.
      *
-     * <p>This method constructs a URL to the Squiggle API's games endpoint, specifying the year as a query parameter.
-     * It then sends a GET request to this URL and parses the response body into a list of Game objects.
-     *
-     * <p>The method determines the highest completed round for the year. If no games are completed and it's not the current year or later,
-     * the method recursively calls itself with the previous year as the parameter.
+     * <p>The games are synced with {@link #syncSeason(int)}, so the whole season is fetched with a single request and
+     * only new or changed games are saved. If no games are completed and it's not the current year or later, the
+     * previous year is synced instead.
      *
-     * <p>If games are completed, it fetches games for all rounds up to the highest completed round and adds them to the list of all games.
-     *
-     * <p>If an exception occurs during the request or parsing process, an error message is logged.
+     * <p>If an exception occurs during the request or while saving, an error message is logged.
      *
      * @param year The year for which to fetch games.
      * @return A list of games for the specified year up to the most recent round. If an error occurs, an empty list is returned.
      */
     public List<Game> fetchGamesUpToMostRecentRound(int year) {
-        List<Game> allGames = new ArrayList<>();
-
         try {
-            String url = String.format("https://api.squiggle.com.au/?q=games;year=%d", year);
-            HttpRequest request = HttpRequest.newBuilder()
-                    .uri(URI.create(url))
-                    .header("Accept", "application/json")
-                    .header("User-Agent", "Later Ladder (github.com/heatherpiper/Later-Ladder)")
-                    .build();
-            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
-            String responseBody = response.body();
+            return syncSeason(year).getGames();
+        } catch (Exception e) {
+            logger.error("Failed to fetch games up to most recent round for year {}: ", year, e);
+            return List.of();
+        }
+    }
 
-            List<Game> games = parseGames(responseBody);
+    /**
+     * Syncs the games of a season, up to and including the most recent round with a completed game, using a single
+     * request for the whole season.
+     *
+     * <p>The fetched games are compared with the stored games, which are read with one query, and only games that are
+     * new or differ from their stored version are saved, in one batch. If no games of the season are completed and it's
+     * not the current year or later, the previous year is synced instead.
+     *
+     * @param year The year to sync.
+     * @return the counts of inserted, updated and unchanged games.
+     * @throws RuntimeException If the season could not be fetched.
+     */
+    public SeasonSyncResult syncSeason(int year) {
+        long start = System.currentTimeMillis();
+        List<Game> games = fetchSeason(year);
 
-            // Determine the highest completed round
-            int highestCompletedRound = games.stream()
-                    .filter(game -> game.getComplete() == 100)
-                    .mapToInt(Game::getRound)
-                    .max()
-                    .orElse(-1);
+        // Determine the highest completed round
+        int highestCompletedRound = findHighestCompletedRound(games);
 
-            boolean isCurrentYearOrLater = year >= LocalDate.now().getYear();
-            boolean shouldFallbackToPreviousYear = highestCompletedRound == -1 && !isCurrentYearOrLater;
+        boolean isCurrentYearOrLater = year >= LocalDate.now().getYear();
+        if (highestCompletedRound == -1 && !isCurrentYearOrLater) {
+            // If no games are completed, and it's not the current year or later, try the previous year
+            return syncSeason(year - 1);
+        }
 
-            if (shouldFallbackToPreviousYear) {
-                // If no games are completed, and it's not the current year or later, try the previous year
-                return fetchGamesUpToMostRecentRound(year - 1);
-            } else {
-                for (int round = 0; round <= highestCompletedRound; round++) {
-                    allGames.addAll(fetchGamesForYearAndRound(year, round));
-                }
+        List<Game> seasonGames = games.stream()
+                .filter(game -> game.getRound() <= highestCompletedRound)
+                .collect(Collectors.toList());
+        return saveChangedGames(year, highestCompletedRound, seasonGames, start);
+    }
+
+    /**
+     * Loads every game of a past season, whatever its state, using a single request for the whole season. Used to
+     * backfill historical seasons, where unlike {@link #syncSeason(int)} there is no need to stop at the most recent
+     * completed round or to fall back to the previous season.
+     *
+     * <p>Only games that are new or differ from their stored version are saved, in one batch, so loading a season
+     * again is cheap.
+     *
+     * @param year The year to load.
+     * @return the counts of inserted, updated and unchanged games.
+     * @throws RuntimeException If the season could not be fetched, or the response held no games.
+     */
+    public SeasonSyncResult loadSeason(int year) {
+        long start = System.currentTimeMillis();
+        List<Game> games = fetchSeason(year);
+        if (games.isEmpty()) {
+            // Every past season has games, so an empty list means an error response rather than an empty season
+            throw new RuntimeException("No games were returned for year " + year);
+        }
+        return saveChangedGames(year, findHighestCompletedRound(games), games, start);
+    }
+
+    private List<Game> fetchSeason(int year) {
+        String url = baseUrl + "/?q=games;year=" + year;
+        try {
+            return squiggleHttpCache.fetch(url, this::parseGames).getValue();
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to fetch games for year " + year, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while fetching games for year " + year, e);
+        }
+    }
+
+    private static int findHighestCompletedRound(List<Game> games) {
+        return games.stream()
+                .filter(game -> game.getComplete() == 100)
+                .mapToInt(Game::getRound)
+                .max()
+                .orElse(-1);
+    }
+
+    /**
+     * Compares the games of a season with their stored versions, which are read with one query, and saves the games
+     * that are new or changed in one batch.
+     */
+    private SeasonSyncResult saveChangedGames(int year, int highestCompletedRound, List<Game> seasonGames,
+                                              long start) {
+        Map<Integer, Game> storedGames = seasonGames.isEmpty() ? Map.of() : gameDao.findGamesByIds(
+                seasonGames.stream().map(Game::getId).collect(Collectors.toList())).stream()
+                .collect(Collectors.toMap(Game::getId, game -> game));
+
+        List<Game> changedGames = new ArrayList<>();
+        int inserted = 0;
+        for (Game game : seasonGames) {
+            Game stored = storedGames.get(game.getId());
+            if (stored == null) {
+                inserted++;
+                changedGames.add(game);
+            } else if (!isSameGame(stored, game)) {
+                changedGames.add(game);
             }
-        } catch (Exception e) {
-            logger.error("Failed to fetch games up to most recent round for year {}: ", year, e);
         }
-        return allGames;
+        if (!changedGames.isEmpty()) {
+            saveGames(changedGames);
+        }
+
+        int updated = changedGames.size() - inserted;
+        int unchanged = seasonGames.size() - changedGames.size();
+        long elapsedMillis = System.currentTimeMillis() - start;
+        logger.info("Synced {} games of {} up to round {}: {} inserted, {} updated, {} unchanged in {} ms",
+                seasonGames.size(), year, highestCompletedRound, inserted, updated, unchanged, elapsedMillis);
+        return new SeasonSyncResult(year, highestCompletedRound, inserted, updated, unchanged, elapsedMillis,
+                seasonGames);
     }
 
     /**
@@ -259,16 +378,17 @@ public class SquiggleService {
      * <p>Next, the method checks if a refresh operation is allowed. Refresh operations are rate-limited to prevent excessive requests.
      * If the last refresh was less than 5 minutes ago, an IllegalStateException is thrown.
      *
-     * <p>If the year is valid and a refresh operation is allowed, the method fetches games up to the most recent round for the specified year.
-     * If the fetch operation is successful, a success message is logged. If an error occurs during the fetch operation, an error message is logged
-     * and a RuntimeException is thrown.
+     * <p>If the year is valid and a refresh operation is allowed, the team dictionary is reloaded and the method syncs games up to the most recent round for the specified year
+     * with {@link #syncSeason(int)}. If the sync is successful, a success message is logged. If an error occurs during the sync, an error
+     * message is logged and a RuntimeException is thrown.
      *
      * @param year The year for which to refresh game data.
+     * @return the counts of inserted, updated and unchanged games.
      * @throws IllegalArgumentException If the year is not within the last 2 years.
      * @throws IllegalStateException If a refresh operation is not allowed because the last refresh was less than 5 minutes ago.
      * @throws RuntimeException If an error occurs during the fetch operation.
      */
-    public void adminInitiatedRefresh(int year) {
+    public SeasonSyncResult adminInitiatedRefresh(int year) {
         logger.info("Admin initiated refresh of games data for current year");
 
         // Validate year
@@ -286,41 +406,147 @@ public class SquiggleService {
         lastRefreshTime = currentTime;
 
         try {
-            fetchGamesUpToMostRecentRound(year);
+            teamDictionary.refresh();
+            SeasonSyncResult result = syncSeason(year);
             logger.info("Successfully refreshed game data for year {}", year);
+            return result;
         } catch (Exception e) {
             logger.error("Error during admin-initiated refresh of games data for year {}: ", year, e);
             throw new RuntimeException("Failed to refresh game data due to an error. Please check the logs for more details.");
         }
     }
 
+    /**
+     * Saves games to the database and publishes a {@link GamesSavedEvent} so that components holding derived game data
+     * can refresh it.
+     *
+     * <p>In one transaction, the stored versions of the games are read and locked, the games are saved, and the users
+     * who had watched each stored game whose teams, scores or winner are changed by the save are found. The event
+     * carries a {@link GameCorrection} for each such game. Because the rows stay locked until the save commits,
+     * concurrent saves of the same game (for example, a live batch and an admin refresh) each see the version the other
+     * saved, so a result is never corrected twice from the same previous version.
+     *
+     * @param games The games to save.
+     */
+    private void saveGames(List<Game> games) {
+        List<Game> saveable = withStoredTeams(games);
+        if (saveable.isEmpty()) {
+            return;
+        }
+        List<Integer> gameIds = saveable.stream().map(Game::getId).collect(Collectors.toList());
+
+        List<GameCorrection> corrections = transactionTemplate.execute(status -> {
+            Map<Integer, Game> previousGames = gameDao.findGamesByIdsForUpdate(gameIds).stream()
+                    .collect(Collectors.toMap(Game::getId, game -> game));
+            gameDao.saveAll(saveable);
+
+            List<Game> changedGames = new ArrayList<>();
+            for (Game game : saveable) {
+                Game previous = previousGames.get(game.getId());
+                if (previous != null && GameCorrection.isLadderChange(previous, game)) {
+                    changedGames.add(game);
+                }
+            }
+            if (changedGames.isEmpty()) {
+                return Collections.<GameCorrection>emptyList();
+            }
+
+            // Find the watchers of every changed game with one query while the rows are locked
+            Map<Integer, List<Integer>> watcherIdsByGame = watchedGamesDao.findUserIdsWatchingEachGame(
+                    changedGames.stream().map(Game::getId).collect(Collectors.toList()));
+            List<GameCorrection> changed = new ArrayList<>();
+            for (Game game : changedGames) {
+                changed.add(new GameCorrection(previousGames.get(game.getId()), game,
+                        watcherIdsByGame.getOrDefault(game.getId(), Collections.emptyList())));
+            }
+            return changed;
+        });
+        if (!corrections.isEmpty()) {
+            logger.info("{} saved games changed a stored result", corrections.size());
+        }
+        eventPublisher.publishEvent(new GamesSavedEvent(this, saveable, corrections));
+    }
+
+    /**
+     * Adds any team that the games reference but the teams table does not yet hold, using the name Squiggle sent with
+     * the game, so that the games can be saved with their team IDs.
+     *
+     * @param games The games to save.
+     * @return the games, without those referencing a new team whose name was not sent, which cannot be saved.
+     */
+    private List<Game> withStoredTeams(List<Game> games) {
+        Map<Integer, String> newTeams = new HashMap<>();
+        Set<Integer> unnamedTeams = new HashSet<>();
+        for (Game game : games) {
+            collectNewTeam(game.getHteamId(), game.getHteamName(), newTeams, unnamedTeams);
+            collectNewTeam(game.getAteamId(), game.getAteamName(), newTeams, unnamedTeams);
+        }
+        if (!newTeams.isEmpty()) {
+            logger.info("Adding {} teams first seen in fetched games: {}", newTeams.size(), newTeams.values());
+            teamDictionary.addTeams(newTeams.entrySet().stream()
+                    .map(team -> new Team(team.getKey(), team.getValue()))
+                    .collect(Collectors.toList()));
+        }
+        unnamedTeams.removeAll(newTeams.keySet());
+        if (unnamedTeams.isEmpty()) {
+            return games;
+        }
+        List<Game> saveable = new ArrayList<>();
+        for (Game game : games) {
+            if (unnamedTeams.contains(game.getHteamId()) || unnamedTeams.contains(game.getAteamId())) {
+                logger.warn("Not saving Game ID {}: no team is stored with ID {} or {}", game.getId(),
+                        game.getHteamId(), game.getAteamId());
+            } else {
+                saveable.add(game);
+            }
+        }
+        return saveable;
+    }
+
+    private void collectNewTeam(int teamId, String name, Map<Integer, String> newTeams, Set<Integer> unnamedTeams) {
+        if (teamDictionary.findTeamName(teamId) != null) {
+            return;
+        }
+        if (name != null && !name.trim().isEmpty()) {
+            newTeams.put(teamId, name);
+        } else {
+            unnamedTeams.add(teamId);
+        }
+    }
+
+    /**
+     * Returns whether a fetched game has the same values as its stored version, in every column that is saved.
+     */
+    private static boolean isSameGame(Game stored, Game fetched) {
+        return stored.getRound() == fetched.getRound()
+                && stored.getYear() == fetched.getYear()
+                && isSameDate(stored.getDate(), fetched.getDate())
+                && stored.getHteamId() == fetched.getHteamId()
+                && stored.getAteamId() == fetched.getAteamId()
+                && Objects.equals(stored.getHscore(), fetched.getHscore())
+                && Objects.equals(stored.getAscore(), fetched.getAscore())
+                && Objects.equals(stored.getWinnerId(), fetched.getWinnerId())
+                && stored.getComplete() == fetched.getComplete();
+    }
+
+    private static boolean isSameDate(OffsetDateTime stored, OffsetDateTime fetched) {
+        return stored == null ? fetched == null : fetched != null && stored.isEqual(fetched);
+    }
+
     /**
      * Parses a JSON response body from the Squiggle API into a list of Game objects.
      *
-     * <p>This method uses Jackson's ObjectMapper to parse the JSON response body. It first reads the response body into a JsonNode tree,
-     * then extracts the "games" array from the root node. It iterates over each element in the "games" array, deserializes it into a Game object,
-     * and adds it to a list of games.
+     * <p>The body is read with a streaming {@link SquiggleGamesParser}, so the games are bound directly from the token
+     * stream without first building a tree of the whole response.
      *
-     * <p>If the "games" field in the response body is not an array or if an error occurs during the parsing process, an error message is logged
-     * and an empty list is returned.
+     * <p>If the response body cannot be parsed, an error message is logged and an empty list is returned.
      *
      * @param responseBody The JSON response body from the Squiggle API.
      * @return A list of Game objects parsed from the response body. If an error occurs, an empty list is returned.
-     * @throws IOException If an error occurs during the parsing process.
      */
-    private List<Game> parseGames(String responseBody) {
-        ObjectMapper objectMapper = new ObjectMapper();
-        List<Game> gamesList = new ArrayList<>();
+    private List<Game> parseGames(byte[] responseBody) {
         try {
-            JsonNode rootNode = objectMapper.readTree(responseBody);
-            JsonNode gamesNode = rootNode.path("games");
-            if (gamesNode.isArray()) {
-                for (JsonNode gameNode : gamesNode) {
-                    Game game = objectMapper.treeToValue(gameNode, Game.class);
-                    gamesList.add(game);
-                }
-            }
-            return gamesList;
+            return gamesParser.parse(responseBody);
         } catch (IOException e) {
             logger.error("Failed to parse games from response body.", e);
             return List.of();
@@ -332,32 +558,64 @@ public class SquiggleService {
      *
      * <p>If a previous subscription exists and is not disposed, it is disposed and a log message is printed.
      *
-     * <p>The method then attempts to connect to the Squiggle SSE endpoint. It creates a Flux that emits items representing
-     * Server-Sent Events from the endpoint. The Flux is configured to retry on IOException or TimeoutException, with a backoff
+     * <p>The method then attempts to connect to the Squiggle SSE endpoint. The response body is decoded chunk by chunk
+     * with a {@link SseEventDecoder}, so events are framed correctly wherever the chunk boundaries fall. Each connection
+     * sends the ID of the last event received in the <code>Last-Event-ID</code> header, so the server can resume the
+     * stream after a reconnect. The Flux is configured to retry on IOException or TimeoutException, with a backoff
      * strategy that starts with a delay of 3 seconds and increases exponentially for each subsequent retry, up to a maximum of 1 minute.
      *
+     * <p>If <code>squiggle.live.record-file</code> is set, every chunk received is recorded with a {@link SseFeedRecorder}
+     * before it is decoded. If <code>squiggle.live.replay-file</code> is set, no connection is made and the recording is
+     * replayed through the same processing instead, see {@link #replayGameUpdates()}.
+     *
      * <p>Upon subscribing to the Flux, a log message is printed. The Flux is then subscribed to, with the following behaviors defined:
-     * - On each emitted item, the processSseEvent method is called to process the event.
-     * - On error, a log message prints and the method recursively calls itself to attempt to reconnect.
-     * - On completion, a log message prints and the method recursively calls itself to attempt to reconnect.
+     * - Each emitted event is processed in order by the processSseEvent method. Games are saved in batches by a
+     *   {@link LiveGameBatcher}, and the stream is not read further while a full batch is being saved.
+     * - On error or completion, a log message prints and the method calls itself again once the reconnection time has
+     *   passed. The reconnection time is 3 seconds unless the server has requested another with a <code>retry</code> field.
      */
     public void subscribeToGameUpdates() {
         if (gameUpdateSubscription != null && !gameUpdateSubscription.isDisposed()) {
             gameUpdateSubscription.dispose();
             logger.info("Disposed the previous game update subscription.");
         }
+        if (replayFile != null) {
+            replayGameUpdates();
+            return;
+        }
         logger.info("Attempting to connect to the Squiggle SSE endpoint...");
 
-        Flux<String> eventStream = reactor.netty.http.client.HttpClient.create()
-                .get()
-                .uri("https://api.squiggle.com.au/sse/games")
-                .responseContent()
-                .asString()
-                .windowUntil(s -> s.contains("\n\n"))
-                .flatMap(w -> w.reduce(String::concat));
-
-        Predicate<Throwable> isRetryableException = throwable ->
-                throwable instanceof IOException;
+        Flux<SseEventDecoder.Event> eventStream = Flux.defer(() -> {
+            String resumeFrom = lastEventId;
+            SseEventDecoder decoder = new SseEventDecoder(resumeFrom);
+            if (feedRecorder != null) {
+                feedRecorder.connectionOpened();
+            }
+            return reactor.netty.http.client.HttpClient.create()
+                    .headers(headers -> {
+                        headers.set("Accept", "text/event-stream");
+                        if (resumeFrom != null) {
+                            headers.set("Last-Event-ID", resumeFrom);
+                        }
+                    })
+                    .get()
+                    .uri(baseUrl + "/sse/games")
+                    .responseContent()
+                    .asByteBuffer()
+                    .doOnNext(chunk -> {
+                        if (feedRecorder != null) {
+                            feedRecorder.record(chunk);
+                        }
+                    })
+                    .concatMapIterable(decoder::decode)
+                    .doOnNext(event -> lastEventId = event.getId())
+                    // Before the stream ends downstream, so the reconnection below already uses the server's delay
+                    .doOnTerminate(() -> {
+                        if (decoder.getRetryMillis() >= 0) {
+                            reconnectDelay = Duration.ofMillis(decoder.getRetryMillis());
+                        }
+                    });
+        });
 
         gameUpdateSubscription = eventStream
                 .doOnSubscribe(subscription -> logger.info("Subscribed to Game Event Stream"))
@@ -366,109 +624,213 @@ public class SquiggleService {
                         .doBeforeRetry(retrySignal -> logger.info("Reconnecting attempt #{}, due to: {}", retrySignal.totalRetries() + 1,
                                 retrySignal.failure().getMessage()))
                         .maxBackoff(Duration.ofMinutes(1)))
+                .concatMap(this::processSseEvent)
                 .subscribe(
-                        this::processSseEvent,
+                        null,
                         error -> {
                             logger.error("Error on Game Event Stream", error);
-                            subscribeToGameUpdates();
+                            resubscribeToGameUpdates();
                         },
                         () -> {
                             logger.info("Game Event Stream completed");
-                            subscribeToGameUpdates();
+                            resubscribeToGameUpdates();
                         }
                 );
     }
 
+    /**
+     * Replays the recording in <code>squiggle.live.replay-file</code> through the same processing as the live feed, at
+     * <code>squiggle.live.replay-speed</code> times real time. Games are saved and published as they would be live, so a
+     * replay against a test database reproduces the live feed's database load. The replay is not repeated when it ends,
+     * and the number of events and the rate at which they were processed are logged.
+     */
+    private void replayGameUpdates() {
+        logger.info("Replaying the Game Event Stream from {} at speed {}", replayFile, replaySpeed);
+        SseFeedReplay replay = new SseFeedReplay(replayFile, replaySpeed);
+        AtomicLong eventCount = new AtomicLong();
+        long start = System.nanoTime();
+
+        gameUpdateSubscription = replay.events()
+                .doOnNext(event -> eventCount.incrementAndGet())
+                .concatMap(this::processSseEvent)
+                .subscribe(
+                        null,
+                        error -> logger.error("Error replaying the Game Event Stream", error),
+                        () -> {
+                            long elapsedMillis = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+                            logger.info("Replayed {} events in {} ms ({} events/s)", eventCount.get(), elapsedMillis,
+                                    eventCount.get() * 1000 / elapsedMillis);
+                        }
+                );
+    }
+
+    private void resubscribeToGameUpdates() {
+        Duration delay = reconnectDelay;
+        logger.info("Reconnecting to the Game Event Stream in {} ms", delay.toMillis());
+        gameUpdateSubscription = Mono.delay(delay).subscribe(tick -> subscribeToGameUpdates());
+    }
+
     /**
      * Processes a Server-Sent Event (SSE) from the Squiggle API's game updates endpoint.
      *
-     * <p>This method is triggered upon receiving an event from the SSE endpoint. It checks if the event starts with "event:"
-     * and then extracts the event type. If the event type is "removeGame", it means the game is over and the final scores are available.
+     * <p>Every game event updates the {@link LiveScoreboard}:
+     * - "games" lists the games in progress when the stream connects, and replaces the board.
+     * - "addGame" adds a game that has started.
+     * - "updateGame", "score", "complete", "timestr" and "winner" update the fields they carry, for the game given by
+     *   "gameid" or "id". Scores may be given at the top level or in a "score" object.
+     * - "removeGame" carries the final result of a game that has ended, and removes it from the board.
      *
-     * <p>The method then extracts the data from the event, deserializes it into a Game object (converting team IDs into team names for
-     * hteam, ateam, and winner), and saves it to the database.
+     * <p>The live feed identifies teams by their IDs in hteam, ateam, and winner. Games are only saved on meaningful
+     * transitions, when a game starts, moves into another quarter, or its final result arrives or changes. They are
+     * handed to the {@link LiveGameBatcher}, which saves them with the other updates received within the batch window.
      *
-     * @param sseEvent The Server-Sent Event received from the Squiggle API's game updates endpoint.
+     * @param event The Server-Sent Event received from the Squiggle API's game updates endpoint.
+     * @return a Mono that completes once the event has been processed, which waits while a full batch is saved.
      */
-    private void processSseEvent(String sseEvent) {
-        String trimmedEvent = sseEvent.trim();
-        if (trimmedEvent.equals(":") || trimmedEvent.isEmpty()) {
-            logger.debug("Heartbeat received to keep the connection alive.");
-            return;
+    Mono<Void> processSseEvent(SseEventDecoder.Event event) {
+        String eventType = event.getType();
+        try {
+            switch (eventType) {
+                case "games":
+                    return processLiveGames(objectMapper.readTree(event.getData()));
+                case "addGame":
+                    return processAddedGame(objectMapper.readTree(event.getData()));
+                case "updateGame":
+                case "score":
+                case "complete":
+                case "timestr":
+                case "winner":
+                    return processGameUpdate(objectMapper.readTree(event.getData()));
+                case "removeGame":
+                    return processRemovedGame(objectMapper.readValue(event.getData(), Game.class));
+                default:
+                    logger.debug("Received an unhandled event type: {}", eventType);
+            }
+        } catch (JsonProcessingException | IllegalArgumentException e) {
+            logger.error("Error processing SSE event {}: {}", eventType, event.getData(), e);
         }
+        return Mono.empty();
+    }
 
-        try {
-            String eventType = extractEventType(trimmedEvent);
-            if ("removeGame".equals(eventType)) {
-                String data = extractData(trimmedEvent);
-                Game game = objectMapper.readValue(data, Game.class);
-
-                try {
-                    game.setHteam(teamDao.findTeamNameById(Integer.parseInt(game.getHteam())));
-                } catch (NumberFormatException e) {
-                    logger.warn("hteam is not an ID, assuming it's a name for Game ID {}", game.getId());
-                }
+    private Mono<Void> processLiveGames(JsonNode gamesNode) throws JsonProcessingException {
+        List<Game> toSave = new ArrayList<>();
+        List<Integer> liveGameIds = new ArrayList<>();
+        for (JsonNode gameNode : gamesNode) {
+            Game game = objectMapper.treeToValue(gameNode, Game.class);
+            if (!resolveTeamIds(game)) {
+                continue;
+            }
+            liveGameIds.add(game.getId());
+            LiveGame liveGame = LiveGame.of(game, gameNode.path("timestr").asText(null), Instant.now());
+            LiveScoreboard.Transition transition = liveScoreboard.apply(game.getId(), previous -> liveGame);
+            if (transition.isMeaningful()) {
+                toSave.add(game);
+            }
+        }
+        liveScoreboard.retainOnly(liveGameIds);
+        logger.info("Live scoreboard has {} games in progress", liveGameIds.size());
+        return Flux.fromIterable(toSave).concatMap(liveGameBatcher::submit).then();
+    }
 
-                try {
-                    game.setAteam(teamDao.findTeamNameById(Integer.parseInt(game.getAteam())));
-                } catch (NumberFormatException e) {
-                    logger.warn("ateam is not an ID, assuming it's a name for Game ID {}", game.getId());
-                }
+    private Mono<Void> processAddedGame(JsonNode gameNode) throws JsonProcessingException {
+        Game game = objectMapper.treeToValue(gameNode, Game.class);
+        if (!resolveTeamIds(game)) {
+            return Mono.empty();
+        }
+        LiveGame liveGame = LiveGame.of(game, gameNode.path("timestr").asText(null), Instant.now());
+        LiveScoreboard.Transition transition = liveScoreboard.apply(game.getId(), previous -> liveGame);
+        logger.info("Processed 'addGame' event for Game ID: {}", game.getId());
+        return transition.isMeaningful() ? liveGameBatcher.submit(game) : Mono.empty();
+    }
 
-                try {
-                    game.setWinner(teamDao.findTeamNameById(Integer.parseInt(game.getWinner())));
-                } catch (NumberFormatException e) {
-                    logger.warn("winner is not an ID, assuming it's a name for Game ID {}", game.getId());
-                }
+    private Mono<Void> processGameUpdate(JsonNode updateNode) {
+        int gameId = updateNode.has("gameid") ? updateNode.get("gameid").asInt() : updateNode.path("id").asInt();
+        if (liveScoreboard.getGame(gameId) != null) {
+            return applyGameUpdate(gameId, updateNode);
+        }
 
-                gameDao.saveAll(Collections.singletonList(game));
-                logger.info("Processed 'removeGame' event for Game ID: {}", game.getId());
-            } else {
-                logger.debug("Received an unhandled event type: {}", eventType);
-            }
-        } catch (JsonProcessingException e) {
-            logger.error("Error processing SSE event: {}", trimmedEvent, e);
+        // An update for a game that started before the stream connected, so start from the stored game. The lookup
+        // blocks on the database, so it runs on the bounded elastic scheduler rather than the event loop.
+        return Mono.fromCallable(() -> gameDao.findGamesByIds(Collections.singletonList(gameId)))
+                .subscribeOn(Schedulers.boundedElastic())
+                .onErrorResume(DataAccessException.class, e -> {
+                    logger.error("Failed to look up Game ID {} for a live update", gameId, e);
+                    return Mono.just(Collections.<Game>emptyList());
+                })
+                .flatMap(stored -> {
+                    if (stored.isEmpty()) {
+                        logger.debug("Ignoring live update for unknown Game ID: {}", gameId);
+                        return Mono.empty();
+                    }
+                    liveScoreboard.apply(gameId, previous -> previous != null ? previous
+                            : LiveGame.of(stored.get(0), null, Instant.now()));
+                    return applyGameUpdate(gameId, updateNode);
+                });
+    }
+
+    private Mono<Void> applyGameUpdate(int gameId, JsonNode updateNode) {
+        JsonNode scoreNode = updateNode.path("score").isObject() ? updateNode.get("score") : updateNode;
+        Integer hscore = integerOrNull(scoreNode, "hscore");
+        Integer ascore = integerOrNull(scoreNode, "ascore");
+        Integer complete = integerOrNull(updateNode, "complete");
+        String timestr = updateNode.hasNonNull("timestr") ? updateNode.get("timestr").asText() : null;
+        Integer winner = updateNode.hasNonNull("winner") ? resolveTeamId(updateNode.get("winner").asText(), gameId) : null;
+        Instant now = Instant.now();
+
+        LiveScoreboard.Transition transition = liveScoreboard.apply(gameId, previous -> previous == null ? null
+                : previous.withUpdate(hscore, ascore, complete, timestr, winner, now));
+        if (transition.isMeaningful()) {
+            logger.debug("Saving live update for Game ID {} at {}% complete", gameId, transition.getCurrent().getComplete());
+            return liveGameBatcher.submit(transition.getCurrent().toGame());
         }
+        return Mono.empty();
+    }
+
+    private Mono<Void> processRemovedGame(Game game) {
+        liveScoreboard.apply(game.getId(), previous -> null);
+        logger.info("Processed 'removeGame' event for Game ID: {}", game.getId());
+        return resolveTeamIds(game) ? liveGameBatcher.submit(game) : Mono.empty();
     }
 
     /**
-     * Extracts the event type from a Server-Sent Event (SSE) string.
-     *
-     * <p>This method uses a regular expression to match the "event:" field in the SSE string, which represents the event type.
-     * The regular expression is case-insensitive and works across multiple lines.
-     *
-     * <p>If the "event:" field is found, the method returns the event type as a trimmed string. If the "event:" field is not found,
-     * the method returns the string "unknown".
+     * Looks up the IDs of the teams of a game from the live feed that named its teams instead of giving their IDs.
      *
-     * @param sseEvent The Server-Sent Event string from which to extract the event type.
-     * @return The event type extracted from the SSE string, or "unknown" if the "event:" field is not found.
+     * @return whether every named team was found; if not, the game should be dropped rather than saved with a team
+     * that does not exist.
      */
-    private String extractEventType(String sseEvent) {
-        Matcher matcher = Pattern.compile("event:\\s*(\\w+)", Pattern.MULTILINE | Pattern.CASE_INSENSITIVE).matcher(sseEvent);
-        if (matcher.find()) {
-            return matcher.group(1).trim();
+    private boolean resolveTeamIds(Game game) {
+        if (game.getHteamId() == 0 && game.getHteamName() != null) {
+            Integer hteamId = resolveTeamId(game.getHteamName(), game.getId());
+            if (hteamId == null) {
+                return false;
+            }
+            game.setHteamId(hteamId);
         }
-        return "unknown";
+        if (game.getAteamId() == 0 && game.getAteamName() != null) {
+            Integer ateamId = resolveTeamId(game.getAteamName(), game.getId());
+            if (ateamId == null) {
+                return false;
+            }
+            game.setAteamId(ateamId);
+        }
+        return true;
     }
 
-    /**
-     * Extracts the data field from a Server-Sent Event (SSE) string.
-     *
-     * <p>This method uses a regular expression to match the "data:" field in the SSE string, which represents the event data.
-     * The regular expression is designed to capture a JSON object, and works across multiple lines due to the DOTALL flag.
-     *
-     * <p>If the "data:" field is found, the method returns the data as a trimmed string. If the "data:" field is not found,
-     * the method returns an empty JSON object string "{}".
-     *
-     * @param sseEvent The Server-Sent Event string from which to extract the data.
-     * @return The data extracted from the SSE string, or an empty JSON object string "{}" if the "data:" field is not found.
-     */
-    private String extractData(String sseEvent) {
-        Matcher matcher = Pattern.compile("data:\\s*(\\{.*?})", Pattern.DOTALL).matcher(sseEvent);
-        if (matcher.find()) {
-            return matcher.group(1).trim();
+    private Integer resolveTeamId(String team, int gameId) {
+        try {
+            return Integer.parseInt(team);
+        } catch (NumberFormatException e) {
+            int teamId = teamDictionary.findTeamId(team);
+            if (teamId < 0) {
+                logger.warn("No team found with name {} for Game ID {}; ignoring it", team, gameId);
+                return null;
+            }
+            return teamId;
         }
-        return "{}";
+    }
+
+    private static Integer integerOrNull(JsonNode node, String field) {
+        return node.hasNonNull(field) ? node.get(field).asInt() : null;
     }
 
     /**
@@ -479,11 +841,18 @@ public class SquiggleService {
      * <p>Specifically, this method checks if the gameUpdateSubscription exists and is not disposed.
      * If so, it disposes the subscription. This is important to prevent memory leaks and other
      * potential issues related to the lifecycle of the subscription.
+     *
+     * <p>Any live game updates that are still waiting to be saved are then saved before the method returns, and the
+     * live feed recording, if any, is closed.
      */
     @PreDestroy
     public void onDestroy() {
         if (gameUpdateSubscription != null && !gameUpdateSubscription.isDisposed()) {
             gameUpdateSubscription.dispose();
         }
+        liveGameBatcher.close();
+        if (feedRecorder != null) {
+            feedRecorder.close();
+        }
     }
 }
@@ -0,0 +1,333 @@
+package com.heatherpiper.service;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Decodes a Server-Sent Events stream incrementally from the byte chunks it arrives in.
+ *
+ * <p>Decoding follows the <code>text/event-stream</code> rules of the HTML specification: lines may end with CRLF, LF
+ * or CR, a blank line dispatches the event, lines starting with a colon are comments, and the <code>event</code>,
+ * <code>data</code>, <code>id</code> and <code>retry</code> fields are recognised. Multiple <code>data</code> lines are
+ * joined with line feeds, the last event ID carries over to later events, and an event that is still incomplete when
+ * the stream ends is discarded. Chunk boundaries may fall anywhere, including inside a line ending or a multi-byte
+ * character.
+ *
+ * <p>Lines and fields are accumulated in reusable byte arrays and only decoded into strings once an event is
+ * dispatched, so chunks that complete no event allocate nothing. A decoder holds the state of one connection and is not
+ * thread-safe.
+ */
+public final class SseEventDecoder {
+
+    /**
+     * The event type used when an event has no <code>event</code> field.
+     */
+    public static final String DEFAULT_EVENT_TYPE = "message";
+
+    private static final byte[] EVENT = "event".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] DATA = "data".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] ID = "id".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] RETRY = "retry".getBytes(StandardCharsets.US_ASCII);
+
+    private static final byte LINE_FEED = '\n';
+    private static final byte CARRIAGE_RETURN = '\r';
+    private static final byte COLON = ':';
+    private static final byte SPACE = ' ';
+
+    private byte[] line = new byte[256];
+    private int lineLength;
+    private boolean skipLineFeed;
+    private boolean firstLine = true;
+
+    private byte[] data = new byte[256];
+    private int dataLength;
+
+    private byte[] type = new byte[32];
+    private int typeLength;
+    private String lastType = DEFAULT_EVENT_TYPE;
+    private byte[] lastTypeBytes = new byte[0];
+
+    private byte[] id = new byte[32];
+    private int idLength;
+    private boolean idChanged;
+    private String lastEventId;
+
+    private long retryMillis = -1;
+
+    public SseEventDecoder() {
+    }
+
+    /**
+     * Creates a decoder for a reconnection, so that events without an <code>id</code> field keep the ID of the last
+     * event received on the previous connection.
+     *
+     * @param lastEventId The last event ID received, or <code>null</code> if there is none.
+     */
+    public SseEventDecoder(String lastEventId) {
+        if (lastEventId != null) {
+            byte[] bytes = lastEventId.getBytes(StandardCharsets.UTF_8);
+            setId(bytes, 0, bytes.length);
+        }
+    }
+
+    /**
+     * Decodes the next chunk of the stream, consuming all of its remaining bytes.
+     *
+     * @param chunk The next bytes of the stream.
+     * @return the events completed by this chunk, in order. The list is empty, and nothing is allocated, if the chunk
+     * completes no event.
+     */
+    public List<Event> decode(ByteBuffer chunk) {
+        List<Event> events = List.of();
+        int position = chunk.position();
+        int limit = chunk.limit();
+        while (position < limit) {
+            if (skipLineFeed) {
+                skipLineFeed = false;
+                if (chunk.get(position) == LINE_FEED) {
+                    position++;
+                    continue;
+                }
+            }
+
+            int end = position;
+            while (end < limit) {
+                byte b = chunk.get(end);
+                if (b == LINE_FEED || b == CARRIAGE_RETURN) {
+                    break;
+                }
+                end++;
+            }
+            appendToLine(chunk, position, end - position);
+            if (end == limit) {
+                position = end;
+                break;
+            }
+
+            skipLineFeed = chunk.get(end) == CARRIAGE_RETURN;
+            position = end + 1;
+            Event event = processLine();
+            lineLength = 0;
+            if (event != null) {
+                if (events.isEmpty()) {
+                    events = new ArrayList<>(2);
+                }
+                events.add(event);
+            }
+        }
+        chunk.position(limit);
+        return events;
+    }
+
+    /**
+     * Returns the ID of the last event, which is sent back in the <code>Last-Event-ID</code> header when reconnecting.
+     *
+     * @return the last event ID, or <code>null</code> if no ID has been received.
+     */
+    public String getLastEventId() {
+        materializeId();
+        return lastEventId;
+    }
+
+    /**
+     * Returns the reconnection time most recently requested by the server with a <code>retry</code> field.
+     *
+     * @return the reconnection time in milliseconds, or <code>-1</code> if the server has not requested one.
+     */
+    public long getRetryMillis() {
+        return retryMillis;
+    }
+
+    private void appendToLine(ByteBuffer chunk, int position, int length) {
+        if (length == 0) {
+            return;
+        }
+        line = ensureCapacity(line, lineLength + length);
+        chunk.position(position);
+        chunk.get(line, lineLength, length);
+        lineLength += length;
+    }
+
+    private Event processLine() {
+        int start = 0;
+        if (firstLine) {
+            firstLine = false;
+            // A byte order mark may precede the first line
+            if (lineLength >= 3 && line[0] == (byte) 0xEF && line[1] == (byte) 0xBB && line[2] == (byte) 0xBF) {
+                start = 3;
+            }
+        }
+        int length = lineLength - start;
+
+        if (length == 0) {
+            return dispatch();
+        }
+        if (line[start] == COLON) {
+            return null;
+        }
+
+        int nameEnd = start;
+        while (nameEnd < lineLength && line[nameEnd] != COLON) {
+            nameEnd++;
+        }
+        int valueStart = nameEnd;
+        if (nameEnd < lineLength) {
+            valueStart = nameEnd + 1;
+            if (valueStart < lineLength && line[valueStart] == SPACE) {
+                valueStart++;
+            }
+        }
+        int valueLength = lineLength - valueStart;
+
+        if (fieldIs(EVENT, start, nameEnd)) {
+            type = ensureCapacity(type, valueLength);
+            System.arraycopy(line, valueStart, type, 0, valueLength);
+            typeLength = valueLength;
+        } else if (fieldIs(DATA, start, nameEnd)) {
+            data = ensureCapacity(data, dataLength + valueLength + 1);
+            System.arraycopy(line, valueStart, data, dataLength, valueLength);
+            dataLength += valueLength;
+            data[dataLength++] = LINE_FEED;
+        } else if (fieldIs(ID, start, nameEnd)) {
+            // IDs containing NULL are ignored so that they cannot be confused with a missing ID
+            for (int i = valueStart; i < lineLength; i++) {
+                if (line[i] == 0) {
+                    return null;
+                }
+            }
+            setId(line, valueStart, valueLength);
+        } else if (fieldIs(RETRY, start, nameEnd)) {
+            parseRetry(valueStart);
+        }
+        return null;
+    }
+
+    private Event dispatch() {
+        if (dataLength == 0) {
+            typeLength = 0;
+            return null;
+        }
+        // The last data line's line feed is not part of the data
+        String eventData = new String(data, 0, dataLength - 1, StandardCharsets.UTF_8);
+        Event event = new Event(currentType(), eventData, getLastEventId());
+        dataLength = 0;
+        typeLength = 0;
+        return event;
+    }
+
+    /**
+     * Returns the current event type, reusing the previous type's string when it is unchanged.
+     */
+    private String currentType() {
+        if (typeLength == 0) {
+            return DEFAULT_EVENT_TYPE;
+        }
+        if (typeLength != lastTypeBytes.length || !rangeEquals(type, 0, lastTypeBytes, 0, typeLength)) {
+            lastTypeBytes = Arrays.copyOf(type, typeLength);
+            lastType = new String(lastTypeBytes, StandardCharsets.UTF_8);
+        }
+        return lastType;
+    }
+
+    private void setId(byte[] source, int offset, int length) {
+        if (length == idLength && rangeEquals(id, 0, source, offset, length)) {
+            return;
+        }
+        id = ensureCapacity(id, length);
+        System.arraycopy(source, offset, id, 0, length);
+        idLength = length;
+        idChanged = true;
+    }
+
+    private void materializeId() {
+        if (idChanged) {
+            lastEventId = new String(id, 0, idLength, StandardCharsets.UTF_8);
+            idChanged = false;
+        }
+    }
+
+    private void parseRetry(int valueStart) {
+        if (valueStart == lineLength) {
+            return;
+        }
+        long value = 0;
+        for (int i = valueStart; i < lineLength; i++) {
+            byte b = line[i];
+            if (b < '0' || b > '9') {
+                return;
+            }
+            value = value * 10 + (b - '0');
+            if (value > Integer.MAX_VALUE) {
+                return;
+            }
+        }
+        retryMillis = value;
+    }
+
+    private boolean fieldIs(byte[] name, int start, int end) {
+        if (end - start != name.length) {
+            return false;
+        }
+        for (int i = 0; i < name.length; i++) {
+            if (line[start + i] != name[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean rangeEquals(byte[] a, int aOffset, byte[] b, int bOffset, int length) {
+        for (int i = 0; i < length; i++) {
+            if (a[aOffset + i] != b[bOffset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static byte[] ensureCapacity(byte[] buffer, int capacity) {
+        if (capacity <= buffer.length) {
+            return buffer;
+        }
+        return Arrays.copyOf(buffer, Math.max(capacity, buffer.length * 2));
+    }
+
+    /**
+     * A dispatched Server-Sent Event.
+     */
+    public static final class Event {
+        private final String type;
+        private final String data;
+        private final String id;
+
+        public Event(String type, String data, String id) {
+            this.type = type;
+            this.data = data;
+            this.id = id;
+        }
+
+        /**
+         * @return the event type, which is {@value SseEventDecoder#DEFAULT_EVENT_TYPE} if the event had none.
+         */
+        public String getType() {
+            return type;
+        }
+
+        /**
+         * @return the event's data lines, joined with line feeds.
+         */
+        public String getData() {
+            return data;
+        }
+
+        /**
+         * @return the last event ID when the event was dispatched, or <code>null</code> if no ID has been received.
+         */
+        public String getId() {
+            return id;
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.heatherpiper.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Appends the raw byte chunks of the live feed to a recording file, so that a match day can be replayed offline with
+ * {@link SseFeedReplay}.
+ *
+ * <p>A recording starts with the {@link #MAGIC} bytes, followed by one record per connection or chunk:
+ * <ul>
+ *     <li>a type byte, {@link #CONNECTION} when a new connection to the feed was opened or {@link #CHUNK} for bytes
+ *     received on the current connection,</li>
+ *     <li>the time the record was written, in milliseconds since the epoch,</li>
+ *     <li>for a chunk, the number of bytes followed by the bytes exactly as received.</li>
+ * </ul>
+ * Chunks are recorded before they are decoded, so a replay reproduces the original chunk boundaries. Records are
+ * appended and flushed one at a time; recording to an existing file continues it, and a record cut short by a crash
+ * only loses that record.
+ *
+ * <p>Recording must never interrupt the live feed, so a write that fails is logged and recording stops.
+ */
+final class SseFeedRecorder implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(SseFeedRecorder.class);
+
+    static final byte[] MAGIC = {'S', 'S', 'E', 'R', 'E', 'C', '1', '\n'};
+    static final byte CONNECTION = 0;
+    static final byte CHUNK = 1;
+
+    private final Path file;
+    private DataOutputStream out;
+    private byte[] buffer = new byte[8192];
+
+    /**
+     * Opens a recording file, creating it if it does not exist.
+     *
+     * @throws IOException If the file cannot be opened, or it exists but is not a recording.
+     */
+    SseFeedRecorder(Path file) throws IOException {
+        this.file = file;
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        boolean isNew = !Files.exists(file) || Files.size(file) == 0;
+        if (!isNew) {
+            byte[] header = new byte[MAGIC.length];
+            try (InputStream in = Files.newInputStream(file)) {
+                if (in.readNBytes(header, 0, header.length) != header.length || !Arrays.equals(header, MAGIC)) {
+                    throw new IOException(file + " is not a live feed recording");
+                }
+            }
+        }
+        out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file, StandardOpenOption.CREATE,
+                StandardOpenOption.APPEND)));
+        if (isNew) {
+            out.write(MAGIC);
+            out.flush();
+        }
+    }
+
+    /**
+     * Records that a new connection to the feed was opened. Chunks recorded after it belong to the new connection.
+     */
+    synchronized void connectionOpened() {
+        if (out == null) {
+            return;
+        }
+        try {
+            out.writeByte(CONNECTION);
+            out.writeLong(System.currentTimeMillis());
+            out.flush();
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    /**
+     * Records a chunk received from the feed. The chunk's position is left unchanged.
+     */
+    synchronized void record(ByteBuffer chunk) {
+        if (out == null) {
+            return;
+        }
+        int length = chunk.remaining();
+        if (buffer.length < length) {
+            buffer = new byte[Math.max(length, buffer.length * 2)];
+        }
+        chunk.duplicate().get(buffer, 0, length);
+        try {
+            out.writeByte(CHUNK);
+            out.writeLong(System.currentTimeMillis());
+            out.writeInt(length);
+            out.write(buffer, 0, length);
+            out.flush();
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (out == null) {
+            return;
+        }
+        try {
+            out.close();
+        } catch (IOException e) {
+            logger.warn("Failed to close live feed recording {}", file, e);
+        }
+        out = null;
+    }
+
+    private void fail(IOException e) {
+        logger.error("Failed to write live feed recording {}; recording has stopped", file, e);
+        close();
+    }
+}
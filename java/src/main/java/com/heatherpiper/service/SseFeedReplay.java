@@ -0,0 +1,135 @@
+package com.heatherpiper.service;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.SynchronousSink;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Replays a live feed recording written by {@link SseFeedRecorder} as the events of the original feed.
+ *
+ * <p>The recorded chunks are decoded with a new {@link SseEventDecoder} for each recorded connection, exactly as they
+ * were when they arrived, so the events match those seen live. Chunks are released at the pace they were recorded
+ * multiplied by the speed: a speed of 1 replays in real time, 10 replays ten times faster, and 0 or less replays as fast
+ * as the subscriber consumes the events. A replay that falls behind its schedule does not wait until it catches up.
+ *
+ * <p>The file is read on a bounded elastic thread, one chunk at a time as events are requested. A record cut short at
+ * the end of the file is ignored.
+ */
+final class SseFeedReplay {
+
+    private final Path file;
+    private final double speed;
+
+    /**
+     * @param file The recording to replay.
+     * @param speed How many times faster than real time to replay, or 0 or less to replay without pauses.
+     */
+    SseFeedReplay(Path file, double speed) {
+        this.file = file;
+        this.speed = speed;
+    }
+
+    /**
+     * @return the recorded events, which complete at the end of the recording. Each subscription replays the recording
+     * from the start.
+     */
+    Flux<SseEventDecoder.Event> events() {
+        return Flux.using(() -> new Player(file, speed),
+                player -> Flux.<List<SseEventDecoder.Event>>generate(player::next).concatMapIterable(events -> events),
+                Player::close)
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private static final class Player implements AutoCloseable {
+        private final DataInputStream in;
+        private final double speed;
+        private SseEventDecoder decoder = new SseEventDecoder();
+        private byte[] buffer = new byte[8192];
+        private long firstRecordMillis = -1;
+        private long startNanos;
+
+        private Player(Path file, double speed) throws IOException {
+            this.in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)));
+            this.speed = speed;
+            byte[] header = new byte[SseFeedRecorder.MAGIC.length];
+            if (in.readNBytes(header, 0, header.length) != header.length
+                    || !Arrays.equals(header, SseFeedRecorder.MAGIC)) {
+                in.close();
+                throw new IOException(file + " is not a live feed recording");
+            }
+        }
+
+        /**
+         * Reads the next record and emits the events it completes, which may be none.
+         */
+        private void next(SynchronousSink<List<SseEventDecoder.Event>> sink) {
+            try {
+                int type = in.read();
+                if (type < 0) {
+                    sink.complete();
+                    return;
+                }
+                long recordedMillis = in.readLong();
+                if (type == SseFeedRecorder.CONNECTION) {
+                    decoder = new SseEventDecoder();
+                    sink.next(List.of());
+                    return;
+                }
+                if (type != SseFeedRecorder.CHUNK) {
+                    throw new IOException("Unknown record type " + type + " in live feed recording");
+                }
+                int length = in.readInt();
+                if (buffer.length < length) {
+                    buffer = new byte[Math.max(length, buffer.length * 2)];
+                }
+                in.readFully(buffer, 0, length);
+                awaitSchedule(recordedMillis);
+                sink.next(decoder.decode(ByteBuffer.wrap(buffer, 0, length)));
+            } catch (EOFException e) {
+                sink.complete();
+            } catch (IOException e) {
+                sink.error(e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                sink.complete();
+            }
+        }
+
+        private void awaitSchedule(long recordedMillis) throws InterruptedException {
+            if (speed <= 0) {
+                return;
+            }
+            if (firstRecordMillis < 0) {
+                firstRecordMillis = recordedMillis;
+                startNanos = System.nanoTime();
+                return;
+            }
+            long dueNanos = startNanos + (long) (TimeUnit.MILLISECONDS.toNanos(recordedMillis - firstRecordMillis)
+                    / speed);
+            long waitNanos = dueNanos - System.nanoTime();
+            if (waitNanos > 0) {
+                TimeUnit.NANOSECONDS.sleep(waitNanos);
+            }
+        }
+
+        @Override
+        public void close() {
+            try {
+                in.close();
+            } catch (IOException e) {
+                // Nothing was written, so there is nothing to lose
+            }
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.heatherpiper.service;
+
+import com.heatherpiper.dao.TeamDao;
+import com.heatherpiper.event.GamesSavedEvent;
+import com.heatherpiper.model.Game;
+import com.heatherpiper.model.Team;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Resolves team IDs and names from an in-memory copy of the teams table.
+ *
+ * <p>The table is loaded once at startup into an immutable snapshot, so lookups never query the database. The teams
+ * rarely change, and {@link #refresh()} reloads them when they do; lookups made during a refresh see either the old or
+ * the new snapshot in full.
+ *
+ * <p>The IDs of the teams playing in the latest season are loaded when first asked for and kept until saved games show
+ * a later season, or a team that was not in it.
+ */
+@Component
+public class TeamDictionary {
+
+    private static final Logger logger = LoggerFactory.getLogger(TeamDictionary.class);
+
+    private final TeamDao teamDao;
+
+    private volatile Snapshot snapshot;
+
+    private volatile List<Integer> latestSeasonTeamIds;
+
+    private int latestSavedYear;
+
+    @Autowired
+    public TeamDictionary(TeamDao teamDao) {
+        this.teamDao = teamDao;
+    }
+
+    /**
+     * Reloads the teams from the database.
+     */
+    @PostConstruct
+    public void refresh() {
+        List<Team> teams = teamDao.findAllTeams();
+        Map<Integer, String> namesById = new HashMap<>();
+        Map<String, Integer> idsByName = new HashMap<>();
+        for (Team team : teams) {
+            namesById.put(team.getTeamId(), team.getName());
+            idsByName.put(team.getName(), team.getTeamId());
+        }
+        snapshot = new Snapshot(Map.copyOf(namesById), Map.copyOf(idsByName));
+        logger.info("Loaded {} teams into the team dictionary", teams.size());
+    }
+
+    /**
+     * Stores teams that are not yet in the teams table, then reloads the teams. Teams whose ID or name is already stored
+     * are left unchanged.
+     *
+     * @param teams The teams to add.
+     */
+    public synchronized void addTeams(List<Team> teams) {
+        teamDao.saveTeams(teams);
+        refresh();
+    }
+
+    /**
+     * @return the team's name, or <code>null</code> if there is no team with the ID.
+     */
+    public String findTeamName(int teamId) {
+        return snapshot().namesById.get(teamId);
+    }
+
+    /**
+     * @return the team's ID, or -1 if there is no team with the name.
+     */
+    public int findTeamId(String name) {
+        if (name == null) {
+            return -1;
+        }
+        Integer teamId = snapshot().idsByName.get(name);
+        return teamId != null ? teamId : -1;
+    }
+
+    /**
+     * @return the IDs of all stored teams in ascending order.
+     */
+    public List<Integer> findAllTeamIds() {
+        return snapshot().namesById.keySet().stream().sorted().collect(Collectors.toList());
+    }
+
+    /**
+     * @return the IDs of the teams that play in the latest season with games in ascending order, or an empty list if
+     * there are no games.
+     */
+    public List<Integer> findTeamIdsInLatestSeason() {
+        List<Integer> teamIds = latestSeasonTeamIds;
+        if (teamIds == null) {
+            synchronized (this) {
+                if (latestSeasonTeamIds == null) {
+                    latestSeasonTeamIds = List.copyOf(teamDao.findTeamIdsInLatestSeason());
+                }
+                teamIds = latestSeasonTeamIds;
+            }
+        }
+        return teamIds;
+    }
+
+    /**
+     * Forgets the teams of the latest season when the saved games may belong to a later season or add a team to it, so
+     * that they are reloaded when next asked for.
+     *
+     * @param event The event published after games are saved.
+     */
+    @EventListener
+    public synchronized void onGamesSaved(GamesSavedEvent event) {
+        List<Integer> teamIds = latestSeasonTeamIds;
+        for (Game game : event.getGames()) {
+            if (game.getYear() > latestSavedYear) {
+                latestSavedYear = game.getYear();
+                latestSeasonTeamIds = null;
+            } else if (game.getYear() == latestSavedYear && teamIds != null
+                    && (!teamIds.contains(game.getHteamId()) || !teamIds.contains(game.getAteamId()))) {
+                latestSeasonTeamIds = null;
+            }
+        }
+    }
+
+    private Snapshot snapshot() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            synchronized (this) {
+                if (snapshot == null) {
+                    refresh();
+                }
+                current = snapshot;
+            }
+        }
+        return current;
+    }
+
+    private static final class Snapshot {
+        private final Map<Integer, String> namesById;
+        private final Map<String, Integer> idsByName;
+
+        private Snapshot(Map<Integer, String> namesById, Map<String, Integer> idsByName) {
+            this.namesById = namesById;
+            this.idsByName = idsByName;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.heatherpiper.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Striped locks that serialize changes to the same user's watched games and ladder within this application instance.
+ *
+ * <p>Each user ID maps to one of <code>ladder.lock.stripes</code> locks, so requests for the same user run one at a
+ * time while requests for different users rarely wait for each other. Locks are held around the whole database
+ * transaction, so the next request for a user only starts once the previous one has committed.
+ */
+@Component
+public class UserLadderLocks {
+
+    private final ReentrantLock[] stripes;
+
+    @Autowired
+    public UserLadderLocks(@Value("${ladder.lock.stripes:64}") int stripeCount) {
+        if (stripeCount <= 0) {
+            throw new IllegalArgumentException("ladder.lock.stripes must be positive");
+        }
+        stripes = new ReentrantLock[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Runs an action while holding the lock for a user.
+     *
+     * @param userId The user ID.
+     * @param action The action to run.
+     * @return the result of the action.
+     */
+    public <T> T callWithLock(int userId, Supplier<T> action) {
+        ReentrantLock lock = lockFor(userId);
+        lock.lock();
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void runWithLock(int userId, Runnable action) {
+        callWithLock(userId, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    ReentrantLock lockFor(int userId) {
+        // User IDs are sequential, so consecutive users map to different stripes
+        return stripes[Math.floorMod(userId, stripes.length)];
+    }
+}
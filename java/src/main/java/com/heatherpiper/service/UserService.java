@@ -1,11 +1,12 @@
 package com.heatherpiper.service;
 
-import com.heatherpiper.dao.JdbcTeamDao;
 import com.heatherpiper.dao.UserLadderEntryDao;
 import com.heatherpiper.model.UserLadderEntry;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
+
 @Service
 public class UserService {
 
@@ -13,20 +14,28 @@ public class UserService {
     private UserLadderEntryDao userLadderEntryDao;
 
     @Autowired
-    private JdbcTeamDao jdbcTeamDao;
-
+    private TeamDictionary teamDictionary;
+
+    /**
+     * Creates an empty ladder for a new user, with an entry for each team of the latest season, or for every stored team
+     * before any games are stored. Entries for other teams, such as those of backfilled seasons, are added when the
+     * user watches one of their games. The teams are read from the {@link TeamDictionary}, so registering does not
+     * query them.
+     *
+     * @param userId The user ID.
+     */
     public void createDefaultUserLadder(int userId) {
-        for (int teamId = 1; teamId <= 18; teamId++) {
+        List<Integer> teamIds = teamDictionary.findTeamIdsInLatestSeason();
+        if (teamIds.isEmpty()) {
+            teamIds = teamDictionary.findAllTeamIds();
+        }
+        for (int teamId : teamIds) {
             UserLadderEntry defaultEntry = new UserLadderEntry();
             defaultEntry.setUserId(userId);
             defaultEntry.setTeamId(teamId);
             defaultEntry.setPoints(0);
             defaultEntry.setPercentage(100);
             defaultEntry.setPosition(0);
-
-            String teamName = jdbcTeamDao.findTeamNameById(teamId);
-            defaultEntry.setTeamName(teamName);
-
             defaultEntry.setWins(0);
             defaultEntry.setLosses(0);
             defaultEntry.setDraws(0);
@@ -6,88 +6,167 @@ import com.heatherpiper.model.UserLadderEntry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.math.BigDecimal;
-import java.math.RoundingMode;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Service class for marking games as watched or unwatched and updating the user's ladder entries.
+ *
+ * <p>Every change runs in its own transaction while holding the user's lock from {@link UserLadderLocks}, so
+ * concurrent requests for the same user (for example, a double click or two open tabs) cannot lose or double-apply
+ * ladder updates. The user's row is also locked in the database so that the guarantee holds across instances.
+ *
+ * <p>The stored ladder counts the user's watched games of the current season, the latest season with games, as the
+ * derived ladder does. Watching or unwatching games of earlier seasons leaves it unchanged.
  */
 @Service
 public class WatchedGamesService {
 
     private static final Logger logger = LoggerFactory.getLogger(WatchedGamesService.class);
 
-    private final JdbcWatchedGamesDao watchedGamesDao;
-    private final JdbcUserLadderEntryDao userLadderEntryDao;
-    private final JdbcUserDao userDao;
-    private final JdbcGameDao gameDao;
-    private final JdbcTeamDao teamDao;
+    private final WatchedGamesDao watchedGamesDao;
+    private final UserLadderEntryDao userLadderEntryDao;
+    private final UserDao userDao;
+    private final GameDao gameDao;
+    private final LadderCache ladderCache;
+    private final UserLadderLocks userLadderLocks;
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * Whether the persisted user_ladder snapshot is kept up to date. When ladders are derived from watched games, the
+     * snapshot is optional and ladder writes can be skipped entirely.
+     */
+    @Value("${ladder.snapshot.enabled:true}")
+    private boolean ladderSnapshotEnabled = true;
+
+    /**
+     * Whether changes also lock the user's row with SELECT ... FOR UPDATE. Required when more than one instance of the
+     * application shares the database.
+     */
+    @Value("${ladder.lock.database:true}")
+    private boolean databaseLockEnabled = true;
 
     @Autowired
-    public WatchedGamesService(JdbcWatchedGamesDao watchedGamesDao, JdbcUserLadderEntryDao userLadderEntryDao,
-                               JdbcUserDao userDao, JdbcGameDao gameDao, JdbcTeamDao teamDao) {
+    public WatchedGamesService(WatchedGamesDao watchedGamesDao, UserLadderEntryDao userLadderEntryDao,
+                               UserDao userDao, GameDao gameDao, LadderCache ladderCache, UserLadderLocks userLadderLocks,
+                               PlatformTransactionManager transactionManager) {
         this.watchedGamesDao = watchedGamesDao;
         this.userLadderEntryDao = userLadderEntryDao;
         this.userDao = userDao;
         this.gameDao = gameDao;
-        this.teamDao = teamDao;
+        this.ladderCache = ladderCache;
+        this.userLadderLocks = userLadderLocks;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
     }
 
     /**
-     * Marks a list of games as watched for a user and updates the user's ladder entries sequentially.
+     * Marks a list of games as watched for a user and updates the user's ladder entries in a single transaction.
+     *
+     * <p>This method first validates the user ID and the list of game IDs. It then loads all requested games with one query,
+     * filters out games the user has already watched with one set query, and marks the remaining games as watched with a
+     * single multi-row insert. The contributions of all newly watched games are folded into the user's ladder entries in
+     * memory, and the ladder is written back once.
+     *
+     * <p>Games that are already marked as watched are skipped. If every game is already watched, no action is taken.
      *
-     * <p>This method first validates the user ID and the list of game IDs. If the user ID and game IDs are valid, it iterates over the list of game IDs,
-     * and for each game ID, it marks the game as watched and updates the user's ladder entries.
+     * <p>This method is transactional, meaning that if any step fails, all changes made within the transaction will be rolled back.
      *
      * @param userId The ID of the user.
      * @param gameIds The list of game IDs to be marked as watched.
-     * @throws IllegalArgumentException If the user does not exist or if the list of game IDs is empty, null, or contains duplicate game IDs.
+     * @throws IllegalArgumentException If the user does not exist, if any of the games do not exist, or if the list of game IDs is
+     * empty, null, or contains duplicate game IDs.
      */
-    public void markGamesAsWatchedSequentially(int userId, List<Integer> gameIds) {
+    public void markGamesAsWatched(int userId, List<Integer> gameIds) {
+        mutateLadder(userId, () -> {
+            // Validate user ID and game IDs
+            validateUserAndGameIds(userId, gameIds);
+
+            // Load all requested games and skip any that are already watched
+            List<Game> games = validateGamesExistence(gameIds);
+            Set<Integer> alreadyWatched = watchedGamesDao.findWatchedGameIds(userId, gameIds);
+            List<Game> gamesToWatch = games.stream()
+                    .filter(game -> !alreadyWatched.contains(game.getId()))
+                    .collect(Collectors.toList());
+
+            if (gamesToWatch.isEmpty()) {
+                logger.info("All {} games are already watched for user ID: {}. No action taken.", gameIds.size(), userId);
+                return;
+            }
 
-        // Validate user ID and game IDs
-        validateUserAndGameIds(userId, gameIds);
+            // Mark games as watched and fold their results into the ladder
+            watchedGamesDao.addWatchedGames(userId, gamesToWatch.stream().map(Game::getId).collect(Collectors.toList()));
+            ladderCache.invalidate(userId);
+            if (ladderSnapshotEnabled) {
+                applyGamesToLadder(userId, gamesOfCurrentSeason(gamesToWatch), LadderDeltaEngine.WATCH);
+            }
 
-        // Mark games as watched and update ladder sequentially
-        for (Integer gameId : gameIds) {
-            markGameAsWatchedAndUpdateLadder(userId, gameId);
-        }
+            logger.info("Successfully marked {} games as watched and updated ladder for userId: {}", gamesToWatch.size(), userId);
+        });
     }
 
     /**
-     * Marks a list of games as unwatched for a user and updates the user's ladder entries sequentially.
+     * Marks a list of games as unwatched for a user and updates the user's ladder entries in a single transaction.
      *
-     * <p>This method first validates the user ID and the list of game IDs. If the user ID and game IDs are valid, it iterates over the list of game IDs,
-     * and for each game ID, it marks the game as unwatched and updates the user's ladder entries.
+     * <p>This method first validates the user ID and the list of game IDs. It then loads all requested games with one query,
+     * keeps only the games the user has currently watched, and marks them as unwatched with a single delete. The contributions
+     * of those games are removed from the user's ladder entries in memory, and the ladder is written back once.
+     *
+     * <p>Games that are not currently marked as watched are skipped. If no game is watched, no action is taken.
+     *
+     * <p>This method is transactional, meaning that if any step fails, all changes made within the transaction will be rolled back.
      *
      * @param userId The ID of the user.
      * @param gameIds The list of game IDs to be marked as unwatched.
-     * @throws IllegalArgumentException If the user does not exist or if the list of game IDs is empty, null, or contains duplicate game IDs.
+     * @throws IllegalArgumentException If the user does not exist, if any of the games do not exist, or if the list of game IDs is
+     * empty, null, or contains duplicate game IDs.
      */
-    public void markGamesAsUnwatchedSequentially(int userId, List<Integer> gameIds) {
+    public void markGamesAsUnwatched(int userId, List<Integer> gameIds) {
+        mutateLadder(userId, () -> {
+            // Validate user ID and game IDs
+            validateUserAndGameIds(userId, gameIds);
+
+            // Load all requested games and keep only those that are currently watched
+            List<Game> games = validateGamesExistence(gameIds);
+            Set<Integer> currentlyWatched = watchedGamesDao.findWatchedGameIds(userId, gameIds);
+            List<Game> gamesToUnwatch = games.stream()
+                    .filter(game -> currentlyWatched.contains(game.getId()))
+                    .collect(Collectors.toList());
+
+            if (gamesToUnwatch.isEmpty()) {
+                logger.info("None of the {} games are watched for user ID: {}. No action taken.", gameIds.size(), userId);
+                return;
+            }
 
-        // Validate user ID and game IDs
-        validateUserAndGameIds(userId, gameIds);
+            // Mark games as unwatched and remove their results from the ladder
+            watchedGamesDao.removeWatchedGames(userId, gamesToUnwatch.stream().map(Game::getId).collect(Collectors.toList()));
+            ladderCache.invalidate(userId);
+            if (ladderSnapshotEnabled) {
+                applyGamesToLadder(userId, gamesOfCurrentSeason(gamesToUnwatch), LadderDeltaEngine.UNWATCH);
+            }
 
-        // Mark games as unwatched and update ladder sequentially
-        for (Integer gameId : gameIds) {
-            markGameAsUnwatchedAndUpdateLadder(userId, gameId);
-        }
+            logger.info("Successfully marked {} games as unwatched and updated ladder for userId: {}", gamesToUnwatch.size(), userId);
+        });
     }
 
     /**
      * Marks a game as unwatched and updates the user's ladder entries.
      *
      * <p>This method first checks if the game is currently marked as watched for the user. If it is, it validates the existence of the game,
-     * marks the game as unwatched, calculates the points to be subtracted from both the home and away teams based on the game result,
-     * updates the ladder for both teams, and recalculates the positions of each team in the user's ladder.
+     * marks the game as unwatched, removes the game's contribution from the ladder entries of both the home and away teams,
+     * and recalculates the positions of each team in the user's ladder.
      *
      * <p>If the game is not currently marked as watched, no action is taken.
      *
@@ -98,57 +177,53 @@ public class WatchedGamesService {
      * @throws IllegalArgumentException If the user or game does not exist, or if the game is not currently marked as watched.
      * @throws RuntimeException If an unexpected error occurs.
      */
-    @Transactional
     public void markGameAsUnwatchedAndUpdateLadder(int userId, int gameId) {
-        try {
-            // Before proceeding, ensure game is currently watched
-            boolean isCurrentlyWatched = watchedGamesDao.isGameWatched(userId, gameId);
-
-            if (isCurrentlyWatched) {
-
-                // Validate game existence
-                Game game = validateGameExistence(gameId);
+        mutateLadder(userId, () -> {
+            try {
+                // Before proceeding, ensure game is currently watched
+                boolean isCurrentlyWatched = watchedGamesDao.isGameWatched(userId, gameId);
 
-                // Mark game as unwatched
-                watchedGamesDao.removeWatchedGame(userId, gameId);
+                if (isCurrentlyWatched) {
 
-                // Check if game was a draw or if there was a winner; calculate points for home and away teams
-                boolean isDraw = game.getWinner() == null;
-                int hteamPointsReversed = isDraw ? -2 : game.getWinner().equals(game.getHteam()) ? -4 : 0;
-                int ateamPointsReversed = isDraw ? -2 : game.getWinner().equals(game.getAteam()) ? -4 : 0;
+                    // Validate game existence
+                    Game game = validateGameExistence(gameId);
 
-                // Reverse update ladder for home team
-                updateTeamLadder(userId, game.getHteam(), hteamPointsReversed, -game.getHscore(), -game.getAscore());
+                    // Mark game as unwatched
+                    watchedGamesDao.removeWatchedGame(userId, gameId);
+                    ladderCache.invalidate(userId);
 
-                // Reverse update ladder for away team
-                updateTeamLadder(userId, game.getAteam(), ateamPointsReversed, -game.getAscore(), -game.getHscore());
+                    // Remove the game's contribution from the ladder entries of both teams
+                    if (ladderSnapshotEnabled && game.getYear() == gameDao.findLatestYear()) {
+                        applyGameToLadder(userId, game, LadderDeltaEngine.UNWATCH);
 
-                // Recalculate position
-                calculatePosition(userId);
+                        // Recalculate position
+                        calculatePosition(userId);
+                    }
 
-                logger.info("Successfully marked game as unwatched and updated ladder for userId: {}, gameId: {}", userId,
-                        gameId);
-            } else {
-                logger.info("Game with ID: {} is not marked as watched for user ID: {}. No action taken.", gameId,
-                        userId);
+                    logger.info("Successfully marked game as unwatched and updated ladder for userId: {}, gameId: {}", userId,
+                            gameId);
+                } else {
+                    logger.info("Game with ID: {} is not marked as watched for user ID: {}. No action taken.", gameId,
+                            userId);
+                }
+            } catch (IllegalArgumentException e) {
+                logger.error("Validation error in markGameAsUnwatchedAndUpdateLadder for userId: {}, gameId: {}. Error: {}",
+                        userId, gameId, e.getMessage(), e);
+                throw e;
+            } catch (Exception e) {
+                logger.error("Unexpected error in markGameAsUnwatchedAndUpdateLadder for userId: {}, gameId: {}", userId,
+                        gameId, e);
+                throw new RuntimeException("An unexpected error occurred while processing gameId: " + gameId, e);
             }
-        } catch (IllegalArgumentException e) {
-            logger.error("Validation error in markGameAsUnwatchedAndUpdateLadder for userId: {}, gameId: {}. Error: {}",
-                    userId, gameId, e.getMessage(), e);
-            throw e;
-        } catch (Exception e) {
-            logger.error("Unexpected error in markGameAsUnwatchedAndUpdateLadder for userId: {}, gameId: {}", userId,
-                    gameId, e);
-            throw new RuntimeException("An unexpected error occurred while processing gameId: " + gameId, e);
-        }
+        });
     }
 
     /**
      * Marks a game as watched and updates the user's ladder entries.
      *
      * <p>This method first checks if the game is already marked as watched for the user. If not, it validates the existence of the game,
-     * marks the game as watched, calculates the points for home and away teams based on the game result, updates the ladder for both
-     * teams, and recalculates the positions of each team in the user's ladder.
+     * marks the game as watched, adds the game's contribution to the ladder entries of both the home and away teams,
+     * and recalculates the positions of each team in the user's ladder.
      *
      * <p>If the game is already marked as watched, no action is taken.
      *
@@ -159,133 +234,236 @@ public class WatchedGamesService {
      * @throws IllegalArgumentException If the user or game does not exist, or if the game is already marked as watched.
      * @throws RuntimeException If an unexpected error occurs.
      */
-    @Transactional
     public void markGameAsWatchedAndUpdateLadder(int userId, int gameId) {
-        try {
-            // Before proceeding, ensure the game is not already watched
-            boolean isAlreadyWatched = watchedGamesDao.isGameWatched(userId, gameId);
-
-            if (!isAlreadyWatched) {
-                // Validate game existence
-                Game game = validateGameExistence(gameId);
+        mutateLadder(userId, () -> {
+            try {
+                // Before proceeding, ensure the game is not already watched
+                boolean isAlreadyWatched = watchedGamesDao.isGameWatched(userId, gameId);
 
-                // Mark game as watched
-                watchedGamesDao.addWatchedGame(userId, gameId);
+                if (!isAlreadyWatched) {
+                    // Validate game existence
+                    Game game = validateGameExistence(gameId);
 
-                // Check if game was a draw or if there was a winner; calculate points for home and away teams
-                boolean isDraw = game.getWinner() == null;
-                int hteamPoints = isDraw ? 2 : game.getWinner().equals(game.getHteam()) ? 4 : 0;
-                int ateamPoints = isDraw ? 2 : game.getWinner().equals(game.getAteam()) ? 4 : 0;
+                    // Mark game as watched
+                    watchedGamesDao.addWatchedGame(userId, gameId);
+                    ladderCache.invalidate(userId);
 
-                // Update ladder for home team
-                updateTeamLadder(userId, game.getHteam(), hteamPoints, game.getHscore(), game.getAscore());
+                    // Add the game's contribution to the ladder entries of both teams
+                    if (ladderSnapshotEnabled && game.getYear() == gameDao.findLatestYear()) {
+                        applyGameToLadder(userId, game, LadderDeltaEngine.WATCH);
 
-                // Update ladder for away team
-                updateTeamLadder(userId, game.getAteam(), ateamPoints, game.getAscore(), game.getHscore());
+                        // Recalculate position
+                        calculatePosition(userId);
+                    }
 
-                // Recalculate position
-                calculatePosition(userId);
+                    logger.info("Successfully marked game as watched and updated ladder for userId: {}, gameId: {}", userId, gameId);
+                } else {
+                    logger.info("Game with ID: {} is already watched for user ID: {}. No action taken.", gameId, userId);
+                }
+            } catch (IllegalArgumentException e) {
+                logger.error("Validation error in markGameAsWatchedAndUpdateLadder for userId: {}, gameId: {}. Error: {}",
+                        userId, gameId, e.getMessage(), e);
+                throw e;
+            } catch (Exception e) {
+                logger.error("Unexpected error in markGameAsWatchedAndUpdateLadder for userId: {}, gameId: {}", userId, gameId, e);
+                throw new RuntimeException("An unexpected error occurred while processing gameId: " + gameId, e);
+            }
+        });
+    }
 
-                logger.info("Successfully marked game as watched and updated ladder for userId: {}, gameId: {}", userId, gameId);
-            } else {
-                logger.info("Game with ID: {} is already watched for user ID: {}. No action taken.", gameId, userId);
+    /**
+     * Marks all games in a round of a season as watched for a user and recalculates the user's ladder.
+     *
+     * <p>This method marks every game in the round that the user has not yet watched with a single INSERT ... SELECT, then
+     * recalculates all of the user's ladder entries from their watched games of the current season with a single aggregate
+     * UPDATE. The number of statements is the same regardless of how many games are in the round. The ladder is left
+     * unchanged when the round belongs to an earlier season.
+     *
+     * <p>This method is transactional, meaning that if any step fails, all changes made within the transaction will be rolled back.
+     *
+     * @param userId The user ID.
+     * @param year The season, or null for the current season.
+     * @param round The round number.
+     * @throws IllegalArgumentException If the user does not exist.
+     */
+    public void markAllGamesInRoundAsWatchedAndUpdateLadder(int userId, Integer year, int round) {
+        mutateLadder(userId, () -> {
+            validateUser(userId);
+
+            int currentSeason = gameDao.findLatestYear();
+            int season = year != null ? year : currentSeason;
+            watchedGamesDao.markAllGamesInRoundWatched(userId, season, round);
+            ladderCache.invalidate(userId);
+            if (ladderSnapshotEnabled && season == currentSeason) {
+                userLadderEntryDao.recalculateUserLadderEntries(userId, currentSeason);
             }
-        } catch (IllegalArgumentException e) {
-            logger.error("Validation error in markGameAsWatchedAndUpdateLadder for userId: {}, gameId: {}. Error: {}",
-                    userId, gameId, e.getMessage(), e);
-            throw e;
-        } catch (Exception e) {
-            logger.error("Unexpected error in markGameAsWatchedAndUpdateLadder for userId: {}, gameId: {}", userId, gameId, e);
-            throw new RuntimeException("An unexpected error occurred while processing gameId: " + gameId, e);
-        }
+
+            logger.info("Successfully marked all games in round {} of {} as watched and updated ladder for userId: {}",
+                    round, season, userId);
+        });
     }
 
-    public void markAllGamesInRoundAsWatchedAndUpdateLadder(int userId, int round) {
-        List<Game> unwatchedGames = watchedGamesDao.findUnwatchedGamesByRound(userId, round);
-        List<Integer> gameIds = unwatchedGames.stream()
-                .map(Game::getId)
-                .collect(Collectors.toList());
-        markGamesAsWatchedSequentially(userId, gameIds);
+    /**
+     * Marks all games in a round of a season as unwatched for a user and recalculates the user's ladder.
+     *
+     * <p>This method removes every game in the round from the user's watched games with a single DELETE, then recalculates
+     * all of the user's ladder entries from their remaining watched games of the current season with a single aggregate
+     * UPDATE. The number of statements is the same regardless of how many games are in the round. The ladder is left
+     * unchanged when the round belongs to an earlier season.
+     *
+     * <p>This method is transactional, meaning that if any step fails, all changes made within the transaction will be rolled back.
+     *
+     * @param userId The user ID.
+     * @param year The season, or null for the current season.
+     * @param round The round number.
+     * @throws IllegalArgumentException If the user does not exist.
+     */
+    public void markAllGamesInRoundAsUnwatchedAndUpdateLadder(int userId, Integer year, int round) {
+        mutateLadder(userId, () -> {
+            validateUser(userId);
+
+            int currentSeason = gameDao.findLatestYear();
+            int season = year != null ? year : currentSeason;
+            watchedGamesDao.markAllGamesInRoundUnwatched(userId, season, round);
+            ladderCache.invalidate(userId);
+            if (ladderSnapshotEnabled && season == currentSeason) {
+                userLadderEntryDao.recalculateUserLadderEntries(userId, currentSeason);
+            }
+
+            logger.info("Successfully marked all games in round {} of {} as unwatched and updated ladder for userId: {}",
+                    round, season, userId);
+        });
     }
 
-    public void markAllGamesInRoundAsUnwatchedAndUpdateLadder(int userId, int round) {
-        List<Game> watchedGames = watchedGamesDao.findWatchedGamesByRound(userId, round);
-        List<Integer> gameIds = watchedGames.stream()
-                .map(Game::getId)
-                .collect(Collectors.toList());
-        markGamesAsUnwatchedSequentially(userId, gameIds);
+    /**
+     * Runs a change to a user's watched games and ladder in its own transaction, while holding the user's striped lock.
+     *
+     * <p>The lock is taken before the transaction starts and released after it commits, so changes for the same user
+     * on this instance run one after another. When <code>ladder.lock.database</code> is true, the user's row is also
+     * locked with SELECT ... FOR UPDATE at the start of the transaction, which serializes changes made through other
+     * application instances and ladder corrections.
+     *
+     * @param userId The user ID.
+     * @param mutation The change to run.
+     */
+    private void mutateLadder(int userId, Runnable mutation) {
+        userLadderLocks.runWithLock(userId, () -> transactionTemplate.executeWithoutResult(status -> {
+            if (databaseLockEnabled) {
+                userDao.lockUser(userId);
+            }
+            mutation.run();
+        }));
     }
 
     /**
-     * Updates a user's ladder entry for a specific team.
+     * Applies a game's contribution to the user's ladder entries for the home and away teams.
      *
-     * <p>This method first validates the team name and retrieves the team ID. It then fetches all watched games for the user
-     * and recalculates the wins, losses, and draws based on these games. It checks if a ladder entry exists for the given
-     * user and team, and if it does, it updates the wins, losses, draws, points, pointsFor, and pointsAgainst for the entry.
-     * It also calculates the percentage of pointsFor relative to pointsAgainst and updates this value in the entry.
+     * <p>This method fetches the ladder entries of the two teams that played in the game, applies the game's result
+     * to both entries using the {@link LadderDeltaEngine}, and writes both entries back in one batch. Only the two
+     * affected entries are read and written, so the cost does not grow with the number of games the user has watched.
      *
-     * <p>Finally, it updates the ladder entry in the database.
+     * @param userId The user ID.
+     * @param game The game whose result is applied.
+     * @param direction {@link LadderDeltaEngine#WATCH} to add the game's contribution, {@link LadderDeltaEngine#UNWATCH}
+     * to remove it.
+     * @throws IllegalArgumentException If a ladder entry does not exist for the given user and either team.
+     */
+    private void applyGameToLadder(int userId, Game game, int direction) {
+        UserLadderEntry homeEntry = findTeamLadderEntry(userId, game.getHteamId());
+        UserLadderEntry awayEntry = findTeamLadderEntry(userId, game.getAteamId());
+
+        LadderDeltaEngine.applyGame(game, homeEntry, awayEntry, direction);
+
+        userLadderEntryDao.updateUserLadderEntries(Arrays.asList(homeEntry, awayEntry));
+    }
+
+    /**
+     * Applies the contributions of several games to the user's ladder and writes the whole ladder back once.
+     *
+     * <p>This method reads all of the user's ladder entries with one query, folds each game's result into the home and away
+     * teams' entries using the {@link LadderDeltaEngine}, recalculates every team's position, and writes all entries back.
+     * If the user has no entry for a team in the games, such as a team stored after the user's ladder was created, an empty
+     * entry is added for it first.
      *
      * @param userId The user ID.
-     * @param teamName The team name.
-     * @param points The points to be added to the team's current total points.
-     * @param pointsForThisGame The points scored by the team in this game.
-     * @param pointsAgainstThisGame The points conceded by the team in this game.
-     * @throws IllegalArgumentException If the team name is null or empty, or if the team does not exist, or if the ladder entry does not
-     * exist for the given user and team.
+     * @param games The games whose results are applied.
+     * @param direction {@link LadderDeltaEngine#WATCH} to add the games' contributions, {@link LadderDeltaEngine#UNWATCH}
+     * to remove them.
+     * @throws IllegalArgumentException If a ladder entry does not exist for the given user and one of the teams.
      */
-    private void updateTeamLadder(int userId, String teamName, int points, int pointsForThisGame, int pointsAgainstThisGame) {
+    private void applyGamesToLadder(int userId, List<Game> games, int direction) {
+        if (games.isEmpty()) {
+            return;
+        }
+        List<UserLadderEntry> entries = userLadderEntryDao.getAllUserLadderEntries(userId);
+        Map<Integer, UserLadderEntry> entriesByTeamId = new HashMap<>();
+        for (UserLadderEntry entry : entries) {
+            entriesByTeamId.put(entry.getTeamId(), entry);
+        }
 
-        // Validate team name
-        if (teamName == null || teamName.trim().isEmpty()) {
-            throw new IllegalArgumentException("Team name must not be empty or null.");
+        List<Integer> missingTeamIds = games.stream()
+                .flatMap(game -> Stream.of(game.getHteamId(), game.getAteamId()))
+                .filter(teamId -> teamId > 0 && !entriesByTeamId.containsKey(teamId))
+                .distinct()
+                .collect(Collectors.toList());
+        if (!missingTeamIds.isEmpty()) {
+            userLadderEntryDao.addMissingUserLadderEntries(userId, missingTeamIds);
+            entries = userLadderEntryDao.getAllUserLadderEntries(userId);
+            entriesByTeamId.clear();
+            for (UserLadderEntry entry : entries) {
+                entriesByTeamId.put(entry.getTeamId(), entry);
+            }
         }
 
-        int teamId = teamDao.findTeamIdByName(teamName);
-        if (teamId <= 0) {
-            throw new IllegalArgumentException("Invalid team name: " + teamName);
+        for (Game game : games) {
+            UserLadderEntry homeEntry = entriesByTeamId.get(game.getHteamId());
+            UserLadderEntry awayEntry = entriesByTeamId.get(game.getAteamId());
+            if (homeEntry == null || awayEntry == null) {
+                throw new IllegalArgumentException("Ladder entry does not exist for the given user and team");
+            }
+            LadderDeltaEngine.applyGame(game, homeEntry, awayEntry, direction);
         }
 
-        // Fetch all watched games for the user to recalculate wins, losses, and draws
-        List<Game> watchedGames = watchedGamesDao.findWatchedGames(userId);
+        assignPositions(entries);
+        userLadderEntryDao.updateUserLadderEntries(entries);
+    }
 
-        int wins = 0, losses = 0, draws = 0;
-        for (Game game : watchedGames) {
-            boolean isHomeTeam = game.getHteam().equals(teamName);
-            boolean isAwayTeam = game.getAteam().equals(teamName);
+    /**
+     * Keeps the games of the current season, the only season counted in the user's stored ladder.
+     *
+     * @param games The games.
+     * @return the games of the latest season with games.
+     */
+    private List<Game> gamesOfCurrentSeason(List<Game> games) {
+        int currentSeason = gameDao.findLatestYear();
+        return games.stream().filter(game -> game.getYear() == currentSeason).collect(Collectors.toList());
+    }
 
-            if (isHomeTeam || isAwayTeam) {
-                if (game.getWinner() == null) {
-                    draws++;
-                } else if (game.getWinner().equals(teamName)) {
-                    wins++;
-                } else {
-                    losses++;
-                }
-            }
+    /**
+     * Fetches a user's ladder entry for a specific team, first adding an empty entry if the user has none for the team,
+     * such as a team stored after the user's ladder was created.
+     *
+     * @param userId The user ID.
+     * @param teamId The team ID.
+     * @return the ladder entry for the given user and team.
+     * @throws IllegalArgumentException If the team ID is not positive, or if the ladder entry does not exist for the given
+     * user and team and cannot be added because the team is not stored.
+     */
+    private UserLadderEntry findTeamLadderEntry(int userId, int teamId) {
+        if (teamId <= 0) {
+            throw new IllegalArgumentException("Invalid team ID: " + teamId);
         }
 
         // Check that a ladder entry exists for the given user and team
         UserLadderEntry entry = userLadderEntryDao.getUserLadderEntry(userId, teamId);
+        if (entry == null) {
+            userLadderEntryDao.addMissingUserLadderEntries(userId, Collections.singletonList(teamId));
+            entry = userLadderEntryDao.getUserLadderEntry(userId, teamId);
+        }
         if (entry == null) {
             throw new IllegalArgumentException("Ladder entry does not exist for the given user and team");
         }
-
-        // Update wins, losses, and draws
-        entry.setWins(wins);
-        entry.setLosses(losses);
-        entry.setDraws(draws);
-
-        // Update points, pointsFor, and pointsAgainst
-        entry.setPoints(entry.getPoints() + points);
-        entry.setPointsFor(entry.getPointsFor() + pointsForThisGame);
-        entry.setPointsAgainst(entry.getPointsAgainst() + pointsAgainstThisGame);
-
-        // Calculate percentage
-        entry.setPercentage(calculatePercentage(entry.getPointsFor(), entry.getPointsAgainst()));
-
-        // Update the ladder entry
-        userLadderEntryDao.updateUserLadderEntry(entry);
+        return entry;
     }
 
     /**
@@ -298,10 +476,7 @@ public class WatchedGamesService {
      * contains duplicate game IDs.
      */
     private void validateUserAndGameIds(int userId, List<Integer> gameIds) {
-        if (userId <= 0 || !userDao.userExists(userId)) {
-            logger.warn("Invalid userId: {}", userId);
-            throw new IllegalArgumentException("User does not exist");
-        }
+        validateUser(userId);
         if (gameIds == null || gameIds.isEmpty()) {
             logger.warn("Empty or null gameIds list for userId: {}", userId);
             throw new IllegalArgumentException("Game IDs list cannot be empty or null");
@@ -312,6 +487,19 @@ public class WatchedGamesService {
         }
     }
 
+    /**
+     * Validate the user ID. The user ID must be greater than zero and the user must exist.
+     *
+     * @param userId The user ID.
+     * @throws IllegalArgumentException if a user does not exist for the given user ID.
+     */
+    private void validateUser(int userId) {
+        if (userId <= 0 || !userDao.userExists(userId)) {
+            logger.warn("Invalid userId: {}", userId);
+            throw new IllegalArgumentException("User does not exist");
+        }
+    }
+
     /**
      * Validate that a game exists for the given game ID.
      *
@@ -327,6 +515,22 @@ public class WatchedGamesService {
         return game;
     }
 
+    /**
+     * Validate that a game exists for each of the given game IDs, loading all games with a single query.
+     *
+     * @param gameIds The game IDs.
+     * @return the game objects for the given game IDs.
+     * @throws IllegalArgumentException if any of the games does not exist.
+     */
+    private List<Game> validateGamesExistence(List<Integer> gameIds) {
+        List<Game> games = gameDao.findGamesByIds(gameIds);
+        if (games.size() != gameIds.size()) {
+            logger.error("One or more games do not exist for gameIds: {}", gameIds);
+            throw new IllegalArgumentException("Game does not exist");
+        }
+        return games;
+    }
+
     /**
      * Calculates the position of all teams in the ladder for the given user ID. The position is based on points, then
      * percentage, and is ordered in descending order.
@@ -336,36 +540,26 @@ public class WatchedGamesService {
     public void calculatePosition(int userId) {
         List<UserLadderEntry> entries = userLadderEntryDao.getAllUserLadderEntries(userId);
 
-        //Sort the entries by points, then by percentage, and order entries in descending order
-        entries.sort(Comparator.comparing(UserLadderEntry::getPoints).thenComparing(UserLadderEntry::getPercentage).reversed());
-
-        // Assign rank based on sorted order
-        for (int i = 0; i < entries.size(); i++) {
-            UserLadderEntry entry = entries.get(i);
-            entry.setPosition(i + 1);
-        }
+        assignPositions(entries);
         userLadderEntryDao.updateUserLadderEntries(entries);
 
         logger.info("Updated ranks for all teams in ladder for userId: {}", userId);
     }
 
     /**
-     * Calculate the percentage of pointsFor relative to pointsAgainst. If pointsAgainst is zero, return 100.0 to avoid division by zero.
+     * Sorts the given ladder entries by points, then percentage, in descending order and assigns each entry its position.
      *
-     * @param pointsFor The points scored by a team.
-     * @param pointsAgainst The points conceded by a team.
-     * @return the percentage of pointsFor relative to pointsAgainst
+     * @param entries The ladder entries of a single user.
      */
-    private double calculatePercentage(int pointsFor, int pointsAgainst) {
-        // Avoid division by zero
-        if (pointsAgainst == 0) {
-            return 100.0;
-        } else {
-            /* Calculate percentage of pointsFor relative to pointAgainst. Use BigDecimal to ensure precision when
-            rounding to 2 decimal places */
-            double percentage = ((double) pointsFor / pointsAgainst) * 100;
-            BigDecimal bd = new BigDecimal(percentage).setScale(2, RoundingMode.HALF_UP);
-            return bd.doubleValue();
+    private void assignPositions(List<UserLadderEntry> entries) {
+        //Sort the entries by points, then by percentage, and order entries in descending order; ties go to the lower team ID
+        entries.sort(Comparator.comparing(UserLadderEntry::getPoints).thenComparing(UserLadderEntry::getPercentage).reversed()
+                .thenComparingInt(UserLadderEntry::getTeamId));
+
+        // Assign rank based on sorted order
+        for (int i = 0; i < entries.size(); i++) {
+            UserLadderEntry entry = entries.get(i);
+            entry.setPosition(i + 1);
         }
     }
 
@@ -381,18 +575,21 @@ public class WatchedGamesService {
             throw new IllegalArgumentException("User does not exist");
         }
 
-        List<UserLadderEntry> entries = userLadderEntryDao.getAllUserLadderEntries(userId);
-        for (UserLadderEntry entry : entries) {
-            entry.setPoints(0);
-            entry.setPercentage(100);
-            entry.setPosition(0);
-            entry.setWins(0);
-            entry.setLosses(0);
-            entry.setDraws(0);
-            entry.setPointsFor(0);
-            entry.setPointsAgainst(0);
-            userLadderEntryDao.updateUserLadderEntry(entry);
-        }
-        watchedGamesDao.markAllGamesUnwatched(userId);
+        mutateLadder(userId, () -> {
+            List<UserLadderEntry> entries = userLadderEntryDao.getAllUserLadderEntries(userId);
+            for (UserLadderEntry entry : entries) {
+                entry.setPoints(0);
+                entry.setPercentage(100);
+                entry.setPosition(0);
+                entry.setWins(0);
+                entry.setLosses(0);
+                entry.setDraws(0);
+                entry.setPointsFor(0);
+                entry.setPointsAgainst(0);
+            }
+            userLadderEntryDao.updateUserLadderEntries(entries);
+            watchedGamesDao.markAllGamesUnwatched(userId);
+            ladderCache.invalidate(userId);
+        });
     }
 }
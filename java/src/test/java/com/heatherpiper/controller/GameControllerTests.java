@@ -1,21 +1,40 @@
 package com.heatherpiper.controller;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.heatherpiper.dao.GameDao;
 import com.heatherpiper.model.Game;
+import com.heatherpiper.model.GameDates;
+import com.heatherpiper.model.LiveGame;
+import com.heatherpiper.service.GameJsonStreamer;
+import com.heatherpiper.service.LiveScoreboard;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.ByteArrayOutputStream;
+import java.time.Instant;
+import java.time.OffsetDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -24,29 +43,46 @@ class GameControllerTests {
     @Mock
     private GameDao gameDao;
 
+    @Spy
+    private LiveScoreboard liveScoreboard = new LiveScoreboard();
+
+    @Spy
+    private GameJsonStreamer gameJsonStreamer = new GameJsonStreamer(new ObjectMapper().findAndRegisterModules());
+
     @InjectMocks
     private GameController gameController;
 
 
     @Test
-    void getAllGames_ReturnsListOfGames() {
+    void getAllGames_StreamsGamesAsJsonArray() throws Exception {
         List<Game> expectedGames = new ArrayList<>();
-        expectedGames.add(new Game(1, 1, 2024, "2024-03-15T08:40:00Z", "Team A", "Team B", 100, 50, "Team A", 100));
-        expectedGames.add(new Game(2, 1, 2023, "2024-03-15T08:40:00Z", "Team C", "Team D", 100, 50, "Team C", 100));
-        when(gameDao.findAllGames()).thenReturn(expectedGames);
-
-        ResponseEntity<List<Game>> response = gameController.getAllGames();
+        expectedGames.add(new Game(1, 1, 2024, GameDates.parse("2024-03-15T08:40:00Z"), 1, 2, 100, 50, 1, 100));
+        expectedGames.add(new Game(2, 1, 2023, GameDates.parse("2024-03-15T08:40:00Z"), 3, 4, 100, 50, 3, 100));
+        doAnswer(invocation -> {
+            Consumer<Game> action = invocation.getArgument(0);
+            expectedGames.forEach(action);
+            return null;
+        }).when(gameDao).streamAllGames(any());
+
+        ResponseEntity<StreamingResponseBody> response = gameController.getAllGames();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        response.getBody().writeTo(out);
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
-        assertEquals(expectedGames, response.getBody());
+        assertEquals(MediaType.APPLICATION_JSON, response.getHeaders().getContentType());
+        JsonNode games = new ObjectMapper().readTree(out.toByteArray());
+        assertEquals(2, games.size());
+        assertEquals(1, games.get(0).get("id").asInt());
+        assertEquals(3, games.get(1).get("winnerteamid").asInt());
+        verify(gameDao, never()).findAllGames();
     }
 
     @Test
     void getCompleteGames_ReturnsOnlyCompleteGames() {
         List<Game> allGames = Arrays.asList(
-            new Game(1, 1, 2024, "2024-03-15T08:40:00Z", "Home Team", "Away Team", 100, 50, "Home Team", 100),
-            new Game(2, 2023, "Team C", "Team D", 0),
-            new Game(3, 3, 2022, "2024-03-15T08:40:00Z", "Sydney Swans", "Melbourne Demons", 40, 50, null, 50)
+            new Game(1, 1, 2024, GameDates.parse("2024-03-15T08:40:00Z"), 1, 2, 100, 50, 1, 100),
+            new Game(2, 2023, 3, 4, 0),
+            new Game(3, 3, 2022, GameDates.parse("2024-03-15T08:40:00Z"), 16, 11, 40, 50, null, 50)
         );
 
         List<Game> completeGames = allGames.stream()
@@ -77,7 +113,7 @@ class GameControllerTests {
 
     @Test
     void getGame_ReturnsCorrectGame() {
-        Game expectedGame = new Game(1, 1, 2024, "2024-03-15T08:40:00Z", "Home Team", "Away Team", 100, 50, "Home Team", 100);
+        Game expectedGame = new Game(1, 1, 2024, GameDates.parse("2024-03-15T08:40:00Z"), 1, 2, 100, 50, 1, 100);
         when(gameDao.findGameById(1)).thenReturn(expectedGame);
 
         ResponseEntity<Game> response = gameController.getGameById(1);
@@ -99,8 +135,8 @@ class GameControllerTests {
     void getGamesByRound_ReturnsListOfGames() {
         int round = 1;
         List<Game> expectedGames = new ArrayList<>();
-        expectedGames.add(new Game(1, round, 2024, "2024-03-15T08:40:00Z", "Team A", "Team B", 100, 50, "Team A", 100));
-        expectedGames.add(new Game(2, round, 2023, "2024-03-15T08:40:00Z", "Team C", "Team D", 100, 50, "Team C", 100));
+        expectedGames.add(new Game(1, round, 2024, GameDates.parse("2024-03-15T08:40:00Z"), 1, 2, 100, 50, 1, 100));
+        expectedGames.add(new Game(2, round, 2023, GameDates.parse("2024-03-15T08:40:00Z"), 3, 4, 100, 50, 3, 100));
         when(gameDao.findGamesByRound(round)).thenReturn(expectedGames);
 
         ResponseEntity<List<Game>> response = gameController.getGamesByRound(round);
@@ -108,4 +144,60 @@ class GameControllerTests {
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertEquals(expectedGames, response.getBody());
     }
+
+    @Test
+    void getLiveGames_ReturnsScoreboardWithoutReadingDatabase() {
+        LiveGame live = new LiveGame(1, 1, 2024, GameDates.parse("2024-03-15T08:40:00Z"), 1, 2, 40, 32, null, 55,
+                "Q3 2:10", Instant.now());
+        liveScoreboard.apply(1, previous -> live);
+
+        ResponseEntity<List<LiveGame>> response = gameController.getLiveGames();
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(List.of(live), response.getBody());
+        verifyNoInteractions(gameDao);
+    }
+
+    @Test
+    void getGamesBetween_ReturnsGamesInRange() {
+        OffsetDateTime from = GameDates.parse("2024-03-15T00:00:00Z");
+        OffsetDateTime to = GameDates.parse("2024-03-22T00:00:00Z");
+        List<Game> expectedGames = List.of(new Game(1, 1, 2024, GameDates.parse("2024-03-15T08:40:00Z"), 1, 2,
+                null, null, null, 0));
+        when(gameDao.findGamesBetween(from, to)).thenReturn(expectedGames);
+
+        ResponseEntity<?> response = gameController.getGamesBetween(from, to);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(expectedGames, response.getBody());
+    }
+
+    @Test
+    void getGamesBetween_whenRangeIsEmpty_ReturnsBadRequest() {
+        OffsetDateTime from = GameDates.parse("2024-03-15T00:00:00Z");
+
+        ResponseEntity<?> response = gameController.getGamesBetween(from, from);
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        verifyNoInteractions(gameDao);
+    }
+
+    @Test
+    void getUpcomingGames_ReturnsNextGames() {
+        List<Game> expectedGames = List.of(new Game(1, 1, 2024, GameDates.parse("2024-03-15T08:40:00Z"), 1, 2,
+                null, null, null, 0));
+        when(gameDao.findUpcomingGames(any(OffsetDateTime.class), eq(5))).thenReturn(expectedGames);
+
+        ResponseEntity<?> response = gameController.getUpcomingGames(5);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(expectedGames, response.getBody());
+    }
+
+    @Test
+    void getRecentCompleteGames_whenLimitIsOutOfRange_ReturnsBadRequest() {
+        assertEquals(HttpStatus.BAD_REQUEST, gameController.getRecentCompleteGames(0).getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST, gameController.getRecentCompleteGames(101).getStatusCode());
+        verifyNoInteractions(gameDao);
+    }
 }
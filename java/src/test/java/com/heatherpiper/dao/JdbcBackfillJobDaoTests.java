@@ -0,0 +1,49 @@
+package com.heatherpiper.dao;
+
+import com.heatherpiper.model.BackfillJob;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class JdbcBackfillJobDaoTests extends BaseDaoTests {
+
+    private JdbcBackfillJobDao backfillJobDao;
+
+    @Before
+    public void setup() {
+        backfillJobDao = new JdbcBackfillJobDao(dataSource);
+    }
+
+    @Test
+    public void completeYear_RecordsSeasonsInCheckpoint() {
+        BackfillJob created = backfillJobDao.createJob(2001, 2003);
+        assertEquals(BackfillJob.RUNNING, created.getStatus());
+        assertTrue(created.getCompletedYears().isEmpty());
+
+        backfillJobDao.completeYear(created.getJobId(), 2003, 207);
+        backfillJobDao.completeYear(created.getJobId(), 2001, 185);
+        backfillJobDao.completeYear(created.getJobId(), 2001, 186);
+
+        BackfillJob job = backfillJobDao.findJobById(created.getJobId());
+        assertEquals(List.of(2001, 2003), job.getCompletedYears());
+        assertEquals(393, job.getGamesLoaded());
+        assertEquals(3, job.getTotalYears());
+    }
+
+    @Test
+    public void updateStatus_ChangesWhichJobsAreRunning() {
+        BackfillJob first = backfillJobDao.createJob(2001, 2002);
+        BackfillJob second = backfillJobDao.createJob(2003, 2004);
+
+        backfillJobDao.updateStatus(first.getJobId(), BackfillJob.COMPLETED);
+
+        List<BackfillJob> running = backfillJobDao.findJobsByStatus(BackfillJob.RUNNING);
+        assertEquals(1, running.size());
+        assertEquals(second.getJobId(), running.get(0).getJobId());
+        assertEquals(BackfillJob.COMPLETED, backfillJobDao.findJobById(first.getJobId()).getStatus());
+        assertNull(backfillJobDao.findJobById(-1));
+    }
+}
@@ -0,0 +1,135 @@
+package com.heatherpiper.dao;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.heatherpiper.model.Game;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the queries for games by start time against a seeded dataset the size of the full history of seasons, and
+ * checks that each one reads IX_games_date_id rather than scanning every game.
+ */
+public class JdbcGameDaoFixtureQueryTests extends BaseDaoTests {
+
+    private static final int SEEDED_GAMES = 130 * 207;
+    private static final int FIRST_ID = 100000;
+    private static final OffsetDateTime FIRST_START = OffsetDateTime.parse("2000-01-01T00:00:00Z");
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private JdbcTemplate jdbcTemplate;
+    private RecordingDataSource recordingDataSource;
+    private JdbcGameDao gameDao;
+
+    @Before
+    public void setup() {
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        // Games start in pairs, an hour apart, and every fiftieth game has no result
+        jdbcTemplate.update("INSERT INTO games (id, round, year, date, hteam_id, ateam_id, hscore, ascore, winner_id, complete) " +
+                "SELECT ? + n, n / 9, 2000 + n / 8760, ? + (n / 2) * interval '1 hour', 1, 2, 80, " +
+                "70, 1, CASE WHEN n % 50 = 0 THEN 0 ELSE 100 END FROM generate_series(0, ? - 1) n",
+                FIRST_ID, FIRST_START, SEEDED_GAMES);
+        jdbcTemplate.execute("ANALYZE games");
+
+        recordingDataSource = new RecordingDataSource(dataSource);
+        gameDao = new JdbcGameDao(recordingDataSource);
+    }
+
+    @Test
+    public void findGamesBetween_ReturnsGamesInRangeByStartTime() {
+        List<Game> games = gameDao.findGamesBetween(FIRST_START.plusHours(10), FIRST_START.plusHours(13));
+
+        assertEquals(List.of(100020, 100021, 100022, 100023, 100024, 100025), ids(games));
+        assertTrue(games.get(0).getDate().isEqual(FIRST_START.plusHours(10)));
+        assertTrue(games.get(5).getDate().isEqual(FIRST_START.plusHours(12)));
+    }
+
+    @Test
+    public void findUpcomingGames_ReturnsNextGamesAfterTime() {
+        List<Game> games = gameDao.findUpcomingGames(FIRST_START.plusHours(10), 3);
+
+        assertEquals(List.of(100022, 100023, 100024), ids(games));
+    }
+
+    @Test
+    public void findRecentCompleteGames_ReturnsLastCompleteGamesBeforeTime() {
+        List<Game> games = gameDao.findRecentCompleteGames(FIRST_START.plusHours(76), 3);
+
+        // Game 100150 started before game 100149 but has no result
+        assertEquals(List.of(100151, 100149, 100148), ids(games));
+    }
+
+    @Test
+    public void streamAllGames_ReadsEveryGameOnce() {
+        Set<Integer> streamedIds = new HashSet<>();
+        int[] streamed = {0};
+
+        gameDao.streamAllGames(game -> {
+            streamed[0]++;
+            streamedIds.add(game.getId());
+        });
+
+        assertEquals(gameDao.findAllGames().size(), streamed[0]);
+        assertEquals(streamed[0], streamedIds.size());
+        assertTrue(streamedIds.contains(FIRST_ID) && streamedIds.contains(FIRST_ID + SEEDED_GAMES - 1));
+    }
+
+    @Test
+    public void fixtureQueries_ReadDateIndex() throws Exception {
+        OffsetDateTime now = FIRST_START.plusHours(SEEDED_GAMES / 4);
+
+        assertReadsDateIndex(() -> gameDao.findGamesBetween(now, now.plusDays(7)), false);
+        // The next and last games are read in order from the index, so only the games returned are read
+        assertReadsDateIndex(() -> gameDao.findUpcomingGames(now, 10), true);
+        assertReadsDateIndex(() -> gameDao.findRecentCompleteGames(now, 10), true);
+    }
+
+    /**
+     * Runs a DAO call, then explains every statement it sent and fails unless each plan reads games through
+     * IX_games_date_id rather than a sequential scan, and, if the games must be read in order, without a sort.
+     */
+    private void assertReadsDateIndex(Runnable daoCall, boolean inOrder) throws Exception {
+        recordingDataSource.clear();
+        daoCall.run();
+        List<RecordingDataSource.RecordedStatement> statements = recordingDataSource.getStatements();
+        assertFalse("The DAO call sent no statements", statements.isEmpty());
+
+        for (RecordingDataSource.RecordedStatement statement : statements) {
+            String plan = jdbcTemplate.queryForObject("EXPLAIN (FORMAT JSON) " + statement.getSql(), String.class,
+                    statement.getParameters());
+            List<JsonNode> nodes = new ArrayList<>();
+            collectNodes(objectMapper.readTree(plan).get(0).get("Plan"), nodes);
+            String message = statement.getSql() + "\n" + plan;
+            assertTrue("ix_games_date_id not used in:\n" + message, nodes.stream().anyMatch(node ->
+                    "ix_games_date_id".equals(node.path("Index Name").asText())));
+            assertTrue("Sequential scan in:\n" + message, nodes.stream().noneMatch(node ->
+                    "Seq Scan".equals(node.path("Node Type").asText())));
+            if (inOrder) {
+                assertTrue("Sort in:\n" + message, nodes.stream().noneMatch(node ->
+                        node.path("Node Type").asText().contains("Sort")));
+            }
+        }
+    }
+
+    private static void collectNodes(JsonNode node, List<JsonNode> nodes) {
+        nodes.add(node);
+        for (JsonNode child : node.path("Plans")) {
+            collectNodes(child, nodes);
+        }
+    }
+
+    private static List<Integer> ids(List<Game> games) {
+        return games.stream().map(Game::getId).collect(Collectors.toList());
+    }
+}
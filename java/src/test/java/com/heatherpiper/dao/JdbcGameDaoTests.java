@@ -2,6 +2,7 @@ package com.heatherpiper.dao;
 
 import com.heatherpiper.exception.DaoException;
 import com.heatherpiper.model.Game;
+import com.heatherpiper.model.GameDates;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -39,13 +40,13 @@ public class JdbcGameDaoTests {
         expectedGame = new Game();
         expectedGame.setId(1);
         expectedGame.setYear(2023);
-        expectedGame.setDate("2024-03-15T08:40:00Z");
+        expectedGame.setDate(GameDates.parse("2024-03-15T08:40:00Z"));
         expectedGame.setRound(1);
-        expectedGame.setHteam("Team A");
-        expectedGame.setAteam("Team B");
+        expectedGame.setHteamId(1);
+        expectedGame.setAteamId(2);
         expectedGame.setHscore(100);
         expectedGame.setAscore(90);
-        expectedGame.setWinner("Team A");
+        expectedGame.setWinnerId(1);
         expectedGame.setComplete(100);
     }
 
@@ -105,6 +106,13 @@ public class JdbcGameDaoTests {
         assertEquals(round, result.get(0).getRound());
     }
 
+    @Test
+    public void findLatestYear_ReturnsLatestYearOfAnyGame() {
+        when(jdbcTemplate.queryForObject("SELECT COALESCE(MAX(year), 0) FROM games", Integer.class)).thenReturn(2024);
+
+        assertEquals(2024, jdbcGameDao.findLatestYear());
+    }
+
     @Test
     public void findIncompleteGames_ReturnsIncompleteGames() {
         List<Game> mockIncompleteGames = Arrays.asList(new Game());
@@ -122,24 +130,24 @@ public class JdbcGameDaoTests {
         mockGame1.setId(1);
         mockGame1.setRound(5);
         mockGame1.setYear(2021);
-        mockGame1.setDate("2024-03-15T08:40:00Z");
-        mockGame1.setHteam("Team A");
-        mockGame1.setAteam("Team B");
+        mockGame1.setDate(GameDates.parse("2024-03-15T08:40:00Z"));
+        mockGame1.setHteamId(1);
+        mockGame1.setAteamId(2);
         mockGame1.setHscore(100);
         mockGame1.setAscore(80);
-        mockGame1.setWinner("Team A");
+        mockGame1.setWinnerId(1);
         mockGame1.setComplete(100);
 
         Game mockGame2 = new Game();
         mockGame2.setId(2);
         mockGame2.setRound(5);
         mockGame2.setYear(2021);
-        mockGame2.setDate("2024-03-15T08:40:00Z");
-        mockGame2.setHteam("Team C");
-        mockGame2.setAteam("Team D");
+        mockGame2.setDate(GameDates.parse("2024-03-15T08:40:00Z"));
+        mockGame2.setHteamId(3);
+        mockGame2.setAteamId(4);
         mockGame2.setHscore(90);
         mockGame2.setAscore(95);
-        mockGame2.setWinner("Team D");
+        mockGame2.setWinnerId(4);
         mockGame2.setComplete(100);
 
         List<Game> gamesToSave = Arrays.asList(mockGame1, mockGame2);
@@ -38,6 +38,18 @@ public class JdbcTeamDaoTests extends BaseDaoTests {
         assertEquals("Team A", team.getName());
     }
 
+    @Test
+    public void findTeamIdsInLatestSeason_ShouldIgnoreTeamsOfEarlierSeasons() {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.update("INSERT INTO teams (team_id, name) VALUES (19, 'Team E')");
+        jdbcTemplate.update("INSERT INTO games (id, round, year, date, hteam_id, ateam_id, hscore, ascore, winner_id, " +
+                "complete) VALUES (4, 1, 1996, now(), 1, 19, 100, 60, 1, 100)");
+
+        List<Integer> teamIds = jdbcTeamDao.findTeamIdsInLatestSeason();
+
+        assertEquals(List.of(1, 2, 3, 4), teamIds);
+    }
+
     @Test
     public void findTeamIdByName_ShouldReturnCorrectId() {
         JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
@@ -68,4 +80,14 @@ public class JdbcTeamDaoTests extends BaseDaoTests {
 
         assertTrue(teams.size() >= 2);
     }
+
+    @Test
+    public void saveTeams_AddsOnlyTeamsNotYetStored() {
+        // Team 1 is stored, and Team B is stored with ID 2
+        jdbcTeamDao.saveTeams(List.of(new Team(1, "Team A"), new Team(5, "Team E"), new Team(6, "Team B")));
+
+        assertEquals("Team E", jdbcTeamDao.findTeamNameById(5));
+        assertNull(jdbcTeamDao.findTeamNameById(6));
+        assertEquals(5, jdbcTeamDao.findAllTeams().size());
+    }
 }
@@ -10,6 +10,8 @@ import org.springframework.jdbc.core.JdbcTemplate;
 
 import java.time.OffsetDateTime;
 import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 public class JdbcUserDaoTests extends BaseDaoTests {
@@ -67,6 +69,16 @@ public class JdbcUserDaoTests extends BaseDaoTests {
         Assert.assertEquals(USER_3, users.get(2));
     }
 
+    @Test
+    public void lockUser_and_lockUsers_leave_users_unchanged() {
+        sut.lockUser(USER_1.getId());
+        sut.lockUsers(Arrays.asList(USER_3.getId(), USER_2.getId(), -1));
+        sut.lockUsers(Collections.emptyList());
+
+        Integer userCount = new JdbcTemplate(dataSource).queryForObject("SELECT COUNT(*) FROM users", Integer.class);
+        Assert.assertEquals(Integer.valueOf(3), userCount);
+    }
+
     @Test(expected = DaoException.class)
     public void createUser_with_null_username() {
         RegisterUserDto registerUserDto = new RegisterUserDto();
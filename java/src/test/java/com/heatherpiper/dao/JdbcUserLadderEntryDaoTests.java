@@ -0,0 +1,215 @@
+package com.heatherpiper.dao;
+
+import com.heatherpiper.model.UserLadderEntry;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.jdbc.JdbcUpdateAffectedIncorrectNumberOfRowsException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+public class JdbcUserLadderEntryDaoTests extends BaseDaoTests {
+
+    private JdbcUserLadderEntryDao userLadderEntryDao;
+    private JdbcTemplate jdbcTemplate;
+
+    @Before
+    public void setup() {
+        userLadderEntryDao = new JdbcUserLadderEntryDao(dataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        for (int userId = 1; userId <= 2; userId++) {
+            for (int teamId = 1; teamId <= 4; teamId++) {
+                userLadderEntryDao.addUserLadderEntry(new UserLadderEntry(userId, teamId, 0, 100, 0, null, 0, 0, 0, 0, 0));
+            }
+        }
+    }
+
+    @Test
+    public void recalculateUserLadderEntries_CountsWatchedGamesByTeamId() {
+        // User 2 has watched Team A beat Team B, and Team A draw with Team C
+        userLadderEntryDao.recalculateUserLadderEntries(2, 2023);
+
+        Map<Integer, UserLadderEntry> ladder = findLadder(2);
+        assertEquals(4, ladder.size());
+        assertEquals(6, ladder.get(1).getPoints());
+        assertEquals(1, ladder.get(1).getWins());
+        assertEquals(1, ladder.get(1).getDraws());
+        assertEquals(1, ladder.get(1).getPosition());
+        assertEquals(2, ladder.get(3).getPoints());
+        assertEquals(1, ladder.get(3).getDraws());
+        assertEquals(1, ladder.get(2).getLosses());
+        assertEquals(90, ladder.get(2).getPointsFor());
+        assertEquals(0, ladder.get(4).getWins() + ladder.get(4).getLosses());
+    }
+
+    @Test
+    public void recalculateUserLadderEntries_AggregatesResultsAndBreaksTiesByTeamId() {
+        // User 1 has watched Team A beat Team B 100-90 and Team D beat Team C 100-90; add a drawn game between B and C
+        jdbcTemplate.update("INSERT INTO games (id, round, year, date, hteam_id, ateam_id, hscore, ascore, winner_id, " +
+                "complete) VALUES (4, 2, 2023, now(), 2, 3, 80, 80, NULL, 100)");
+        jdbcTemplate.update("INSERT INTO watched_games (user_id, game_id) VALUES (1, 4)");
+
+        userLadderEntryDao.recalculateUserLadderEntries(1, 2023);
+
+        Map<Integer, UserLadderEntry> ladder = findLadder(1);
+        UserLadderEntry teamA = ladder.get(1);
+        assertEquals(4, teamA.getPoints());
+        assertEquals(1, teamA.getWins());
+        assertEquals(0, teamA.getLosses());
+        assertEquals(0, teamA.getDraws());
+        assertEquals(111.11, teamA.getPercentage(), 0.001);
+        UserLadderEntry teamB = ladder.get(2);
+        assertEquals(2, teamB.getPoints());
+        assertEquals(0, teamB.getWins());
+        assertEquals(1, teamB.getLosses());
+        assertEquals(1, teamB.getDraws());
+        assertEquals(170, teamB.getPointsFor());
+        assertEquals(180, teamB.getPointsAgainst());
+        assertEquals(94.44, teamB.getPercentage(), 0.001);
+        assertEquals(1, ladder.get(3).getDraws());
+        assertEquals(1, ladder.get(3).getLosses());
+        assertEquals(1, ladder.get(4).getWins());
+
+        // A and D are level on points and percentage, as are B and C, so the lower team ID is placed first
+        assertEquals(1, teamA.getPosition());
+        assertEquals(2, ladder.get(4).getPosition());
+        assertEquals(3, teamB.getPosition());
+        assertEquals(4, ladder.get(3).getPosition());
+    }
+
+    @Test
+    public void recalculateUserLadderEntries_WithNoWatchedGames_ResetsLadder() {
+        jdbcTemplate.update("INSERT INTO user_ladder (user_id, team_id, points, percentage, position, wins, losses, " +
+                "draws, points_for, points_against) VALUES (3, 1, 8, 120.0, 1, 2, 0, 0, 240, 200), " +
+                "(3, 2, 0, 100.0, 2, 0, 0, 0, 0, 0)");
+
+        userLadderEntryDao.recalculateUserLadderEntries(3, 2023);
+
+        Map<Integer, UserLadderEntry> ladder = findLadder(3);
+        assertEquals(0, ladder.get(1).getPoints());
+        assertEquals(0, ladder.get(1).getWins());
+        assertEquals(0, ladder.get(1).getPointsFor());
+        assertEquals(100.0, ladder.get(1).getPercentage(), 0.001);
+        assertEquals(1, ladder.get(1).getPosition());
+        assertEquals(2, ladder.get(2).getPosition());
+    }
+
+    @Test
+    public void recalculateUserLadderEntries_AddsEntriesForTeamsMissingFromLadder() {
+        // Team E was stored after user 1's ladder was created, and user 1 has watched it lose to Team A
+        jdbcTemplate.update("INSERT INTO teams (team_id, name) VALUES (19, 'Team E')");
+        jdbcTemplate.update("INSERT INTO games (id, round, year, date, hteam_id, ateam_id, hscore, ascore, winner_id, " +
+                "complete) VALUES (4, 1, 2023, now(), 1, 19, 100, 60, 1, 100)");
+        jdbcTemplate.update("INSERT INTO watched_games (user_id, game_id) VALUES (1, 4)");
+
+        userLadderEntryDao.recalculateUserLadderEntries(1, 2023);
+
+        Map<Integer, UserLadderEntry> ladder = findLadder(1);
+        assertEquals(5, ladder.size());
+        assertEquals(1, ladder.get(19).getLosses());
+        assertEquals(60, ladder.get(19).getPointsFor());
+        assertEquals(5, ladder.get(19).getPosition());
+        assertEquals(8, ladder.get(1).getPoints());
+    }
+
+    @Test
+    public void recalculateUserLadderEntries_CountsOnlyWatchedGamesOfSeason() {
+        // User 1 has watched two games of 2023 and now also watches Team C beat Team B in round 1 of 2024
+        jdbcTemplate.update("INSERT INTO games (id, round, year, date, hteam_id, ateam_id, hscore, ascore, winner_id, " +
+                "complete) VALUES (4, 1, 2024, now(), 3, 2, 90, 70, 3, 100)");
+        jdbcTemplate.update("INSERT INTO watched_games (user_id, game_id) VALUES (1, 4)");
+
+        userLadderEntryDao.recalculateUserLadderEntries(1, 2024);
+
+        Map<Integer, UserLadderEntry> ladder = findLadder(1);
+        assertEquals(4, ladder.size());
+        assertEquals(4, ladder.get(3).getPoints());
+        assertEquals(1, ladder.get(3).getWins());
+        assertEquals(1, ladder.get(3).getPosition());
+        assertEquals(1, ladder.get(2).getLosses());
+        assertEquals(70, ladder.get(2).getPointsFor());
+        assertEquals(0, ladder.get(1).getWins() + ladder.get(1).getLosses());
+        assertEquals(0, ladder.get(4).getWins() + ladder.get(4).getLosses());
+        assertEquals(0, ladder.get(1).getPointsFor());
+    }
+
+    @Test
+    public void addMissingUserLadderEntries_AddsOnlyStoredTeamsWithoutEntries() {
+        jdbcTemplate.update("INSERT INTO teams (team_id, name) VALUES (19, 'Team E')");
+        jdbcTemplate.update("UPDATE user_ladder SET points = 4 WHERE user_id = 1 AND team_id = 1");
+
+        userLadderEntryDao.addMissingUserLadderEntries(1, List.of(1, 19, 99));
+
+        Map<Integer, UserLadderEntry> ladder = findLadder(1);
+        assertEquals(5, ladder.size());
+        assertEquals(4, ladder.get(1).getPoints());
+        assertEquals(0, ladder.get(19).getPoints());
+        assertEquals(100.0, ladder.get(19).getPercentage(), 0.001);
+        assertNull(ladder.get(99));
+        assertEquals(4, findLadder(2).size());
+    }
+
+    @Test
+    public void applyLadderDeltas_UpdatesTeamById() {
+        UserLadderEntry delta = new UserLadderEntry(0, 2, 4, 0, 0, null, 1, 0, 0, 100, 90);
+
+        userLadderEntryDao.applyLadderDeltas(List.of(1, 2), List.of(delta));
+        userLadderEntryDao.recalculatePercentagesAndPositions(List.of(1, 2));
+
+        for (int userId = 1; userId <= 2; userId++) {
+            Map<Integer, UserLadderEntry> ladder = findLadder(userId);
+            assertEquals(4, ladder.get(2).getPoints());
+            assertEquals(1, ladder.get(2).getWins());
+            assertEquals(1, ladder.get(2).getPosition());
+            assertEquals(0, ladder.get(1).getPoints());
+        }
+    }
+
+    @Test
+    public void updateUserLadderEntries_WritesWholeLadderWithOneStatement() {
+        RecordingDataSource recordingDataSource = new RecordingDataSource(dataSource);
+        JdbcUserLadderEntryDao recordingDao = new JdbcUserLadderEntryDao(recordingDataSource);
+        List<UserLadderEntry> ladder = List.of(
+                new UserLadderEntry(1, 3, 8, 125.0, 1, null, 2, 0, 0, 200, 160),
+                new UserLadderEntry(1, 1, 4, 100.0, 2, null, 1, 1, 0, 180, 180),
+                new UserLadderEntry(1, 2, 2, 90.0, 3, null, 0, 1, 1, 150, 166),
+                new UserLadderEntry(1, 4, 0, 80.0, 4, null, 0, 1, 0, 80, 100));
+
+        recordingDao.updateUserLadderEntries(ladder);
+
+        assertEquals(1, recordingDataSource.getStatements().size());
+        Map<Integer, UserLadderEntry> stored = findLadder(1);
+        for (UserLadderEntry entry : ladder) {
+            UserLadderEntry storedEntry = stored.get(entry.getTeamId());
+            assertEquals(entry.getPoints(), storedEntry.getPoints());
+            assertEquals(entry.getPercentage(), storedEntry.getPercentage(), 0.001);
+            assertEquals(entry.getPosition(), storedEntry.getPosition());
+            assertEquals(entry.getDraws(), storedEntry.getDraws());
+            assertEquals(entry.getPointsAgainst(), storedEntry.getPointsAgainst());
+        }
+        assertEquals(0, findLadder(2).get(3).getPoints());
+    }
+
+    @Test(expected = JdbcUpdateAffectedIncorrectNumberOfRowsException.class)
+    public void updateUserLadderEntries_WithMissingEntry_ThrowsAfterWritingTheOthers() {
+        userLadderEntryDao.deleteUserLadderEntry(1, 4);
+
+        userLadderEntryDao.updateUserLadderEntries(List.of(
+                new UserLadderEntry(1, 1, 4, 110.0, 1, null, 1, 0, 0, 110, 100),
+                new UserLadderEntry(1, 4, 0, 90.0, 2, null, 0, 1, 0, 100, 110)));
+    }
+
+    private Map<Integer, UserLadderEntry> findLadder(int userId) {
+        List<UserLadderEntry> entries = jdbcTemplate.query("SELECT * FROM user_ladder WHERE user_id = ?",
+                (rs, rowNum) -> new UserLadderEntry(rs.getInt("user_id"), rs.getInt("team_id"), rs.getInt("points"),
+                        rs.getDouble("percentage"), rs.getInt("position"), null, rs.getInt("wins"),
+                        rs.getInt("losses"), rs.getInt("draws"), rs.getInt("points_for"),
+                        rs.getInt("points_against")), userId);
+        return entries.stream().collect(Collectors.toMap(UserLadderEntry::getTeamId, Function.identity()));
+    }
+}
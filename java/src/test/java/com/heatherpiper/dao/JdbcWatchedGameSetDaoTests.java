@@ -0,0 +1,142 @@
+package com.heatherpiper.dao;
+
+import com.heatherpiper.model.Game;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+public class JdbcWatchedGameSetDaoTests extends BaseDaoTests {
+
+    private JdbcWatchedGameSetDao watchedGameSetDao;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Before
+    public void setup() {
+        watchedGameSetDao = new JdbcWatchedGameSetDao(dataSource);
+    }
+
+    @Test
+    public void addWatchedGames_ShouldStoreOneBitmapPerSeason() {
+        int userId = 3;
+
+        watchedGameSetDao.addWatchedGames(userId, Arrays.asList(1, 3));
+
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        Integer count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM watched_game_sets WHERE user_id = ?",
+                Integer.class, userId);
+        assertEquals(Integer.valueOf(1), count);
+        assertTrue(watchedGameSetDao.isGameWatched(userId, 1));
+        assertFalse(watchedGameSetDao.isGameWatched(userId, 2));
+        assertTrue(watchedGameSetDao.isGameWatched(userId, 3));
+        assertEquals(Arrays.asList(1, 3), watchedGameSetDao.findWatchedGameIds(userId));
+    }
+
+    @Test
+    public void streamWatchedAndUnwatchedGames_ShouldFilterGamesByBitmap() {
+        int userId = 3;
+        watchedGameSetDao.addWatchedGames(userId, Arrays.asList(1, 3));
+        List<Integer> watched = new ArrayList<>();
+        List<Integer> unwatched = new ArrayList<>();
+
+        watchedGameSetDao.streamWatchedGames(userId, game -> watched.add(game.getId()));
+        watchedGameSetDao.streamUnwatchedGames(userId, game -> unwatched.add(game.getId()));
+
+        assertEquals(ids(watchedGameSetDao.findWatchedGames(userId)), watched);
+        assertEquals(ids(watchedGameSetDao.findUnwatchedGames(userId, 2023)), unwatched);
+        assertTrue(watched.containsAll(Arrays.asList(1, 3)));
+        assertTrue(unwatched.contains(2));
+    }
+
+    @Test
+    public void removeWatchedGames_ShouldDeleteEmptyBitmap() {
+        int userId = 3;
+        watchedGameSetDao.addWatchedGames(userId, Arrays.asList(1, 2));
+
+        watchedGameSetDao.removeWatchedGames(userId, Arrays.asList(1, 2));
+
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        Integer count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM watched_game_sets WHERE user_id = ?",
+                Integer.class, userId);
+        assertEquals(Integer.valueOf(0), count);
+        assertTrue(watchedGameSetDao.findWatchedGames(userId).isEmpty());
+    }
+
+    @Test
+    public void markAllGamesInRoundWatched_ShouldLeaveNoUnwatchedGamesInRound() {
+        int userId = 3;
+
+        watchedGameSetDao.markAllGamesInRoundWatched(userId, 2023, 1);
+
+        assertTrue(watchedGameSetDao.findUnwatchedGamesByRound(userId, 2023, 1).isEmpty());
+        assertEquals(2, watchedGameSetDao.findWatchedGamesByRound(userId, 2023, 1).size());
+        List<Game> unwatchedGames = watchedGameSetDao.findUnwatchedGames(userId, 2023);
+        assertEquals(1, unwatchedGames.size());
+        assertEquals(3, unwatchedGames.get(0).getId());
+
+        watchedGameSetDao.markAllGamesInRoundUnwatched(userId, 2023, 1);
+
+        assertTrue(watchedGameSetDao.findWatchedGameIds(userId).isEmpty());
+    }
+
+    @Test
+    public void findWatchedGameIds_ShouldReturnOnlyWatchedGamesFromList() {
+        int userId = 3;
+        watchedGameSetDao.addWatchedGame(userId, 2);
+
+        Set<Integer> watched = watchedGameSetDao.findWatchedGameIds(userId, Arrays.asList(1, 2, 3));
+
+        assertEquals(1, watched.size());
+        assertTrue(watched.contains(2));
+    }
+
+    @Test
+    public void findWatchedGames_ShouldOnlyReadGamesWithinBitmapRanges() {
+        int userId = 3;
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.update("INSERT INTO games (id, round, year, date, hteam_id, ateam_id, hscore, ascore, winner_id, " +
+                "complete) VALUES (10, 1, 2024, now(), 1, 2, 80, 70, 1, 100), (11, 1, 2024, now(), 3, 4, 80, 70, 3, 100)");
+        watchedGameSetDao.addWatchedGames(userId, Arrays.asList(1, 2, 10));
+        RecordingDataSource recordingDataSource = new RecordingDataSource(dataSource);
+        JdbcWatchedGameSetDao recordingDao = new JdbcWatchedGameSetDao(recordingDataSource);
+
+        List<Game> watched = recordingDao.findWatchedGames(userId);
+
+        assertEquals(Arrays.asList(1, 2, 10), ids(watched).stream().sorted().collect(Collectors.toList()));
+        RecordingDataSource.RecordedStatement gamesQuery = recordingDataSource.getStatements()
+                .get(recordingDataSource.getStatements().size() - 1);
+        assertArrayEquals(new Object[]{2023, 1, 2, 2024, 10, 10}, gamesQuery.getParameters());
+        assertEquals(Arrays.asList(1, 2), ids(watchedGameSetDao.findWatchedGamesByRound(userId, 2023, 1)).stream()
+                .sorted().collect(Collectors.toList()));
+        assertEquals(Arrays.asList(10), ids(watchedGameSetDao.findWatchedGamesByRound(userId, 2024, 1)));
+        assertEquals(Arrays.asList(11), ids(watchedGameSetDao.findUnwatchedGames(userId, 2024)));
+    }
+
+    @Test
+    public void findUserIdsWatchingEachGame_ShouldGroupWatchersByGame() {
+        watchedGameSetDao.addWatchedGames(2, Arrays.asList(1));
+        watchedGameSetDao.addWatchedGames(3, Arrays.asList(1, 3));
+
+        Map<Integer, List<Integer>> userIdsByGame = watchedGameSetDao.findUserIdsWatchingEachGame(Arrays.asList(1, 2, 3));
+
+        assertEquals(Arrays.asList(2, 3), userIdsByGame.get(1));
+        assertFalse(userIdsByGame.containsKey(2));
+        assertEquals(Arrays.asList(3), userIdsByGame.get(3));
+    }
+
+    private static List<Integer> ids(List<Game> games) {
+        return games.stream().map(Game::getId).collect(Collectors.toList());
+    }
+}
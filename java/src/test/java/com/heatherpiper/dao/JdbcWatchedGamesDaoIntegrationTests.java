@@ -12,7 +12,10 @@ import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.transaction.annotation.Transactional;
 
 import javax.sql.DataSource;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import static org.junit.Assert.*;
 
@@ -47,7 +50,7 @@ public class JdbcWatchedGamesDaoIntegrationTests {
     @Test
     public void findUnwatchedGames_ShouldReturnUnwatchedGamesForUser() {
         int userId = 1;
-        List<Game> unwatchedGames = watchedGamesDao.findUnwatchedGames(userId);
+        List<Game> unwatchedGames = watchedGamesDao.findUnwatchedGames(userId, 2023);
 
         assertFalse(unwatchedGames.isEmpty());
         assertTrue(unwatchedGames.stream().anyMatch(game -> game.getId() == 3));
@@ -57,7 +60,7 @@ public class JdbcWatchedGamesDaoIntegrationTests {
     public void findUnwatchedGamesByRound_ShouldReturnUnwatchedGamesForUserInRound() {
         int userId = 1;
         int round = 2;
-        List<Game> unwatchedGamesByRound = watchedGamesDao.findUnwatchedGamesByRound(userId, round);
+        List<Game> unwatchedGamesByRound = watchedGamesDao.findUnwatchedGamesByRound(userId, 2023, round);
 
         assertFalse(unwatchedGamesByRound.isEmpty());
     }
@@ -74,6 +77,18 @@ public class JdbcWatchedGamesDaoIntegrationTests {
         assertFalse(watchedGamesDao.isGameWatched(userId, gameId));
     }
 
+    @Test
+    public void addAndRemoveWatchedGames_ShouldModifyWatchedGamesInBulk() {
+        int userId = 3;
+        List<Integer> gameIds = Arrays.asList(1, 2, 3);
+
+        watchedGamesDao.addWatchedGames(userId, gameIds);
+        assertEquals(new HashSet<>(gameIds), watchedGamesDao.findWatchedGameIds(userId, gameIds));
+
+        watchedGamesDao.removeWatchedGames(userId, Arrays.asList(1, 3));
+        assertEquals(Set.of(2), watchedGamesDao.findWatchedGameIds(userId, gameIds));
+    }
+
     @Test
     public void markAllGamesWatched_ShouldMarkAllGamesAsWatchedForUser() {
         int userId = 2;
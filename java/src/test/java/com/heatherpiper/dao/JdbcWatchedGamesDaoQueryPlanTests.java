@@ -0,0 +1,127 @@
+package com.heatherpiper.dao;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Runs EXPLAIN on every query {@link JdbcWatchedGamesDao} sends, against a seeded dataset the size of the full
+ * history of seasons with hundreds of users, and fails if a query scans watched_games sequentially, or scans games
+ * sequentially when it only needs the games of one round. Queries that list every game may scan games.
+ *
+ * <p>The queries are captured from the DAO itself through a {@link RecordingDataSource}, so the test follows any change
+ * to the SQL.
+ */
+public class JdbcWatchedGamesDaoQueryPlanTests extends BaseDaoTests {
+
+    private static final int SEEDED_USERS = 300;
+    private static final int SEEDED_SEASONS = 130;
+    private static final int GAMES_PER_SEASON = 207;
+    private static final int ROUND = 5;
+    private static final int YEAR = 1897 + SEEDED_SEASONS - 1;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private JdbcTemplate jdbcTemplate;
+    private RecordingDataSource recordingDataSource;
+    private JdbcWatchedGamesDao watchedGamesDao;
+    private int userId;
+
+    @Before
+    public void setup() {
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.update("INSERT INTO users (username, password_hash, role) " +
+                "SELECT 'plan_user_' || n, 'hash', 'ROLE_USER' FROM generate_series(1, ?) n", SEEDED_USERS);
+        jdbcTemplate.update("INSERT INTO games (id, round, year, date, hteam_id, ateam_id, hscore, ascore, winner_id, complete) " +
+                "SELECT 100000 + n, n % ? / 9, 1897 + n / ?, " +
+                "date '1897-04-01' + (n / ?) * 365 + n % ? + time '14:10', " +
+                "1, 2, 80, 70, 1, 100 FROM generate_series(0, ? - 1) n",
+                GAMES_PER_SEASON, GAMES_PER_SEASON, GAMES_PER_SEASON, GAMES_PER_SEASON,
+                SEEDED_SEASONS * GAMES_PER_SEASON);
+        // Each user has watched a third of the last ten seasons
+        jdbcTemplate.update("INSERT INTO watched_games (user_id, game_id) " +
+                "SELECT u.user_id, g.id FROM users u JOIN games g ON g.id % 3 = u.user_id % 3 " +
+                "WHERE u.username LIKE 'plan_user_%' AND g.year >= ?", 1897 + SEEDED_SEASONS - 10);
+        jdbcTemplate.execute("ANALYZE users");
+        jdbcTemplate.execute("ANALYZE games");
+        jdbcTemplate.execute("ANALYZE watched_games");
+
+        userId = jdbcTemplate.queryForObject("SELECT MIN(user_id) FROM users WHERE username LIKE 'plan_user_%'",
+                Integer.class);
+        recordingDataSource = new RecordingDataSource(dataSource);
+        watchedGamesDao = new JdbcWatchedGamesDao(recordingDataSource);
+    }
+
+    @Test
+    public void listingWatchedAndUnwatchedGames_UsesIndexes() throws Exception {
+        assertNoSequentialScans(() -> watchedGamesDao.findWatchedGames(userId), "watched_games");
+        assertNoSequentialScans(() -> watchedGamesDao.findWatchedGamesByRound(userId, YEAR, ROUND), "watched_games", "games");
+        assertNoSequentialScans(() -> watchedGamesDao.findUnwatchedGames(userId, YEAR), "watched_games");
+        assertNoSequentialScans(() -> watchedGamesDao.findUnwatchedGamesByRound(userId, YEAR, ROUND), "watched_games", "games");
+    }
+
+    @Test
+    public void watchedGameLookups_UseIndexes() throws Exception {
+        List<Integer> gameIds = jdbcTemplate.queryForList(
+                "SELECT game_id FROM watched_games WHERE user_id = ? LIMIT 20", Integer.class, userId);
+
+        assertNoSequentialScans(() -> watchedGamesDao.isGameWatched(userId, gameIds.get(0)), "watched_games");
+        assertNoSequentialScans(() -> watchedGamesDao.findWatchedGameIds(userId), "watched_games");
+        assertNoSequentialScans(() -> watchedGamesDao.findWatchedGameIds(userId, gameIds), "watched_games");
+        assertNoSequentialScans(() -> watchedGamesDao.findUserIdsWatchingGames(gameIds), "watched_games");
+    }
+
+    @Test
+    public void watchedGameUpdates_UseIndexes() throws Exception {
+        List<Integer> gameIds = jdbcTemplate.queryForList(
+                "SELECT game_id FROM watched_games WHERE user_id = ? LIMIT 20", Integer.class, userId);
+
+        assertNoSequentialScans(() -> watchedGamesDao.removeWatchedGame(userId, gameIds.get(0)), "watched_games");
+        assertNoSequentialScans(() -> watchedGamesDao.removeWatchedGames(userId, gameIds), "watched_games");
+        assertNoSequentialScans(() -> watchedGamesDao.addWatchedGames(userId, gameIds), "watched_games");
+        assertNoSequentialScans(() -> watchedGamesDao.markAllGamesInRoundWatched(userId, YEAR, ROUND),
+                "watched_games", "games");
+        assertNoSequentialScans(() -> watchedGamesDao.markAllGamesInRoundUnwatched(userId, YEAR, ROUND),
+                "watched_games", "games");
+        assertNoSequentialScans(() -> watchedGamesDao.markAllGamesWatched(userId), "watched_games");
+        assertNoSequentialScans(() -> watchedGamesDao.markAllGamesUnwatched(userId), "watched_games");
+    }
+
+    /**
+     * Runs a DAO call, then explains every statement it sent and fails if any plan scans one of the tables
+     * sequentially.
+     */
+    private void assertNoSequentialScans(Runnable daoCall, String... tables) throws Exception {
+        recordingDataSource.clear();
+        daoCall.run();
+        List<RecordingDataSource.RecordedStatement> statements = recordingDataSource.getStatements();
+        assertFalse("The DAO call sent no statements", statements.isEmpty());
+
+        for (RecordingDataSource.RecordedStatement statement : statements) {
+            String plan = jdbcTemplate.queryForObject("EXPLAIN (FORMAT JSON) " + statement.getSql(), String.class,
+                    statement.getParameters());
+            List<String> scanned = new ArrayList<>();
+            collectSequentialScans(objectMapper.readTree(plan).get(0).get("Plan"), scanned);
+            for (String table : tables) {
+                assertFalse("Sequential scan on " + table + " in:\n" + statement.getSql() + "\n" + plan,
+                        scanned.contains(table));
+            }
+        }
+    }
+
+    private static void collectSequentialScans(JsonNode node, List<String> scanned) {
+        if ("Seq Scan".equals(node.path("Node Type").asText())) {
+            scanned.add(node.path("Relation Name").asText());
+        }
+        for (JsonNode child : node.path("Plans")) {
+            collectSequentialScans(child, scanned);
+        }
+    }
+}
@@ -1,13 +1,18 @@
 package com.heatherpiper.dao;
 
 import com.heatherpiper.model.Game;
+import com.heatherpiper.model.GameDates;
 import org.junit.Before;
 import org.junit.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.jdbc.core.JdbcTemplate;
 
 import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 import static org.junit.Assert.*;
 
@@ -34,23 +39,37 @@ public class JdbcWatchedGamesDaoTests extends BaseDaoTests {
     @Test
     public void findUnwatchedGames_ShouldReturnExpectedResults() {
         int userId = 1;
-        List<Game> results = watchedGamesDao.findUnwatchedGames(userId);
+        List<Game> results = watchedGamesDao.findUnwatchedGames(userId, 2023);
 
         assertNotNull(results);
     }
 
+    @Test
+    public void streamWatchedAndUnwatchedGames_ShouldReturnSameGamesAsFind() {
+        for (int userId = 1; userId <= 2; userId++) {
+            List<Game> watched = new ArrayList<>();
+            List<Game> unwatched = new ArrayList<>();
+
+            watchedGamesDao.streamWatchedGames(userId, watched::add);
+            watchedGamesDao.streamUnwatchedGames(userId, unwatched::add);
+
+            assertEquals(ids(watchedGamesDao.findWatchedGames(userId)), ids(watched));
+            assertEquals(ids(watchedGamesDao.findUnwatchedGames(userId, 2023)), ids(unwatched));
+        }
+    }
+
     @Test
     public void findUnwatchedGamesByRound_ShouldReturnExpectedGames() {
         JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
-        jdbcTemplate.update("INSERT INTO games (id, round, year, date, hteam, ateam, hscore, ascore, winner, " +
+        jdbcTemplate.update("INSERT INTO games (id, round, year, date, hteam_id, ateam_id, hscore, ascore, winner_id, " +
                 "complete)" +
                 " VALUES " +
-                "(?, ?, ?, ?, ?, ?, ?, ?, ?, ?)", 1, 1, 2023, "2024-03-15T08:40:00Z", "Team A", "Team B", 100, 90, "Team A", 100);
+                "(?, ?, ?, ?, ?, ?, ?, ?, ?, ?)", 1, 1, 2023, GameDates.parse("2024-03-15T08:40:00Z"), 1, 2, 100, 90, 1, 100);
 
         int userId = 1;
         int round = 1;
 
-        List<Game> unwatchedGames = watchedGamesDao.findUnwatchedGamesByRound(userId, round);
+        List<Game> unwatchedGames = watchedGamesDao.findUnwatchedGamesByRound(userId, 2023, round);
 
         assertNotNull(unwatchedGames);
         assertFalse("Expected to find unwatched games for the round", unwatchedGames.isEmpty());
@@ -59,9 +78,9 @@ public class JdbcWatchedGamesDaoTests extends BaseDaoTests {
     @Test
     public void addWatchedGame_ShouldAddGameToWatchedGames() {
         JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
-        jdbcTemplate.update("INSERT INTO games (id, round, year, date, hteam, ateam, hscore, ascore, winner, " +
+        jdbcTemplate.update("INSERT INTO games (id, round, year, date, hteam_id, ateam_id, hscore, ascore, winner_id, " +
                         "complete) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)",
-                1, 1, 2023, "2024-03-15T08:40:00Z", "Team A", "Team B", 100, 90, "Team A", 100);
+                1, 1, 2023, GameDates.parse("2024-03-15T08:40:00Z"), 1, 2, 100, 90, 1, 100);
 
         int userId = 1;
         int gameId = 1;
@@ -89,9 +108,9 @@ public class JdbcWatchedGamesDaoTests extends BaseDaoTests {
         int userId = 1;
         int round = 1;
 
-        watchedGamesDao.markAllGamesInRoundWatched(userId, round);
+        watchedGamesDao.markAllGamesInRoundWatched(userId, 2023, round);
 
-        List<Game> unwatchedGames = watchedGamesDao.findUnwatchedGamesByRound(userId, round);
+        List<Game> unwatchedGames = watchedGamesDao.findUnwatchedGamesByRound(userId, 2023, round);
         assertTrue(unwatchedGames.isEmpty());
     }
 
@@ -100,9 +119,9 @@ public class JdbcWatchedGamesDaoTests extends BaseDaoTests {
         int userId = 1;
         int round = 1;
         int gameId = 1;
-        watchedGamesDao.markAllGamesInRoundWatched(userId, round);
+        watchedGamesDao.markAllGamesInRoundWatched(userId, 2023, round);
 
-        watchedGamesDao.markAllGamesInRoundUnwatched(userId, round);
+        watchedGamesDao.markAllGamesInRoundUnwatched(userId, 2023, round);
 
         boolean isWatched = watchedGamesDao.isGameWatched(userId, gameId);
         assertFalse(isWatched);
@@ -114,9 +133,9 @@ public class JdbcWatchedGamesDaoTests extends BaseDaoTests {
         int userId = 1;
         int gameId = 1;
 
-        jdbcTemplate.update("INSERT INTO games (id, round, year, date, hteam, ateam, hscore, ascore, winner, " +
+        jdbcTemplate.update("INSERT INTO games (id, round, year, date, hteam_id, ateam_id, hscore, ascore, winner_id, " +
                         "complete) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)",
-                gameId, 1, 2023, "2024-03-15T08:40:00Z", "Team A", "Team B", 100, 90, "Team A", 100);
+                gameId, 1, 2023, GameDates.parse("2024-03-15T08:40:00Z"), 1, 2, 100, 90, 1, 100);
 
         jdbcTemplate.update("INSERT INTO watched_games (user_id, game_id) VALUES (?, ?)",
                 userId, gameId);
@@ -128,5 +147,17 @@ public class JdbcWatchedGamesDaoTests extends BaseDaoTests {
         jdbcTemplate.update("DELETE FROM watched_games WHERE user_id = ? AND game_id = ?", userId, gameId);
         jdbcTemplate.update("DELETE FROM games where id = ?", gameId);
     }
-}
 
+    @Test
+    public void findUserIdsWatchingEachGame_ShouldGroupWatchersByGame() {
+        Map<Integer, List<Integer>> userIdsByGame = watchedGamesDao.findUserIdsWatchingEachGame(Arrays.asList(1, 2, 3));
+
+        assertEquals(Arrays.asList(1, 2), userIdsByGame.get(1));
+        assertEquals(Arrays.asList(1), userIdsByGame.get(2));
+        assertEquals(Arrays.asList(2), userIdsByGame.get(3));
+    }
+
+    private static List<Integer> ids(List<Game> games) {
+        return games.stream().map(Game::getId).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,96 @@
+package com.heatherpiper.dao;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+
+/**
+ * Hands out connections whose prepared statements record their SQL and parameters, so query plan tests can explain
+ * the statements a DAO sends.
+ */
+class RecordingDataSource extends DelegatingDataSource {
+
+    private final List<RecordedStatement> statements = new ArrayList<>();
+
+    RecordingDataSource(DataSource dataSource) {
+        super(dataSource);
+    }
+
+    /**
+     * @return the statements prepared since the last {@link #clear()}, in order.
+     */
+    List<RecordedStatement> getStatements() {
+        return statements;
+    }
+
+    void clear() {
+        statements.clear();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        Connection connection = super.getConnection();
+        return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("close")) {
+                        // The test database has a single connection, which must stay open
+                        return null;
+                    }
+                    Object result = invoke(method, connection, args);
+                    if (result instanceof PreparedStatement && method.getName().equals("prepareStatement")) {
+                        RecordedStatement statement = new RecordedStatement((String) args[0]);
+                        statements.add(statement);
+                        return recording((PreparedStatement) result, statement);
+                    }
+                    return result;
+                });
+    }
+
+    private PreparedStatement recording(PreparedStatement preparedStatement, RecordedStatement statement) {
+        return (PreparedStatement) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{PreparedStatement.class}, (proxy, method, args) -> {
+                    if (method.getName().startsWith("set") && args != null && args.length >= 2
+                            && args[0] instanceof Integer) {
+                        statement.parameters.put((Integer) args[0], args[1]);
+                    }
+                    return invoke(method, preparedStatement, args);
+                });
+    }
+
+    private static Object invoke(Method method, Object target, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    static final class RecordedStatement {
+        private final String sql;
+        private final TreeMap<Integer, Object> parameters = new TreeMap<>();
+
+        private RecordedStatement(String sql) {
+            this.sql = sql;
+        }
+
+        String getSql() {
+            return sql;
+        }
+
+        /**
+         * @return the parameters, in order of their index.
+         */
+        Object[] getParameters() {
+            return parameters.values().toArray();
+        }
+    }
+}
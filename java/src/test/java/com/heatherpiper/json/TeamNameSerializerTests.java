@@ -0,0 +1,110 @@
+package com.heatherpiper.json;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.heatherpiper.dao.TeamDao;
+import com.heatherpiper.model.Game;
+import com.heatherpiper.model.GameDates;
+import com.heatherpiper.model.LiveGame;
+import com.heatherpiper.model.Team;
+import com.heatherpiper.service.TeamDictionary;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.annotation.AutowiredAnnotationBeanPostProcessor;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.http.converter.json.SpringHandlerInstantiator;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class TeamNameSerializerTests {
+
+    @Mock
+    private TeamDao teamDao;
+
+    private ObjectMapper objectMapper;
+
+    @BeforeEach
+    void setup() {
+        when(teamDao.findAllTeams()).thenReturn(List.of(new Team(4, "Collingwood"), new Team(7, "Geelong")));
+        TeamDictionary teamDictionary = new TeamDictionary(teamDao);
+        teamDictionary.refresh();
+        // Serializers are created the way Spring's object mapper creates them, with the dictionary injected
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        AutowiredAnnotationBeanPostProcessor autowiredProcessor = new AutowiredAnnotationBeanPostProcessor();
+        autowiredProcessor.setBeanFactory(beanFactory);
+        beanFactory.addBeanPostProcessor(autowiredProcessor);
+        beanFactory.registerSingleton("teamDictionary", teamDictionary);
+        objectMapper = new ObjectMapper();
+        objectMapper.setHandlerInstantiator(new SpringHandlerInstantiator(beanFactory));
+    }
+
+    @Test
+    void game_IsWrittenWithTeamNamesAndIds() throws Exception {
+        Game game = new Game(1, 1, 2023, GameDates.parse("2023-03-17 19:40:00"), 7, 4, 103, 125, 4, 100);
+
+        JsonNode json = objectMapper.readTree(objectMapper.writeValueAsString(game));
+
+        assertEquals("Geelong", json.get("hteam").asText());
+        assertEquals(7, json.get("hteamid").asInt());
+        assertEquals("Collingwood", json.get("ateam").asText());
+        assertEquals("Collingwood", json.get("winner").asText());
+        assertEquals(4, json.get("winnerteamid").asInt());
+    }
+
+    @Test
+    void game_WithoutWinnerOrWithUnknownTeam_IsWrittenWithNullNameAndId() throws Exception {
+        Game game = new Game(1, 1, 2023, GameDates.parse("2023-03-17 19:40:00"), 19, 4, null, null, null, 0);
+
+        JsonNode json = objectMapper.readTree(objectMapper.writeValueAsString(game));
+
+        assertTrue(json.get("hteam").isNull());
+        assertEquals(19, json.get("hteamid").asInt());
+        assertTrue(json.get("winner").isNull());
+    }
+
+    @Test
+    void writtenGame_IsReadBackWithSameTeamIds() throws Exception {
+        Game game = new Game(1, 1, 2023, GameDates.parse("2023-03-17 19:40:00"), 7, 4, 103, 125, 4, 100);
+
+        Game read = objectMapper.readValue(objectMapper.writeValueAsString(game), Game.class);
+
+        assertEquals(7, read.getHteamId());
+        assertEquals(4, read.getAteamId());
+        assertEquals(4, read.getWinnerId());
+        assertEquals("Geelong", read.getHteamName());
+    }
+
+    @Test
+    void liveGame_IsWrittenWithTeamNames() throws Exception {
+        LiveGame liveGame = new LiveGame(1, 1, 2023, GameDates.parse("2023-03-17 19:40:00"), 7, 4, 20, 13, null, 27,
+                "Q2 1:02", Instant.now());
+
+        JsonNode json = objectMapper.readTree(objectMapper.writeValueAsString(liveGame));
+
+        assertEquals("Geelong", json.get("hteam").asText());
+        assertEquals("Collingwood", json.get("ateam").asText());
+        assertEquals(4, json.get("ateamid").asInt());
+        assertTrue(json.get("winner").isNull());
+    }
+
+    @Test
+    void withoutSpring_TeamNamesAreWrittenAsNull() throws Exception {
+        Game game = new Game(1, 1, 2023, GameDates.parse("2023-03-17 19:40:00"), 7, 4, 103, 125, 4, 100);
+
+        JsonNode json = new ObjectMapper().readTree(new ObjectMapper().writeValueAsString(game));
+
+        assertTrue(json.get("hteam").isNull());
+        assertEquals(7, json.get("hteamid").asInt());
+        assertNull(json.get("hteamName"));
+    }
+}
@@ -0,0 +1,53 @@
+package com.heatherpiper.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class WatchedGameSetTests {
+
+    @Test
+    void add_belowBaseGameId_RebasesBitmap() {
+        WatchedGameSet set = new WatchedGameSet(1, 2024);
+        set.addAll(Arrays.asList(35010, 35003));
+        set.add(35001);
+
+        assertEquals(35001, set.getBaseGameId());
+        assertEquals(Arrays.asList(35001, 35003, 35010), set.getGameIds());
+        assertTrue(set.contains(35003));
+        assertFalse(set.contains(35002));
+        assertFalse(set.contains(35000));
+    }
+
+    @Test
+    void remove_LastGame_LeavesEmptySet() {
+        WatchedGameSet set = new WatchedGameSet(1, 2024);
+        set.add(35005);
+
+        set.remove(35005);
+        set.remove(34000);
+
+        assertTrue(set.isEmpty());
+        assertEquals(0, set.size());
+    }
+
+    @Test
+    void toByteArray_RoundTripsThroughStoredForm() {
+        WatchedGameSet set = new WatchedGameSet(1, 2024);
+        List<Integer> gameIds = Arrays.asList(35000, 35001, 35003, 35004, 35006, 35007, 35215);
+        set.addAll(gameIds);
+
+        byte[] bytes = set.toByteArray();
+        WatchedGameSet restored = WatchedGameSet.fromByteArray(1, 2024, set.getBaseGameId(), bytes);
+
+        // Bits are numbered from the least significant bit of the first byte, as in PostgreSQL's get_bit
+        assertEquals((byte) 0xdb, bytes[0]);
+        assertEquals(27, bytes.length);
+        assertEquals(gameIds, restored.getGameIds());
+    }
+}
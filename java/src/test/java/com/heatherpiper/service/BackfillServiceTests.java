@@ -0,0 +1,123 @@
+package com.heatherpiper.service;
+
+import com.heatherpiper.dao.BackfillJobDao;
+import com.heatherpiper.model.BackfillJob;
+import com.heatherpiper.model.Game;
+import com.heatherpiper.model.GameDates;
+import com.heatherpiper.model.SeasonSyncResult;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class BackfillServiceTests {
+
+    @Mock
+    private SquiggleService squiggleService;
+
+    @Mock
+    private BackfillJobDao backfillJobDao;
+
+    private BackfillService backfillService;
+
+    @AfterEach
+    public void tearDown() {
+        backfillService.shutdown();
+    }
+
+    @Test
+    public void startBackfill_LoadsEachSeasonAndCheckpointsIt() {
+        backfillService = new BackfillService(squiggleService, backfillJobDao, 2, 0);
+        when(backfillJobDao.createJob(2001, 2003)).thenReturn(job(1, 2001, 2003, BackfillJob.RUNNING, List.of()));
+        when(squiggleService.loadSeason(anyInt())).thenAnswer(invocation -> season(invocation.getArgument(0), 3));
+
+        backfillService.startBackfill(2001, 2003);
+
+        verify(backfillJobDao, timeout(5000)).updateStatus(1, BackfillJob.COMPLETED);
+        verify(backfillJobDao).completeYear(1, 2001, 3);
+        verify(backfillJobDao).completeYear(1, 2002, 3);
+        verify(backfillJobDao).completeYear(1, 2003, 3);
+    }
+
+    @Test
+    public void resumeBackfill_SkipsCompletedSeasonsAndFailsIfAnySeasonFails() {
+        backfillService = new BackfillService(squiggleService, backfillJobDao, 2, 0);
+        when(backfillJobDao.findJobById(1)).thenReturn(job(1, 2001, 2003, BackfillJob.FAILED, List.of(2001)));
+        when(squiggleService.loadSeason(2002)).thenReturn(season(2002, 5));
+        when(squiggleService.loadSeason(2003)).thenThrow(new RuntimeException("Failed to fetch games for year 2003"));
+
+        backfillService.resumeBackfill(1);
+
+        verify(backfillJobDao, timeout(5000)).updateStatus(1, BackfillJob.FAILED);
+        verify(backfillJobDao).completeYear(1, 2002, 5);
+        verify(backfillJobDao, never()).completeYear(1, 2003, 0);
+        verify(squiggleService, never()).loadSeason(2001);
+    }
+
+    @Test
+    public void startBackfill_SpacesOutRequests() {
+        // The clock stands still, so each request that waits for its slot is allowed to start when its sleep ends
+        long start = TimeUnit.SECONDS.toNanos(1);
+        List<Long> requestTimes = Collections.synchronizedList(new ArrayList<>());
+        backfillService = new BackfillService(squiggleService, backfillJobDao, 4, 50, () -> start,
+                nanos -> requestTimes.add(start + nanos));
+        when(backfillJobDao.createJob(2001, 2004)).thenReturn(job(1, 2001, 2004, BackfillJob.RUNNING, List.of()));
+        when(squiggleService.loadSeason(anyInt())).thenAnswer(invocation -> season(invocation.getArgument(0), 1));
+
+        backfillService.startBackfill(2001, 2004);
+
+        verify(backfillJobDao, timeout(5000)).updateStatus(1, BackfillJob.COMPLETED);
+        // The first request starts at once, and each of the others waits 50 ms longer than the one before
+        List<Long> sorted = new ArrayList<>(requestTimes);
+        Collections.sort(sorted);
+        assertEquals(List.of(start + TimeUnit.MILLISECONDS.toNanos(50), start + TimeUnit.MILLISECONDS.toNanos(100),
+                start + TimeUnit.MILLISECONDS.toNanos(150)), sorted);
+    }
+
+    @Test
+    public void startBackfill_RejectsInvalidRangesAndConcurrentJobs() throws Exception {
+        backfillService = new BackfillService(squiggleService, backfillJobDao, 1, 0);
+        assertThrows(IllegalArgumentException.class, () -> backfillService.startBackfill(2003, 2001));
+        assertThrows(IllegalArgumentException.class, () -> backfillService.startBackfill(1850, 1900));
+
+        CountDownLatch release = new CountDownLatch(1);
+        when(backfillJobDao.createJob(2001, 2001)).thenReturn(job(1, 2001, 2001, BackfillJob.RUNNING, List.of()));
+        when(squiggleService.loadSeason(2001)).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return season(2001, 1);
+        });
+        backfillService.startBackfill(2001, 2001);
+
+        assertThrows(IllegalStateException.class, () -> backfillService.startBackfill(2002, 2002));
+        release.countDown();
+        verify(backfillJobDao, timeout(5000)).updateStatus(1, BackfillJob.COMPLETED);
+    }
+
+    private static BackfillJob job(int jobId, int firstYear, int lastYear, String status, List<Integer> completedYears) {
+        return new BackfillJob(jobId, firstYear, lastYear, status, Instant.now(), Instant.now(), completedYears, 0);
+    }
+
+    private static SeasonSyncResult season(int year, int gameCount) {
+        List<Game> games = new ArrayList<>();
+        for (int i = 0; i < gameCount; i++) {
+            games.add(new Game(year * 1000 + i, 1, year, GameDates.parse(year + "-03-15 19:40:00"), 1, 2, 80, 70, 1, 100));
+        }
+        return new SeasonSyncResult(year, 23, gameCount, 0, 0, 10, games);
+    }
+}
@@ -0,0 +1,119 @@
+package com.heatherpiper.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.heatherpiper.model.Game;
+import com.heatherpiper.model.GameDates;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class GameJsonStreamerTests {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    private final GameJsonStreamer gameJsonStreamer = new GameJsonStreamer(objectMapper);
+
+    @Test
+    void writeGames_WritesSameJsonAsList() throws Exception {
+        List<Game> games = List.of(
+                new Game(1, 1, 2024, GameDates.parse("2024-03-15T08:40:00Z"), 1, 2, 100, 50, 1, 100),
+                new Game(2, 1, 2024, GameDates.parse("2024-03-16T08:40:00Z"), 3, 4, 80, 80, null, 100),
+                new Game(3, 2, 2024, GameDates.parse("2024-03-22T08:40:00Z"), 2, 3, null, null, null, 0));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        gameJsonStreamer.writeGames(out, games::forEach);
+
+        assertEquals(objectMapper.readTree(objectMapper.writeValueAsBytes(games)), objectMapper.readTree(out.toByteArray()));
+    }
+
+    @Test
+    void writeGames_WithNoGames_WritesEmptyArray() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        gameJsonStreamer.writeGames(out, action -> { });
+
+        assertEquals("[]", out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void writeGames_DoesNotFlushEachGame() throws Exception {
+        CountingOutputStream out = new CountingOutputStream();
+
+        gameJsonStreamer.writeGames(out, action -> {
+            for (int id = 1; id <= 50; id++) {
+                action.accept(new Game(id, 1, 2024, GameDates.parse("2024-03-15T08:40:00Z"), 1, 2, 100, 50, 1, 100));
+            }
+        });
+
+        JsonNode games = objectMapper.readTree(out.bytes.toByteArray());
+        assertEquals(50, games.size());
+        assertTrue(out.writes < 10, "Expected buffered writes, was " + out.writes);
+        assertFalse(out.closed);
+    }
+
+    @Test
+    void writeGames_WhenQueryFails_LeavesArrayUnclosed() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        assertThrows(IllegalStateException.class, () -> gameJsonStreamer.writeGames(out, action -> {
+            action.accept(new Game(1, 1, 2024, GameDates.parse("2024-03-15T08:40:00Z"), 1, 2, 100, 50, 1, 100));
+            throw new IllegalStateException("Connection lost");
+        }));
+
+        assertFalse(out.toString(StandardCharsets.UTF_8).endsWith("]"));
+    }
+
+    @Test
+    void writeGames_WhenClientDisconnects_ThrowsIOException() {
+        OutputStream out = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("Broken pipe");
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                throw new IOException("Broken pipe");
+            }
+        };
+
+        assertThrows(IOException.class, () -> gameJsonStreamer.writeGames(out, action -> {
+            for (int id = 1; id <= 1000; id++) {
+                action.accept(new Game(id, 1, 2024, GameDates.parse("2024-03-15T08:40:00Z"), 1, 2, 100, 50, 1, 100));
+            }
+        }));
+    }
+
+    private static final class CountingOutputStream extends OutputStream {
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        private int writes;
+        private boolean closed;
+
+        @Override
+        public void write(int b) {
+            writes++;
+            bytes.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            writes++;
+            bytes.write(b, off, len);
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.heatherpiper.service;
+
+import com.heatherpiper.dao.GameDao;
+import com.heatherpiper.dao.TeamDao;
+import com.heatherpiper.dao.WatchedGamesDao;
+import com.heatherpiper.event.GamesSavedEvent;
+import com.heatherpiper.model.Game;
+import com.heatherpiper.model.GameDates;
+import com.heatherpiper.model.GameCorrection;
+import com.heatherpiper.model.LadderCacheStats;
+import com.heatherpiper.model.UserLadderEntry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class LadderCacheTests {
+
+    @Mock
+    private WatchedGamesDao watchedGamesDao;
+
+    private final AtomicLong now = new AtomicLong(0);
+    private final AtomicInteger loads = new AtomicInteger();
+    private final IntFunction<List<UserLadderEntry>> loader = userId -> {
+        loads.incrementAndGet();
+        return new ArrayList<>(Collections.singletonList(
+                new UserLadderEntry(userId, 1, 4, 120.0, 1, "Team A", 1, 0, 0, 120, 100)));
+    };
+
+    private LadderCache ladderCache;
+
+    @BeforeEach
+    void setup() {
+        ladderCache = new LadderCache(watchedGamesDao, 2, 60, now::get);
+    }
+
+    @Test
+    void get_withCachedLadder_DoesNotReload() {
+        List<UserLadderEntry> first = ladderCache.get(1, loader);
+        List<UserLadderEntry> second = ladderCache.get(1, loader);
+
+        assertSame(first, second);
+        assertEquals(1, loads.get());
+        LadderCacheStats stats = ladderCache.getStats();
+        assertEquals(1, stats.getHits());
+        assertEquals(1, stats.getMisses());
+        assertEquals(0.5, stats.getHitRate());
+    }
+
+    @Test
+    void get_afterTtl_ReloadsLadder() {
+        ladderCache.get(1, loader);
+        now.addAndGet(60_000);
+
+        ladderCache.get(1, loader);
+
+        assertEquals(2, loads.get());
+        assertEquals(1, ladderCache.getStats().getExpirations());
+    }
+
+    @Test
+    void get_whenFull_EvictsLeastRecentlyUsedLadder() {
+        ladderCache.get(1, loader);
+        ladderCache.get(2, loader);
+        ladderCache.get(1, loader);
+        ladderCache.get(3, loader);
+
+        ladderCache.get(1, loader);
+        ladderCache.get(2, loader);
+
+        // User 2 was evicted when user 3 was added, then user 1 was evicted when user 2 was reloaded
+        assertEquals(4, loads.get());
+        LadderCacheStats stats = ladderCache.getStats();
+        assertEquals(2, stats.getEvictions());
+        assertEquals(2, stats.getSize());
+    }
+
+    @Test
+    void invalidate_ForcesReload() {
+        ladderCache.get(1, loader);
+
+        ladderCache.invalidate(1);
+        ladderCache.get(1, loader);
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void getRoundHistory_IsCachedPerSeasonAndInvalidatedWithLadder() {
+        LadderEngine ladderEngine = new LadderEngine(Mockito.mock(GameDao.class), Mockito.mock(TeamDao.class));
+        LadderEngine.RoundHistory history = ladderEngine.computeRoundHistory(new long[0], 2024);
+        IntFunction<LadderEngine.RoundHistory> historyLoader = userId -> {
+            loads.incrementAndGet();
+            return history;
+        };
+
+        ladderCache.get(1, loader);
+        assertSame(history, ladderCache.getRoundHistory(1, 2024, historyLoader));
+        ladderCache.getRoundHistory(1, 2024, historyLoader);
+        ladderCache.getRoundHistory(1, 2023, historyLoader);
+        ladderCache.get(1, loader);
+        assertEquals(3, loads.get());
+
+        ladderCache.invalidate(1);
+        ladderCache.getRoundHistory(1, 2024, historyLoader);
+        assertEquals(4, loads.get());
+        assertEquals(1, ladderCache.getStats().getSize());
+    }
+
+    @Test
+    void get_withInvalidationDuringLoad_DoesNotCacheLadder() {
+        ladderCache.get(1, userId -> {
+            ladderCache.invalidate(userId);
+            return loader.apply(userId);
+        });
+
+        ladderCache.get(1, loader);
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void onGamesSaved_InvalidatesOnlyUsersWhoWatchedCorrectedGames() {
+        ladderCache.get(1, loader);
+        ladderCache.get(2, loader);
+        when(watchedGamesDao.findUserIdsWatchingGames(Collections.singletonList(10)))
+                .thenReturn(Collections.singletonList(2));
+
+        Game previous = new Game(10, 1, 2024, GameDates.parse("2024-03-15T08:40:00Z"), 1, 2, 100, 90, 1, 100);
+        Game corrected = new Game(10, 1, 2024, GameDates.parse("2024-03-15T08:40:00Z"), 1, 2, 100, 96, 1, 100);
+        Game unchanged = new Game(11, 1, 2024, GameDates.parse("2024-03-16T08:40:00Z"), 3, 4, 80, 90, 4, 100);
+        ladderCache.onGamesSaved(new GamesSavedEvent(this, Arrays.asList(corrected, unchanged),
+                Collections.singletonList(new GameCorrection(previous, corrected))));
+        ladderCache.get(1, loader);
+        ladderCache.get(2, loader);
+
+        assertEquals(3, loads.get());
+    }
+}
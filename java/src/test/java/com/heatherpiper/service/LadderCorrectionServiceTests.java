@@ -0,0 +1,171 @@
+package com.heatherpiper.service;
+
+import com.heatherpiper.dao.GameDao;
+import com.heatherpiper.dao.UserDao;
+import com.heatherpiper.dao.UserLadderEntryDao;
+import com.heatherpiper.event.GamesSavedEvent;
+import com.heatherpiper.model.Game;
+import com.heatherpiper.model.GameDates;
+import com.heatherpiper.model.GameCorrection;
+import com.heatherpiper.model.LadderCorrectionProgress;
+import com.heatherpiper.model.UserLadderEntry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class LadderCorrectionServiceTests {
+
+    @Mock
+    private UserLadderEntryDao userLadderEntryDao;
+
+    @Mock
+    private UserDao userDao;
+
+    @Mock
+    private GameDao gameDao;
+
+    @Mock
+    private LadderCache ladderCache;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final List<Runnable> queued = new ArrayList<>();
+
+    private LadderCorrectionService ladderCorrectionService;
+
+    private final Game previous = new Game(10, 1, 2024, GameDates.parse("2024-03-15T08:40:00Z"), 1, 2, 90, 85, 1, 100);
+    private final Game flipped = new Game(10, 1, 2024, GameDates.parse("2024-03-15T08:40:00Z"), 1, 2, 90, 96, 2, 100);
+
+    @BeforeEach
+    void setup() {
+        ladderCorrectionService = new LadderCorrectionService(userLadderEntryDao, userDao, gameDao, ladderCache,
+                transactionManager, 2, true, queued::add);
+    }
+
+    @Test
+    void computeTeamDeltas_withChangedWinner_MovesWinBetweenTeams() {
+        List<UserLadderEntry> deltas = LadderCorrectionService.computeTeamDeltas(
+                Collections.singletonList(new GameCorrection(previous, flipped)), 2024);
+
+        assertEquals(2, deltas.size());
+        UserLadderEntry home = deltas.get(0);
+        assertEquals(1, home.getTeamId());
+        assertEquals(-4, home.getPoints());
+        assertEquals(-1, home.getWins());
+        assertEquals(1, home.getLosses());
+        assertEquals(0, home.getPointsFor());
+        assertEquals(11, home.getPointsAgainst());
+        UserLadderEntry away = deltas.get(1);
+        assertEquals(2, away.getTeamId());
+        assertEquals(4, away.getPoints());
+        assertEquals(1, away.getWins());
+        assertEquals(-1, away.getLosses());
+        assertEquals(11, away.getPointsFor());
+    }
+
+    @Test
+    void computeTeamDeltas_withGameOfEarlierSeason_LeavesLadderUnchanged() {
+        assertTrue(LadderCorrectionService.computeTeamDeltas(
+                Collections.singletonList(new GameCorrection(previous, flipped)), 2025).isEmpty());
+    }
+
+    @Test
+    void applyCorrections_withGameOfEarlierSeason_CorrectsNoLadders() {
+        when(gameDao.findLatestYear()).thenReturn(2025);
+
+        LadderCorrectionProgress progress = ladderCorrectionService.applyCorrections(
+                Collections.singletonList(new GameCorrection(previous, flipped, Arrays.asList(1, 2))));
+
+        verifyNoInteractions(userLadderEntryDao, userDao, ladderCache);
+        assertEquals(0, progress.getTotalUsers());
+        assertTrue(progress.isFinished());
+    }
+
+    @Test
+    void applyCorrections_CorrectsWatchersInChunks() {
+        when(gameDao.findLatestYear()).thenReturn(2024);
+        LadderCorrectionProgress progress = ladderCorrectionService.applyCorrections(
+                Collections.singletonList(new GameCorrection(previous, flipped, Arrays.asList(1, 2, 3))));
+
+        verify(userDao).lockUsers(Arrays.asList(1, 2));
+        verify(userLadderEntryDao).applyLadderDeltas(eq(Arrays.asList(1, 2)), anyList());
+        verify(userLadderEntryDao).applyLadderDeltas(eq(Collections.singletonList(3)), anyList());
+        verify(userLadderEntryDao).recalculatePercentagesAndPositions(Arrays.asList(1, 2));
+        verify(userLadderEntryDao).recalculatePercentagesAndPositions(Collections.singletonList(3));
+        verify(transactionManager, times(2)).commit(any());
+        verify(ladderCache).invalidate(1);
+        verify(ladderCache).invalidate(2);
+        verify(ladderCache).invalidate(3);
+        assertEquals(3, progress.getTotalUsers());
+        assertEquals(3, progress.getCorrectedUsers());
+        assertEquals(2, progress.getCompletedChunks());
+        assertTrue(progress.isFinished());
+    }
+
+    @Test
+    void applyCorrections_withFailedChunk_RebuildsUsersIndividually() {
+        doThrow(new DataAccessResourceFailureException("connection lost"))
+                .when(userLadderEntryDao).applyLadderDeltas(anyList(), anyList());
+        when(gameDao.findLatestYear()).thenReturn(2024);
+
+        LadderCorrectionProgress progress = ladderCorrectionService.applyCorrections(
+                Collections.singletonList(new GameCorrection(previous, flipped, Arrays.asList(1, 2))));
+
+        verify(transactionManager).rollback(any());
+        InOrder inOrder = inOrder(userDao, userLadderEntryDao, transactionManager);
+        for (int userId = 1; userId <= 2; userId++) {
+            inOrder.verify(transactionManager).getTransaction(any());
+            inOrder.verify(userDao).lockUser(userId);
+            inOrder.verify(userLadderEntryDao).recalculateUserLadderEntries(userId, 2024);
+            inOrder.verify(transactionManager).commit(any());
+        }
+        assertEquals(0, progress.getCorrectedUsers());
+        assertEquals(2, progress.getRebuiltUsers());
+        assertEquals(0, progress.getFailedUsers());
+    }
+
+    @Test
+    void applyCorrections_withSnapshotDisabled_DoesNothing() {
+        ladderCorrectionService = new LadderCorrectionService(userLadderEntryDao, userDao, gameDao, ladderCache,
+                transactionManager, 2, false, queued::add);
+
+        assertNull(ladderCorrectionService.applyCorrections(
+                Collections.singletonList(new GameCorrection(previous, flipped, Arrays.asList(1, 2)))));
+
+        verifyNoInteractions(userLadderEntryDao, userDao, gameDao, ladderCache, transactionManager);
+    }
+
+    @Test
+    void onGamesSaved_CorrectsOnCorrectionExecutorNotCallingThread() {
+        when(gameDao.findLatestYear()).thenReturn(2024);
+        ladderCorrectionService.onGamesSaved(new GamesSavedEvent(this, Collections.singletonList(flipped),
+                Collections.singletonList(new GameCorrection(previous, flipped, Collections.singletonList(1)))));
+
+        verifyNoInteractions(userLadderEntryDao, userDao, transactionManager);
+        assertEquals(1, queued.size());
+
+        queued.get(0).run();
+
+        verify(userLadderEntryDao).applyLadderDeltas(eq(Collections.singletonList(1)), anyList());
+        verify(ladderCache).invalidate(1);
+        assertTrue(ladderCorrectionService.getLatestProgress().isFinished());
+    }
+}
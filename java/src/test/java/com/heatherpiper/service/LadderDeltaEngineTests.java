@@ -0,0 +1,90 @@
+package com.heatherpiper.service;
+
+import com.heatherpiper.model.Game;
+import com.heatherpiper.model.GameDates;
+import com.heatherpiper.model.UserLadderEntry;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class LadderDeltaEngineTests {
+
+    @Test
+    void applyGame_withHomeWin_AddsWinAndPointsToHomeTeam() {
+        Game game = new Game(1, 1, 2024, GameDates.parse("2024-03-15T08:40:00Z"), 1, 2, 100, 80, 1, 100);
+        UserLadderEntry home = emptyEntry(1, "Team A");
+        UserLadderEntry away = emptyEntry(2, "Team B");
+
+        LadderDeltaEngine.applyGame(game, home, away, LadderDeltaEngine.WATCH);
+
+        assertEquals(4, home.getPoints());
+        assertEquals(1, home.getWins());
+        assertEquals(100, home.getPointsFor());
+        assertEquals(80, home.getPointsAgainst());
+        assertEquals(125.0, home.getPercentage());
+        assertEquals(0, away.getPoints());
+        assertEquals(1, away.getLosses());
+        assertEquals(80.0, away.getPercentage());
+    }
+
+    @Test
+    void applyGame_withNoWinner_AddsDrawToBothTeams() {
+        Game game = new Game(1, 1, 2024, GameDates.parse("2024-03-15T08:40:00Z"), 1, 2, 90, 90, null, 100);
+        UserLadderEntry home = emptyEntry(1, "Team A");
+        UserLadderEntry away = emptyEntry(2, "Team B");
+
+        LadderDeltaEngine.applyGame(game, home, away, LadderDeltaEngine.WATCH);
+
+        assertEquals(2, home.getPoints());
+        assertEquals(1, home.getDraws());
+        assertEquals(2, away.getPoints());
+        assertEquals(1, away.getDraws());
+    }
+
+    @Test
+    void applyGame_watchThenUnwatch_RestoresOriginalEntries() {
+        Game first = new Game(1, 1, 2024, GameDates.parse("2024-03-15T08:40:00Z"), 1, 2, 73, 91, 2, 100);
+        Game second = new Game(2, 2, 2024, GameDates.parse("2024-03-22T08:40:00Z"), 2, 1, 64, 88, 1, 100);
+        UserLadderEntry teamA = emptyEntry(1, "Team A");
+        UserLadderEntry teamB = emptyEntry(2, "Team B");
+
+        LadderDeltaEngine.applyGame(first, teamA, teamB, LadderDeltaEngine.WATCH);
+        UserLadderEntry expectedA = copy(teamA);
+        UserLadderEntry expectedB = copy(teamB);
+
+        LadderDeltaEngine.applyGame(second, teamB, teamA, LadderDeltaEngine.WATCH);
+        LadderDeltaEngine.applyGame(second, teamB, teamA, LadderDeltaEngine.UNWATCH);
+
+        assertSameStanding(expectedA, teamA);
+        assertSameStanding(expectedB, teamB);
+    }
+
+    @Test
+    void applyGame_withInvalidDirection_ThrowsException() {
+        Game game = new Game(1, 1, 2024, GameDates.parse("2024-03-15T08:40:00Z"), 1, 2, 100, 80, 1, 100);
+
+        assertThrows(IllegalArgumentException.class, () ->
+                LadderDeltaEngine.applyGame(game, emptyEntry(1, "Team A"), emptyEntry(2, "Team B"), 2));
+    }
+
+    private UserLadderEntry emptyEntry(int teamId, String teamName) {
+        return new UserLadderEntry(1, teamId, 0, 100, 0, teamName, 0, 0, 0, 0, 0);
+    }
+
+    private UserLadderEntry copy(UserLadderEntry entry) {
+        return new UserLadderEntry(entry.getUserId(), entry.getTeamId(), entry.getPoints(), entry.getPercentage(),
+                entry.getPosition(), entry.getTeamName(), entry.getWins(), entry.getLosses(), entry.getDraws(),
+                entry.getPointsFor(), entry.getPointsAgainst());
+    }
+
+    private void assertSameStanding(UserLadderEntry expected, UserLadderEntry actual) {
+        assertEquals(expected.getPoints(), actual.getPoints());
+        assertEquals(expected.getPercentage(), actual.getPercentage());
+        assertEquals(expected.getWins(), actual.getWins());
+        assertEquals(expected.getLosses(), actual.getLosses());
+        assertEquals(expected.getDraws(), actual.getDraws());
+        assertEquals(expected.getPointsFor(), actual.getPointsFor());
+        assertEquals(expected.getPointsAgainst(), actual.getPointsAgainst());
+    }
+}
@@ -0,0 +1,276 @@
+package com.heatherpiper.service;
+
+import com.heatherpiper.dao.GameDao;
+import com.heatherpiper.dao.TeamDao;
+import com.heatherpiper.event.GamesSavedEvent;
+import com.heatherpiper.model.Game;
+import com.heatherpiper.model.GameDates;
+import com.heatherpiper.model.Team;
+import com.heatherpiper.model.UserLadderEntry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class LadderEngineTests {
+
+    @Mock
+    private GameDao gameDao;
+
+    @Mock
+    private TeamDao teamDao;
+
+    private LadderEngine ladderEngine;
+
+    private final List<Team> teams = new ArrayList<>();
+
+    @BeforeEach
+    void setup() {
+        for (int teamId = 1; teamId <= 18; teamId++) {
+            teams.add(new Team(teamId, "Team " + teamId));
+        }
+        ladderEngine = new LadderEngine(gameDao, teamDao);
+    }
+
+    @Test
+    void computeLadder_MatchesLadderBuiltFromDeltas() {
+        List<Game> games = randomSeason(new Random(42));
+        when(teamDao.findAllTeams()).thenReturn(teams);
+        when(gameDao.findAllGames()).thenReturn(games);
+
+        // Watch every other game
+        List<Integer> watchedGameIds = new ArrayList<>();
+        Map<Integer, UserLadderEntry> expected = new HashMap<>();
+        for (Team team : teams) {
+            expected.put(team.getTeamId(), new UserLadderEntry(1, team.getTeamId(), 0, 100, 0, team.getName(), 0, 0, 0, 0, 0));
+        }
+        for (int i = 0; i < games.size(); i += 2) {
+            Game game = games.get(i);
+            watchedGameIds.add(game.getId());
+            LadderDeltaEngine.applyGame(game, expected.get(game.getHteamId()), expected.get(game.getAteamId()), LadderDeltaEngine.WATCH);
+        }
+
+        List<UserLadderEntry> ladder = ladderEngine.computeLadder(1, ladderEngine.toWatchedBits(watchedGameIds));
+
+        assertEquals(18, ladder.size());
+        for (int i = 0; i < ladder.size(); i++) {
+            UserLadderEntry actual = ladder.get(i);
+            UserLadderEntry expectedEntry = expected.get(actual.getTeamId());
+            assertEquals(i + 1, actual.getPosition());
+            assertEquals(expectedEntry.getPoints(), actual.getPoints());
+            assertEquals(expectedEntry.getPercentage(), actual.getPercentage());
+            assertEquals(expectedEntry.getWins(), actual.getWins());
+            assertEquals(expectedEntry.getLosses(), actual.getLosses());
+            assertEquals(expectedEntry.getDraws(), actual.getDraws());
+            assertEquals(expectedEntry.getPointsFor(), actual.getPointsFor());
+            assertEquals(expectedEntry.getPointsAgainst(), actual.getPointsAgainst());
+        }
+
+        // Positions follow points, then percentage
+        List<UserLadderEntry> sorted = new ArrayList<>(ladder);
+        sorted.sort(Comparator.comparing(UserLadderEntry::getPoints).thenComparing(UserLadderEntry::getPercentage).reversed());
+        for (int i = 0; i < ladder.size(); i++) {
+            assertEquals(sorted.get(i).getPoints(), ladder.get(i).getPoints());
+            assertEquals(sorted.get(i).getPercentage(), ladder.get(i).getPercentage());
+        }
+    }
+
+    @Test
+    void computeLadder_withNoWatchedGames_ReturnsEmptyLadder() {
+        when(teamDao.findAllTeams()).thenReturn(teams);
+        when(gameDao.findAllGames()).thenReturn(randomSeason(new Random(7)));
+
+        List<UserLadderEntry> ladder = ladderEngine.computeLadder(1, ladderEngine.toWatchedBits(List.of()));
+
+        assertEquals(18, ladder.size());
+        for (UserLadderEntry entry : ladder) {
+            assertEquals(0, entry.getPoints());
+            assertEquals(100.0, entry.getPercentage());
+        }
+    }
+
+    @Test
+    void computeLadder_WithPercentagesEqualToTwoDecimals_RanksLowerTeamIdFirst() {
+        // Team 1 scores 100.05% and team 2 scores 100.0526%, which both round to 100.05%
+        when(teamDao.findAllTeams()).thenReturn(teams);
+        when(gameDao.findAllGames()).thenReturn(List.of(
+                new Game(10, 1, 2024, GameDates.parse("2024-03-15T08:40:00Z"), 1, 3, 2001, 2000, 1, 100),
+                new Game(11, 1, 2024, GameDates.parse("2024-03-16T08:40:00Z"), 2, 4, 1901, 1900, 2, 100)));
+
+        List<UserLadderEntry> ladder = ladderEngine.computeLadder(1, ladderEngine.toWatchedBits(List.of(10, 11)));
+
+        assertEquals(List.of(1, 2, 3, 4), ladder.stream().map(UserLadderEntry::getTeamId).collect(Collectors.toList()));
+        assertEquals(100.05, ladder.get(1).getPercentage());
+    }
+
+    @Test
+    void toWatchedBits_IgnoresUnknownGames() {
+        when(teamDao.findAllTeams()).thenReturn(teams);
+        when(gameDao.findAllGames()).thenReturn(List.of(
+                new Game(10, 1, 2024, GameDates.parse("2024-03-15T08:40:00Z"), 1, 2, 100, 50, 1, 100)));
+
+        List<UserLadderEntry> ladder = ladderEngine.computeLadder(1, ladderEngine.toWatchedBits(Arrays.asList(10, 999)));
+
+        assertEquals("Team 1", ladder.get(0).getTeamName());
+        assertEquals(4, ladder.get(0).getPoints());
+    }
+
+    @Test
+    void ladderAfterRound_MatchesLadderOfGamesUpToRound() {
+        List<Game> games = new ArrayList<>(randomSeason(new Random(11)));
+        games.add(new Game(40000, 1, 2023, GameDates.parse("2023-03-15T08:40:00Z"), 1, 2, 100, 50, 1, 100));
+        when(teamDao.findAllTeams()).thenReturn(teams);
+        when(gameDao.findAllGames()).thenReturn(games);
+
+        // Watch every third game, plus a game from the previous season
+        List<Integer> watchedGameIds = new ArrayList<>();
+        for (int i = 0; i < games.size(); i += 3) {
+            watchedGameIds.add(games.get(i).getId());
+        }
+        watchedGameIds.add(40000);
+        LadderEngine.RoundHistory history = ladderEngine.computeRoundHistory(ladderEngine.toWatchedBits(watchedGameIds), 2024);
+
+        for (int round : new int[]{1, 5, 12, 23}) {
+            List<Integer> upToRound = new ArrayList<>();
+            for (Game game : games) {
+                if (game.getYear() == 2024 && game.getRound() <= round && watchedGameIds.contains(game.getId())) {
+                    upToRound.add(game.getId());
+                }
+            }
+            List<UserLadderEntry> expected = ladderEngine.computeLadder(1, ladderEngine.toWatchedBits(upToRound));
+            List<UserLadderEntry> actual = history.ladderAfterRound(1, round);
+
+            assertEquals(expected.size(), actual.size());
+            for (int i = 0; i < expected.size(); i++) {
+                assertEquals(expected.get(i).getTeamName(), actual.get(i).getTeamName());
+                assertEquals(expected.get(i).getPosition(), actual.get(i).getPosition());
+                assertEquals(expected.get(i).getPoints(), actual.get(i).getPoints());
+                assertEquals(expected.get(i).getPercentage(), actual.get(i).getPercentage());
+                assertEquals(expected.get(i).getWins(), actual.get(i).getWins());
+                assertEquals(expected.get(i).getPointsFor(), actual.get(i).getPointsFor());
+            }
+        }
+        assertEquals(2024, ladderEngine.latestSeason());
+    }
+
+    @Test
+    void ladderAfterRound_OutsideSeasonRounds_UsesNearestEarlierRound() {
+        when(teamDao.findAllTeams()).thenReturn(teams);
+        when(gameDao.findAllGames()).thenReturn(List.of(
+                new Game(10, 2, 2024, GameDates.parse("2024-03-22T08:40:00Z"), 1, 2, 100, 50, 1, 100),
+                new Game(11, 4, 2024, GameDates.parse("2024-04-05T08:40:00Z"), 3, 1, 90, 60, 3, 100)));
+
+        LadderEngine.RoundHistory history = ladderEngine.computeRoundHistory(
+                ladderEngine.toWatchedBits(Arrays.asList(10, 11)), 2024);
+
+        assertEquals(0, history.ladderAfterRound(1, 1).get(0).getPoints());
+        assertEquals("Team 1", history.ladderAfterRound(1, 3).get(0).getTeamName());
+        assertEquals("Team 3", history.ladderAfterRound(1, 30).get(0).getTeamName());
+        assertEquals(4, history.ladderAfterRound(1, 30).get(1).getPoints());
+    }
+
+    @Test
+    void ladders_ListOnlyTeamsOfTheSeasonShown() {
+        // Team 19 only played in a backfilled season
+        teams.add(new Team(19, "Team 19"));
+        List<Game> games = new ArrayList<>(randomSeason(new Random(3)));
+        games.add(new Game(30000, 1, 1996, GameDates.parse("1996-03-30T03:00:00Z"), 19, 2, 100, 50, 19, 100));
+        games.add(new Game(30001, 2, 1996, GameDates.parse("1996-04-06T03:00:00Z"), 1, 19, 80, 70, 1, 100));
+        when(teamDao.findAllTeams()).thenReturn(teams);
+        when(gameDao.findAllGames()).thenReturn(games);
+
+        List<UserLadderEntry> latest = ladderEngine.computeLadder(1, ladderEngine.toWatchedBits(List.of(35000)));
+        assertEquals(18, latest.size());
+        assertTrue(latest.stream().noneMatch(entry -> entry.getTeamId() == 19));
+
+        // Watched games of another season are not counted in the current ladder
+        List<UserLadderEntry> withHistoric = ladderEngine.computeLadder(1, ladderEngine.toWatchedBits(List.of(30000)));
+        assertEquals(18, withHistoric.size());
+        assertTrue(withHistoric.stream().noneMatch(entry -> entry.getTeamId() == 19));
+        assertTrue(withHistoric.stream().allMatch(entry -> entry.getPoints() == 0));
+
+        List<UserLadderEntry> season1996 = ladderEngine.computeRoundHistory(
+                ladderEngine.toWatchedBits(List.of(30000, 30001)), 1996).ladderAfterRound(1, 2);
+        assertEquals(List.of(19, 1, 2), season1996.stream().map(UserLadderEntry::getTeamId).collect(Collectors.toList()));
+        assertEquals(List.of(1, 2, 3), season1996.stream().map(UserLadderEntry::getPosition).collect(Collectors.toList()));
+
+        List<UserLadderEntry> season2024 = ladderEngine.computeRoundHistory(
+                ladderEngine.toWatchedBits(List.of(30000, 35000)), 2024).ladderAfterRound(1, 23);
+        assertEquals(18, season2024.size());
+        assertTrue(season2024.stream().noneMatch(entry -> entry.getTeamId() == 19));
+    }
+
+    @Test
+    void onGamesSaved_WithChangedResult_PatchesIndexWithoutReloading() {
+        when(teamDao.findAllTeams()).thenReturn(teams);
+        when(gameDao.findAllGames()).thenReturn(List.of(
+                new Game(10, 1, 2024, GameDates.parse("2024-03-15T08:40:00Z"), 1, 2, 100, 50, 1, 100)));
+
+        ladderEngine.computeLadder(1, ladderEngine.toWatchedBits(List.of(10)));
+        long version = ladderEngine.getIndex().version;
+
+        ladderEngine.onGamesSaved(new GamesSavedEvent(this, List.of(
+                new Game(10, 1, 2024, GameDates.parse("2024-03-15T08:40:00Z"), 1, 2, 60, 80, 2, 100))));
+        List<UserLadderEntry> ladder = ladderEngine.computeLadder(1, ladderEngine.toWatchedBits(List.of(10)));
+
+        verify(gameDao, times(1)).findAllGames();
+        assertEquals("Team 2", ladder.get(0).getTeamName());
+        assertEquals(4, ladder.get(0).getPoints());
+        assertEquals(80, ladder.get(0).getPointsFor());
+        assertTrue(ladderEngine.getIndex().version > version);
+    }
+
+    @Test
+    void onGamesSaved_WithNewOrMovedGame_RebuildsIndexOnNextUse() {
+        when(teamDao.findAllTeams()).thenReturn(teams);
+        when(gameDao.findAllGames()).thenReturn(List.of(
+                new Game(10, 1, 2024, GameDates.parse("2024-03-15T08:40:00Z"), 1, 2, 100, 50, 1, 100)));
+
+        ladderEngine.computeLadder(1, ladderEngine.toWatchedBits(List.of(10)));
+        ladderEngine.computeLadder(1, ladderEngine.toWatchedBits(List.of(10)));
+        verify(gameDao, times(1)).findAllGames();
+
+        ladderEngine.onGamesSaved(new GamesSavedEvent(this, List.of(
+                new Game(11, 1, 2024, GameDates.parse("2024-03-15T08:40:00Z"), 3, 4, 100, 50, 3, 100))));
+        ladderEngine.computeLadder(1, ladderEngine.toWatchedBits(List.of(10)));
+        verify(gameDao, times(2)).findAllGames();
+
+        ladderEngine.onGamesSaved(new GamesSavedEvent(this, List.of(
+                new Game(10, 2, 2024, GameDates.parse("2024-03-22T08:40:00Z"), 1, 2, 100, 50, 1, 100))));
+        ladderEngine.computeLadder(1, ladderEngine.toWatchedBits(List.of(10)));
+        verify(gameDao, times(3)).findAllGames();
+    }
+
+    private List<Game> randomSeason(Random random) {
+        List<Game> games = new ArrayList<>();
+        int gameId = 35000;
+        for (int round = 1; round <= 23; round++) {
+            for (int match = 0; match < 9; match++) {
+                int home = 1 + (match * 2 + round) % 18;
+                int away = 1 + (match * 2 + round + 1) % 18;
+                int hscore = 40 + random.nextInt(80);
+                int ascore = 40 + random.nextInt(80);
+                Integer winner = hscore > ascore ? Integer.valueOf(home) : hscore < ascore ? Integer.valueOf(away) : null;
+                games.add(new Game(gameId++, round, 2024, GameDates.parse("2024-03-15T08:40:00Z"), home, away, hscore, ascore, winner, 100));
+            }
+        }
+        return games;
+    }
+}
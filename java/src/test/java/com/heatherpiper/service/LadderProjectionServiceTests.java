@@ -0,0 +1,191 @@
+package com.heatherpiper.service;
+
+import com.heatherpiper.dao.GameDao;
+import com.heatherpiper.dao.TeamDao;
+import com.heatherpiper.dao.WatchedGamesDao;
+import com.heatherpiper.model.Game;
+import com.heatherpiper.model.GameDates;
+import com.heatherpiper.model.LadderProjection;
+import com.heatherpiper.model.Team;
+import com.heatherpiper.model.TeamProjection;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class LadderProjectionServiceTests {
+
+    @Mock
+    private GameDao gameDao;
+
+    @Mock
+    private TeamDao teamDao;
+
+    @Mock
+    private WatchedGamesDao watchedGamesDao;
+
+    private final List<Team> teams = new ArrayList<>();
+    private final List<Game> games = new ArrayList<>();
+
+    private LadderProjectionService ladderProjectionService;
+
+    @BeforeEach
+    void setup() {
+        for (int teamId = 1; teamId <= 18; teamId++) {
+            teams.add(new Team(teamId, "Team " + teamId));
+        }
+        // Team 1 wins every game by a wide margin, Team 18 loses every game by a wide margin
+        int gameId = 35000;
+        for (int round = 1; round <= 10; round++) {
+            for (int match = 0; match < 9; match++) {
+                int home = 1 + (match * 2 + round) % 18;
+                int away = 1 + (match * 2 + round + 1) % 18;
+                int hscore = strength(home) > strength(away) ? 120 : 60;
+                int ascore = strength(home) > strength(away) ? 60 : 120;
+                int winner = hscore > ascore ? home : away;
+                games.add(new Game(gameId++, round, 2024, GameDates.parse("2024-03-15T08:40:00Z"), home, away, hscore, ascore, winner, 100));
+            }
+        }
+        when(teamDao.findAllTeams()).thenReturn(teams);
+        when(gameDao.findAllGames()).thenReturn(games);
+
+        ladderProjectionService = new LadderProjectionService(watchedGamesDao, new LadderEngine(gameDao, teamDao),
+                2000, 10_000, 2, 10);
+    }
+
+    @AfterEach
+    void tearDown() {
+        ladderProjectionService.shutdown();
+    }
+
+    @Test
+    void projectLadder_ProbabilitiesSumToOne() {
+        watchGamesUpToRound(5);
+
+        LadderProjection projection = ladderProjectionService.projectLadder(1, null);
+
+        assertEquals(2024, projection.getYear());
+        assertEquals(45, projection.getRemainingGames());
+        assertEquals(2000, projection.getSimulations());
+        assertTrue(projection.isComplete());
+        assertEquals(18, projection.getTeams().size());
+
+        double[] positionTotals = new double[18];
+        double finalsTotal = 0;
+        for (TeamProjection team : projection.getTeams()) {
+            double teamTotal = 0;
+            for (int position = 0; position < 18; position++) {
+                teamTotal += team.getPositionProbabilities()[position];
+                positionTotals[position] += team.getPositionProbabilities()[position];
+            }
+            assertEquals(1.0, teamTotal, 1e-9);
+            finalsTotal += team.getFinalsProbability();
+        }
+        for (double positionTotal : positionTotals) {
+            assertEquals(1.0, positionTotal, 1e-9);
+        }
+        assertEquals(LadderProjectionService.FINALS_SPOTS, finalsTotal, 1e-9);
+
+        // The strongest watched team is projected first and the weakest last
+        assertEquals("Team 1", projection.getTeams().get(0).getTeamName());
+        assertTrue(projection.getTeams().get(0).getFinalsProbability() > 0.99);
+        assertEquals("Team 18", projection.getTeams().get(17).getTeamName());
+    }
+
+    @Test
+    void projectLadder_withEverythingWatched_ReturnsCurrentLadder() {
+        watchGamesUpToRound(10);
+
+        LadderProjection projection = ladderProjectionService.projectLadder(1, 2024);
+
+        assertEquals(0, projection.getRemainingGames());
+        assertEquals(1, projection.getSimulations());
+        for (TeamProjection team : projection.getTeams()) {
+            assertEquals(1.0, team.getPositionProbabilities()[team.getCurrentPosition() - 1]);
+            assertEquals(team.getCurrentPosition(), team.getExpectedPosition(), 1e-9);
+        }
+    }
+
+    @Test
+    void projectLadder_IsCachedUntilWatchedGamesChange() {
+        watchGamesUpToRound(5);
+
+        LadderProjection first = ladderProjectionService.projectLadder(1, 2024);
+        LadderProjection second = ladderProjectionService.projectLadder(1, 2024);
+        assertSame(first, second);
+        verify(watchedGamesDao, times(1)).findUnwatchedGames(1, 2024);
+
+        watchGamesUpToRound(6);
+        LadderProjection third = ladderProjectionService.projectLadder(1, 2024);
+        assertEquals(36, third.getRemainingGames());
+        verify(watchedGamesDao, times(2)).findUnwatchedGames(1, 2024);
+    }
+
+    @Test
+    void projectLadder_whenTimeBudgetRunsOut_ReturnsPartialProjection() {
+        LadderProjectionService budgeted = new LadderProjectionService(watchedGamesDao, new LadderEngine(gameDao, teamDao),
+                50_000_000, 1, 1, 10);
+        try {
+            watchGamesUpToRound(1);
+
+            LadderProjection projection = budgeted.projectLadder(1, 2024);
+
+            assertFalse(projection.isComplete());
+            assertTrue(projection.getSimulations() > 0);
+            assertTrue(projection.getSimulations() < 50_000_000);
+        } finally {
+            budgeted.shutdown();
+        }
+    }
+
+    @Test
+    void projectLadder_LeavesOutTeamsFromOtherSeasons() {
+        // Team 19 only played in a backfilled season
+        teams.add(new Team(19, "Team 19"));
+        games.add(new Game(30000, 1, 1996, GameDates.parse("1996-03-30T03:00:00Z"), 19, 2, 100, 50, 19, 100));
+        watchGamesUpToRound(5);
+
+        LadderProjection projection = ladderProjectionService.projectLadder(1, 2024);
+
+        assertEquals(18, projection.getTeams().size());
+        assertTrue(projection.getTeams().stream().noneMatch(team -> team.getTeamId() == 19));
+        for (TeamProjection team : projection.getTeams()) {
+            assertEquals(18, team.getPositionProbabilities().length);
+            assertTrue(team.getCurrentPosition() >= 1 && team.getCurrentPosition() <= 18);
+        }
+    }
+
+    @Test
+    void projectLadder_forSeasonWithoutGames_ThrowsException() {
+        assertThrows(IllegalArgumentException.class, () -> ladderProjectionService.projectLadder(1, 1999));
+    }
+
+    private void watchGamesUpToRound(int round) {
+        List<Integer> watched = games.stream().filter(game -> game.getRound() <= round).map(Game::getId)
+                .collect(Collectors.toList());
+        List<Game> unwatched = games.stream().filter(game -> game.getYear() == 2024 && game.getRound() > round)
+                .collect(Collectors.toList());
+        when(watchedGamesDao.findWatchedGameIds(1)).thenReturn(watched);
+        when(watchedGamesDao.findUnwatchedGames(1, 2024)).thenReturn(unwatched);
+    }
+
+    private static int strength(int teamId) {
+        return 18 - teamId;
+    }
+}
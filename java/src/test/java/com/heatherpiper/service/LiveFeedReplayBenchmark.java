@@ -0,0 +1,147 @@
+package com.heatherpiper.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.heatherpiper.dao.GameDao;
+import com.heatherpiper.dao.TeamDao;
+import com.heatherpiper.dao.WatchedGamesDao;
+import com.heatherpiper.model.Team;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.net.http.HttpClient;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Replays a recorded match day through {@link SquiggleService#processSseEvent} as fast as it can be processed, and
+ * reports the event throughput and the database writes it causes, with and without the live batch window.
+ *
+ * <p>The recording is generated: nine games played at once, each with a score update every few seconds of play. The
+ * database is mocked, so the throughput is that of decoding, the scoreboard and batching alone.
+ *
+ * <p>Surefire does not pick this class up by default. Run it with <code>mvn test -Dtest=LiveFeedReplayBenchmark</code>.
+ */
+public class LiveFeedReplayBenchmark {
+
+    private static final int GAMES = 9;
+    private static final int UPDATES_PER_GAME = 600;
+    private static final int CHUNK_SIZE = 1_460;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void replayMatchDay() throws Exception {
+        Path file = directory.resolve("match-day.rec");
+        int events = record(file);
+
+        // Warm up, then measure
+        replay(file, 2000);
+        Result unbatched = replay(file, 0);
+        Result batched = replay(file, 2000);
+
+        System.out.printf("Match day of %d games, %d events%n", GAMES, events);
+        System.out.printf("  no batch window:   %8d events/s  %5d saves  %5d games saved%n",
+                unbatched.eventsPerSecond, unbatched.saves, unbatched.gamesSaved);
+        System.out.printf("  2000 ms window:    %8d events/s  %5d saves  %5d games saved%n",
+                batched.eventsPerSecond, batched.saves, batched.gamesSaved);
+
+        assertEquals(events, batched.events);
+    }
+
+    private static int record(Path file) throws Exception {
+        StringBuilder feed = new StringBuilder();
+        int events = 0;
+        for (int game = 0; game < GAMES; game++) {
+            feed.append("event: addGame\ndata: {\"id\":").append(35000 + game)
+                    .append(",\"round\":1,\"year\":2024,\"hteam\":").append(2 * game + 1).append(",\"ateam\":")
+                    .append(2 * game + 2).append(",\"hscore\":0,\"ascore\":0,\"complete\":0,\"timestr\":\"Q1 0:00\"}\n\n");
+            events++;
+        }
+        for (int update = 1; update <= UPDATES_PER_GAME; update++) {
+            for (int game = 0; game < GAMES; game++) {
+                int complete = update * 99 / UPDATES_PER_GAME;
+                feed.append("id: ").append(events).append("\nevent: score\ndata: {\"gameid\":").append(35000 + game)
+                        .append(",\"score\":{\"hscore\":").append(update / 4).append(",\"ascore\":")
+                        .append(update / 5).append("},\"complete\":").append(complete).append(",\"timestr\":\"Q")
+                        .append(1 + complete / 25).append(" ").append(update % 60).append(":00\"}\n\n");
+                events++;
+            }
+        }
+        for (int game = 0; game < GAMES; game++) {
+            feed.append("event: removeGame\ndata: {\"id\":").append(35000 + game)
+                    .append(",\"round\":1,\"year\":2024,\"hteam\":").append(2 * game + 1).append(",\"ateam\":")
+                    .append(2 * game + 2).append(",\"hscore\":").append(UPDATES_PER_GAME / 4)
+                    .append(",\"ascore\":").append(UPDATES_PER_GAME / 5).append(",\"winner\":").append(2 * game + 1)
+                    .append(",\"complete\":100}\n\n");
+            events++;
+        }
+
+        byte[] bytes = feed.toString().getBytes(StandardCharsets.UTF_8);
+        try (SseFeedRecorder recorder = new SseFeedRecorder(file)) {
+            recorder.connectionOpened();
+            for (int start = 0; start < bytes.length; start += CHUNK_SIZE) {
+                recorder.record(ByteBuffer.wrap(bytes, start, Math.min(CHUNK_SIZE, bytes.length - start)));
+            }
+        }
+        return events;
+    }
+
+    private static Result replay(Path file, long batchWindowMillis) throws Exception {
+        GameDao gameDao = mock(GameDao.class);
+        TeamDao teamDao = mock(TeamDao.class);
+        List<Team> teams = new ArrayList<>();
+        for (int teamId = 1; teamId <= 2 * GAMES; teamId++) {
+            teams.add(new Team(teamId, "Team " + teamId));
+        }
+        when(teamDao.findAllTeams()).thenReturn(teams);
+        AtomicInteger saves = new AtomicInteger();
+        AtomicInteger gamesSaved = new AtomicInteger();
+        doAnswer(invocation -> {
+            saves.incrementAndGet();
+            gamesSaved.addAndGet(invocation.<List<?>>getArgument(0).size());
+            return null;
+        }).when(gameDao).saveAll(anyList());
+
+        SquiggleService squiggleService = new SquiggleService(new SquiggleHttpCache(mock(HttpClient.class), "", 0),
+                gameDao, mock(WatchedGamesDao.class), mock(PlatformTransactionManager.class), new TeamDictionary(teamDao), new ObjectMapper(), mock(ApplicationEventPublisher.class),
+                new LiveScoreboard(), "https://api.squiggle.com.au", batchWindowMillis, 64, "", "", 0);
+        AtomicInteger events = new AtomicInteger();
+
+        long start = System.nanoTime();
+        new SseFeedReplay(file, 0).events()
+                .doOnNext(event -> events.incrementAndGet())
+                .concatMap(squiggleService::processSseEvent)
+                .blockLast();
+        squiggleService.onDestroy();
+        long elapsedNanos = System.nanoTime() - start;
+
+        return new Result(events.get(), events.get() * 1_000_000_000L / elapsedNanos, saves.get(), gamesSaved.get());
+    }
+
+    private static final class Result {
+        private final int events;
+        private final long eventsPerSecond;
+        private final int saves;
+        private final int gamesSaved;
+
+        private Result(int events, long eventsPerSecond, int saves, int gamesSaved) {
+            this.events = events;
+            this.eventsPerSecond = eventsPerSecond;
+            this.saves = saves;
+            this.gamesSaved = gamesSaved;
+        }
+    }
+}
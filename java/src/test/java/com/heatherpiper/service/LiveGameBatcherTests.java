@@ -0,0 +1,105 @@
+package com.heatherpiper.service;
+
+import com.heatherpiper.model.Game;
+import com.heatherpiper.model.GameDates;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LiveGameBatcherTests {
+
+    private final List<List<Game>> batches = new CopyOnWriteArrayList<>();
+    private LiveGameBatcher batcher;
+
+    @AfterEach
+    public void tearDown() {
+        batcher.close();
+    }
+
+    @Test
+    public void submit_CoalescesUpdatesPerGameWithinWindow() throws Exception {
+        CountDownLatch saved = new CountDownLatch(1);
+        batcher = new LiveGameBatcher(batch -> {
+            batches.add(batch);
+            saved.countDown();
+        }, 100, 64);
+
+        batcher.submit(game(1, 10)).block();
+        batcher.submit(game(2, 5)).block();
+        batcher.submit(game(1, 16)).block();
+
+        assertTrue(saved.await(5, TimeUnit.SECONDS));
+        assertEquals(1, batches.size());
+        assertEquals(List.of(1, 2), ids(batches.get(0)));
+        assertEquals(16, batches.get(0).get(0).getHscore());
+    }
+
+    @Test
+    public void submit_whenFull_WaitsForBatchToBeSaved() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        batcher = new LiveGameBatcher(batch -> {
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            batches.add(batch);
+        }, 60_000, 2);
+
+        batcher.submit(game(1, 10)).block();
+        Mono<Void> full = batcher.submit(game(2, 10)).cache();
+        full.subscribe();
+
+        // The batch is saved without waiting for the window, but the submit only completes once it has been saved
+        assertThrows(IllegalStateException.class, () -> full.block(Duration.ofMillis(100)));
+        release.countDown();
+        full.block(Duration.ofSeconds(5));
+        assertEquals(List.of(1, 2), ids(batches.get(0)));
+    }
+
+    @Test
+    public void close_SavesPendingUpdates() {
+        batcher = new LiveGameBatcher(batches::add, 60_000, 64);
+
+        batcher.submit(game(1, 10)).block();
+        batcher.close();
+
+        assertEquals(1, batches.size());
+        assertEquals(List.of(1), ids(batches.get(0)));
+        assertThrows(IllegalStateException.class, () -> batcher.submit(game(2, 10)).block());
+    }
+
+    @Test
+    public void flush_whenSaveFails_ContinuesWithNextBatch() {
+        batcher = new LiveGameBatcher(batch -> {
+            if (batches.isEmpty()) {
+                batches.add(List.of());
+                throw new IllegalStateException("database unavailable");
+            }
+            batches.add(batch);
+        }, 60_000, 1);
+
+        batcher.submit(game(1, 10)).block(Duration.ofSeconds(5));
+        batcher.submit(game(2, 10)).block(Duration.ofSeconds(5));
+
+        assertEquals(2, batches.size());
+        assertEquals(List.of(2), ids(batches.get(1)));
+    }
+
+    private static Game game(int id, int hscore) {
+        return new Game(id, 1, 2024, GameDates.parse("2024-03-15 19:40:00"), 7, 4, hscore, 0, null, 50);
+    }
+
+    private static List<Integer> ids(List<Game> games) {
+        return games.stream().map(Game::getId).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,59 @@
+package com.heatherpiper.service;
+
+import com.heatherpiper.model.GameDates;
+import com.heatherpiper.model.LiveGame;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LiveScoreboardTests {
+
+    private final LiveScoreboard liveScoreboard = new LiveScoreboard();
+
+    @Test
+    public void apply_OnlyQuarterChangesAndFinalResultsAreMeaningful() {
+        assertTrue(liveScoreboard.apply(1, previous -> game(1, 0, 0, 1)).isMeaningful());
+        assertFalse(update(1, 6, 0, 10).isMeaningful());
+        assertFalse(update(1, 12, 7, 24).isMeaningful());
+        assertTrue(update(1, 18, 7, 25).isMeaningful());
+        assertTrue(update(1, 80, 75, 100).isMeaningful());
+        assertFalse(update(1, 80, 75, 100).isMeaningful());
+        // A correction to the final score is saved
+        assertTrue(update(1, 80, 81, 100).isMeaningful());
+
+        assertEquals(81, liveScoreboard.getGame(1).getAscore());
+        assertFalse(liveScoreboard.apply(1, previous -> null).isMeaningful());
+        assertNull(liveScoreboard.getGame(1));
+    }
+
+    @Test
+    public void getGames_ReturnsSnapshotOrderedById() {
+        liveScoreboard.apply(3, previous -> game(3, 0, 0, 5));
+        liveScoreboard.apply(1, previous -> game(1, 0, 0, 5));
+        List<LiveGame> snapshot = liveScoreboard.getGames();
+
+        liveScoreboard.apply(2, previous -> game(2, 0, 0, 5));
+        liveScoreboard.retainOnly(List.of(2, 3));
+
+        assertEquals(List.of(1, 3), ids(snapshot));
+        assertEquals(List.of(2, 3), ids(liveScoreboard.getGames()));
+    }
+
+    private LiveScoreboard.Transition update(int gameId, int hscore, int ascore, int complete) {
+        return liveScoreboard.apply(gameId,
+                previous -> previous.withUpdate(hscore, ascore, complete, null, null, Instant.now()));
+    }
+
+    private static LiveGame game(int id, int hscore, int ascore, int complete) {
+        return new LiveGame(id, 1, 2024, GameDates.parse("2024-03-15 19:40:00"), 7, 4, hscore, ascore, null,
+                complete, "Q1 0:01", Instant.now());
+    }
+
+    private static List<Integer> ids(List<LiveGame> games) {
+        return games.stream().map(LiveGame::getId).collect(Collectors.toList());
+    }
+}
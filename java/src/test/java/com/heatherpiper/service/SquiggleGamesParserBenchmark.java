@@ -0,0 +1,135 @@
+package com.heatherpiper.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.heatherpiper.model.Game;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compares the time and allocation of parsing a season of Squiggle games with {@link SquiggleGamesParser} against the
+ * previous tree-based parse.
+ *
+ * <p>Surefire does not pick this class up by default. Run it with
+ * <code>mvn test -Dtest=SquiggleGamesParserBenchmark</code>; results are printed per season parsed.
+ */
+public class SquiggleGamesParserBenchmark {
+
+    private static final int ROUNDS = 24;
+    private static final int GAMES_PER_ROUND = 9;
+    private static final int WARMUP_ITERATIONS = 2_000;
+    private static final int MEASURED_ITERATIONS = 5_000;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    public void parseSeason() throws IOException {
+        byte[] season = seasonResponse();
+        SquiggleGamesParser streaming = new SquiggleGamesParser(objectMapper);
+
+        assertEquals(ROUNDS * GAMES_PER_ROUND, streaming.parse(season).size());
+        assertEquals(ROUNDS * GAMES_PER_ROUND, parseWithTree(season).size());
+
+        Result tree = measure(() -> parseWithTree(season));
+        Result stream = measure(() -> streaming.parse(season));
+
+        System.out.printf("Season of %d games, %d bytes%n", ROUNDS * GAMES_PER_ROUND, season.length);
+        System.out.printf("  tree:      %8.1f us/season  %10d bytes/season%n", tree.micros, tree.bytes);
+        System.out.printf("  streaming: %8.1f us/season  %10d bytes/season%n", stream.micros, stream.bytes);
+
+        assertTrue(stream.bytes < tree.bytes, "Streaming parse should allocate less than the tree parse");
+    }
+
+    /**
+     * The parse used before {@link SquiggleGamesParser}: a new mapper per call, the whole document read into a tree, and
+     * each game converted from its node.
+     */
+    private static List<Game> parseWithTree(byte[] body) throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper();
+        List<Game> games = new ArrayList<>();
+        JsonNode gamesNode = objectMapper.readTree(new String(body, StandardCharsets.UTF_8)).path("games");
+        for (JsonNode gameNode : gamesNode) {
+            games.add(objectMapper.treeToValue(gameNode, Game.class));
+        }
+        return games;
+    }
+
+    private static Result measure(SeasonParse parse) throws IOException {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+
+        int sink = 0;
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            sink += parse.run().size();
+        }
+        long bytesBefore = threads.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            sink += parse.run().size();
+        }
+        long elapsed = System.nanoTime() - start;
+        long allocated = threads.getThreadAllocatedBytes(threadId) - bytesBefore;
+
+        assertEquals((WARMUP_ITERATIONS + MEASURED_ITERATIONS) * ROUNDS * GAMES_PER_ROUND, sink);
+        return new Result(elapsed / 1000.0 / MEASURED_ITERATIONS, allocated / MEASURED_ITERATIONS);
+    }
+
+    /**
+     * A full season response in the shape the Squiggle API returns, including the fields {@link Game} ignores.
+     */
+    private static byte[] seasonResponse() {
+        StringBuilder json = new StringBuilder("{\"games\":[");
+        int id = 35000;
+        for (int round = 1; round <= ROUNDS; round++) {
+            for (int match = 0; match < GAMES_PER_ROUND; match++) {
+                if (id > 35000) {
+                    json.append(',');
+                }
+                int hscore = 60 + (id * 7) % 60;
+                int ascore = 60 + (id * 13) % 60;
+                String home = "Home " + match;
+                String away = "Away " + match;
+                json.append("{\"id\":").append(id++)
+                        .append(",\"round\":").append(round)
+                        .append(",\"roundname\":\"Round ").append(round).append('"')
+                        .append(",\"year\":2024")
+                        .append(",\"date\":\"2024-03-15 19:40:00\",\"localtime\":\"2024-03-15 19:40:00\"")
+                        .append(",\"tz\":\"+11:00\",\"unixtime\":1710492000,\"updated\":\"2024-03-15 22:37:21\"")
+                        .append(",\"hteam\":\"").append(home).append("\",\"hteamid\":").append(match + 1)
+                        .append(",\"ateam\":\"").append(away).append("\",\"ateamid\":").append(match + 10)
+                        .append(",\"hscore\":").append(hscore).append(",\"hgoals\":").append(hscore / 6)
+                        .append(",\"hbehinds\":").append(hscore % 6)
+                        .append(",\"ascore\":").append(ascore).append(",\"agoals\":").append(ascore / 6)
+                        .append(",\"abehinds\":").append(ascore % 6)
+                        .append(",\"winner\":\"").append(hscore >= ascore ? home : away).append('"')
+                        .append(",\"winnerteamid\":").append(hscore >= ascore ? match + 1 : match + 10)
+                        .append(",\"venue\":\"M.C.G.\",\"complete\":100,\"timestr\":\"Full Time\"")
+                        .append(",\"is_final\":0,\"is_grand_final\":0}");
+            }
+        }
+        json.append("]}");
+        return json.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private interface SeasonParse {
+        List<Game> run() throws IOException;
+    }
+
+    private static class Result {
+        private final double micros;
+        private final long bytes;
+
+        private Result(double micros, long bytes) {
+            this.micros = micros;
+            this.bytes = bytes;
+        }
+    }
+}
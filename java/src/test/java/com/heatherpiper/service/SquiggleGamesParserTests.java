@@ -0,0 +1,62 @@
+package com.heatherpiper.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.heatherpiper.model.Game;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SquiggleGamesParserTests {
+
+    private final SquiggleGamesParser parser = new SquiggleGamesParser(new ObjectMapper());
+
+    @Test
+    public void parse_SkipsOtherFieldsAndReadsEveryGame() throws IOException {
+        String json = "{\"warnings\":[{\"message\":\"{\\\"games\\\":[]}\"}],\"meta\":{\"games\":{\"id\":1}}," +
+                "\"games\":[{\"id\":34261,\"round\":1,\"year\":2023,\"date\":\"2023-03-17 19:40:00\"," +
+                "\"hteam\":\"Geelong\",\"hteamid\":7,\"ateam\":\"Collingwood\",\"ateamid\":4,\"hscore\":103," +
+                "\"ascore\":125,\"winner\":\"Collingwood\",\"winnerteamid\":4,\"complete\":100,\"venue\":\"M.C.G.\"," +
+                "\"tz\":\"+11:00\"},{\"id\":34262,\"round\":1,\"year\":2023,\"hteam\":\"Carlton\",\"hteamid\":3," +
+                "\"ateam\":\"Richmond\",\"ateamid\":14,\"hscore\":null,\"ascore\":null,\"winner\":null," +
+                "\"winnerteamid\":null,\"complete\":0}],\"trailing\":true}";
+
+        List<Game> games = parser.parse(json.getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(2, games.size());
+        Game first = games.get(0);
+        assertEquals(34261, first.getId());
+        assertEquals(OffsetDateTime.parse("2023-03-17T08:40:00Z"), first.getDate());
+        assertEquals(7, first.getHteamId());
+        assertEquals("Geelong", first.getHteamName());
+        assertEquals(125, first.getAscore());
+        assertEquals(4, first.getWinnerId());
+        assertEquals(100, first.getComplete());
+        assertEquals(34262, games.get(1).getId());
+        assertNull(games.get(1).getHscore());
+        assertNull(games.get(1).getWinnerId());
+    }
+
+    @Test
+    public void parse_ReadsStartTimesInMelbourneTimeAsUtc() throws IOException {
+        String json = "{\"games\":[{\"id\":1,\"date\":\"2024-03-15 19:40:00\"}," +
+                "{\"id\":2,\"date\":\"2024-07-13 13:45:00\"},{\"id\":3,\"date\":\"2024-07-13T03:45:00Z\"}]}";
+
+        List<Game> games = parser.parse(json.getBytes(StandardCharsets.UTF_8));
+
+        // Daylight saving time ends in April, so winter games are ten hours ahead of UTC rather than eleven
+        assertEquals(OffsetDateTime.parse("2024-03-15T08:40:00Z"), games.get(0).getDate());
+        assertEquals(OffsetDateTime.parse("2024-07-13T03:45:00Z"), games.get(1).getDate());
+        assertEquals(games.get(1).getDate(), games.get(2).getDate());
+        assertTrue(new ObjectMapper().writeValueAsString(games.get(1)).contains("\"date\":\"2024-07-13T03:45:00Z\""));
+    }
+
+    @Test
+    public void parse_whenBodyIsNotAnObject_ThrowsIOException() {
+        assertThrows(IOException.class, () -> parser.parse("[]".getBytes(StandardCharsets.UTF_8)));
+    }
+}
@@ -0,0 +1,132 @@
+package com.heatherpiper.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class SquiggleHttpCacheTests {
+
+    private static final String URL = "https://api.squiggle.com.au/?q=games;year=2024";
+
+    @Mock
+    private HttpClient mockHttpClient;
+
+    @TempDir
+    Path cacheDirectory;
+
+    private final AtomicInteger parses = new AtomicInteger();
+    private final Function<byte[], String> parser = body -> {
+        parses.incrementAndGet();
+        return new String(body, StandardCharsets.UTF_8).toUpperCase();
+    };
+
+    @BeforeEach
+    public void setup() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @Test
+    public void fetch_whenNotModified_ReturnsCachedParsedResult() throws Exception {
+        respondWith(response(200, "games", Map.of("ETag", List.of("\"v1\""))), response(304, "", Map.of()));
+        SquiggleHttpCache cache = new SquiggleHttpCache(mockHttpClient, cacheDirectory.toString(), 1024);
+
+        SquiggleHttpCache.CachedResponse<String> first = cache.fetch(URL, parser);
+        SquiggleHttpCache.CachedResponse<String> second = cache.fetch(URL, parser);
+
+        assertFalse(first.isNotModified());
+        assertTrue(second.isNotModified());
+        assertSame(first.getValue(), second.getValue());
+        assertEquals(1, parses.get());
+
+        List<HttpRequest> requests = sentRequests(2);
+        assertFalse(requests.get(0).headers().firstValue("If-None-Match").isPresent());
+        assertEquals("\"v1\"", requests.get(1).headers().firstValue("If-None-Match").orElse(null));
+    }
+
+    @Test
+    public void fetch_afterRestart_ParsesCachedBodyFromDisk() throws Exception {
+        respondWith(response(200, "games", Map.of("Last-Modified", List.of("Sat, 16 Mar 2024 10:00:00 GMT"))),
+                response(304, "", Map.of()));
+        new SquiggleHttpCache(mockHttpClient, cacheDirectory.toString(), 1024).fetch(URL, parser);
+
+        SquiggleHttpCache restarted = new SquiggleHttpCache(mockHttpClient, cacheDirectory.toString(), 1024);
+        SquiggleHttpCache.CachedResponse<String> response = restarted.fetch(URL, parser);
+
+        assertTrue(response.isNotModified());
+        assertEquals("GAMES", response.getValue());
+        assertEquals("Sat, 16 Mar 2024 10:00:00 GMT",
+                sentRequests(2).get(1).headers().firstValue("If-Modified-Since").orElse(null));
+    }
+
+    @Test
+    public void fetch_whenFull_EvictsLeastRecentlyUsedResponse() throws Exception {
+        respondWith(response(200, "0123456789", Map.of("ETag", List.of("\"a\""))),
+                response(200, "abcdefghij", Map.of("ETag", List.of("\"b\""))));
+        SquiggleHttpCache cache = new SquiggleHttpCache(mockHttpClient, cacheDirectory.toString(), 15);
+
+        cache.fetch(URL + ";round=1", parser);
+        cache.fetch(URL + ";round=2", parser);
+
+        // Only the second response fits, so the first was evicted from disk
+        List<Path> bodies;
+        try (Stream<Path> files = Files.list(cacheDirectory)) {
+            bodies = files.filter(file -> file.toString().endsWith(".json")).collect(Collectors.toList());
+        }
+        assertEquals(1, bodies.size());
+        assertEquals("abcdefghij", Files.readString(bodies.get(0)));
+    }
+
+    @Test
+    public void fetch_withoutDirectory_DoesNotSendValidators() throws Exception {
+        respondWith(response(200, "games", Map.of("ETag", List.of("\"v1\""))),
+                response(200, "games", Map.of("ETag", List.of("\"v1\""))));
+        SquiggleHttpCache cache = new SquiggleHttpCache(mockHttpClient, "", 1024);
+
+        cache.fetch(URL, parser);
+        cache.fetch(URL, parser);
+
+        assertEquals(2, parses.get());
+        assertFalse(sentRequests(2).get(1).headers().firstValue("If-None-Match").isPresent());
+    }
+
+    @SafeVarargs
+    private void respondWith(HttpResponse<byte[]> first, HttpResponse<byte[]>... rest) throws Exception {
+        when(mockHttpClient.<byte[]>send(any(HttpRequest.class), any())).thenReturn(first, rest);
+    }
+
+    private List<HttpRequest> sentRequests(int count) throws Exception {
+        ArgumentCaptor<HttpRequest> requestCaptor = ArgumentCaptor.forClass(HttpRequest.class);
+        verify(mockHttpClient, times(count)).send(requestCaptor.capture(), any());
+        return requestCaptor.getAllValues();
+    }
+
+    private HttpResponse<byte[]> response(int status, String body, Map<String, List<String>> headers) {
+        @SuppressWarnings("unchecked")
+        HttpResponse<byte[]> response = mock(HttpResponse.class);
+        when(response.statusCode()).thenReturn(status);
+        when(response.body()).thenReturn(body.getBytes(StandardCharsets.UTF_8));
+        when(response.headers()).thenReturn(HttpHeaders.of(headers, (name, value) -> true));
+        return response;
+    }
+}
@@ -0,0 +1,119 @@
+package com.heatherpiper.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.heatherpiper.dao.GameDao;
+import com.heatherpiper.dao.TeamDao;
+import com.heatherpiper.dao.WatchedGamesDao;
+import com.heatherpiper.model.Game;
+import com.heatherpiper.model.GameDates;
+import com.heatherpiper.model.Team;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Measures ingest from a {@link SquiggleStubServer} over real HTTP: how many games per second whole seasons are loaded
+ * at, with and without response latency, and how long the live feed takes to reconnect after the server closes it.
+ *
+ * <p>The database is mocked, so the results cover HTTP, parsing and the service's own work.
+ *
+ * <p>Surefire does not pick this class up by default. Run it with <code>mvn test -Dtest=SquiggleIngestBenchmark</code>.
+ */
+public class SquiggleIngestBenchmark {
+
+    private static final int FIRST_YEAR = 2000;
+    private static final int SEASONS = 20;
+    private static final int GAMES_PER_SEASON = 207;
+    private static final int LIVE_EVENTS = 400;
+    private static final int EVENTS_PER_CONNECTION = 20;
+
+    @Test
+    public void ingest() throws Exception {
+        try (SquiggleStubServer stub = SquiggleStubServer.start()) {
+            stub.addGames(seasons());
+            LiveScoreboard liveScoreboard = new LiveScoreboard();
+            SquiggleService squiggleService = squiggleService(stub, liveScoreboard);
+
+            // Warm up, then measure
+            loadSeasons(squiggleService);
+            double gamesPerSecond = loadSeasons(squiggleService);
+            stub.setLatency(Duration.ofMillis(20));
+            double gamesPerSecondWithLatency = loadSeasons(squiggleService);
+            stub.setLatency(Duration.ZERO);
+
+            for (int i = 1; i < LIVE_EVENTS; i++) {
+                stub.addLiveEvent(i == 1 ? "addGame" : "score", i == 1
+                        ? "{\"id\":1,\"round\":1,\"year\":2024,\"hteam\":1,\"ateam\":2,\"complete\":0}"
+                        : "{\"gameid\":1,\"score\":{\"hscore\":" + i + ",\"ascore\":0},\"complete\":" + i * 99 / LIVE_EVENTS + "}");
+            }
+            stub.addLiveEvent("removeGame", "{\"id\":1,\"round\":1,\"year\":2024,\"hteam\":1,\"ateam\":2," +
+                    "\"hscore\":400,\"ascore\":0,\"winner\":1,\"complete\":100}");
+            stub.disconnectAfterEvents(EVENTS_PER_CONNECTION);
+            stub.setRetryMillis(0);
+
+            long start = System.nanoTime();
+            squiggleService.subscribeToGameUpdates();
+            int connections = LIVE_EVENTS / EVENTS_PER_CONNECTION;
+            long deadline = start + Duration.ofSeconds(60).toNanos();
+            while (stub.getConnectionCount() < connections || !liveScoreboard.getGames().isEmpty()) {
+                assertTrue(System.nanoTime() < deadline, "Timed out waiting for the live feed");
+                Thread.sleep(1);
+            }
+            long liveElapsedNanos = System.nanoTime() - start;
+            squiggleService.onDestroy();
+
+            List<Long> reconnects = stub.getReconnectNanos();
+            double meanReconnectMillis = reconnects.stream().mapToLong(Long::longValue).average().orElse(0) / 1e6;
+            long maxReconnectMillis = reconnects.stream().mapToLong(Long::longValue).max().orElse(0) / 1_000_000;
+
+            System.out.printf("Loaded %d seasons of %d games%n", SEASONS, GAMES_PER_SEASON);
+            System.out.printf("  no latency:        %10.0f games/s%n", gamesPerSecond);
+            System.out.printf("  20 ms latency:     %10.0f games/s%n", gamesPerSecondWithLatency);
+            System.out.printf("Live feed of %d events over %d connections%n", LIVE_EVENTS, connections);
+            System.out.printf("  %.0f events/s, reconnect mean %.1f ms, max %d ms%n",
+                    LIVE_EVENTS * 1e9 / liveElapsedNanos, meanReconnectMillis, maxReconnectMillis);
+
+            assertEquals(connections, stub.getLastEventIds().size());
+        }
+    }
+
+    private static double loadSeasons(SquiggleService squiggleService) {
+        long start = System.nanoTime();
+        int games = 0;
+        for (int year = FIRST_YEAR; year < FIRST_YEAR + SEASONS; year++) {
+            games += squiggleService.loadSeason(year).getGames().size();
+        }
+        assertEquals(SEASONS * GAMES_PER_SEASON, games);
+        return games * 1e9 / (System.nanoTime() - start);
+    }
+
+    private static SquiggleService squiggleService(SquiggleStubServer stub, LiveScoreboard liveScoreboard)
+            throws Exception {
+        TeamDao teamDao = mock(TeamDao.class);
+        when(teamDao.findAllTeams()).thenReturn(List.of(new Team(1, "Geelong"), new Team(2, "Collingwood")));
+        return new SquiggleService(new SquiggleHttpCache(HttpClient.newHttpClient(), "", 0), mock(GameDao.class),
+                mock(WatchedGamesDao.class), mock(PlatformTransactionManager.class), new TeamDictionary(teamDao), new ObjectMapper(), mock(ApplicationEventPublisher.class), liveScoreboard,
+                stub.getBaseUrl(), 2000, 64, "", "", 1);
+    }
+
+    private static List<Game> seasons() {
+        List<Game> games = new ArrayList<>();
+        for (int year = FIRST_YEAR; year < FIRST_YEAR + SEASONS; year++) {
+            for (int i = 0; i < GAMES_PER_SEASON; i++) {
+                games.add(new Game(year * 1000 + i, 1 + i / 9, year, GameDates.parse(year + "-03-16 19:20:00"), 1,
+                        2, 80 + i % 30, 70 + i % 25, i % 2 == 0 ? 1 : 2, 100));
+            }
+        }
+        return games;
+    }
+}
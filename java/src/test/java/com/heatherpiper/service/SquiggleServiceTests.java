@@ -3,18 +3,34 @@ package com.heatherpiper.service;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.heatherpiper.dao.GameDao;
 import com.heatherpiper.dao.TeamDao;
+import com.heatherpiper.dao.WatchedGamesDao;
+import com.heatherpiper.event.GamesSavedEvent;
 import com.heatherpiper.model.Game;
+import com.heatherpiper.model.GameDates;
+import com.heatherpiper.model.GameCorrection;
+import com.heatherpiper.model.LiveGame;
+import com.heatherpiper.model.SeasonSyncResult;
+import com.heatherpiper.model.Team;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.mockito.stubbing.Answer;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
+import reactor.core.publisher.Flux;
 
 import java.io.IOException;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -32,7 +48,17 @@ public class SquiggleServiceTests {
     private TeamDao mockTeamDao;
 
     @Mock
-    private ObjectMapper mockObjectMapper;
+    private WatchedGamesDao mockWatchedGamesDao;
+
+    @Mock
+    private PlatformTransactionManager mockTransactionManager;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final LiveScoreboard liveScoreboard = new LiveScoreboard();
+
+    @Mock
+    private ApplicationEventPublisher mockEventPublisher;
 
     private SquiggleService squiggleService;
 
@@ -43,12 +69,12 @@ public class SquiggleServiceTests {
                 "\"hteam\":\"Geelong\",\"agoals\":19,\"venue\":\"M.C.G.\",\"updated\":\"2023-03-17 22:37:21\",\"ascore\":125,\"unixtime\":1679042400,\"round\":1,\"id\":34261,\"localtime\":\"2023-03-17 19:40:00\",\"hscore\":103,\"complete\":100,\"year\":2023,\"ateam\":\"Collingwood\",\"hgoals\":16,\"date\":\"2023-03-17 19:40:00\",\"ateamid\":4,\"is_grand_final\":0,\"tz\":\"+11:00\",\"hbehinds\":7,\"hteamid\":7,\"is_final\":0,\"winnerteamid\":4,\"timestr\":\"Full Time\",\"abehinds\":11}]}";
 
         @SuppressWarnings("unchecked")
-        HttpResponse<String> mockResponse = mock(HttpResponse.class);
-        when(mockResponse.body()).thenReturn(jsonExample);
+        HttpResponse<byte[]> mockResponse = mock(HttpResponse.class);
+        when(mockResponse.body()).thenReturn(jsonExample.getBytes(StandardCharsets.UTF_8));
 
-        when(mockHttpClient.send(any(HttpRequest.class), any())).thenAnswer((Answer<HttpResponse<String>>) invocation -> mockResponse);
+        when(mockHttpClient.send(any(HttpRequest.class), any())).thenAnswer((Answer<HttpResponse<byte[]>>) invocation -> mockResponse);
 
-        squiggleService = new SquiggleService(mockHttpClient, mockGameDao, mockTeamDao, mockObjectMapper);
+        squiggleService = new SquiggleService(new SquiggleHttpCache(mockHttpClient, "", 0), mockGameDao, mockWatchedGamesDao, mockTransactionManager, new TeamDictionary(mockTeamDao), objectMapper, mockEventPublisher, liveScoreboard, "https://api.squiggle.com.au", 2000, 64, "", "", 1);
     }
 
     @Test
@@ -59,11 +85,38 @@ public class SquiggleServiceTests {
         assertFalse(games.isEmpty());
         assertEquals(1, games.size());
         Game firstGame = games.get(0);
-        assertEquals("Collingwood", firstGame.getAteam());
+        assertEquals(4, firstGame.getAteamId());
         assertEquals(103, firstGame.getHscore());
 
-        // Verify that the game was saved
+        // Verify that the game was saved and announced
         verify(mockGameDao).saveAll(anyList());
+        verify(mockEventPublisher).publishEvent(any(GamesSavedEvent.class));
+    }
+
+    @Test
+    public void fetchGamesForYearAndRound_withChangedStoredResult_PublishesCorrection() throws Exception {
+        Game stored = new Game(34261, 1, 2023, GameDates.parse("2023-03-17 19:40:00"), 7, 4, 103, 119, 4, 100);
+        when(mockGameDao.findGamesByIdsForUpdate(List.of(34261))).thenReturn(List.of(stored));
+        when(mockWatchedGamesDao.findUserIdsWatchingEachGame(List.of(34261))).thenReturn(Map.of(34261, List.of(1, 2)));
+
+        squiggleService.fetchGamesForYearAndRound(2023, 1);
+
+        ArgumentCaptor<GamesSavedEvent> eventCaptor = ArgumentCaptor.forClass(GamesSavedEvent.class);
+        verify(mockEventPublisher).publishEvent(eventCaptor.capture());
+        List<GameCorrection> corrections = eventCaptor.getValue().getCorrections();
+        assertEquals(1, corrections.size());
+        assertEquals(119, corrections.get(0).getPrevious().getAscore());
+        assertEquals(125, corrections.get(0).getCurrent().getAscore());
+        assertEquals(List.of(1, 2), corrections.get(0).getWatcherIds());
+
+        // The stored game is locked, saved and its watchers found in one transaction
+        InOrder inOrder = inOrder(mockTransactionManager, mockGameDao, mockWatchedGamesDao, mockEventPublisher);
+        inOrder.verify(mockTransactionManager).getTransaction(any());
+        inOrder.verify(mockGameDao).findGamesByIdsForUpdate(List.of(34261));
+        inOrder.verify(mockGameDao).saveAll(anyList());
+        inOrder.verify(mockWatchedGamesDao).findUserIdsWatchingEachGame(List.of(34261));
+        inOrder.verify(mockTransactionManager).commit(any());
+        inOrder.verify(mockEventPublisher).publishEvent(any(GamesSavedEvent.class));
     }
 
     @Test
@@ -83,8 +136,8 @@ public class SquiggleServiceTests {
     public void fetchGamesForRoundZero_ShouldReturnGames() throws Exception {
         String roundZeroJson = "{\"games\":[{\"winner\":\"Collingwood\",\"roundname\":\"Round 0\",\"hteam\":\"Geelong\",\"agoals\":19,\"venue\":\"M.C.G.\",\"updated\":\"2023-03-17 22:37:21\",\"ascore\":125,\"unixtime\":1679042400,\"round\":0,\"id\":34261,\"localtime\":\"2023-03-17 19:40:00\",\"hscore\":103,\"complete\":100,\"year\":2023,\"ateam\":\"Collingwood\",\"hgoals\":16,\"date\":\"2023-03-17 19:40:00\",\"ateamid\":4,\"is_grand_final\":0,\"tz\":\"+11:00\",\"hbehinds\":7,\"hteamid\":7,\"is_final\":0,\"winnerteamid\":4,\"timestr\":\"Full Time\",\"abehinds\":11}]}";
 
-        HttpResponse<String> mockResponse = mock(HttpResponse.class);
-        when(mockResponse.body()).thenReturn(roundZeroJson);
+        HttpResponse<byte[]> mockResponse = mock(HttpResponse.class);
+        when(mockResponse.body()).thenReturn(roundZeroJson.getBytes(StandardCharsets.UTF_8));
 
         when(mockHttpClient.send(any(HttpRequest.class), any(HttpResponse.BodyHandler.class)))
                 .thenAnswer(invocation -> mockResponse);
@@ -100,17 +153,17 @@ public class SquiggleServiceTests {
         MockitoAnnotations.openMocks(this);
 
         HttpClient mockHttpClient = mock(HttpClient.class);
-        SquiggleService squiggleService = new SquiggleService(mockHttpClient, mockGameDao, mockTeamDao, mockObjectMapper);
+        SquiggleService squiggleService = new SquiggleService(new SquiggleHttpCache(mockHttpClient, "", 0), mockGameDao, mockWatchedGamesDao, mockTransactionManager, new TeamDictionary(mockTeamDao), objectMapper, mockEventPublisher, liveScoreboard, "https://api.squiggle.com.au", 2000, 64, "", "", 1);
 
 
         String roundZero2024Json = "{\"games\":[{\"localtime\":\"2024-03-08 18:40:00\",\"id\":35701,\"year\":2024," +
                 "\"ateam\":\"Carlton\",\"hgoals\":12,\"hscore\":85,\"complete\":100,\"winner\":\"Carlton\",\"roundname\":\"Opening Round\",\"unixtime\":1709887200,\"ascore\":86,\"round\":0,\"hteam\":\"Brisbane Lions\",\"agoals\":13,\"venue\":\"Gabba\",\"updated\":\"2024-03-08 22:23:39\",\"hteamid\":2,\"is_final\":0,\"winnerteamid\":3,\"timestr\":\"Full Time\",\"abehinds\":8,\"ateamid\":3,\"date\":\"2024-03-08 19:40:00\",\"hbehinds\":13,\"is_grand_final\":0,\"tz\":\"+11:00\"}]}";
 
         @SuppressWarnings("unchecked")
-        HttpResponse<String> mockResponse = mock(HttpResponse.class);
-        when(mockResponse.body()).thenReturn(roundZero2024Json);
+        HttpResponse<byte[]> mockResponse = mock(HttpResponse.class);
+        when(mockResponse.body()).thenReturn(roundZero2024Json.getBytes(StandardCharsets.UTF_8));
 
-        when(mockHttpClient.send(any(HttpRequest.class), any())).thenAnswer((Answer<HttpResponse<String>>) invocation -> mockResponse);
+        when(mockHttpClient.send(any(HttpRequest.class), any())).thenAnswer((Answer<HttpResponse<byte[]>>) invocation -> mockResponse);
 
         // Act: Fetch games up to the most recent round for 2024
         List<Game> games = squiggleService.fetchGamesUpToMostRecentRound(2024);
@@ -122,4 +175,184 @@ public class SquiggleServiceTests {
         assertEquals(0, games.get(0).getRound(), "Expected the game to be from Round 0");
     }
 
+    @Test
+    public void syncSeason_SavesOnlyNewAndChangedGamesWithOneRequest() throws Exception {
+        String seasonJson = "{\"games\":[" +
+                "{\"id\":1,\"round\":1,\"year\":2023,\"date\":\"2023-03-17 19:40:00\",\"hteam\":\"Geelong\",\"hteamid\":7,\"ateam\":\"Collingwood\",\"ateamid\":4,\"hscore\":103,\"ascore\":125,\"winner\":\"Collingwood\",\"winnerteamid\":4,\"complete\":100}," +
+                "{\"id\":2,\"round\":1,\"year\":2023,\"date\":\"2023-03-18 19:40:00\",\"hteam\":\"Carlton\",\"hteamid\":3,\"ateam\":\"Richmond\",\"ateamid\":14,\"hscore\":90,\"ascore\":80,\"winner\":\"Carlton\",\"winnerteamid\":3,\"complete\":100}," +
+                "{\"id\":3,\"round\":2,\"year\":2023,\"date\":\"2023-03-25 19:40:00\",\"hteam\":\"Sydney\",\"hteamid\":16,\"ateam\":\"Essendon\",\"ateamid\":5,\"hscore\":70,\"ascore\":60,\"winner\":\"Sydney\",\"winnerteamid\":16,\"complete\":100}," +
+                "{\"id\":4,\"round\":3,\"year\":2023,\"date\":\"2023-04-01 19:40:00\",\"hteam\":\"Adelaide\",\"hteamid\":1,\"ateam\":\"Hawthorn\",\"ateamid\":10,\"hscore\":null,\"ascore\":null,\"winner\":null,\"winnerteamid\":null,\"complete\":0}]}";
+        @SuppressWarnings("unchecked")
+        HttpResponse<byte[]> mockResponse = mock(HttpResponse.class);
+        when(mockResponse.body()).thenReturn(seasonJson.getBytes(StandardCharsets.UTF_8));
+        when(mockHttpClient.send(any(HttpRequest.class), any())).thenAnswer((Answer<HttpResponse<byte[]>>) invocation -> mockResponse);
+
+        Game unchanged = new Game(1, 1, 2023, GameDates.parse("2023-03-17 19:40:00"), 7, 4, 103, 125, 4, 100);
+        Game changed = new Game(2, 1, 2023, GameDates.parse("2023-03-18 19:40:00"), 3, 14, 90, 86, 3, 100);
+        when(mockGameDao.findGamesByIds(List.of(1, 2, 3))).thenReturn(List.of(unchanged, changed));
+        when(mockGameDao.findGamesByIdsForUpdate(List.of(2, 3))).thenReturn(List.of(changed));
+
+        SeasonSyncResult result = squiggleService.syncSeason(2023);
+
+        assertEquals(2023, result.getYear());
+        assertEquals(2, result.getHighestCompletedRound());
+        assertEquals(1, result.getInserted());
+        assertEquals(1, result.getUpdated());
+        assertEquals(1, result.getUnchanged());
+        assertEquals(3, result.getGames().size());
+        verify(mockHttpClient, times(1)).send(any(HttpRequest.class), any());
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Game>> savedCaptor = ArgumentCaptor.forClass(List.class);
+        verify(mockGameDao).saveAll(savedCaptor.capture());
+        assertEquals(List.of(2, 3), savedCaptor.getValue().stream().map(Game::getId).collect(Collectors.toList()));
+        verify(mockGameDao, times(1)).findGamesByIds(anyList());
+
+        ArgumentCaptor<GamesSavedEvent> eventCaptor = ArgumentCaptor.forClass(GamesSavedEvent.class);
+        verify(mockEventPublisher).publishEvent(eventCaptor.capture());
+        assertEquals(1, eventCaptor.getValue().getCorrections().size());
+
+        // Teams not yet stored are added with the names sent with the games being saved
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Team>> teamsCaptor = ArgumentCaptor.forClass(List.class);
+        verify(mockTeamDao).saveTeams(teamsCaptor.capture());
+        assertEquals(Map.of(3, "Carlton", 14, "Richmond", 16, "Sydney", 5, "Essendon"), teamsCaptor.getValue().stream()
+                .collect(Collectors.toMap(Team::getTeamId, Team::getName)));
+    }
+
+    @Test
+    public void syncSeason_withNothingChanged_DoesNotSave() throws Exception {
+        Game stored = new Game(34261, 1, 2023, GameDates.parse("2023-03-17 19:40:00"), 7, 4, 103, 125, 4, 100);
+        when(mockGameDao.findGamesByIds(List.of(34261))).thenReturn(List.of(stored));
+
+        SeasonSyncResult result = squiggleService.syncSeason(2023);
+
+        assertEquals(1, result.getUnchanged());
+        verify(mockGameDao, never()).saveAll(anyList());
+        verify(mockEventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    public void processSseEvent_RemoveGameEvent_SavesGameWithTeamIds() {
+        when(mockTeamDao.findAllTeams()).thenReturn(List.of(new Team(4, "Collingwood"), new Team(7, "Geelong")));
+        SseEventDecoder.Event event = new SseEventDecoder().decode(ByteBuffer.wrap(("event: removeGame\n" +
+                "data: {\"id\":34261,\"round\":1,\"year\":2023,\"hteam\":7,\"ateam\":4,\"hscore\":103,\"ascore\":125,\n" +
+                "data: \"winner\":4,\"complete\":100}\n\n").getBytes(StandardCharsets.UTF_8))).get(0);
+
+        squiggleService.processSseEvent(event).block();
+        verify(mockGameDao, never()).saveAll(anyList());
+        // Pending live updates are saved on shutdown rather than waiting for the batch window
+        squiggleService.onDestroy();
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Game>> savedCaptor = ArgumentCaptor.forClass(List.class);
+        verify(mockGameDao).saveAll(savedCaptor.capture());
+        Game saved = savedCaptor.getValue().get(0);
+        assertEquals(34261, saved.getId());
+        assertEquals(7, saved.getHteamId());
+        assertEquals(4, saved.getAteamId());
+        assertEquals(4, saved.getWinnerId());
+        verify(mockTeamDao, never()).saveTeams(anyList());
+    }
+
+    @Test
+    public void processSseEvent_RemoveGameWithUnknownTeam_IsNotSaved() {
+        when(mockTeamDao.findAllTeams()).thenReturn(List.of(new Team(4, "Collingwood"), new Team(7, "Geelong")));
+
+        process("removeGame", "{\"id\":34261,\"round\":1,\"year\":2023,\"hteam\":7,\"ateam\":4,\"hscore\":103," +
+                "\"ascore\":125,\"winner\":4,\"complete\":100}");
+        process("removeGame", "{\"id\":34262,\"round\":1,\"year\":2023,\"hteam\":19,\"ateam\":7,\"hscore\":90," +
+                "\"ascore\":80,\"winner\":19,\"complete\":100}");
+        squiggleService.onDestroy();
+
+        // The live feed only sends team IDs, so a team that is not stored cannot be added
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Game>> savedCaptor = ArgumentCaptor.forClass(List.class);
+        verify(mockGameDao).saveAll(savedCaptor.capture());
+        assertEquals(List.of(34261), savedCaptor.getValue().stream().map(Game::getId).collect(Collectors.toList()));
+    }
+
+    @Test
+    public void processSseEvent_GameWithUnknownTeamName_IsDropped() {
+        when(mockTeamDao.findAllTeams()).thenReturn(List.of(new Team(4, "Collingwood"), new Team(7, "Geelong")));
+
+        process("games", "[{\"id\":34261,\"round\":1,\"year\":2023,\"hteam\":\"Geelong\",\"ateam\":\"Collingwood\"," +
+                "\"complete\":95},{\"id\":34262,\"round\":1,\"year\":2023,\"hteam\":\"Tasmania\"," +
+                "\"ateam\":\"Geelong\",\"complete\":95}]");
+        process("addGame", "{\"id\":34263,\"round\":1,\"year\":2023,\"hteam\":\"Collingwood\",\"ateam\":\"Tasmania\"," +
+                "\"complete\":1}");
+        squiggleService.onDestroy();
+
+        assertEquals(7, liveScoreboard.getGame(34261).getHteamId());
+        assertNull(liveScoreboard.getGame(34262));
+        assertNull(liveScoreboard.getGame(34263));
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Game>> savedCaptor = ArgumentCaptor.forClass(List.class);
+        verify(mockGameDao).saveAll(savedCaptor.capture());
+        assertEquals(List.of(34261), savedCaptor.getValue().stream().map(Game::getId).collect(Collectors.toList()));
+        verify(mockTeamDao, never()).saveTeams(anyList());
+    }
+
+    @Test
+    public void processSseEvent_GameUpdates_UpdateScoreboardAndSaveOnlyQuarterChanges() {
+        when(mockTeamDao.findAllTeams()).thenReturn(List.of(new Team(4, "Collingwood"), new Team(7, "Geelong")));
+
+        process("addGame", "{\"id\":34261,\"round\":1,\"year\":2023,\"hteam\":7,\"ateam\":4,\"hscore\":0," +
+                "\"ascore\":0,\"complete\":1,\"timestr\":\"Q1 0:30\"}");
+        process("score", "{\"gameid\":34261,\"score\":{\"hscore\":6,\"ascore\":1}}");
+        process("complete", "{\"gameid\":34261,\"complete\":20}");
+        process("updateGame", "{\"id\":34261,\"hscore\":20,\"ascore\":13,\"complete\":27,\"timestr\":\"Q2 1:02\"}");
+        process("score", "{\"gameid\":34261,\"score\":{\"hscore\":26,\"ascore\":13}}");
+
+        LiveGame live = liveScoreboard.getGame(34261);
+        assertEquals(7, live.getHteamId());
+        assertEquals(26, live.getHscore());
+        assertEquals(13, live.getAscore());
+        assertEquals(27, live.getComplete());
+        assertEquals("Q2 1:02", live.getTimestr());
+
+        squiggleService.onDestroy();
+
+        // The start of the game and the start of the second quarter were saved, coalesced into one batch
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Game>> savedCaptor = ArgumentCaptor.forClass(List.class);
+        verify(mockGameDao).saveAll(savedCaptor.capture());
+        Game saved = savedCaptor.getValue().get(0);
+        assertEquals(20, saved.getHscore());
+        assertEquals(27, saved.getComplete());
+        verify(mockGameDao, never()).findGamesByIds(anyList());
+    }
+
+    @Test
+    public void processSseEvent_UpdateForUnknownGame_IsIgnoredWithoutStoppingTheFeed() {
+        when(mockTeamDao.findAllTeams()).thenReturn(List.of(new Team(4, "Collingwood"), new Team(7, "Geelong")));
+        when(mockGameDao.findGamesByIds(List.of(99999))).thenReturn(List.of());
+        Game stored = new Game(34261, 1, 2023, GameDates.parse("2023-03-17 19:40:00"), 7, 4, 20, 13, null, 27);
+        when(mockGameDao.findGamesByIds(List.of(34261))).thenReturn(List.of(stored));
+
+        List<SseEventDecoder.Event> events = List.of(
+                new SseEventDecoder.Event("score", "{\"gameid\":99999,\"score\":{\"hscore\":6,\"ascore\":1}}", null),
+                new SseEventDecoder.Event("score", "{\"gameid\":34261,\"score\":{\"hscore\":26,\"ascore\":13}}", null));
+        Flux.fromIterable(events).concatMap(squiggleService::processSseEvent).blockLast();
+
+        assertNull(liveScoreboard.getGame(99999));
+        assertEquals(26, liveScoreboard.getGame(34261).getHscore());
+        verify(mockGameDao, never()).findGameById(anyInt());
+    }
+
+    @Test
+    public void processSseEvent_RemoveGameEvent_RemovesGameFromScoreboard() {
+        when(mockTeamDao.findAllTeams()).thenReturn(List.of(new Team(4, "Collingwood"), new Team(7, "Geelong")));
+        process("games", "[{\"id\":34261,\"round\":1,\"year\":2023,\"hteam\":7,\"ateam\":4,\"complete\":95}]");
+        assertEquals(1, liveScoreboard.getGames().size());
+
+        process("removeGame", "{\"id\":34261,\"round\":1,\"year\":2023,\"hteam\":7,\"ateam\":4,\"hscore\":103," +
+                "\"ascore\":125,\"winner\":4,\"complete\":100}");
+
+        assertTrue(liveScoreboard.getGames().isEmpty());
+    }
+
+    private void process(String type, String data) {
+        squiggleService.processSseEvent(new SseEventDecoder.Event(type, data, null)).block();
+    }
 }
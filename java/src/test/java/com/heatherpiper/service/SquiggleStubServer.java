@@ -0,0 +1,275 @@
+package com.heatherpiper.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.heatherpiper.model.Game;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * A local stand-in for the Squiggle API, serving the games endpoint and the live feed from fixture data over real
+ * HTTP, so that {@link SquiggleService} can be tested and benchmarked without the network.
+ *
+ * <p>The games endpoint answers <code>/?q=games;year=Y</code> and <code>/?q=games;year=Y;round=R</code> from the games
+ * added with {@link #addGames}. The live feed at <code>/sse/games</code> streams the events added with
+ * {@link #addLiveEvent}, each with a sequential ID. A connection carrying a <code>Last-Event-ID</code> header resumes
+ * after that event, and once every event has been sent the connection is held open until the server is closed.
+ *
+ * <p>Faults can be injected: a delay before every response, error statuses for the next requests, and live feed
+ * connections that are closed after a number of events.
+ */
+final class SquiggleStubServer implements AutoCloseable {
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "squiggle-stub");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final List<Game> games = new CopyOnWriteArrayList<>();
+    private final List<String> liveEvents = new CopyOnWriteArrayList<>();
+    private final List<String> lastEventIds = new CopyOnWriteArrayList<>();
+    private final List<Long> connectionsOpenedNanos = new CopyOnWriteArrayList<>();
+    private final List<Long> connectionsClosedNanos = new CopyOnWriteArrayList<>();
+    private final AtomicInteger gameRequests = new AtomicInteger();
+    private final AtomicInteger failuresLeft = new AtomicInteger();
+
+    private volatile int failureStatus = 500;
+    private volatile Duration latency = Duration.ZERO;
+    private volatile Duration eventInterval = Duration.ZERO;
+    private volatile int disconnectAfterEvents = -1;
+    private volatile long retryMillis = -1;
+    private volatile boolean closed;
+
+    private SquiggleStubServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/sse/games", this::handleLiveFeed);
+        server.createContext("/", this::handleGames);
+        server.setExecutor(executor);
+    }
+
+    /**
+     * Starts a stub on a free port of the loopback address.
+     */
+    static SquiggleStubServer start() throws IOException {
+        SquiggleStubServer stub = new SquiggleStubServer();
+        stub.server.start();
+        return stub;
+    }
+
+    /**
+     * @return the address to configure as <code>squiggle.base-url</code>.
+     */
+    String getBaseUrl() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    void addGames(List<Game> games) {
+        this.games.addAll(games);
+    }
+
+    /**
+     * Adds an event to the end of the live feed. Its ID is its position in the feed, starting from 1.
+     */
+    void addLiveEvent(String type, String data) {
+        liveEvents.add(type + "\n" + data);
+    }
+
+    /**
+     * Delays every response, including each live feed connection, by the given time.
+     */
+    void setLatency(Duration latency) {
+        this.latency = latency;
+    }
+
+    /**
+     * Answers the next requests to either endpoint with an error status instead.
+     */
+    void failNextRequests(int count, int status) {
+        failureStatus = status;
+        failuresLeft.set(count);
+    }
+
+    /**
+     * Waits between the live feed events sent on a connection.
+     */
+    void setEventInterval(Duration eventInterval) {
+        this.eventInterval = eventInterval;
+    }
+
+    /**
+     * Closes each live feed connection after it has sent the given number of events, or never if negative.
+     */
+    void disconnectAfterEvents(int events) {
+        this.disconnectAfterEvents = events;
+    }
+
+    /**
+     * Sends a <code>retry</code> field at the start of each live feed connection, or none if negative.
+     */
+    void setRetryMillis(long retryMillis) {
+        this.retryMillis = retryMillis;
+    }
+
+    int getGameRequestCount() {
+        return gameRequests.get();
+    }
+
+    int getConnectionCount() {
+        return connectionsOpenedNanos.size();
+    }
+
+    /**
+     * @return the <code>Last-Event-ID</code> header of each live feed connection, or <code>null</code> where there
+     * was none.
+     */
+    List<String> getLastEventIds() {
+        return new ArrayList<>(lastEventIds);
+    }
+
+    /**
+     * @return the time between each live feed connection the stub closed and the next connection being opened, in
+     * nanoseconds.
+     */
+    List<Long> getReconnectNanos() {
+        List<Long> gaps = new ArrayList<>();
+        for (int i = 0; i < connectionsClosedNanos.size() && i + 1 < connectionsOpenedNanos.size(); i++) {
+            gaps.add(connectionsOpenedNanos.get(i + 1) - connectionsClosedNanos.get(i));
+        }
+        return gaps;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handleGames(HttpExchange exchange) throws IOException {
+        gameRequests.incrementAndGet();
+        try {
+            if (delayOrFail(exchange)) {
+                return;
+            }
+            Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+            if (!"games".equals(query.get("q")) || !query.containsKey("year")) {
+                exchange.sendResponseHeaders(404, -1);
+                return;
+            }
+            int year = Integer.parseInt(query.get("year"));
+            Integer round = query.containsKey("round") ? Integer.valueOf(query.get("round")) : null;
+            List<Game> matching = games.stream()
+                    .filter(game -> game.getYear() == year && (round == null || game.getRound() == round))
+                    .collect(Collectors.toList());
+
+            byte[] body = objectMapper.writeValueAsBytes(Map.of("games", matching));
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void handleLiveFeed(HttpExchange exchange) throws IOException {
+        String lastEventId = exchange.getRequestHeaders().getFirst("Last-Event-ID");
+        lastEventIds.add(lastEventId);
+        connectionsOpenedNanos.add(System.nanoTime());
+        try {
+            if (delayOrFail(exchange)) {
+                return;
+            }
+            exchange.getResponseHeaders().set("Content-Type", "text/event-stream");
+            exchange.sendResponseHeaders(200, 0);
+            OutputStream out = exchange.getResponseBody();
+            if (retryMillis >= 0) {
+                write(out, "retry: " + retryMillis + "\n\n");
+            }
+
+            int next = lastEventId == null ? 0 : Integer.parseInt(lastEventId);
+            int sent = 0;
+            while (!closed && next < liveEvents.size()) {
+                if (disconnectAfterEvents >= 0 && sent == disconnectAfterEvents) {
+                    return;
+                }
+                String[] event = liveEvents.get(next).split("\n", 2);
+                next++;
+                write(out, "id: " + next + "\nevent: " + event[0] + "\ndata: " + event[1] + "\n\n");
+                sent++;
+                sleep(eventInterval);
+            }
+            // Every event has been sent, so hold the connection open like the real feed does between updates
+            while (!closed && !Thread.currentThread().isInterrupted()) {
+                sleep(Duration.ofMillis(20));
+            }
+        } catch (IOException e) {
+            // The client disconnected
+        } finally {
+            exchange.close();
+            connectionsClosedNanos.add(System.nanoTime());
+        }
+    }
+
+    /**
+     * Applies the injected latency, and answers with an error status if a failure is due.
+     *
+     * @return whether the request was answered with an error.
+     */
+    private boolean delayOrFail(HttpExchange exchange) throws IOException {
+        sleep(latency);
+        if (failuresLeft.getAndUpdate(left -> Math.max(0, left - 1)) > 0) {
+            exchange.sendResponseHeaders(failureStatus, -1);
+            return true;
+        }
+        return false;
+    }
+
+    private static void write(OutputStream out, String text) throws IOException {
+        out.write(text.getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+
+    private static void sleep(Duration duration) {
+        if (duration.isZero()) {
+            return;
+        }
+        try {
+            Thread.sleep(duration.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        if (rawQuery == null) {
+            return Collections.emptyMap();
+        }
+        Map<String, String> query = new HashMap<>();
+        for (String part : rawQuery.split("[;&]")) {
+            int equals = part.indexOf('=');
+            if (equals > 0) {
+                query.put(part.substring(0, equals), part.substring(equals + 1));
+            }
+        }
+        return query;
+    }
+}
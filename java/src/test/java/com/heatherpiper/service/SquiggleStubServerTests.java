@@ -0,0 +1,135 @@
+package com.heatherpiper.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.heatherpiper.dao.GameDao;
+import com.heatherpiper.dao.TeamDao;
+import com.heatherpiper.dao.WatchedGamesDao;
+import com.heatherpiper.model.Game;
+import com.heatherpiper.model.GameDates;
+import com.heatherpiper.model.SeasonSyncResult;
+import com.heatherpiper.model.Team;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Exercises {@link SquiggleService} over real HTTP against a {@link SquiggleStubServer}.
+ */
+public class SquiggleStubServerTests {
+
+    @Mock
+    private GameDao mockGameDao;
+
+    @Mock
+    private TeamDao mockTeamDao;
+
+    @Mock
+    private ApplicationEventPublisher mockEventPublisher;
+
+    private SquiggleStubServer stub;
+    private LiveScoreboard liveScoreboard;
+    private SquiggleService squiggleService;
+
+    @BeforeEach
+    public void setup() throws Exception {
+        MockitoAnnotations.openMocks(this);
+        when(mockTeamDao.findAllTeams()).thenReturn(List.of(new Team(4, "Collingwood"), new Team(7, "Geelong")));
+        stub = SquiggleStubServer.start();
+        liveScoreboard = new LiveScoreboard();
+        squiggleService = new SquiggleService(new SquiggleHttpCache(HttpClient.newHttpClient(), "", 0), mockGameDao,
+                mock(WatchedGamesDao.class), mock(PlatformTransactionManager.class), new TeamDictionary(mockTeamDao), new ObjectMapper(), mockEventPublisher, liveScoreboard,
+                stub.getBaseUrl(), 0, 64, "", "", 1);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        squiggleService.onDestroy();
+        stub.close();
+    }
+
+    @Test
+    public void syncSeason_FetchesSeasonOverHttp() {
+        stub.addGames(Arrays.asList(
+                new Game(1, 1, 2023, GameDates.parse("2023-03-16 19:20:00"), 7, 4, 80, 70, 7, 100),
+                new Game(2, 2, 2023, GameDates.parse("2023-03-23 19:20:00"), 4, 7, 90, 60, 4, 100),
+                new Game(3, 3, 2023, GameDates.parse("2023-03-30 19:20:00"), 7, 4, null, null, null, 0),
+                new Game(4, 1, 2022, GameDates.parse("2022-03-17 19:20:00"), 7, 4, 80, 70, 7, 100)));
+
+        SeasonSyncResult result = squiggleService.syncSeason(2023);
+
+        assertEquals(2, result.getHighestCompletedRound());
+        assertEquals(2, result.getInserted());
+        assertEquals(1, stub.getGameRequestCount());
+        assertEquals(List.of(1), ids(squiggleService.fetchGamesForYearAndRound(2023, 1)));
+    }
+
+    @Test
+    public void fetchGamesForYear_withServerErrorOrLatency_RecoversOnNextRequest() {
+        stub.addGames(List.of(new Game(1, 1, 2023, GameDates.parse("2023-03-16 19:20:00"), 7, 4, 80, 70, 7,
+                100)));
+        stub.failNextRequests(1, 503);
+
+        assertTrue(squiggleService.fetchGamesForYear(2023).isEmpty());
+
+        stub.setLatency(Duration.ofMillis(100));
+        assertEquals(List.of(1), ids(squiggleService.fetchGamesForYear(2023)));
+        assertEquals(2, stub.getGameRequestCount());
+    }
+
+    @Test
+    public void subscribeToGameUpdates_ResumesFromLastEventIdAfterDisconnect() throws Exception {
+        stub.addLiveEvent("addGame", "{\"id\":34261,\"round\":1,\"year\":2023,\"hteam\":7,\"ateam\":4," +
+                "\"hscore\":0,\"ascore\":0,\"complete\":0}");
+        stub.addLiveEvent("score", "{\"gameid\":34261,\"score\":{\"hscore\":6,\"ascore\":0},\"complete\":10}");
+        stub.addLiveEvent("score", "{\"gameid\":34261,\"score\":{\"hscore\":6,\"ascore\":1},\"complete\":20}");
+        stub.addLiveEvent("removeGame", "{\"id\":34261,\"round\":1,\"year\":2023,\"hteam\":7,\"ateam\":4," +
+                "\"hscore\":80,\"ascore\":75,\"winner\":7,\"complete\":100}");
+        stub.disconnectAfterEvents(2);
+        stub.setRetryMillis(10);
+
+        squiggleService.subscribeToGameUpdates();
+
+        // The game is only removed by the last event, which is sent on the second connection
+        awaitTrue(() -> stub.getConnectionCount() >= 2 && liveScoreboard.getGames().isEmpty());
+        assertEquals(Arrays.asList(null, "2"), stub.getLastEventIds());
+        squiggleService.onDestroy();
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Game>> savedCaptor = ArgumentCaptor.forClass(List.class);
+        verify(mockGameDao, atLeastOnce()).saveAll(savedCaptor.capture());
+        List<Game> lastBatch = savedCaptor.getValue();
+        Game result = lastBatch.get(lastBatch.size() - 1);
+        assertEquals(80, result.getHscore());
+        assertEquals(7, result.getWinnerId());
+    }
+
+    private static List<Integer> ids(List<Game> games) {
+        return games.stream().map(Game::getId).collect(Collectors.toList());
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "Timed out waiting for the live feed");
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.heatherpiper.service;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Measures the throughput and allocation of {@link SseEventDecoder} on a feed shaped like Squiggle's live feed, against
+ * the previous framing with <code>windowUntil</code>, <code>String::concat</code> and a regex per field. The previous
+ * framing merges every event that completes within one chunk into a single window, so it also reports how many events
+ * each approach actually found.
+ *
+ * <p>Surefire does not pick this class up by default. Run it with
+ * <code>mvn test -Dtest=SseEventDecoderBenchmark</code>; results are printed per event decoded.
+ */
+public class SseEventDecoderBenchmark {
+
+    private static final int EVENTS = 2_000;
+    private static final int CHUNK_SIZE = 1_460;
+    private static final int WARMUP_ITERATIONS = 50;
+    private static final int MEASURED_ITERATIONS = 200;
+
+    @Test
+    public void decodeFeed() {
+        byte[] feed = feed();
+        ByteBuffer[] chunks = chunks(feed);
+
+        Result previous = measure(feed.length, () -> decodeWithWindows(feed));
+        Result decoder = measure(feed.length, () -> decodeWithDecoder(chunks));
+
+        System.out.printf("Feed of %d events, %d bytes in %d byte chunks%n", EVENTS, feed.length, CHUNK_SIZE);
+        System.out.printf("  windowUntil + regex: %8.1f MB/s  %8d bytes/event  %5d events found%n",
+                previous.megabytesPerSecond, previous.bytesPerEvent, previous.eventsFound);
+        System.out.printf("  SseEventDecoder:     %8.1f MB/s  %8d bytes/event  %5d events found%n",
+                decoder.megabytesPerSecond, decoder.bytesPerEvent, decoder.eventsFound);
+
+        assertEquals(EVENTS, decoder.eventsFound);
+    }
+
+    private static int decodeWithDecoder(ByteBuffer[] chunks) {
+        SseEventDecoder decoder = new SseEventDecoder();
+        int events = 0;
+        for (ByteBuffer chunk : chunks) {
+            chunk.rewind();
+            List<SseEventDecoder.Event> decoded = decoder.decode(chunk);
+            for (int i = 0; i < decoded.size(); i++) {
+                if ("removeGame".equals(decoded.get(i).getType())) {
+                    events++;
+                }
+            }
+        }
+        return events;
+    }
+
+    /**
+     * The framing used before {@link SseEventDecoder}, fed with the same chunks decoded to strings as
+     * <code>asString()</code> did.
+     */
+    private static int decodeWithWindows(byte[] feed) {
+        Long events = Flux.range(0, (feed.length + CHUNK_SIZE - 1) / CHUNK_SIZE)
+                .map(chunk -> {
+                    int offset = chunk * CHUNK_SIZE;
+                    return new String(feed, offset, Math.min(CHUNK_SIZE, feed.length - offset), StandardCharsets.UTF_8);
+                })
+                .windowUntil(s -> s.contains("\n\n"))
+                .flatMap(w -> w.reduce(String::concat))
+                .filter(event -> {
+                    Matcher type = Pattern.compile("event:\\s*(\\w+)", Pattern.MULTILINE | Pattern.CASE_INSENSITIVE)
+                            .matcher(event);
+                    Matcher data = Pattern.compile("data:\\s*(\\{.*?})", Pattern.DOTALL).matcher(event);
+                    return type.find() && "removeGame".equals(type.group(1)) && data.find();
+                })
+                .count()
+                .block();
+        return events.intValue();
+    }
+
+    private static Result measure(int feedBytes, FeedDecode decode) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+
+        int eventsFound = decode.run();
+        long sink = 0;
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            sink += decode.run();
+        }
+        long bytesBefore = threads.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            sink += decode.run();
+        }
+        long elapsed = System.nanoTime() - start;
+        long allocated = threads.getThreadAllocatedBytes(threadId) - bytesBefore;
+
+        assertEquals((long) eventsFound * (WARMUP_ITERATIONS + MEASURED_ITERATIONS), sink);
+        double seconds = elapsed / 1e9;
+        return new Result(feedBytes * (double) MEASURED_ITERATIONS / seconds / 1e6,
+                allocated / ((long) MEASURED_ITERATIONS * EVENTS), eventsFound);
+    }
+
+    /**
+     * A stream of <code>removeGame</code> events shaped like the Squiggle live feed, with a heartbeat comment between
+     * every few events.
+     */
+    private static byte[] feed() {
+        StringBuilder feed = new StringBuilder();
+        for (int i = 0; i < EVENTS; i++) {
+            if (i % 10 == 0) {
+                feed.append(":\n\n");
+            }
+            feed.append("event: removeGame\n")
+                    .append("data: {\"id\":").append(35000 + i)
+                    .append(",\"round\":").append(1 + i / 9).append(",\"year\":2024")
+                    .append(",\"hteam\":").append(1 + i % 18).append(",\"ateam\":").append(1 + (i + 9) % 18)
+                    .append(",\"hscore\":").append(60 + i % 50).append(",\"ascore\":").append(70 + i % 40)
+                    .append(",\"hgoals\":9,\"hbehinds\":6,\"agoals\":10,\"abehinds\":10")
+                    .append(",\"winner\":").append(1 + i % 18)
+                    .append(",\"date\":\"2024-03-15 19:40:00\",\"tz\":\"+11:00\",\"timestr\":\"Full Time\"")
+                    .append(",\"venue\":\"M.C.G.\",\"complete\":100}\n\n");
+        }
+        return feed.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static ByteBuffer[] chunks(byte[] feed) {
+        ByteBuffer[] chunks = new ByteBuffer[(feed.length + CHUNK_SIZE - 1) / CHUNK_SIZE];
+        for (int i = 0; i < chunks.length; i++) {
+            int offset = i * CHUNK_SIZE;
+            chunks[i] = ByteBuffer.wrap(feed, offset, Math.min(CHUNK_SIZE, feed.length - offset)).slice();
+        }
+        return chunks;
+    }
+
+    private interface FeedDecode {
+        int run();
+    }
+
+    private static class Result {
+        private final double megabytesPerSecond;
+        private final long bytesPerEvent;
+        private final int eventsFound;
+
+        private Result(double megabytesPerSecond, long bytesPerEvent, int eventsFound) {
+            this.megabytesPerSecond = megabytesPerSecond;
+            this.bytesPerEvent = bytesPerEvent;
+            this.eventsFound = eventsFound;
+        }
+    }
+}
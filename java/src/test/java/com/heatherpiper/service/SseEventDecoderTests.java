@@ -0,0 +1,111 @@
+package com.heatherpiper.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SseEventDecoderTests {
+
+    @Test
+    public void decode_ReadsTypeDataAndId() {
+        List<SseEventDecoder.Event> events = decodeWhole("event: removeGame\nid: 7\ndata: {\"id\":1}\n\n");
+
+        assertEquals(1, events.size());
+        assertEquals("removeGame", events.get(0).getType());
+        assertEquals("{\"id\":1}", events.get(0).getData());
+        assertEquals("7", events.get(0).getId());
+    }
+
+    @Test
+    public void decode_JoinsMultiLineDataWithLineFeeds() {
+        List<SseEventDecoder.Event> events = decodeWhole("data: first\ndata:second\ndata\ndata:  third\n\n");
+
+        assertEquals(1, events.size());
+        assertEquals(SseEventDecoder.DEFAULT_EVENT_TYPE, events.get(0).getType());
+        // Only the single space after the colon is removed, and a field without a colon has an empty value
+        assertEquals("first\nsecond\n\n third", events.get(0).getData());
+    }
+
+    @Test
+    public void decode_AcceptsEveryLineEnding() {
+        List<SseEventDecoder.Event> events = decodeWhole("data: a\r\n\r\ndata: b\r\rdata: c\n\ndata: d\r\n\n");
+
+        assertEquals(List.of("a", "b", "c", "d"), data(events));
+    }
+
+    @Test
+    public void decode_IsIndependentOfChunkBoundaries() {
+        String stream = "\uFEFF: heartbeat\r\nevent: addGame\r\ndata: {\"hteam\":\"Geelong Cats\u2013\u00e9\"}\r\n\r\n" +
+                "id: 42\nevent: removeGame\ndata: {\"id\":2}\n\n:\n\nretry: 5000\ndata: last\r\r";
+        byte[] bytes = stream.getBytes(StandardCharsets.UTF_8);
+        List<SseEventDecoder.Event> expected = decodeWhole(stream);
+        assertEquals(3, expected.size());
+
+        for (int chunkSize = 1; chunkSize <= bytes.length; chunkSize++) {
+            SseEventDecoder decoder = new SseEventDecoder();
+            List<SseEventDecoder.Event> events = new ArrayList<>();
+            for (int offset = 0; offset < bytes.length; offset += chunkSize) {
+                int length = Math.min(chunkSize, bytes.length - offset);
+                events.addAll(decoder.decode(ByteBuffer.wrap(bytes, offset, length)));
+            }
+            assertEquals(data(expected), data(events), "chunk size " + chunkSize);
+            assertEquals("addGame", events.get(0).getType());
+            assertEquals("removeGame", events.get(1).getType());
+            assertEquals("42", events.get(2).getId());
+            assertEquals(5000, decoder.getRetryMillis());
+        }
+        assertEquals("{\"hteam\":\"Geelong Cats\u2013\u00e9\"}", expected.get(0).getData());
+    }
+
+    @Test
+    public void decode_IgnoresCommentsAndEventsWithoutData() {
+        List<SseEventDecoder.Event> events = decodeWhole(":\n\n: keep-alive\n\nevent: removeGame\n\ndata: x\n\n");
+
+        assertEquals(1, events.size());
+        // The type of an event without data is discarded with it
+        assertEquals(SseEventDecoder.DEFAULT_EVENT_TYPE, events.get(0).getType());
+    }
+
+    @Test
+    public void decode_KeepsLastEventIdAndIgnoresInvalidFields() {
+        SseEventDecoder decoder = new SseEventDecoder("10");
+        List<SseEventDecoder.Event> events = new ArrayList<>();
+        events.addAll(decode(decoder, "data: a\n\nid: 11\ndata: b\n\nid: 1\u00002\nretry: 1s\ndata: c\n\n"));
+        events.addAll(decode(decoder, "id\ndata: d\n\n"));
+
+        assertEquals("10", events.get(0).getId());
+        assertEquals("11", events.get(1).getId());
+        assertEquals("11", events.get(2).getId());
+        assertEquals("", events.get(3).getId());
+        assertEquals(-1, decoder.getRetryMillis());
+    }
+
+    @Test
+    public void decode_DiscardsIncompleteEvent() {
+        SseEventDecoder decoder = new SseEventDecoder();
+
+        assertTrue(decode(decoder, "event: removeGame\ndata: {\"id\":1}\n").isEmpty());
+        assertTrue(decode(decoder, "data: more").isEmpty());
+    }
+
+    private static List<SseEventDecoder.Event> decodeWhole(String stream) {
+        return decode(new SseEventDecoder(), stream);
+    }
+
+    private static List<SseEventDecoder.Event> decode(SseEventDecoder decoder, String stream) {
+        return decoder.decode(ByteBuffer.wrap(stream.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static List<String> data(List<SseEventDecoder.Event> events) {
+        List<String> data = new ArrayList<>();
+        for (SseEventDecoder.Event event : events) {
+            data.add(event.getData());
+        }
+        return data;
+    }
+}
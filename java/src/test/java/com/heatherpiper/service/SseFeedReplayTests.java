@@ -0,0 +1,82 @@
+package com.heatherpiper.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import reactor.core.Exceptions;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SseFeedReplayTests {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void replay_DecodesRecordedChunksPerConnection() throws Exception {
+        Path file = directory.resolve("feed.rec");
+        try (SseFeedRecorder recorder = new SseFeedRecorder(file)) {
+            recorder.connectionOpened();
+            ByteBuffer chunk = chunk("event: score\ndata: {\"gameid\":1}\n\nevent: sco");
+            recorder.record(chunk);
+            // Recording leaves the chunk to be decoded
+            assertEquals(0, chunk.position());
+            recorder.record(chunk("re\ndata: {\"gameid\":2}\n\nevent: addGame\ndata: {\"id\""));
+        }
+        // The connection dropped mid-event; the recording is continued by the next run
+        try (SseFeedRecorder recorder = new SseFeedRecorder(file)) {
+            recorder.connectionOpened();
+            recorder.record(chunk("event: removeGame\r\ndata: {\"id\":3}\r\n\r\n"));
+        }
+
+        List<SseEventDecoder.Event> events = new SseFeedReplay(file, 0).events().collectList()
+                .block(Duration.ofSeconds(5));
+
+        assertEquals(List.of("score", "score", "removeGame"),
+                events.stream().map(SseEventDecoder.Event::getType).collect(Collectors.toList()));
+        assertEquals("{\"gameid\":2}", events.get(1).getData());
+        assertEquals("{\"id\":3}", events.get(2).getData());
+    }
+
+    @Test
+    public void replay_IgnoresRecordCutShortAtEndOfFile() throws Exception {
+        Path file = directory.resolve("feed.rec");
+        try (SseFeedRecorder recorder = new SseFeedRecorder(file)) {
+            recorder.connectionOpened();
+            recorder.record(chunk("event: score\ndata: {}\n\n"));
+            recorder.record(chunk("event: score\ndata: {}\n\n"));
+        }
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 5));
+
+        List<SseEventDecoder.Event> events = new SseFeedReplay(file, 0).events().collectList()
+                .block(Duration.ofSeconds(5));
+
+        assertEquals(1, events.size());
+    }
+
+    @Test
+    public void recorder_RejectsFileThatIsNotARecording() throws Exception {
+        Path file = directory.resolve("notes.txt");
+        Files.write(file, "not a recording".getBytes(StandardCharsets.UTF_8));
+
+        assertThrows(IOException.class, () -> new SseFeedRecorder(file));
+        RuntimeException replayError = assertThrows(RuntimeException.class,
+                () -> new SseFeedReplay(file, 0).events().blockLast());
+        assertTrue(Exceptions.unwrap(replayError) instanceof IOException);
+        assertEquals("not a recording", Files.readString(file));
+    }
+
+    private static ByteBuffer chunk(String text) {
+        return ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,81 @@
+package com.heatherpiper.service;
+
+import com.heatherpiper.dao.TeamDao;
+import com.heatherpiper.event.GamesSavedEvent;
+import com.heatherpiper.model.Game;
+import com.heatherpiper.model.GameDates;
+import com.heatherpiper.model.Team;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class TeamDictionaryTests {
+
+    @Mock
+    private TeamDao teamDao;
+
+    @Test
+    void lookups_LoadTeamsOnceAndResolveBothWays() {
+        when(teamDao.findAllTeams()).thenReturn(List.of(new Team(1, "Adelaide"), new Team(2, "Brisbane Lions")));
+        TeamDictionary teamDictionary = new TeamDictionary(teamDao);
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals("Adelaide", teamDictionary.findTeamName(1));
+            assertEquals(2, teamDictionary.findTeamId("Brisbane Lions"));
+        }
+        assertNull(teamDictionary.findTeamName(19));
+        assertEquals(-1, teamDictionary.findTeamId("Fitzroy"));
+        assertEquals(-1, teamDictionary.findTeamId(null));
+
+        verify(teamDao, times(1)).findAllTeams();
+        verifyNoMoreInteractions(teamDao);
+    }
+
+    @Test
+    void refresh_ReloadsTeams() {
+        when(teamDao.findAllTeams()).thenReturn(List.of(new Team(1, "Adelaide")),
+                List.of(new Team(1, "Adelaide Crows")));
+        TeamDictionary teamDictionary = new TeamDictionary(teamDao);
+        teamDictionary.refresh();
+        assertEquals("Adelaide", teamDictionary.findTeamName(1));
+
+        teamDictionary.refresh();
+
+        assertEquals("Adelaide Crows", teamDictionary.findTeamName(1));
+        assertEquals(1, teamDictionary.findTeamId("Adelaide Crows"));
+        assertEquals(-1, teamDictionary.findTeamId("Adelaide"));
+    }
+
+    @Test
+    void findTeamIdsInLatestSeason_IsReloadedOnlyWhenSavedGamesChangeTheSeason() {
+        when(teamDao.findTeamIdsInLatestSeason()).thenReturn(List.of(1, 2), List.of(1, 2, 3));
+        TeamDictionary teamDictionary = new TeamDictionary(teamDao);
+        teamDictionary.onGamesSaved(new GamesSavedEvent(this, List.of(game(2024, 1, 2))));
+
+        assertEquals(List.of(1, 2), teamDictionary.findTeamIdsInLatestSeason());
+        teamDictionary.onGamesSaved(new GamesSavedEvent(this, List.of(game(2024, 2, 1), game(2023, 3, 1))));
+        assertEquals(List.of(1, 2), teamDictionary.findTeamIdsInLatestSeason());
+        verify(teamDao, times(1)).findTeamIdsInLatestSeason();
+
+        // A team that was not yet in the latest season
+        teamDictionary.onGamesSaved(new GamesSavedEvent(this, List.of(game(2024, 3, 1))));
+
+        assertEquals(List.of(1, 2, 3), teamDictionary.findTeamIdsInLatestSeason());
+        verify(teamDao, times(2)).findTeamIdsInLatestSeason();
+    }
+
+    private static Game game(int year, int hteamId, int ateamId) {
+        return new Game(1, 1, year, GameDates.parse("2024-03-15T08:40:00Z"), hteamId, ateamId, 100, 50, hteamId, 100);
+    }
+}
@@ -0,0 +1,543 @@
+package com.heatherpiper.service;
+
+import com.heatherpiper.dao.GameDao;
+import com.heatherpiper.dao.UserDao;
+import com.heatherpiper.dao.UserLadderEntryDao;
+import com.heatherpiper.dao.WatchedGamesDao;
+import com.heatherpiper.model.Game;
+import com.heatherpiper.model.GameDates;
+import com.heatherpiper.model.RegisterUserDto;
+import com.heatherpiper.model.Team;
+import com.heatherpiper.model.User;
+import com.heatherpiper.model.UserLadderEntry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs storms of concurrent watch and unwatch requests against {@link WatchedGamesService} backed by in-memory DAOs,
+ * and checks that every user's stored ladder matches the ladder rebuilt from their final watched games.
+ *
+ * <p>The in-memory DAOs are individually thread safe but, like the JDBC DAOs, do nothing to make the service's
+ * read-modify-write sequences atomic, so lost or doubled updates show up as ladder mismatches.
+ */
+public class WatchedGamesServiceConcurrencyTests {
+
+    private static final int USERS = 3;
+    private static final int THREADS = 12;
+    private static final int OPERATIONS_PER_THREAD = 400;
+
+    private final List<Team> teams = new ArrayList<>();
+    private final Map<Integer, Game> games = new HashMap<>();
+
+    private InMemoryWatchedGamesDao watchedGamesDao;
+    private InMemoryUserLadderEntryDao userLadderEntryDao;
+    private WatchedGamesService watchedGamesService;
+
+    @BeforeEach
+    void setup() {
+        for (int teamId = 1; teamId <= 6; teamId++) {
+            teams.add(new Team(teamId, "Team " + teamId));
+        }
+        int gameId = 100;
+        for (int round = 1; round <= 4; round++) {
+            for (int match = 0; match < 3; match++) {
+                int home = 1 + (match * 2 + round) % 6;
+                int away = 1 + (match * 2 + round + 1) % 6;
+                int hscore = 60 + (gameId * 7) % 50;
+                int ascore = 60 + (gameId * 11) % 50;
+                Integer winner = hscore > ascore ? Integer.valueOf(home) : hscore < ascore ? Integer.valueOf(away) : null;
+                games.put(gameId, new Game(gameId, round, 2024, GameDates.parse("2024-03-15T08:40:00Z"), home, away, hscore, ascore, winner, 100));
+                gameId++;
+            }
+        }
+
+        watchedGamesDao = new InMemoryWatchedGamesDao(games);
+        userLadderEntryDao = new InMemoryUserLadderEntryDao(games, watchedGamesDao);
+        for (int userId = 1; userId <= USERS; userId++) {
+            for (Team team : teams) {
+                userLadderEntryDao.addUserLadderEntry(
+                        new UserLadderEntry(userId, team.getTeamId(), 0, 100, 0, team.getName(), 0, 0, 0, 0, 0));
+            }
+        }
+
+        watchedGamesService = new WatchedGamesService(watchedGamesDao, userLadderEntryDao, new InMemoryUserDao(),
+                new InMemoryGameDao(games), new LadderCache(watchedGamesDao, 0, 60),
+                new UserLadderLocks(4), new NoOpTransactionManager());
+    }
+
+    @Test
+    void parallelWatchAndUnwatchStorm_LeavesLaddersConsistent() throws Exception {
+        List<Integer> gameIds = new ArrayList<>(games.keySet());
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int thread = 0; thread < THREADS; thread++) {
+            SplittableRandom random = new SplittableRandom(thread);
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+                    int userId = 1 + random.nextInt(USERS);
+                    int gameId = gameIds.get(random.nextInt(gameIds.size()));
+                    // Round changes rebuild the whole ladder and would hide earlier lost updates, so keep them rare
+                    int operation = random.nextInt(20);
+                    if (operation < 5) {
+                        watchedGamesService.markGameAsWatchedAndUpdateLadder(userId, gameId);
+                    } else if (operation < 10) {
+                        watchedGamesService.markGameAsUnwatchedAndUpdateLadder(userId, gameId);
+                    } else if (operation < 14) {
+                        watchedGamesService.markGamesAsWatched(userId, nextGames(gameIds, gameId));
+                    } else if (operation < 18) {
+                        watchedGamesService.markGamesAsUnwatched(userId, nextGames(gameIds, gameId));
+                    } else if (operation == 18) {
+                        watchedGamesService.markAllGamesInRoundAsWatchedAndUpdateLadder(userId, null, 1 + random.nextInt(4));
+                    } else {
+                        watchedGamesService.markAllGamesInRoundAsUnwatchedAndUpdateLadder(userId, null, 1 + random.nextInt(4));
+                    }
+                }
+                return null;
+            }));
+        }
+
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        for (int userId = 1; userId <= USERS; userId++) {
+            assertLadderMatchesWatchedGames(userId);
+        }
+    }
+
+    private List<Integer> nextGames(List<Integer> gameIds, int gameId) {
+        int index = gameIds.indexOf(gameId);
+        return Arrays.asList(gameIds.get(index), gameIds.get((index + 1) % gameIds.size()),
+                gameIds.get((index + 2) % gameIds.size()));
+    }
+
+    private void assertLadderMatchesWatchedGames(int userId) {
+        List<UserLadderEntry> expected = userLadderEntryDao.buildLadder(userId, 2024);
+        Map<Integer, UserLadderEntry> actual = userLadderEntryDao.getAllUserLadderEntries(userId).stream()
+                .collect(Collectors.toMap(UserLadderEntry::getTeamId, entry -> entry));
+
+        for (UserLadderEntry expectedEntry : expected) {
+            UserLadderEntry actualEntry = actual.get(expectedEntry.getTeamId());
+            String team = "user " + userId + ", " + expectedEntry.getTeamName();
+            assertEquals(expectedEntry.getPoints(), actualEntry.getPoints(), team);
+            assertEquals(expectedEntry.getWins(), actualEntry.getWins(), team);
+            assertEquals(expectedEntry.getLosses(), actualEntry.getLosses(), team);
+            assertEquals(expectedEntry.getDraws(), actualEntry.getDraws(), team);
+            assertEquals(expectedEntry.getPointsFor(), actualEntry.getPointsFor(), team);
+            assertEquals(expectedEntry.getPointsAgainst(), actualEntry.getPointsAgainst(), team);
+            assertEquals(expectedEntry.getPercentage(), actualEntry.getPercentage(), team);
+        }
+    }
+
+    private static class InMemoryWatchedGamesDao implements WatchedGamesDao {
+
+        private final Map<Integer, Game> games;
+        private final Map<Integer, Set<Integer>> watched = new ConcurrentHashMap<>();
+
+        InMemoryWatchedGamesDao(Map<Integer, Game> games) {
+            this.games = games;
+        }
+
+        private Set<Integer> watchedBy(int userId) {
+            return watched.computeIfAbsent(userId, id -> ConcurrentHashMap.newKeySet());
+        }
+
+        private List<Game> filter(int userId, boolean isWatched, Integer year, Integer round) {
+            Set<Integer> watchedGameIds = watchedBy(userId);
+            return games.values().stream()
+                    .filter(game -> watchedGameIds.contains(game.getId()) == isWatched)
+                    .filter(game -> year == null || game.getYear() == year)
+                    .filter(game -> round == null || game.getRound() == round)
+                    .sorted(Comparator.comparing(Game::getId))
+                    .collect(Collectors.toList());
+        }
+
+        @Override
+        public List<Game> findWatchedGames(int userId) {
+            return filter(userId, true, null, null);
+        }
+
+        @Override
+        public List<Game> findWatchedGamesByRound(int userId, int year, int round) {
+            return filter(userId, true, year, round);
+        }
+
+        @Override
+        public void streamWatchedGames(int userId, Consumer<Game> action) {
+            filter(userId, true, null, null).forEach(action);
+        }
+
+        @Override
+        public List<Game> findUnwatchedGames(int userId, int year) {
+            return filter(userId, false, year, null);
+        }
+
+        @Override
+        public void streamUnwatchedGames(int userId, Consumer<Game> action) {
+            filter(userId, false, null, null).forEach(action);
+        }
+
+        @Override
+        public List<Game> findUnwatchedGamesByRound(int userId, int year, int round) {
+            return filter(userId, false, year, round);
+        }
+
+        @Override
+        public void addWatchedGame(int userId, int gameId) {
+            watchedBy(userId).add(gameId);
+        }
+
+        @Override
+        public void addWatchedGames(int userId, List<Integer> gameIds) {
+            watchedBy(userId).addAll(gameIds);
+        }
+
+        @Override
+        public void removeWatchedGame(int userId, int gameId) {
+            watchedBy(userId).remove(gameId);
+        }
+
+        @Override
+        public void removeWatchedGames(int userId, List<Integer> gameIds) {
+            watchedBy(userId).removeAll(gameIds);
+        }
+
+        @Override
+        public void markAllGamesWatched(int userId) {
+            watchedBy(userId).addAll(games.keySet());
+        }
+
+        @Override
+        public void markAllGamesUnwatched(int userId) {
+            watchedBy(userId).clear();
+        }
+
+        @Override
+        public void markAllGamesInRoundWatched(int userId, int year, int round) {
+            filter(userId, false, year, round).forEach(game -> watchedBy(userId).add(game.getId()));
+        }
+
+        @Override
+        public void markAllGamesInRoundUnwatched(int userId, int year, int round) {
+            filter(userId, true, year, round).forEach(game -> watchedBy(userId).remove(game.getId()));
+        }
+
+        @Override
+        public boolean isGameWatched(int userId, int gameId) {
+            return watchedBy(userId).contains(gameId);
+        }
+
+        @Override
+        public List<Integer> findWatchedGameIds(int userId) {
+            return new ArrayList<>(watchedBy(userId));
+        }
+
+        @Override
+        public Set<Integer> findWatchedGameIds(int userId, List<Integer> gameIds) {
+            Set<Integer> result = new HashSet<>(gameIds);
+            result.retainAll(watchedBy(userId));
+            return result;
+        }
+
+        @Override
+        public List<Integer> findUserIdsWatchingGames(List<Integer> gameIds) {
+            return watched.entrySet().stream()
+                    .filter(entry -> gameIds.stream().anyMatch(entry.getValue()::contains))
+                    .map(Map.Entry::getKey)
+                    .collect(Collectors.toList());
+        }
+
+        @Override
+        public Map<Integer, List<Integer>> findUserIdsWatchingEachGame(List<Integer> gameIds) {
+            Map<Integer, List<Integer>> userIdsByGame = new HashMap<>();
+            for (Integer gameId : gameIds) {
+                List<Integer> userIds = findUserIdsWatchingGames(Collections.singletonList(gameId));
+                if (!userIds.isEmpty()) {
+                    userIdsByGame.put(gameId, userIds);
+                }
+            }
+            return userIdsByGame;
+        }
+    }
+
+    private static class InMemoryUserLadderEntryDao implements UserLadderEntryDao {
+
+        private final Map<Integer, Game> games;
+        private final InMemoryWatchedGamesDao watchedGamesDao;
+        private final Map<String, UserLadderEntry> entries = new ConcurrentHashMap<>();
+
+        InMemoryUserLadderEntryDao(Map<Integer, Game> games, InMemoryWatchedGamesDao watchedGamesDao) {
+            this.games = games;
+            this.watchedGamesDao = watchedGamesDao;
+        }
+
+        private static String key(int userId, int teamId) {
+            return userId + ":" + teamId;
+        }
+
+        private static UserLadderEntry copy(UserLadderEntry entry) {
+            return new UserLadderEntry(entry.getUserId(), entry.getTeamId(), entry.getPoints(), entry.getPercentage(),
+                    entry.getPosition(), entry.getTeamName(), entry.getWins(), entry.getLosses(), entry.getDraws(),
+                    entry.getPointsFor(), entry.getPointsAgainst());
+        }
+
+        List<UserLadderEntry> buildLadder(int userId, int year) {
+            Map<Integer, UserLadderEntry> ladder = new HashMap<>();
+            for (UserLadderEntry entry : getAllUserLadderEntries(userId)) {
+                ladder.put(entry.getTeamId(), new UserLadderEntry(userId, entry.getTeamId(), 0, 100, 0,
+                        entry.getTeamName(), 0, 0, 0, 0, 0));
+            }
+            for (Integer gameId : watchedGamesDao.findWatchedGameIds(userId)) {
+                Game game = games.get(gameId);
+                if (game.getYear() != year) {
+                    continue;
+                }
+                LadderDeltaEngine.applyGame(game, ladder.get(game.getHteamId()), ladder.get(game.getAteamId()),
+                        LadderDeltaEngine.WATCH);
+            }
+            return new ArrayList<>(ladder.values());
+        }
+
+        @Override
+        public void addUserLadderEntry(UserLadderEntry userLadderEntry) {
+            entries.put(key(userLadderEntry.getUserId(), userLadderEntry.getTeamId()), copy(userLadderEntry));
+        }
+
+        @Override
+        public void addMissingUserLadderEntries(int userId, List<Integer> teamIds) {
+            for (Integer teamId : teamIds) {
+                entries.putIfAbsent(key(userId, teamId), new UserLadderEntry(userId, teamId, 0, 100, 0, null, 0, 0, 0, 0, 0));
+            }
+        }
+
+        @Override
+        public void updateUserLadderEntry(UserLadderEntry userLadderEntry) {
+            Thread.yield();
+            entries.put(key(userLadderEntry.getUserId(), userLadderEntry.getTeamId()), copy(userLadderEntry));
+        }
+
+        @Override
+        public void updateUserLadderEntries(List<UserLadderEntry> userLadderEntries) {
+            userLadderEntries.forEach(this::updateUserLadderEntry);
+        }
+
+        @Override
+        public void recalculateUserLadderEntries(int userId, int year) {
+            List<UserLadderEntry> ladder = buildLadder(userId, year);
+            ladder.sort(Comparator.comparing(UserLadderEntry::getPoints)
+                    .thenComparing(UserLadderEntry::getPercentage).reversed());
+            for (int i = 0; i < ladder.size(); i++) {
+                ladder.get(i).setPosition(i + 1);
+                updateUserLadderEntry(ladder.get(i));
+            }
+        }
+
+        @Override
+        public void applyLadderDeltas(List<Integer> userIds, List<UserLadderEntry> deltas) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void recalculatePercentagesAndPositions(List<Integer> userIds) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void deleteUserLadderEntry(int userId, int teamId) {
+            entries.remove(key(userId, teamId));
+        }
+
+        @Override
+        public UserLadderEntry getUserLadderEntry(int userId, int teamId) {
+            UserLadderEntry entry = entries.get(key(userId, teamId));
+            Thread.yield();
+            return entry == null ? null : copy(entry);
+        }
+
+        @Override
+        public List<UserLadderEntry> getAllUserLadderEntries(int userId) {
+            List<UserLadderEntry> ladder = entries.values().stream()
+                    .filter(entry -> entry.getUserId() == userId)
+                    .map(InMemoryUserLadderEntryDao::copy)
+                    .sorted(Comparator.comparing(UserLadderEntry::getTeamId))
+                    .collect(Collectors.toList());
+            Thread.yield();
+            return ladder;
+        }
+    }
+
+    private static class InMemoryUserDao implements UserDao {
+
+        @Override
+        public boolean userExists(int userId) {
+            return userId >= 1 && userId <= USERS;
+        }
+
+        @Override
+        public void lockUser(int userId) {
+            // Row locks are not modelled; the striped locks alone must keep ladders consistent on one instance
+        }
+
+        @Override
+        public void lockUsers(List<Integer> userIds) {
+        }
+
+        @Override
+        public List<User> getUsers() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public User getUserById(int id) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public User getUserByUsername(String username) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public User createUser(RegisterUserDto user) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void updateLastLogin(String username) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void updateLastActive(String username) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    private static class InMemoryGameDao implements GameDao {
+
+        private final Map<Integer, Game> games;
+
+        InMemoryGameDao(Map<Integer, Game> games) {
+            this.games = games;
+        }
+
+        @Override
+        public Game findGameById(int id) {
+            return games.get(id);
+        }
+
+        @Override
+        public List<Game> findGamesByIds(List<Integer> ids) {
+            return ids.stream().map(games::get).filter(game -> game != null).collect(Collectors.toList());
+        }
+
+        @Override
+        public List<Game> findGamesByIdsForUpdate(List<Integer> ids) {
+            return findGamesByIds(ids);
+        }
+
+        @Override
+        public List<Game> findAllGames() {
+            return new ArrayList<>(games.values());
+        }
+
+        @Override
+        public void streamAllGames(Consumer<Game> action) {
+            games.values().forEach(action);
+        }
+
+        @Override
+        public int findLatestYear() {
+            return games.values().stream().mapToInt(Game::getYear).max().orElse(0);
+        }
+
+        @Override
+        public List<Game> findGamesByRound(int round) {
+            return games.values().stream().filter(game -> game.getRound() == round).collect(Collectors.toList());
+        }
+
+        @Override
+        public List<Game> findCompleteGames() {
+            return findAllGames();
+        }
+
+        @Override
+        public List<Game> findIncompleteGames() {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public List<Game> findGamesBetween(OffsetDateTime from, OffsetDateTime to) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public List<Game> findUpcomingGames(OffsetDateTime after, int limit) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public List<Game> findRecentCompleteGames(OffsetDateTime before, int limit) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Integer findWinnerIdByGameId(int id) {
+            return games.get(id).getWinnerId();
+        }
+
+        @Override
+        public void saveAll(List<Game> games) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    private static class NoOpTransactionManager implements PlatformTransactionManager {
+
+        @Override
+        public TransactionStatus getTransaction(TransactionDefinition definition) {
+            return new SimpleTransactionStatus();
+        }
+
+        @Override
+        public void commit(TransactionStatus status) {
+        }
+
+        @Override
+        public void rollback(TransactionStatus status) {
+        }
+    }
+}
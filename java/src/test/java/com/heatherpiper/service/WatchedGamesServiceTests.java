@@ -2,16 +2,23 @@ package com.heatherpiper.service;
 
 import com.heatherpiper.dao.*;
 import com.heatherpiper.model.Game;
+import com.heatherpiper.model.GameDates;
 import com.heatherpiper.model.UserLadderEntry;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.JdbcUpdateAffectedIncorrectNumberOfRowsException;
+import org.springframework.transaction.PlatformTransactionManager;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Set;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.*;
@@ -32,7 +39,13 @@ public class WatchedGamesServiceTests {
     private JdbcGameDao gameDao;
 
     @Mock
-    private JdbcTeamDao teamDao;
+    private LadderCache ladderCache;
+
+    @Spy
+    private UserLadderLocks userLadderLocks = new UserLadderLocks(4);
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
 
     @InjectMocks
     private WatchedGamesService watchedGamesService;
@@ -44,18 +57,14 @@ public class WatchedGamesServiceTests {
         int gameId = 1;
         int teamAId = 1;
         int teamBId = 2;
-        Game mockGame = new Game (1, 1, 2023, "2024-03-15T08:40:00Z", "Team A", "Team B", 100, 90, "Team A", 100);
+        Game mockGame = new Game (1, 1, 2023, GameDates.parse("2024-03-15T08:40:00Z"), 1, 2, 100, 90, 1, 100);
         UserLadderEntry mockEntryTeamA = new UserLadderEntry(1, 1, 4, 110, 1, "Team A", 1, 0, 0, 100, 90);
         UserLadderEntry mockEntryTeamB = new UserLadderEntry(1, 2, 0, 90, 18, "Team B", 0, 1, 0, 90, 100);
 
-        when(userDao.userExists(userId)).thenReturn(true);
         when(gameDao.findGameById(gameId)).thenReturn(mockGame);
+        when(gameDao.findLatestYear()).thenReturn(2023);
         when(watchedGamesDao.isGameWatched(userId, gameId)).thenReturn(false);
 
-        // Mocking teamDao to return valid IDs for team names
-        when(teamDao.findTeamIdByName("Team A")).thenReturn(teamAId);
-        when(teamDao.findTeamIdByName("Team B")).thenReturn(teamBId);
-
         // Mocking userLadderEntryDao to return a mock UserLadderEntry for each team
         when(userLadderEntryDao.getUserLadderEntry(userId, teamAId)).thenReturn(mockEntryTeamA);
         when(userLadderEntryDao.getUserLadderEntry(userId, teamBId)).thenReturn(mockEntryTeamB);
@@ -65,9 +74,18 @@ public class WatchedGamesServiceTests {
 
         // Assert
         verify(watchedGamesDao).addWatchedGame(userId, gameId);
-        // Verify that updateUserLadderEntry is called for both teams involved in the game
-        verify(userLadderEntryDao, times(2)).updateUserLadderEntry(argThat(entry ->
-                entry.getUserId() == userId && (entry.getTeamId() == teamAId || entry.getTeamId() == teamBId)));
+        // Verify that the entries of both teams involved in the game are written in one batch
+        verify(userLadderEntryDao, times(1)).updateUserLadderEntries(List.of(mockEntryTeamA, mockEntryTeamB));
+        verify(userLadderEntryDao, never()).updateUserLadderEntry(any(UserLadderEntry.class));
+        // Verify that the game's result was applied on top of the existing entries
+        assertEquals(8, mockEntryTeamA.getPoints());
+        assertEquals(2, mockEntryTeamA.getWins());
+        assertEquals(200, mockEntryTeamA.getPointsFor());
+        assertEquals(0, mockEntryTeamB.getPoints());
+        assertEquals(2, mockEntryTeamB.getLosses());
+        assertEquals(200, mockEntryTeamB.getPointsAgainst());
+        // Verify that the full list of watched games is no longer rescanned
+        verify(watchedGamesDao, never()).findWatchedGames(anyInt());
     }
 
     @Test
@@ -77,18 +95,14 @@ public class WatchedGamesServiceTests {
         int gameId = 1;
         int teamAId = 1;
         int teamBId = 2;
-        Game mockGame = new Game(1, 1, 2023, "2024-03-15T08:40:00Z", "Team A", "Team B", 100, 90, "Team A", 100);
+        Game mockGame = new Game(1, 1, 2023, GameDates.parse("2024-03-15T08:40:00Z"), 1, 2, 100, 90, 1, 100);
         UserLadderEntry mockEntryTeamA = new UserLadderEntry(1, 1, 4, 110, 1, "Team A", 1, 0, 0, 100, 90);
         UserLadderEntry mockEntryTeamB = new UserLadderEntry(1, 2, 0, 90, 18, "Team B", 0, 1, 0, 90, 100);
 
-        when(userDao.userExists(userId)).thenReturn(true);
         when(gameDao.findGameById(gameId)).thenReturn(mockGame);
+        when(gameDao.findLatestYear()).thenReturn(2023);
         when(watchedGamesDao.isGameWatched(userId, gameId)).thenReturn(true); // The game is initially marked as watched
 
-        // Mocking teamDao to return valid IDs for team names
-        when(teamDao.findTeamIdByName("Team A")).thenReturn(teamAId);
-        when(teamDao.findTeamIdByName("Team B")).thenReturn(teamBId);
-
         // Mocking userLadderEntryDao to return mock UserLadderEntry objects for each team
         when(userLadderEntryDao.getUserLadderEntry(userId, teamAId)).thenReturn(mockEntryTeamA);
         when(userLadderEntryDao.getUserLadderEntry(userId, teamBId)).thenReturn(mockEntryTeamB);
@@ -98,9 +112,15 @@ public class WatchedGamesServiceTests {
 
         // Assert
         verify(watchedGamesDao).removeWatchedGame(userId, gameId);
-        // Verify that updateUserLadderEntry is called for both teams involved in the game
-        verify(userLadderEntryDao, times(2)).updateUserLadderEntry(argThat(entry ->
-                entry.getUserId() == userId && (entry.getTeamId() == teamAId || entry.getTeamId() == teamBId)));
+        // Verify that the entries of both teams involved in the game are written in one batch
+        verify(userLadderEntryDao, times(1)).updateUserLadderEntries(List.of(mockEntryTeamA, mockEntryTeamB));
+        verify(userLadderEntryDao, never()).updateUserLadderEntry(any(UserLadderEntry.class));
+        // Verify that the game's result was removed from the existing entries
+        assertEquals(0, mockEntryTeamA.getPoints());
+        assertEquals(0, mockEntryTeamA.getWins());
+        assertEquals(100.0, mockEntryTeamA.getPercentage());
+        assertEquals(0, mockEntryTeamB.getLosses());
+        assertEquals(0, mockEntryTeamB.getPointsFor());
     }
 
     @Test
@@ -125,47 +145,219 @@ public class WatchedGamesServiceTests {
         // Verify no attempt made to mark game as watched again or update ladder
         verify(watchedGamesDao, never()).addWatchedGame(anyInt(), anyInt());
         verify(userLadderEntryDao, never()).updateUserLadderEntry(any(UserLadderEntry.class));
+        verify(userLadderEntryDao, never()).updateUserLadderEntries(anyList());
     }
 
     @Test
-    void whenGameMarkedAsWatchedSequentially_withValidGames_ThenLadderIsUpdatedForAll() {
+    void whenGamesMarkedAsWatched_withValidGames_ThenLadderIsUpdatedOnceForAll() {
+        // Arrange
+        int userId = 1;
+        List<Integer> gameIds = Arrays.asList(1, 2, 3);
+        Game mockGame1 = new Game(1, 1, 2023, GameDates.parse("2024-03-15T08:40:00Z"), 1, 2, 100, 90, 1, 100);
+        Game mockGame2 = new Game(2, 1, 2023, GameDates.parse("2024-03-15T08:40:00Z"), 3, 4, 110, 100, 3, 100);
+        Game mockGame3 = new Game(3, 2, 2023, GameDates.parse("2024-03-22T08:40:00Z"), 1, 3, 80, 80, null, 100);
+        List<UserLadderEntry> ladder = new ArrayList<>(Arrays.asList(
+                new UserLadderEntry(1, 1, 0, 100, 0, "Team A", 0, 0, 0, 0, 0),
+                new UserLadderEntry(1, 2, 0, 100, 0, "Team B", 0, 0, 0, 0, 0),
+                new UserLadderEntry(1, 3, 0, 100, 0, "Team C", 0, 0, 0, 0, 0),
+                new UserLadderEntry(1, 4, 0, 100, 0, "Team D", 0, 0, 0, 0, 0)));
+
+        when(userDao.userExists(userId)).thenReturn(true);
+        when(gameDao.findGamesByIds(gameIds)).thenReturn(Arrays.asList(mockGame1, mockGame2, mockGame3));
+        when(gameDao.findLatestYear()).thenReturn(2023);
+        // Game 3 is already watched and should be skipped
+        when(watchedGamesDao.findWatchedGameIds(userId, gameIds)).thenReturn(Set.of(3));
+        when(userLadderEntryDao.getAllUserLadderEntries(userId)).thenReturn(ladder);
+
+        // Act
+        watchedGamesService.markGamesAsWatched(userId, gameIds);
+
+        // Assert
+        // Verify that the unwatched games were inserted with a single call
+        verify(watchedGamesDao).addWatchedGames(userId, Arrays.asList(1, 2));
+        verify(watchedGamesDao, never()).addWatchedGame(anyInt(), anyInt());
+        // Verify that the ladder was read and written once, without per-game lookups
+        verify(userLadderEntryDao, times(1)).getAllUserLadderEntries(userId);
+        verify(userLadderEntryDao, times(1)).updateUserLadderEntries(ladder);
+        verify(userLadderEntryDao, never()).updateUserLadderEntry(any(UserLadderEntry.class));
+
+        UserLadderEntry teamA = ladder.stream().filter(entry -> entry.getTeamId() == 1).findFirst().orElseThrow();
+        UserLadderEntry teamC = ladder.stream().filter(entry -> entry.getTeamId() == 3).findFirst().orElseThrow();
+        assertEquals(4, teamA.getPoints());
+        assertEquals(4, teamC.getPoints());
+        assertEquals(1, teamA.getPosition());
+        assertEquals(1, ladder.stream().filter(entry -> entry.getTeamId() == 2).findFirst().orElseThrow().getLosses());
+    }
+
+    @Test
+    void whenGamesMarkedAsWatched_withTeamMissingFromLadder_ThenEntryIsAddedFirst() {
+        // Arrange
+        int userId = 1;
+        List<Integer> gameIds = List.of(5);
+        // Team 19 was stored after the user's ladder was created
+        Game newTeamGame = new Game(5, 1, 2023, GameDates.parse("2024-03-30T03:00:00Z"), 1, 19, 100, 90, 1, 100);
+        List<UserLadderEntry> ladder = new ArrayList<>(List.of(
+                new UserLadderEntry(1, 1, 0, 100, 0, "Team A", 0, 0, 0, 0, 0)));
+        List<UserLadderEntry> ladderWithTeam19 = new ArrayList<>(List.of(
+                new UserLadderEntry(1, 1, 0, 100, 0, "Team A", 0, 0, 0, 0, 0),
+                new UserLadderEntry(1, 19, 0, 100, 0, "Fitzroy", 0, 0, 0, 0, 0)));
+
+        when(userDao.userExists(userId)).thenReturn(true);
+        when(gameDao.findGamesByIds(gameIds)).thenReturn(List.of(newTeamGame));
+        when(gameDao.findLatestYear()).thenReturn(2023);
+        when(watchedGamesDao.findWatchedGameIds(userId, gameIds)).thenReturn(Set.of());
+        when(userLadderEntryDao.getAllUserLadderEntries(userId)).thenReturn(ladder, ladderWithTeam19);
+
+        // Act
+        watchedGamesService.markGamesAsWatched(userId, gameIds);
+
+        // Assert
+        verify(userLadderEntryDao).addMissingUserLadderEntries(userId, List.of(19));
+        verify(userLadderEntryDao).updateUserLadderEntries(ladderWithTeam19);
+        UserLadderEntry team19 = ladderWithTeam19.stream().filter(entry -> entry.getTeamId() == 19).findFirst().orElseThrow();
+        assertEquals(1, team19.getLosses());
+        assertEquals(2, team19.getPosition());
+    }
+
+    @Test
+    void whenGamesMarkedAsUnwatched_withWatchedGames_ThenLadderIsReversedOnceForAll() {
         // Arrange
         int userId = 1;
         List<Integer> gameIds = Arrays.asList(1, 2);
-        Game mockGame1 = new Game(1, 1, 2023, "2024-03-15T08:40:00Z", "Team A", "Team B", 100, 90, "Team A", 100);
-        Game mockGame2 = new Game(2, 1, 2023, "2024-03-15T08:40:00Z", "Team C", "Team D", 110, 100, "Team C", 100);
-        int teamAId = 1, teamBId = 2, teamCId = 3, teamDId = 4;
+        Game mockGame1 = new Game(1, 1, 2023, GameDates.parse("2024-03-15T08:40:00Z"), 1, 2, 100, 90, 1, 100);
+        Game mockGame2 = new Game(2, 1, 2023, GameDates.parse("2024-03-15T08:40:00Z"), 3, 4, 110, 100, 3, 100);
+        List<UserLadderEntry> ladder = new ArrayList<>(Arrays.asList(
+                new UserLadderEntry(1, 1, 4, 111.11, 1, "Team A", 1, 0, 0, 100, 90),
+                new UserLadderEntry(1, 2, 0, 90, 4, "Team B", 0, 1, 0, 90, 100),
+                new UserLadderEntry(1, 3, 0, 100, 2, "Team C", 0, 0, 0, 0, 0),
+                new UserLadderEntry(1, 4, 0, 100, 3, "Team D", 0, 0, 0, 0, 0)));
 
         when(userDao.userExists(userId)).thenReturn(true);
-        when(gameDao.findGameById(1)).thenReturn(mockGame1);
-        when(gameDao.findGameById(2)).thenReturn(mockGame2);
-        when(watchedGamesDao.isGameWatched(userId, 1)).thenReturn(false);
-        when(watchedGamesDao.isGameWatched(userId, 2)).thenReturn(false);
+        when(gameDao.findGamesByIds(gameIds)).thenReturn(Arrays.asList(mockGame1, mockGame2));
+        when(gameDao.findLatestYear()).thenReturn(2023);
+        // Only game 1 is currently watched
+        when(watchedGamesDao.findWatchedGameIds(userId, gameIds)).thenReturn(Set.of(1));
+        when(userLadderEntryDao.getAllUserLadderEntries(userId)).thenReturn(ladder);
 
-        // Mocking teamDao to return valid IDs for team names
-        when(teamDao.findTeamIdByName("Team A")).thenReturn(teamAId);
-        when(teamDao.findTeamIdByName("Team B")).thenReturn(teamBId);
-        when(teamDao.findTeamIdByName("Team C")).thenReturn(teamCId);
-        when(teamDao.findTeamIdByName("Team D")).thenReturn(teamDId);
+        // Act
+        watchedGamesService.markGamesAsUnwatched(userId, gameIds);
 
-        // Mocking userLadderEntryDao to return mock UserLadderEntry objects for each team
-        when(userLadderEntryDao.getUserLadderEntry(userId, teamAId)).thenReturn(new UserLadderEntry(1, 1, 4, 110, 1, "Team A", 1, 0, 0, 100, 90));
-        when(userLadderEntryDao.getUserLadderEntry(userId, teamBId)).thenReturn(new UserLadderEntry(1, 2, 0, 90, 18,
-                "Team B", 0, 1, 0, 90, 100));
-        when(userLadderEntryDao.getUserLadderEntry(userId, teamCId)).thenReturn(new UserLadderEntry(1, 3, 4, 105, 2,
-                "Team C", 1, 0, 0, 105, 100));
-        when(userLadderEntryDao.getUserLadderEntry(userId, teamDId)).thenReturn(new UserLadderEntry(1, 4, 0, 100, 17,
-                "Team D", 0, 1, 0, 100, 105));
+        // Assert
+        verify(watchedGamesDao).removeWatchedGames(userId, List.of(1));
+        verify(userLadderEntryDao, times(1)).updateUserLadderEntries(ladder);
+        for (UserLadderEntry entry : ladder) {
+            assertEquals(0, entry.getPoints());
+            assertEquals(0, entry.getWins() + entry.getLosses() + entry.getDraws());
+            assertEquals(100.0, entry.getPercentage());
+        }
+    }
+
+    @Test
+    void whenGamesMarkedAsWatched_withMissingGame_ThrowsException() {
+        int userId = 1;
+        List<Integer> gameIds = Arrays.asList(1, 99);
+        when(userDao.userExists(userId)).thenReturn(true);
+        when(gameDao.findGamesByIds(gameIds)).thenReturn(List.of(
+                new Game(1, 1, 2023, GameDates.parse("2024-03-15T08:40:00Z"), 1, 2, 100, 90, 1, 100)));
+
+        assertThrows(IllegalArgumentException.class, () -> watchedGamesService.markGamesAsWatched(userId, gameIds));
+
+        verify(watchedGamesDao, never()).addWatchedGames(anyInt(), anyList());
+        verify(userLadderEntryDao, never()).updateUserLadderEntries(anyList());
+        verifyNoInteractions(ladderCache);
+    }
+
+    @Test
+    void whenGamesMarkedAsWatched_withLadderEntryNotWritten_ThenTransactionIsRolledBack() {
+        // Arrange
+        int userId = 1;
+        List<Integer> gameIds = List.of(1);
+        Game game = new Game(1, 1, 2023, GameDates.parse("2024-03-15T08:40:00Z"), 1, 2, 100, 90, 1, 100);
+        List<UserLadderEntry> ladder = new ArrayList<>(Arrays.asList(
+                new UserLadderEntry(1, 1, 0, 100, 0, "Team A", 0, 0, 0, 0, 0),
+                new UserLadderEntry(1, 2, 0, 100, 0, "Team B", 0, 0, 0, 0, 0)));
+
+        when(userDao.userExists(userId)).thenReturn(true);
+        when(gameDao.findGamesByIds(gameIds)).thenReturn(List.of(game));
+        when(gameDao.findLatestYear()).thenReturn(2023);
+        when(watchedGamesDao.findWatchedGameIds(userId, gameIds)).thenReturn(Set.of());
+        when(userLadderEntryDao.getAllUserLadderEntries(userId)).thenReturn(ladder);
+        // The row of one entry was deleted concurrently, so the batch writes only one of the two entries
+        doThrow(new JdbcUpdateAffectedIncorrectNumberOfRowsException("UPDATE user_ladder", 2, 1))
+                .when(userLadderEntryDao).updateUserLadderEntries(ladder);
 
         // Act
-        watchedGamesService.markGamesAsWatchedSequentially(userId, gameIds);
+        assertThrows(JdbcUpdateAffectedIncorrectNumberOfRowsException.class,
+                () -> watchedGamesService.markGamesAsWatched(userId, gameIds));
 
         // Assert
-        // Verify that each game was marked as watched
-        verify(watchedGamesDao).addWatchedGame(userId, 1);
-        verify(watchedGamesDao).addWatchedGame(userId, 2);
-        // Verify that updateUserLadderEntry is called for each team involved in the games
-        verify(userLadderEntryDao, times(4)).updateUserLadderEntry(any(UserLadderEntry.class));
+        // The watched games inserted earlier in the transaction are rolled back with the partly written ladder
+        verify(watchedGamesDao).addWatchedGames(userId, gameIds);
+        verify(transactionManager).rollback(any());
+        verify(transactionManager, never()).commit(any());
+    }
+
+    @Test
+    void whenRoundMarkedAsWatched_ThenSetOperationAndSingleRecalculationAreUsed() {
+        int userId = 1;
+        int round = 3;
+        when(userDao.userExists(userId)).thenReturn(true);
+        when(gameDao.findLatestYear()).thenReturn(2023);
+
+        watchedGamesService.markAllGamesInRoundAsWatchedAndUpdateLadder(userId, null, round);
+
+        // Without a season, the round of the current season is marked
+        verify(watchedGamesDao).markAllGamesInRoundWatched(userId, 2023, round);
+        verify(userLadderEntryDao).recalculateUserLadderEntries(userId, 2023);
+        verify(ladderCache).invalidate(userId);
+        verify(watchedGamesDao, never()).findUnwatchedGamesByRound(anyInt(), anyInt(), anyInt());
+        verify(gameDao, never()).findGamesByIds(anyList());
+    }
+
+    @Test
+    void whenRoundOfEarlierSeasonMarkedAsWatched_ThenStoredLadderIsUnchanged() {
+        int userId = 1;
+        when(userDao.userExists(userId)).thenReturn(true);
+        when(gameDao.findLatestYear()).thenReturn(2023);
+
+        watchedGamesService.markAllGamesInRoundAsWatchedAndUpdateLadder(userId, 1996, 3);
+
+        verify(watchedGamesDao).markAllGamesInRoundWatched(userId, 1996, 3);
+        verify(userLadderEntryDao, never()).recalculateUserLadderEntries(anyInt(), anyInt());
+        verify(ladderCache).invalidate(userId);
+    }
+
+    @Test
+    void whenRoundMarkedAsUnwatched_withUnknownUser_ThrowsException() {
+        int userId = 42;
+        when(userDao.userExists(userId)).thenReturn(false);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> watchedGamesService.markAllGamesInRoundAsUnwatchedAndUpdateLadder(userId, null, 1));
+
+        verify(watchedGamesDao, never()).markAllGamesInRoundUnwatched(anyInt(), anyInt(), anyInt());
+        verify(userLadderEntryDao, never()).recalculateUserLadderEntries(anyInt(), anyInt());
+    }
+
+    @Test
+    void whenLadderReset_ThenWholeLadderIsWrittenInOneBatch() {
+        int userId = 1;
+        List<UserLadderEntry> ladder = new ArrayList<>(Arrays.asList(
+                new UserLadderEntry(1, 1, 4, 111.11, 1, "Team A", 1, 0, 0, 100, 90),
+                new UserLadderEntry(1, 2, 0, 90, 2, "Team B", 0, 1, 0, 90, 100)));
+        when(userDao.userExists(userId)).thenReturn(true);
+        when(userLadderEntryDao.getAllUserLadderEntries(userId)).thenReturn(ladder);
+
+        watchedGamesService.resetUserLadderAndMarkAllGamesUnwatched(userId);
+
+        verify(userLadderEntryDao, times(1)).updateUserLadderEntries(ladder);
+        verify(userLadderEntryDao, never()).updateUserLadderEntry(any(UserLadderEntry.class));
+        verify(watchedGamesDao).markAllGamesUnwatched(userId);
+        for (UserLadderEntry entry : ladder) {
+            assertEquals(0, entry.getPoints());
+            assertEquals(0, entry.getPosition());
+            assertEquals(100.0, entry.getPercentage());
+        }
     }
 
 }
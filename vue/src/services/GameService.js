@@ -23,6 +23,18 @@ export default {
         return axios.get(`${API_URL}/games/incomplete`);
     },
 
+    getGamesBetween(from, to) {
+        return axios.get(`${API_URL}/games/between`, { params: { from: from.toISOString(), to: to.toISOString() } });
+    },
+
+    getUpcomingGames(limit) {
+        return axios.get(`${API_URL}/games/upcoming`, { params: { limit } });
+    },
+
+    getRecentGames(limit) {
+        return axios.get(`${API_URL}/games/recent`, { params: { limit } });
+    },
+
     refreshGameData(year) {
         return axios.post(`${API_URL}/games/refreshGames`, null, { params: { year } });
     }